@@ -7,6 +7,7 @@ import java.io.File;
 import java.io.IOException;
 import java.security.Principal;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -93,6 +94,25 @@ public interface AiService {
      */
     Embedding embed(String modelId, String text);
 
+    /**
+     * Embed a list of texts with the default model.
+     * <p>
+     * The texts are sent to the model in batches, which is much faster than embedding the texts one at a time.
+     *
+     * @param texts the texts to embed
+     * @return the embeddings, in the same order as the texts
+     */
+    List<Embedding> embedAll(List<String> texts);
+
+    /**
+     * Embed a list of texts using a given model.
+     *
+     * @param modelId the model to use
+     * @param texts   the texts to embed
+     * @return the embeddings, in the same order as the texts
+     */
+    List<Embedding> embedAll(String modelId, List<String> texts);
+
     /**
      * Summarizes the text content using the best available model for summarization.
      *
@@ -1,5 +1,8 @@
 package net.microfalx.bootstrap.ai.api;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Represents a dense vector embedding of a text.
  */
@@ -43,6 +46,24 @@ public interface Embedding {
          * @return the maker instance
          */
         Embedding createEmbedding(Model model, String text);
+
+        /**
+         * Creates embeddings for a list of texts, with the given model.
+         * <p>
+         * Factories which can process more than one text in one request should override this method, the default
+         * implementation creates the embeddings one at a time.
+         *
+         * @param model the model to use for embedding
+         * @param texts the texts to embed
+         * @return the embeddings, in the same order as the texts
+         */
+        default List<Embedding> createEmbeddings(Model model, List<String> texts) {
+            List<Embedding> embeddings = new ArrayList<>(texts.size());
+            for (String text : texts) {
+                embeddings.add(createEmbedding(model, text));
+            }
+            return embeddings;
+        }
     }
 
 }
@@ -2,11 +2,16 @@ package net.microfalx.bootstrap.ai.api;
 
 import java.time.Duration;
 import java.util.Iterator;
+import java.util.concurrent.Flow;
 
 /**
  * An interface representing a stream of tokens, typically used in language model processing.
+ * <p>
+ * The tokens are consumed either by iterating the stream (which blocks until the next token is available) or by
+ * {@link #subscribe(Flow.Subscriber) subscribing} to the stream, which pushes the tokens as they arrive from the
+ * model, as many as requested by the subscriber. A stream is consumed only once, by one of the two methods.
  */
-public interface TokenStream extends Iterator<Token>, TokenUsage {
+public interface TokenStream extends Iterator<Token>, TokenUsage, Flow.Publisher<Token> {
 
     /**
      * Returns the complete answered message associated with this stream.
@@ -49,4 +54,9 @@ public interface TokenStream extends Iterator<Token>, TokenUsage {
      * @return {@code true} if the stream has been fully consumed, {@code false} otherwise.
      */
     boolean isComplete();
+
+    /**
+     * Cancels the stream, the model stops generating tokens.
+     */
+    void cancel();
 }
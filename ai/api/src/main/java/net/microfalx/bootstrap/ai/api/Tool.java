@@ -25,6 +25,8 @@ public class Tool extends NamedAndTaggedIdentifyAware<String> {
 
     private Map<String, Parameter> parameters;
     private Executor executor;
+    private Duration timeout;
+    private boolean idempotent;
 
     /**
      * Creates a new instance of a builder for a tool with the specified name.
@@ -54,6 +56,25 @@ public class Tool extends NamedAndTaggedIdentifyAware<String> {
         return executor;
     }
 
+    /**
+     * Returns how long the tool can run before its execution is cancelled.
+     *
+     * @return the timeout, null to use the default timeout
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Returns whether the tool returns the same result for the same arguments (and has no side effects), which
+     * allows its results to be cached.
+     *
+     * @return {@code true} if idempotent, {@code false} otherwise
+     */
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
     /**
      * An interface representing a request to execute a tool.
      */
@@ -309,6 +330,8 @@ public class Tool extends NamedAndTaggedIdentifyAware<String> {
         private final Map<String, Parameter> parameters = new LinkedHashMap<>();
         private final Map<String, Object> values = new HashMap<>();
         private Executor executor;
+        private Duration timeout;
+        private boolean idempotent;
 
         /**
          * Registers a parameter with the tool.
@@ -347,6 +370,28 @@ public class Tool extends NamedAndTaggedIdentifyAware<String> {
             return this;
         }
 
+        /**
+         * Sets how long the tool can run before its execution is cancelled.
+         *
+         * @param timeout the timeout, null to use the default timeout
+         * @return self
+         */
+        public Builder timeout(Duration timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * Sets whether the tool returns the same result for the same arguments (and has no side effects).
+         *
+         * @param idempotent {@code true} if idempotent, {@code false} otherwise
+         * @return self
+         */
+        public Builder idempotent(boolean idempotent) {
+            this.idempotent = idempotent;
+            return this;
+        }
+
         @Override
         protected String updateId() {
             return StringUtils.toIdentifier(name());
@@ -363,6 +408,8 @@ public class Tool extends NamedAndTaggedIdentifyAware<String> {
             Tool tool = (Tool) super.build();
             tool.parameters = parameters;
             tool.executor = executor;
+            tool.timeout = timeout;
+            tool.idempotent = idempotent;
             return tool;
         }
     }
@@ -12,6 +12,7 @@ import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
 import org.springframework.ai.chat.client.advisor.api.Advisor;
 import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.ChatOptions;
@@ -59,6 +60,7 @@ public abstract class AbstractChat extends NamedAndTaggedIdentifyAware<String> i
     private ChatModel chatModel;
 
     private ChatMemory chatMemory;
+    private ChatMemoryRepository chatMemoryRepository;
     private ChatClient client;
     private TokenCountEstimator tokenCountEstimator;
     private AiServiceImpl service;
@@ -167,7 +169,7 @@ public abstract class AbstractChat extends NamedAndTaggedIdentifyAware<String> i
         Collection<Message> messages = new ArrayList<>();
         Message currentSystemMessage = getSystemMessage();
         if (includeSystemMessage && !currentSystemMessage.isEmpty()) messages.add(currentSystemMessage);
-        chatMemory.get(getId()).stream().map(MessageImpl::create).forEach((messages::add));
+        chatMemoryRepository.findByConversationId(getId()).stream().map(MessageImpl::create).forEach((messages::add));
         return messages;
     }
 
@@ -178,7 +180,7 @@ public abstract class AbstractChat extends NamedAndTaggedIdentifyAware<String> i
 
     @Override
     public int getMessageCount() {
-        return chatMemory.get(getId()).size();
+        return chatMemoryRepository.findByConversationId(getId()).size();
     }
 
     @Override
@@ -196,7 +198,12 @@ public abstract class AbstractChat extends NamedAndTaggedIdentifyAware<String> i
     @Override
     public net.microfalx.bootstrap.ai.api.TokenStream chat(String message) {
         validate();
-        Flux<ChatResponse> chatResponse = client.prompt(message).stream().chatResponse();
+        if (chatMemory instanceof TokenWindowChatMemory tokenWindowChatMemory) {
+            tokenWindowChatMemory.prepare(getId(), message, getMemoryTokens(tokenWindowChatMemory), internal.get());
+        }
+        Flux<ChatResponse> chatResponse = client.prompt(message)
+                .advisors(advisor -> advisor.param(ChatMemory.CONVERSATION_ID, getId()))
+                .stream().chatResponse();
         return new TokenStreamHandler(service, this, chatResponse);
     }
 
@@ -387,6 +394,7 @@ public abstract class AbstractChat extends NamedAndTaggedIdentifyAware<String> i
         initializePrincipal();
         this.service = service;
         this.chatMemory = service.getChatMemory();
+        this.chatMemoryRepository = service.getChatMemoryRepository();
         this.tokenCountEstimator = new JTokkitTokenCountEstimator();
         client = createClient();
         streamCompleted(new TokenStreamImpl(Collections.emptyIterator()));
@@ -504,6 +512,12 @@ public abstract class AbstractChat extends NamedAndTaggedIdentifyAware<String> i
         lastActivity.set(System.currentTimeMillis());
     }
 
+    private int getMemoryTokens(TokenWindowChatMemory chatMemory) {
+        int maximumTokens = chatMemory.getMaximumTokens();
+        int contextLength = model.getMaximumContextLength();
+        return contextLength > 0 ? Math.min(maximumTokens, contextLength / 2) : maximumTokens;
+    }
+
     private int getNextChatIndex() {
         AtomicInteger counter = CHAT_COUNTERS.computeIfAbsent(getUser().getName(), id -> new AtomicInteger(1));
         return counter.getAndIncrement();
@@ -511,7 +525,6 @@ public abstract class AbstractChat extends NamedAndTaggedIdentifyAware<String> i
 
     private List<Advisor> getAdvisors() {
         List<Advisor> advisors = new ArrayList<>();
-        // TODO conversationId(getId()) went away, why?
         advisors.add(MessageChatMemoryAdvisor.builder(chatMemory).build());
         return advisors;
     }
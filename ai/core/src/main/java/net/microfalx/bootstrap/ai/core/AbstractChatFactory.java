@@ -4,6 +4,7 @@ import lombok.Getter;
 import lombok.Setter;
 import net.microfalx.bootstrap.ai.api.Chat;
 import net.microfalx.lang.JvmUtils;
+import org.springframework.ai.model.tool.ToolCallingManager;
 
 import java.io.File;
 
@@ -29,6 +30,20 @@ public abstract class AbstractChatFactory implements Chat.Factory {
     @Setter
     private AiServiceImpl aiService;
 
+    /**
+     * Returns the manager which executes the tools requested by models, executing the tools requested in one turn
+     * concurrently.
+     *
+     * @return a non-null instance
+     */
+    protected final ToolCallingManager getToolCallingManager() {
+        if (aiService != null && aiService.getToolCallingManager() != null) {
+            return aiService.getToolCallingManager();
+        } else {
+            return ToolCallingManager.builder().build();
+        }
+    }
+
     /**
      * Returns a directory used to cache models.
      *
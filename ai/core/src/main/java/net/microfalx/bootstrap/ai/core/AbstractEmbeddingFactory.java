@@ -1,5 +1,7 @@
 package net.microfalx.bootstrap.ai.core;
 
+import lombok.Getter;
+import lombok.Setter;
 import net.microfalx.bootstrap.ai.api.Embedding;
 import net.microfalx.bootstrap.ai.api.Model;
 
@@ -10,6 +12,13 @@ import static net.microfalx.lang.ArgumentUtils.requireNonNull;
  */
 public abstract class AbstractEmbeddingFactory implements Embedding.Factory {
 
+    /**
+     * Properties to be used with the embedding factory.
+     */
+    @Getter
+    @Setter
+    private AiProperties properties = new AiProperties();
+
     /**
      * Creates an embedding instance.
      *
@@ -3,19 +3,24 @@ package net.microfalx.bootstrap.ai.core;
 import net.microfalx.bootstrap.ai.api.FinishReason;
 import net.microfalx.bootstrap.ai.api.Message;
 import net.microfalx.bootstrap.ai.api.TokenStream;
+import net.microfalx.bootstrap.ai.api.Token;
 import net.microfalx.lang.NumberUtils;
+import reactor.adapter.JdkFlowAdapter;
+import reactor.core.publisher.Flux;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static java.util.Objects.requireNonNullElseGet;
 import static net.microfalx.lang.ExceptionUtils.rethrowException;
-import static net.microfalx.lang.ThreadUtils.sleepMillis;
 
 /**
  * Base class for token streams.
  */
 public abstract class AbstractTokenStream implements TokenStream {
 
+    private final CountDownLatch completion = new CountDownLatch(1);
     final AtomicBoolean completed = new AtomicBoolean(false);
     final AtomicBoolean thinking = new AtomicBoolean(false);
     final StringBuilder answerBuilder = new StringBuilder();
@@ -53,6 +58,16 @@ public abstract class AbstractTokenStream implements TokenStream {
         return completed.get();
     }
 
+    @Override
+    public void subscribe(Flow.Subscriber<? super Token> subscriber) {
+        JdkFlowAdapter.publisherToFlowPublisher(Flux.fromIterable(() -> this)).subscribe(subscriber);
+    }
+
+    @Override
+    public void cancel() {
+        markCompleted();
+    }
+
     @Override
     public final int getInputTokenCount() {
         return (int) NumberUtils.toNumber(inputTokenCount, 0);
@@ -67,9 +82,16 @@ public abstract class AbstractTokenStream implements TokenStream {
         if (throwable != null) rethrowException(throwable);
     }
 
+    protected final void markCompleted() {
+        completed.set(true);
+        completion.countDown();
+    }
+
     protected final void waitForCompletion() {
-        while (!completed.get()) {
-            sleepMillis(10);
+        try {
+            completion.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 }
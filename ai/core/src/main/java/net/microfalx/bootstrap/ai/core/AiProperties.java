@@ -3,6 +3,8 @@ package net.microfalx.bootstrap.ai.core;
 import lombok.Getter;
 import lombok.Setter;
 import net.microfalx.bootstrap.ai.api.Model;
+import net.microfalx.bootstrap.ai.lucene.VectorQuantization;
+import net.microfalx.lang.FormatterUtils;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
@@ -24,6 +26,55 @@ public class AiProperties {
      */
     private boolean embeddingEnabled = false;
 
+    /**
+     * How the vectors are quantized in the embedding index: quantized vectors use less memory (a quarter for
+     * {@code INT8}, an eighth for {@code INT4}) at the cost of some recall.
+     * <p>
+     * Changes apply to the segments written afterward, existing segments are converted when merged.
+     */
+    private VectorQuantization embeddingQuantization = VectorQuantization.NONE;
+
+    /**
+     * The maximum number of texts sent to an embedding model in one request.
+     */
+    private int embeddingBatchSize = 32;
+
+    /**
+     * How long a request to embed a single text waits for other requests, to be sent to the model as a batch.
+     * <p>
+     * Set to zero to send each text to the model as soon as it arrives.
+     */
+    private Duration embeddingBatchWait = Duration.ofMillis(5);
+
+    /**
+     * The number of threads used by embedding models (running in process) to execute one operator, zero to let
+     * the runtime decide (usually the number of cores).
+     */
+    private int embeddingIntraOpThreads;
+
+    /**
+     * The number of threads used by embedding models (running in process) to execute independent operators in
+     * parallel, zero to execute operators sequentially.
+     */
+    private int embeddingInterOpThreads;
+
+    /**
+     * Indicates whether embeddings are cached (on disk), keyed by model and text, so unchanged texts are not
+     * embedded again.
+     */
+    private boolean embeddingCacheEnabled = true;
+
+    /**
+     * The maximum size of the embedding cache, in bytes.
+     */
+    private long embeddingCacheSize = 256 * FormatterUtils.M;
+
+    /**
+     * Indicates whether cached vectors are quantized to 8-bit integers (a quarter of the size, less accurate)
+     * instead of 16-bit floats (half of the size).
+     */
+    private boolean embeddingCacheQuantized;
+
     /**
      * Show additional debug information related to the AI operations.
      */
@@ -83,6 +134,39 @@ public class AiProperties {
      */
     private Duration chatRequestTimeout = Duration.ofSeconds(60);
 
+    /**
+     * The maximum number of tokens of the chat history sent with each request (never more than half of the
+     * context of the model), zero to send the last 1000 messages.
+     */
+    private int chatMemoryTokens = 4096;
+
+    /**
+     * Indicates whether the messages which no longer fit in the chat history are summarized (in the background),
+     * and the summary is sent in front of the history.
+     */
+    private boolean chatMemorySummaryEnabled = true;
+
+    /**
+     * The maximum number of earlier turns (which no longer fit in the chat history) relevant to the question sent
+     * in front of the history, zero to disable.
+     */
+    private int chatMemoryRecallCount = 3;
+
+    /**
+     * The duration of a tool execution before it is cancelled, for tools without their own timeout.
+     */
+    private Duration toolTimeout = Duration.ofSeconds(30);
+
+    /**
+     * The maximum number of results of idempotent tools which are cached, zero to disable the cache.
+     */
+    private int toolCacheSize = 1000;
+
+    /**
+     * The duration a result of an idempotent tool is reused.
+     */
+    private Duration toolCacheTimeToLive = Duration.ofMinutes(5);
+
     /**
      * The number of times to retry pulling a model before giving up. This is used to handle transient errors when
      * pulling models from providers.
@@ -178,6 +262,13 @@ public class AiProperties {
             " The summary should be concise and to the point, capturing the essence of the conversation." +
             " Do not include any personal opinions or interpretations, just the facts discussed in the conversation.";
 
+    /**
+     * A question to summarize the earlier part of a conversation, which no longer fits in the chat history.
+     */
+    private String chatMemorySummary = "Update the summary of the conversation with the new messages." +
+            " Keep the facts, names, numbers and decisions which could be needed later in the conversation." +
+            " Answer only with the summary, in at most 200 words.";
+
     /**
      * A question to summarize the conversation in a short sentence.
      */
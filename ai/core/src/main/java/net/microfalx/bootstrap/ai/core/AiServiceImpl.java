@@ -18,6 +18,8 @@ import net.microfalx.bootstrap.search.IndexListener;
 import net.microfalx.bootstrap.search.IndexService;
 import net.microfalx.bootstrap.search.SearchService;
 import net.microfalx.bootstrap.security.user.UserService;
+import net.microfalx.bootstrap.store.Store;
+import net.microfalx.bootstrap.store.StoreService;
 import net.microfalx.lang.*;
 import net.microfalx.resource.ClassPathResource;
 import net.microfalx.resource.Resource;
@@ -31,6 +33,7 @@ import org.springframework.ai.chat.memory.ChatMemoryRepository;
 import org.springframework.ai.chat.memory.MessageWindowChatMemory;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.model.tool.ToolCallingManager;
 import org.springframework.ai.template.ValidationMode;
 import org.springframework.ai.template.st.StTemplateRenderer;
 import org.springframework.ai.tool.method.MethodToolCallbackProvider;
@@ -79,6 +82,7 @@ public class AiServiceImpl extends ApplicationContextSupport implements AiServic
     @Autowired private UserService userService;
 
     @Autowired private AiPersistence persistence;
+    @Autowired(required = false) private StoreService storeService;
     @Autowired(required = false)
     @Getter(AccessLevel.PROTECTED)
     private AiProperties properties = new AiProperties();
@@ -89,9 +93,14 @@ public class AiServiceImpl extends ApplicationContextSupport implements AiServic
     private LocalRepository localRepository = new LocalRepository(new RepositoryProxy());
     private EmbeddingModel embeddingModel;
     private ChatMemory chatMemory;
+    private ChatMemoryRepository chatMemoryRepository;
     private volatile AiCache cache = new AiCache(this, null);
     private final Map<String, Tool> tools = new ConcurrentHashMap<>();
     private final Map<String, Object> variables = new ConcurrentHashMap<>();
+    private final Map<String, EmbeddingBatcher> embeddingBatchers = new ConcurrentHashMap<>();
+    private EmbeddingCache embeddingCache;
+    private ToolCallExecutor toolCallExecutor;
+    private ToolCallingManager toolCallingManager;
 
     private final Collection<AiListener> listeners = new CopyOnWriteArrayList<>();
     private final Collection<ModelRepository> modelRepositories = new CopyOnWriteArrayList<>();
@@ -125,6 +134,18 @@ public class AiServiceImpl extends ApplicationContextSupport implements AiServic
         return chatMemory;
     }
 
+    ChatMemoryRepository getChatMemoryRepository() {
+        return chatMemoryRepository;
+    }
+
+    ToolCallExecutor getToolCallExecutor() {
+        return toolCallExecutor;
+    }
+
+    ToolCallingManager getToolCallingManager() {
+        return toolCallingManager;
+    }
+
     @Override
     public String getName() {
         return defaultIfEmpty(properties.getApplicationName(), "Martin");
@@ -187,6 +208,16 @@ public class AiServiceImpl extends ApplicationContextSupport implements AiServic
         return createEmbedding(getModel(modelId), text);
     }
 
+    @Override
+    public List<Embedding> embedAll(List<String> texts) {
+        return createEmbeddings(getDefaultEmbeddingModel(), texts);
+    }
+
+    @Override
+    public List<Embedding> embedAll(String modelId, List<String> texts) {
+        return createEmbeddings(getModel(modelId), texts);
+    }
+
     @Override
     public String summarize(String text, boolean shortMessage) {
         if (StringUtils.isEmpty(text)) return EMPTY_STRING;
@@ -203,7 +234,42 @@ public class AiServiceImpl extends ApplicationContextSupport implements AiServic
     public Embedding createEmbedding(Model model, String text) {
         requireNonNull(model);
         if (!model.isEmbedding()) throw new AiException("Model '" + model.getId() + "' does not support embedding");
-        return model.getProvider().getEmbeddingFactory().createEmbedding(model, text);
+        if (embeddingCache == null) return doCreateEmbedding(model, text);
+        String key = embeddingCache.getKey(model.getId(), text);
+        float[] vector = embeddingCache.get(key);
+        if (vector != null) return createCachedEmbedding(model, vector);
+        Embedding embedding = doCreateEmbedding(model, text);
+        return createCachedEmbedding(model, embeddingCache.put(key, embedding.getVector()));
+    }
+
+    public List<Embedding> createEmbeddings(Model model, List<String> texts) {
+        requireNonNull(model);
+        requireNonNull(texts);
+        if (!model.isEmbedding()) throw new AiException("Model '" + model.getId() + "' does not support embedding");
+        if (embeddingCache == null) return doCreateEmbeddings(model, texts);
+        Embedding[] embeddings = new Embedding[texts.size()];
+        String[] keys = new String[texts.size()];
+        List<String> missingTexts = new ArrayList<>();
+        List<Integer> missingIndexes = new ArrayList<>();
+        for (int index = 0; index < texts.size(); index++) {
+            keys[index] = embeddingCache.getKey(model.getId(), texts.get(index));
+            float[] vector = embeddingCache.get(keys[index]);
+            if (vector != null) {
+                embeddings[index] = createCachedEmbedding(model, vector);
+            } else {
+                missingTexts.add(texts.get(index));
+                missingIndexes.add(index);
+            }
+        }
+        if (!missingTexts.isEmpty()) {
+            List<Embedding> missingEmbeddings = doCreateEmbeddings(model, missingTexts);
+            for (int index = 0; index < missingEmbeddings.size(); index++) {
+                int textIndex = missingIndexes.get(index);
+                float[] vector = embeddingCache.put(keys[textIndex], missingEmbeddings.get(index).getVector());
+                embeddings[textIndex] = createCachedEmbedding(model, vector);
+            }
+        }
+        return Arrays.asList(embeddings);
     }
 
     @Override
@@ -435,6 +501,7 @@ public class AiServiceImpl extends ApplicationContextSupport implements AiServic
         initializeApplicationContext();
         registerLibraryPaths();
         initThreadPools();
+        initToolExecutor();
         initDirectories();
         initListeners();
         initModelRepositories();
@@ -443,6 +510,7 @@ public class AiServiceImpl extends ApplicationContextSupport implements AiServic
         registerDefaultVariables();
         initializeChatStore();
         initializeEmbeddingStore();
+        initializeEmbeddingCache();
         initResources();
         initTask();
     }
@@ -450,6 +518,9 @@ public class AiServiceImpl extends ApplicationContextSupport implements AiServic
     @PreDestroy
     protected void destroy() {
         //if (embeddingModel != null) embeddingModel.close();
+        embeddingBatchers.values().forEach(EmbeddingBatcher::close);
+        embeddingBatchers.clear();
+        if (toolCallExecutor != null) toolCallExecutor.close();
     }
 
     public ThreadPool getChatPool() {
@@ -468,6 +539,7 @@ public class AiServiceImpl extends ApplicationContextSupport implements AiServic
     void closeChat(Chat chat) {
         requireNonNull(chat);
         activeChats.remove(chat.getId());
+        if (chatMemory instanceof TokenWindowChatMemory tokenWindowChatMemory) tokenWindowChatMemory.release(chat.getId());
         closedChats.add(chat);
         persistence.execute(chat);
     }
@@ -726,15 +798,44 @@ public class AiServiceImpl extends ApplicationContextSupport implements AiServic
     }
 
     private void initializeEmbeddingStore() {
-        this.embeddingModel = new LuceneEmbeddingModel(this, indexService, searchService)
+        this.embeddingModel = new LuceneEmbeddingModel(this, indexService, searchService, properties.getEmbeddingQuantization())
                 .setThreadPool(getEmbeddingPool()).setEnabled(properties.isEmbeddingEnabled());
         this.indexService.registerListener((IndexListener) this.embeddingModel);
         //this.contentRetriever = this.embeddingStore.getContentRetriever();
     }
 
+    private void initToolExecutor() {
+        toolCallExecutor = new ToolCallExecutor(properties.getToolTimeout(), properties.getToolCacheTimeToLive(),
+                properties.getToolCacheSize());
+        toolCallingManager = new ToolCallingManagerImpl(ToolCallingManager.builder().build(), toolCallExecutor);
+    }
+
+    private void initializeEmbeddingCache() {
+        if (storeService == null || !properties.isEmbeddingCacheEnabled()) return;
+        LOGGER.info("Enable embedding cache, maximum size {}", formatBytes(properties.getEmbeddingCacheSize()));
+        Store<CachedEmbedding, String> store = storeService.registerStore(Store.Options.create("AI Embedding"));
+        embeddingCache = new EmbeddingCache(store, properties.getEmbeddingCacheSize(), properties.isEmbeddingCacheQuantized()
+                ? CachedEmbedding.Encoding.INT8 : CachedEmbedding.Encoding.FLOAT16);
+        embeddingCache.load();
+    }
+
     private void initializeChatStore() {
-        ChatMemoryRepository repository = new AiChatStore(persistence);
-        this.chatMemory = MessageWindowChatMemory.builder().chatMemoryRepository(repository).maxMessages(1000).build();
+        chatMemoryRepository = new AiChatStore(persistence);
+        if (properties.getChatMemoryTokens() <= 0) {
+            chatMemory = MessageWindowChatMemory.builder().chatMemoryRepository(chatMemoryRepository).maxMessages(1000).build();
+            return;
+        }
+        LOGGER.info("Chat memory is limited to {} tokens, summary: {}, recall: {} turns", properties.getChatMemoryTokens(),
+                properties.isChatMemorySummaryEnabled(), properties.getChatMemoryRecallCount());
+        TokenWindowChatMemory tokenWindowChatMemory = new TokenWindowChatMemory(chatMemoryRepository, command -> getChatPool().execute(command))
+                .setMaximumTokens(properties.getChatMemoryTokens()).setRecallCount(properties.getChatMemoryRecallCount());
+        if (properties.isChatMemorySummaryEnabled()) {
+            tokenWindowChatMemory.setSummarizer(text -> summarize(text, properties.getChatMemorySummary()));
+        }
+        if (properties.getChatMemoryRecallCount() > 0) {
+            tokenWindowChatMemory.setEmbedder(text -> embed(text).getVector());
+        }
+        chatMemory = tokenWindowChatMemory;
     }
 
     private void initializeApplicationContext() {
@@ -869,6 +970,34 @@ public class AiServiceImpl extends ApplicationContextSupport implements AiServic
         variables.put("TOOLS", builder.getVariable());
     }
 
+    private Embedding doCreateEmbedding(Model model, String text) {
+        if (properties.getEmbeddingBatchSize() <= 1 || properties.getEmbeddingBatchWait().isZero()) {
+            return model.getProvider().getEmbeddingFactory().createEmbedding(model, text);
+        }
+        return getEmbeddingBatcher(model).embed(text);
+    }
+
+    private List<Embedding> doCreateEmbeddings(Model model, List<String> texts) {
+        Embedding.Factory embeddingFactory = model.getProvider().getEmbeddingFactory();
+        int batchSize = Math.max(1, properties.getEmbeddingBatchSize());
+        List<Embedding> embeddings = new ArrayList<>(texts.size());
+        for (int index = 0; index < texts.size(); index += batchSize) {
+            List<String> batch = texts.subList(index, Math.min(texts.size(), index + batchSize));
+            embeddings.addAll(AiUtils.EMBEDDING_METRICS.time("Batch", () -> embeddingFactory.createEmbeddings(model, batch)));
+        }
+        return embeddings;
+    }
+
+    private Embedding createCachedEmbedding(Model model, float[] vector) {
+        return new AbstractEmbeddingFactory.EmbeddingImpl(model, new org.springframework.ai.embedding.Embedding(vector, 0));
+    }
+
+    private EmbeddingBatcher getEmbeddingBatcher(Model model) {
+        return embeddingBatchers.computeIfAbsent(model.getId(), id -> new EmbeddingBatcher(model,
+                model.getProvider().getEmbeddingFactory(), properties.getEmbeddingBatchSize(),
+                properties.getEmbeddingBatchWait()));
+    }
+
     private Resource getSharedResource() {
         return resourceService.getShared("ai");
     }
@@ -22,6 +22,10 @@ public class AiUtils {
     static Metrics TOOL_EXECUTION_METRICS = TOOL_METRICS.withGroup("Execution");
     static Metrics CREATE_SYSTEM_MESSAGE_METRICS = Metrics.of("Create System Message");
     static Metrics MISC_METRICS = ROOT_METRICS.withGroup("Misc");
+    static Metrics EMBEDDING_METRICS = ROOT_METRICS.withGroup("Embedding");
+    static Metrics STREAM_METRICS = ROOT_METRICS.withGroup("Stream");
+    static Metrics TIME_TO_FIRST_TOKEN_METRICS = STREAM_METRICS.withGroup("Time To First Token");
+    static Metrics INTER_TOKEN_METRICS = STREAM_METRICS.withGroup("Inter Token");
 
     static final ThreadLocal<ThreadPool> THREAD_POOL = ThreadLocal.withInitial(ThreadPool::get);
 
@@ -0,0 +1,175 @@
+package net.microfalx.bootstrap.ai.core;
+
+import net.microfalx.lang.Identifiable;
+
+import java.util.StringJoiner;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Holds a vector, as stored by the {@link EmbeddingCache}.
+ * <p>
+ * The vector is stored in a compact form: 16-bit floats (half the size, about 3 significant digits) or 8-bit
+ * integers scaled by the largest component (a quarter of the size, good enough for similarity search).
+ */
+final class CachedEmbedding implements Identifiable<String> {
+
+    private String id;
+    private Encoding encoding;
+    private int dimension;
+    private float scale;
+    private byte[] data;
+    private long createdAt;
+    long accessedAt;
+
+    CachedEmbedding() {
+    }
+
+    CachedEmbedding(String id, float[] vector, Encoding encoding) {
+        requireNonNull(id);
+        requireNonNull(vector);
+        requireNonNull(encoding);
+        this.id = id;
+        this.encoding = encoding;
+        this.dimension = vector.length;
+        if (encoding == Encoding.FLOAT16) {
+            encodeFloat16(vector);
+        } else {
+            encodeInt8(vector);
+        }
+        this.createdAt = System.currentTimeMillis();
+        this.accessedAt = createdAt;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the encoding of the vector.
+     *
+     * @return a non-null instance
+     */
+    Encoding getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Returns the (approximate) size of the entry, in bytes.
+     *
+     * @return a positive integer
+     */
+    long getSize() {
+        return 2L * id.length() + data.length;
+    }
+
+    /**
+     * Decodes the vector.
+     *
+     * @return a non-null instance
+     */
+    float[] getVector() {
+        float[] vector = new float[dimension];
+        if (encoding == Encoding.FLOAT16) {
+            for (int i = 0; i < dimension; i++) {
+                vector[i] = fromFloat16((short) (((data[2 * i] & 0xff) << 8) | (data[2 * i + 1] & 0xff)));
+            }
+        } else {
+            for (int i = 0; i < dimension; i++) {
+                vector[i] = data[i] * scale;
+            }
+        }
+        return vector;
+    }
+
+    private void encodeFloat16(float[] vector) {
+        data = new byte[2 * vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            short value = toFloat16(vector[i]);
+            data[2 * i] = (byte) (value >> 8);
+            data[2 * i + 1] = (byte) value;
+        }
+    }
+
+    private void encodeInt8(float[] vector) {
+        float maximum = 0;
+        for (float value : vector) {
+            maximum = Math.max(maximum, Math.abs(value));
+        }
+        scale = maximum == 0 ? 1 : maximum / Byte.MAX_VALUE;
+        data = new byte[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            data[i] = (byte) Math.round(vector[i] / scale);
+        }
+    }
+
+    /**
+     * Converts a float to a 16-bit (IEEE 754 half precision) float, rounding to the nearest value.
+     *
+     * @param value the value
+     * @return the bits of the half precision float
+     */
+    static short toFloat16(float value) {
+        int bits = Float.floatToIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int rounded = (bits & 0x7fffffff) + 0x1000;
+        if (rounded >= 0x47800000) {
+            // too large (or infinite/NaN) for a half precision float
+            if ((bits & 0x7fffffff) >= 0x47800000) {
+                if (rounded < 0x7f800000) return (short) (sign | 0x7c00);
+                return (short) (sign | 0x7c00 | ((bits & 0x007fffff) >>> 13));
+            }
+            return (short) (sign | 0x7bff);
+        }
+        if (rounded >= 0x38800000) return (short) (sign | ((rounded - 0x38000000) >>> 13));
+        if (rounded < 0x33000000) return (short) sign;
+        // subnormal half precision float
+        int exponent = (bits & 0x7fffffff) >>> 23;
+        return (short) (sign | ((((bits & 0x7fffff) | 0x800000) + (0x800000 >>> (exponent - 102))) >>> (126 - exponent)));
+    }
+
+    /**
+     * Converts a 16-bit (IEEE 754 half precision) float to a float.
+     *
+     * @param value the bits of the half precision float
+     * @return the value
+     */
+    static float fromFloat16(short value) {
+        int bits = value & 0xffff;
+        int sign = (bits & 0x8000) << 16;
+        int exponent = (bits >>> 10) & 0x1f;
+        int mantissa = bits & 0x3ff;
+        if (exponent == 0) {
+            float subnormal = mantissa * 0x1p-24f;
+            return sign != 0 ? -subnormal : subnormal;
+        }
+        if (exponent == 31) return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+        return Float.intBitsToFloat(sign | ((exponent + 112) << 23) | (mantissa << 13));
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", CachedEmbedding.class.getSimpleName() + "[", "]")
+                .add("id='" + id + "'")
+                .add("encoding=" + encoding)
+                .add("dimension=" + dimension)
+                .toString();
+    }
+
+    /**
+     * An enum for the encodings of a cached vector.
+     */
+    enum Encoding {
+
+        /**
+         * Each component is stored as a 16-bit float.
+         */
+        FLOAT16,
+
+        /**
+         * Each component is stored as an 8-bit integer, scaled by the largest component.
+         */
+        INT8
+    }
+}
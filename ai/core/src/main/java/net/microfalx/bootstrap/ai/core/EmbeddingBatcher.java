@@ -0,0 +1,175 @@
+package net.microfalx.bootstrap.ai.core;
+
+import net.microfalx.bootstrap.ai.api.AiException;
+import net.microfalx.bootstrap.ai.api.Embedding;
+import net.microfalx.bootstrap.ai.api.Model;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static net.microfalx.bootstrap.ai.core.AiUtils.EMBEDDING_METRICS;
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Coalesces concurrent requests to embed a single text into batches.
+ * <p>
+ * The first request of a batch waits at most {@link #getMaximumWait()} for other requests to arrive, then the batch
+ * (up to {@link #getMaximumBatchSize()} texts) is sent to the model in one call. Batches are processed by a single
+ * thread, one at a time: models (like ONNX) already use all available cores for one batch.
+ */
+final class EmbeddingBatcher implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EmbeddingBatcher.class);
+
+    private final Model model;
+    private final Embedding.Factory factory;
+    private final int maximumBatchSize;
+    private final Duration maximumWait;
+
+    private final BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+    private final Object lock = new Object();
+    private volatile Thread thread;
+    private volatile boolean closed;
+
+    EmbeddingBatcher(Model model, Embedding.Factory factory, int maximumBatchSize, Duration maximumWait) {
+        requireNonNull(model);
+        requireNonNull(factory);
+        requireNonNull(maximumWait);
+        if (maximumBatchSize < 1) {
+            throw new IllegalArgumentException("Maximum batch size must be positive, received " + maximumBatchSize);
+        }
+        this.model = model;
+        this.factory = factory;
+        this.maximumBatchSize = maximumBatchSize;
+        this.maximumWait = maximumWait;
+    }
+
+    /**
+     * Returns the model used for embedding.
+     *
+     * @return a non-null instance
+     */
+    Model getModel() {
+        return model;
+    }
+
+    /**
+     * Returns the maximum number of texts sent to the model in one call.
+     *
+     * @return a positive integer
+     */
+    int getMaximumBatchSize() {
+        return maximumBatchSize;
+    }
+
+    /**
+     * Returns how long the first request of a batch waits for other requests.
+     *
+     * @return a non-null instance
+     */
+    Duration getMaximumWait() {
+        return maximumWait;
+    }
+
+    /**
+     * Embeds a text, as part of a batch.
+     *
+     * @param text the text to embed
+     * @return the embedding
+     */
+    Embedding embed(String text) {
+        requireNonNull(text);
+        if (closed) throw new AiException("Embedding batcher for '" + model.getId() + "' is closed");
+        Request request = new Request(text);
+        requests.add(request);
+        startIfNeeded();
+        try {
+            return request.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new AiException("Failed to embed text with model '" + model.getId() + "'", e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Thread currentThread = thread;
+        if (currentThread != null) currentThread.interrupt();
+        failPending(new AiException("Embedding batcher for '" + model.getId() + "' is closed"));
+    }
+
+    private void startIfNeeded() {
+        if (thread != null) return;
+        synchronized (lock) {
+            if (thread != null) return;
+            Thread newThread = new Thread(this::dispatch, "Embedding Batcher " + model.getId());
+            newThread.setDaemon(true);
+            newThread.start();
+            thread = newThread;
+        }
+    }
+
+    private void dispatch() {
+        try {
+            while (!closed) {
+                List<Request> batch = new ArrayList<>(maximumBatchSize);
+                batch.add(requests.take());
+                long deadline = System.nanoTime() + maximumWait.toNanos();
+                while (batch.size() < maximumBatchSize) {
+                    Request request = requests.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (request == null) break;
+                    batch.add(request);
+                }
+                process(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            failPending(new AiException("Embedding batcher for '" + model.getId() + "' is closed"));
+        }
+    }
+
+    private void process(List<Request> batch) {
+        List<String> texts = new ArrayList<>(batch.size());
+        for (Request request : batch) {
+            texts.add(request.text);
+        }
+        try {
+            List<Embedding> embeddings = EMBEDDING_METRICS.time("Batch", () -> factory.createEmbeddings(model, texts));
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(embeddings.get(i));
+            }
+        } catch (Throwable e) {
+            LOGGER.debug("Failed to embed a batch of {} texts with model '{}'", batch.size(), model.getId(), e);
+            for (Request request : batch) {
+                request.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void failPending(Throwable throwable) {
+        Request request;
+        while ((request = requests.poll()) != null) {
+            request.future.completeExceptionally(throwable);
+        }
+    }
+
+    private static class Request {
+
+        private final String text;
+        private final CompletableFuture<Embedding> future = new CompletableFuture<>();
+
+        private Request(String text) {
+            this.text = text;
+        }
+    }
+}
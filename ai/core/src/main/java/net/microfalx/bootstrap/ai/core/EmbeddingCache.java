@@ -0,0 +1,114 @@
+package net.microfalx.bootstrap.ai.core;
+
+import net.microfalx.bootstrap.ai.api.AiException;
+import net.microfalx.bootstrap.store.Store;
+import net.microfalx.bootstrap.store.StoreCache;
+import net.microfalx.metrics.Metrics;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * A persistent, content-addressed cache for embeddings.
+ * <p>
+ * Entries are keyed by the model and the SHA-256 of the normalized text (Unicode NFC, whitespace collapsed), so
+ * the same text is embedded only once per model, across restarts.
+ * <p>
+ * The cache is bounded by size, the least recently used entries are evicted first.
+ */
+final class EmbeddingCache extends StoreCache<CachedEmbedding> {
+
+    private static final Metrics METRICS = AiUtils.EMBEDDING_METRICS.withGroup("Cache");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final CachedEmbedding.Encoding encoding;
+
+    EmbeddingCache(Store<CachedEmbedding, String> store, long maximumSize, CachedEmbedding.Encoding encoding) {
+        super("Embedding", store, maximumSize, METRICS);
+        requireNonNull(encoding);
+        this.encoding = encoding;
+    }
+
+    /**
+     * Calculates the cache key for a text.
+     *
+     * @param modelId the identifier of the model
+     * @param text    the text
+     * @return a non-null instance
+     */
+    String getKey(String modelId, String text) {
+        requireNonNull(modelId);
+        requireNonNull(text);
+        MessageDigest digest = createDigest();
+        digest.update(normalize(text).getBytes(StandardCharsets.UTF_8));
+        return modelId + ":" + HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Returns a cached vector.
+     *
+     * @param key the cache key
+     * @return the vector, null if not cached
+     */
+    float[] get(String key) {
+        CachedEmbedding embedding = doGet(key);
+        return embedding != null ? embedding.getVector() : null;
+    }
+
+    /**
+     * Stores a vector in the cache, evicting older entries if the cache exceeds its size.
+     * <p>
+     * The vector is stored in a compact form, so the returned vector (and not the original) must be used by the
+     * caller, to return the same embedding for the same text, cached or not.
+     *
+     * @param key    the cache key
+     * @param vector the vector
+     * @return the vector, as returned by later lookups
+     */
+    float[] put(String key, float[] vector) {
+        requireNonNull(key);
+        requireNonNull(vector);
+        CachedEmbedding embedding = new CachedEmbedding(key, vector, encoding);
+        doPut(embedding);
+        return embedding.getVector();
+    }
+
+    @Override
+    protected long getSize(CachedEmbedding embedding) {
+        return embedding.getSize();
+    }
+
+    @Override
+    protected long getAccessedAt(CachedEmbedding embedding) {
+        return embedding.accessedAt;
+    }
+
+    @Override
+    protected void setAccessedAt(CachedEmbedding embedding, long accessedAt) {
+        embedding.accessedAt = accessedAt;
+    }
+
+    @Override
+    protected boolean isValid(CachedEmbedding embedding) {
+        return embedding.getEncoding() == encoding;
+    }
+
+    private static String normalize(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFC);
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AiException("SHA-256 is not available", e);
+        }
+    }
+}
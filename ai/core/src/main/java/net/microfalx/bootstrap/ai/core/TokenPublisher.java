@@ -0,0 +1,159 @@
+package net.microfalx.bootstrap.ai.core;
+
+import net.microfalx.bootstrap.ai.api.Token;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Bridges the tokens received from a model to a single {@link Flow.Subscriber}.
+ * <p>
+ * The model request starts as soon as the publisher subscribes to the model response, before a subscriber is
+ * available: up to {@code prefetch} tokens are buffered until the subscriber arrives. Afterward, the model is
+ * asked for more tokens only as the subscriber consumes them, and cancelling the subscription cancels the request
+ * to the model (with {@link #cancel()} or through the subscription).
+ */
+final class TokenPublisher extends BaseSubscriber<Token> implements Flow.Publisher<Token> {
+
+    private final int prefetch;
+    private final Queue<Token> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicBoolean terminated = new AtomicBoolean();
+    private final AtomicReference<Flow.Subscriber<? super Token>> subscriber = new AtomicReference<>();
+
+    private volatile boolean done;
+    private volatile boolean cancelled;
+    private volatile Throwable throwable;
+
+    TokenPublisher(int prefetch) {
+        if (prefetch < 1) throw new IllegalArgumentException("Prefetch must be positive, received " + prefetch);
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Token> subscriber) {
+        requireNonNull(subscriber);
+        if (!this.subscriber.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(new RejectedSubscription());
+            subscriber.onError(new IllegalStateException("The token stream can be consumed only once"));
+            return;
+        }
+        subscriber.onSubscribe(new SubscriptionImpl());
+        drain();
+    }
+
+    @Override
+    protected void hookOnSubscribe(Subscription subscription) {
+        subscription.request(prefetch);
+    }
+
+    @Override
+    protected void hookOnNext(Token token) {
+        queue.offer(token);
+        drain();
+    }
+
+    @Override
+    protected void hookOnComplete() {
+        done = true;
+        drain();
+    }
+
+    @Override
+    protected void hookOnError(Throwable throwable) {
+        this.throwable = throwable;
+        done = true;
+        drain();
+    }
+
+    @Override
+    protected void hookOnCancel() {
+        cancelled = true;
+        queue.clear();
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) return;
+        int missed = 1;
+        do {
+            Flow.Subscriber<? super Token> currentSubscriber = subscriber.get();
+            if (currentSubscriber != null && !cancelled) {
+                long demand = requested.get();
+                long emitted = 0;
+                while (emitted != demand && !cancelled) {
+                    boolean completed = done;
+                    Token token = queue.poll();
+                    if (token == null) {
+                        if (completed) terminate(currentSubscriber);
+                        break;
+                    }
+                    currentSubscriber.onNext(token);
+                    emitted++;
+                }
+                if (done && queue.isEmpty()) terminate(currentSubscriber);
+                if (emitted > 0) {
+                    if (demand != Long.MAX_VALUE) requested.addAndGet(-emitted);
+                    if (!done && !cancelled) request(emitted);
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void terminate(Flow.Subscriber<? super Token> subscriber) {
+        if (cancelled || !terminated.compareAndSet(false, true)) return;
+        if (throwable != null) {
+            subscriber.onError(throwable);
+        } else {
+            subscriber.onComplete();
+        }
+    }
+
+    private class SubscriptionImpl implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                TokenPublisher.this.cancel();
+                Flow.Subscriber<? super Token> currentSubscriber = subscriber.get();
+                if (currentSubscriber != null && terminated.compareAndSet(false, true)) {
+                    currentSubscriber.onError(new IllegalArgumentException("Requested tokens must be positive, received " + n));
+                }
+                return;
+            }
+            requested.accumulateAndGet(n, (current, increment) -> {
+                long sum = current + increment;
+                return sum < 0 ? Long.MAX_VALUE : sum;
+            });
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            TokenPublisher.this.cancel();
+        }
+    }
+
+    private static class RejectedSubscription implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+            // nothing to deliver
+        }
+
+        @Override
+        public void cancel() {
+            // nothing to cancel
+        }
+    }
+}
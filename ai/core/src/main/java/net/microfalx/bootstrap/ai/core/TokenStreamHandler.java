@@ -11,30 +11,41 @@ import org.springframework.ai.chat.metadata.ChatGenerationMetadata;
 import org.springframework.ai.chat.metadata.ChatResponseMetadata;
 import org.springframework.ai.chat.metadata.Usage;
 import org.springframework.ai.chat.model.ChatResponse;
+import reactor.adapter.JdkFlowAdapter;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.SignalType;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
 import java.util.Iterator;
+import java.util.concurrent.Flow;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static net.microfalx.bootstrap.ai.core.AiUtils.INTER_TOKEN_METRICS;
+import static net.microfalx.bootstrap.ai.core.AiUtils.TIME_TO_FIRST_TOKEN_METRICS;
 import static net.microfalx.lang.ArgumentUtils.requireNonNull;
 
 /**
- * Handles a token stream from a chat session, allowing iteration over the tokens.
+ * Handles a token stream from a chat session, allowing iteration over the tokens or subscribing to them.
+ * <p>
+ * The request is sent to the model when the handler is created, the tokens are pushed (as requested) by the model
+ * response into a {@link TokenPublisher}; iterating the stream subscribes to the same publisher.
  */
 class TokenStreamHandler extends AbstractTokenStream {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TokenStreamHandler.class);
 
+    private static final int PREFETCH = 256;
+
     private final AbstractChat chat;
     private final AiProperties properties;
     private final AiServiceImpl service;
-    private final Iterator<Token> tokens;
+    private final TokenPublisher publisher = new TokenPublisher(PREFETCH);
+    private volatile Iterator<Token> tokens;
 
     private final AtomicBoolean firstSeen = new AtomicBoolean(false);
     private final long startedNanos = System.nanoTime();
+    private volatile long lastTokenNanos;
     private volatile Duration timeToFirstToken = Duration.ZERO;
 
     TokenStreamHandler(AiServiceImpl service, AbstractChat chat, Flux<ChatResponse> tokenStream) {
@@ -44,19 +55,29 @@ class TokenStreamHandler extends AbstractTokenStream {
         this.service = service;
         this.properties = service.getProperties();
         this.chat = chat;
-        this.tokens = initTokens(tokenStream);
         this.thinking.set(chat.getModel().isThinking());
+        initTokens(tokenStream).subscribe(publisher);
     }
 
     @Override
     public boolean hasNext() {
         raiseIfError();
-        return tokens.hasNext();
+        return getTokens().hasNext();
     }
 
     @Override
     public Token next() {
-        return tokens.next();
+        return getTokens().next();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Token> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    @Override
+    public void cancel() {
+        publisher.cancel();
     }
 
     @Override
@@ -66,6 +87,8 @@ class TokenStreamHandler extends AbstractTokenStream {
 
     @Override
     public boolean isComplete() {
+        // a stream consumed by a subscriber cannot be iterated
+        if (tokens == null) return super.isComplete();
         return !hasNext() && super.isComplete();
     }
 
@@ -76,6 +99,7 @@ class TokenStreamHandler extends AbstractTokenStream {
     private void onNext(ChatResponse response) {
         if (firstSeen.compareAndSet(false, true)) {
             timeToFirstToken = Duration.ofNanos(System.nanoTime() - startedNanos);
+            TIME_TO_FIRST_TOKEN_METRICS.getTimer(chat.getModel().getId()).record(timeToFirstToken);
             thinking.set(false);
         }
         ChatResponseMetadata metadata = response.getMetadata();
@@ -94,21 +118,27 @@ class TokenStreamHandler extends AbstractTokenStream {
     private void onComplete() {
         if (timeToFirstToken.isZero()) timeToFirstToken = Duration.ofNanos(System.nanoTime() - startedNanos);
         chat.streamCompleted(this);
-        completed.set(true);
+        markCompleted();
     }
 
     private void onError(Throwable ex) {
         this.throwable = ex;
-        this.completed.set(true);
+        markCompleted();
     }
 
     private void onFinally(SignalType signalType) {
+        if (signalType == SignalType.CANCEL) LOGGER.debug("Token stream cancelled for chat '{}'", chat.getId());
         chat.streamCompleted(this);
-        completed.set(true);
+        markCompleted();
     }
 
     private Token mapToken(ChatResponse response) {
         String text = response.getResult().getOutput().getText();
+        long currentNanos = System.nanoTime();
+        if (lastTokenNanos != 0) {
+            INTER_TOKEN_METRICS.getTimer(chat.getModel().getId()).record(Duration.ofNanos(currentNanos - lastTokenNanos));
+        }
+        lastTokenNanos = currentNanos;
         answerBuilder.append(text);
         return Token.create(Token.Type.ANSWER, text);
     }
@@ -117,7 +147,16 @@ class TokenStreamHandler extends AbstractTokenStream {
         return StringUtils.isNotEmpty(response.getResult().getOutput().getText());
     }
 
-    private Iterator<Token> initTokens(Flux<ChatResponse> tokenStream) {
+    private Iterator<Token> getTokens() {
+        if (tokens == null) {
+            synchronized (this) {
+                if (tokens == null) tokens = JdkFlowAdapter.flowPublisherToFlux(publisher).toStream(PREFETCH).iterator();
+            }
+        }
+        return tokens;
+    }
+
+    private Flux<Token> initTokens(Flux<ChatResponse> tokenStream) {
         return tokenStream
                 .doOnSubscribe(this::onSubscribe)
                 .doOnNext(this::onNext)
@@ -127,8 +166,7 @@ class TokenStreamHandler extends AbstractTokenStream {
                 .map(this::mapToken)
                 .timeout(this.properties.getChatRequestTimeout())
                 .retryWhen(Retry.backoff(2, Duration.ofSeconds(1)).jitter(0.2).filter(this::isTransient))
-                .doFinally(this::onFinally).toStream().iterator();
-
+                .doFinally(this::onFinally);
     }
 
     private FinishReason toFinishReason(String finishReason) {
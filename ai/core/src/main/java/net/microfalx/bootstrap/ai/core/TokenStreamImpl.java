@@ -19,7 +19,7 @@ public class TokenStreamImpl extends AbstractTokenStream {
     @Override
     public boolean hasNext() {
         boolean hasNext = streams.hasNext();
-        completed.set(!hasNext);
+        if (!hasNext) markCompleted();
         return hasNext;
     }
 
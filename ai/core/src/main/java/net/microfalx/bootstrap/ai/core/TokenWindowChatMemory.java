@@ -0,0 +1,462 @@
+package net.microfalx.bootstrap.ai.core;
+
+import net.microfalx.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.*;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.StringUtils.isEmpty;
+import static net.microfalx.lang.StringUtils.isNotEmpty;
+
+/**
+ * A chat memory which sends to the model only the most recent messages which fit in a token budget.
+ * <p>
+ * All messages are kept in the repository (up to {@link #getMaximumMessages()}); the token count of each message is
+ * estimated once, when the message is first seen. The window always starts with a user message, so a turn (with its
+ * tool calls) is either sent whole or not at all.
+ * <p>
+ * The turns which fall out of the window are handled in the background:
+ * <ul>
+ * <li>when a summarizer is available, they are folded into a running summary of the conversation, which is sent
+ * in front of the window</li>
+ * <li>when an embedder is available, they are embedded; the turns most similar to the current question are
+ * recalled and sent in front of the window</li>
+ * </ul>
+ * Summarization and recall only apply to conversations {@link #prepare(String, String, int, boolean) prepared} as
+ * external, internal conversations (like the ones used to summarize) only use the window.
+ */
+final class TokenWindowChatMemory implements ChatMemory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenWindowChatMemory.class);
+
+    private static final Metrics METRICS = AiUtils.ROOT_METRICS.withGroup("Memory");
+
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+    private static final String SUMMARY_HEADER = "Summary of the earlier part of the conversation:\n";
+    private static final String RECALL_HEADER = "Earlier messages relevant to the current question:\n";
+
+    private final ChatMemoryRepository repository;
+    private final Executor executor;
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+    private final Map<String, Conversation> conversations = new ConcurrentHashMap<>();
+
+    private int maximumTokens = 4096;
+    private int maximumMessages = 1000;
+    private int recallCount = 3;
+    private double recallMinimumSimilarity = 0.5;
+    private Function<String, String> summarizer;
+    private Function<String, float[]> embedder;
+
+    TokenWindowChatMemory(ChatMemoryRepository repository, Executor executor) {
+        requireNonNull(repository);
+        requireNonNull(executor);
+        this.repository = repository;
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the default token budget of a conversation.
+     *
+     * @return a positive integer
+     */
+    int getMaximumTokens() {
+        return maximumTokens;
+    }
+
+    TokenWindowChatMemory setMaximumTokens(int maximumTokens) {
+        if (maximumTokens < 1) throw new IllegalArgumentException("Maximum tokens must be positive, received " + maximumTokens);
+        this.maximumTokens = maximumTokens;
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of messages kept for a conversation.
+     *
+     * @return a positive integer
+     */
+    int getMaximumMessages() {
+        return maximumMessages;
+    }
+
+    TokenWindowChatMemory setMaximumMessages(int maximumMessages) {
+        if (maximumMessages < 1) throw new IllegalArgumentException("Maximum messages must be positive, received " + maximumMessages);
+        this.maximumMessages = maximumMessages;
+        return this;
+    }
+
+    TokenWindowChatMemory setRecallCount(int recallCount) {
+        this.recallCount = Math.max(0, recallCount);
+        return this;
+    }
+
+    TokenWindowChatMemory setRecallMinimumSimilarity(double recallMinimumSimilarity) {
+        this.recallMinimumSimilarity = recallMinimumSimilarity;
+        return this;
+    }
+
+    /**
+     * Registers the function which summarizes the turns evicted from the window.
+     *
+     * @param summarizer the summarizer, receives the previous summary and the evicted turns, null to disable
+     * @return self
+     */
+    TokenWindowChatMemory setSummarizer(Function<String, String> summarizer) {
+        this.summarizer = summarizer;
+        return this;
+    }
+
+    /**
+     * Registers the function which embeds turns (and questions) for recall.
+     *
+     * @param embedder the embedder, null to disable recall
+     * @return self
+     */
+    TokenWindowChatMemory setEmbedder(Function<String, float[]> embedder) {
+        this.embedder = embedder;
+        return this;
+    }
+
+    /**
+     * Prepares a conversation for the next request.
+     *
+     * @param conversationId the conversation
+     * @param question       the question about to be sent, used to recall relevant earlier turns
+     * @param maximumTokens  the token budget of the memory for this conversation
+     * @param internal       {@code true} if the conversation is internal (no summarization and no recall)
+     */
+    void prepare(String conversationId, String question, int maximumTokens, boolean internal) {
+        requireNonNull(conversationId);
+        Conversation conversation = getConversation(conversationId);
+        synchronized (conversation) {
+            conversation.question = question;
+            conversation.maximumTokens = maximumTokens > 0 ? maximumTokens : this.maximumTokens;
+            conversation.internal = internal;
+        }
+    }
+
+    /**
+     * Returns the summary of the turns evicted from the window.
+     *
+     * @param conversationId the conversation
+     * @return the summary, null if not available
+     */
+    String getSummary(String conversationId) {
+        Conversation conversation = conversations.get(conversationId);
+        return conversation != null ? conversation.summary : null;
+    }
+
+    /**
+     * Returns the number of turns evicted from the window which can be recalled.
+     *
+     * @param conversationId the conversation
+     * @return a positive integer
+     */
+    int getTurnCount(String conversationId) {
+        Conversation conversation = conversations.get(conversationId);
+        if (conversation == null) return 0;
+        synchronized (conversation) {
+            return conversation.turns.size();
+        }
+    }
+
+    /**
+     * Releases the state of a conversation, but keeps its messages.
+     *
+     * @param conversationId the conversation
+     */
+    void release(String conversationId) {
+        requireNonNull(conversationId);
+        conversations.remove(conversationId);
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        requireNonNull(conversationId);
+        requireNonNull(messages);
+        Conversation conversation = getConversation(conversationId);
+        synchronized (conversation) {
+            List<Message> allMessages = new ArrayList<>(repository.findByConversationId(conversationId));
+            allMessages.addAll(messages);
+            if (allMessages.size() > maximumMessages) {
+                int removedCount = allMessages.size() - maximumMessages;
+                allMessages.subList(0, removedCount).clear();
+                int countedRemovedCount = Math.min(removedCount, conversation.tokenCounts.size());
+                conversation.tokenCounts.subList(0, countedRemovedCount).clear();
+                conversation.evicted = Math.max(0, conversation.evicted - removedCount);
+                // turns which start in the removed messages cannot be recalled anymore
+                conversation.trimmed += removedCount;
+                conversation.turns.removeIf(turn -> turn.position < conversation.trimmed);
+            }
+            repository.saveAll(conversationId, allMessages);
+            updateTokenCounts(conversation, allMessages);
+        }
+    }
+
+    @Override
+    public List<Message> get(String conversationId) {
+        requireNonNull(conversationId);
+        return METRICS.time("Get", () -> doGet(conversationId));
+    }
+
+    @Override
+    public void clear(String conversationId) {
+        requireNonNull(conversationId);
+        repository.deleteByConversationId(conversationId);
+        conversations.remove(conversationId);
+    }
+
+    private List<Message> doGet(String conversationId) {
+        Conversation conversation = getConversation(conversationId);
+        List<Message> allMessages = repository.findByConversationId(conversationId);
+        String question;
+        String summary = null;
+        List<Turn> turns = List.of();
+        int windowStart = 0;
+        int recallBudget;
+        synchronized (conversation) {
+            updateTokenCounts(conversation, allMessages);
+            boolean extended = !conversation.internal;
+            boolean recall = extended && embedder != null && recallCount > 0 && isNotEmpty(conversation.question);
+            question = conversation.question;
+            // recalled turns use at most a quarter of the budget
+            recallBudget = recall ? conversation.maximumTokens / 4 : 0;
+            // the summary can change while turns are evicted, so the window is calculated again
+            for (int attempt = 0; attempt < 3; attempt++) {
+                summary = extended ? conversation.summary : null;
+                int budget = conversation.maximumTokens - recallBudget;
+                if (summary != null) budget -= countTokens(summary) + MESSAGE_OVERHEAD_TOKENS;
+                windowStart = getWindowStart(conversation, allMessages, budget);
+                if (windowStart > conversation.evicted) {
+                    List<Message> evictedMessages = new ArrayList<>(allMessages.subList(conversation.evicted, windowStart));
+                    long position = conversation.trimmed + conversation.evicted;
+                    conversation.evicted = windowStart;
+                    METRICS.count("Evict");
+                    if (extended) evict(conversation, evictedMessages, position);
+                }
+                if (Objects.equals(summary, extended ? conversation.summary : null)) break;
+            }
+            if (recall) turns = new ArrayList<>(conversation.turns);
+        }
+        List<Message> messages = new ArrayList<>();
+        StringBuilder context = new StringBuilder();
+        if (summary != null) context.append(SUMMARY_HEADER).append(summary);
+        if (!turns.isEmpty()) {
+            String recalledTurns = recall(question, turns, recallBudget);
+            if (isNotEmpty(recalledTurns)) {
+                if (!context.isEmpty()) context.append("\n\n");
+                context.append(RECALL_HEADER).append(recalledTurns);
+            }
+        }
+        if (!context.isEmpty()) messages.add(new SystemMessage(context.toString()));
+        messages.addAll(allMessages.subList(windowStart, allMessages.size()));
+        return messages;
+    }
+
+    /**
+     * Finds the first message of the window: the oldest user message after which all messages fit in the budget.
+     */
+    private int getWindowStart(Conversation conversation, List<Message> messages, int budget) {
+        int start = messages.size();
+        int tokenCount = 0;
+        while (start > 0 && tokenCount + conversation.tokenCounts.get(start - 1) <= budget) {
+            start--;
+            tokenCount += conversation.tokenCounts.get(start);
+        }
+        while (start < messages.size() && messages.get(start).getMessageType() != MessageType.USER) {
+            start++;
+        }
+        return Math.max(start, Math.min(conversation.evicted, messages.size()));
+    }
+
+    private void evict(Conversation conversation, List<Message> messages, long position) {
+        Map<Long, String> turns = toTurns(messages, position);
+        if (turns.isEmpty()) return;
+        if (summarizer != null) {
+            conversation.pendingSummary.addAll(turns.values());
+            if (!conversation.summarizing) {
+                conversation.summarizing = true;
+                executor.execute(() -> summarize(conversation));
+            }
+        }
+        if (embedder != null && recallCount > 0) {
+            executor.execute(() -> embed(conversation, turns));
+        }
+    }
+
+    private void summarize(Conversation conversation) {
+        while (true) {
+            String previousSummary;
+            List<String> turns;
+            synchronized (conversation) {
+                if (conversation.pendingSummary.isEmpty()) {
+                    conversation.summarizing = false;
+                    return;
+                }
+                previousSummary = conversation.summary;
+                turns = new ArrayList<>(conversation.pendingSummary);
+                conversation.pendingSummary.clear();
+            }
+            StringBuilder text = new StringBuilder();
+            if (previousSummary != null) text.append(SUMMARY_HEADER).append(previousSummary).append("\n\n");
+            turns.forEach(turn -> text.append(turn).append("\n\n"));
+            try {
+                String summary = METRICS.time("Summarize", () -> summarizer.apply(text.toString().trim()));
+                if (isNotEmpty(summary)) {
+                    synchronized (conversation) {
+                        conversation.summary = summary.trim();
+                    }
+                }
+            } catch (Exception e) {
+                LOGGER.atWarn().setCause(e).log("Failed to summarize {} turns", turns.size());
+            }
+        }
+    }
+
+    private void embed(Conversation conversation, Map<Long, String> turns) {
+        for (Map.Entry<Long, String> turn : turns.entrySet()) {
+            try {
+                float[] vector = METRICS.time("Embed", () -> embedder.apply(turn.getValue()));
+                synchronized (conversation) {
+                    // the messages of the turn could be trimmed while the turn was embedded
+                    if (turn.getKey() < conversation.trimmed) continue;
+                    conversation.turns.add(new Turn(turn.getValue(), countTokens(turn.getValue()), vector, turn.getKey()));
+                }
+            } catch (Exception e) {
+                LOGGER.atWarn().setCause(e).log("Failed to embed turn");
+            }
+        }
+    }
+
+    private String recall(String question, List<Turn> turns, int budget) {
+        float[] vector;
+        try {
+            vector = METRICS.time("Embed", () -> embedder.apply(question));
+        } catch (Exception e) {
+            LOGGER.atWarn().setCause(e).log("Failed to embed question");
+            return null;
+        }
+        List<Map.Entry<Turn, Double>> candidates = new ArrayList<>();
+        for (Turn turn : turns) {
+            double similarity = cosine(vector, turn.vector);
+            if (similarity >= recallMinimumSimilarity) candidates.add(Map.entry(turn, similarity));
+        }
+        candidates.sort(Map.Entry.<Turn, Double>comparingByValue().reversed());
+        List<Turn> recalledTurns = new ArrayList<>();
+        int tokenCount = 0;
+        for (Map.Entry<Turn, Double> candidate : candidates) {
+            if (recalledTurns.size() >= recallCount) break;
+            Turn turn = candidate.getKey();
+            if (tokenCount + turn.tokenCount > budget) continue;
+            recalledTurns.add(turn);
+            tokenCount += turn.tokenCount;
+        }
+        if (recalledTurns.isEmpty()) return null;
+        METRICS.count("Recall");
+        // keep the recalled turns in the order of the conversation
+        recalledTurns.sort(Comparator.comparingLong(Turn::position));
+        StringBuilder builder = new StringBuilder();
+        recalledTurns.forEach(turn -> builder.append(turn.text).append("\n\n"));
+        return builder.toString().trim();
+    }
+
+    private void updateTokenCounts(Conversation conversation, List<Message> messages) {
+        if (conversation.tokenCounts.size() > messages.size()) {
+            // the conversation was changed outside this memory
+            conversation.tokenCounts.clear();
+            conversation.evicted = 0;
+        }
+        for (int index = conversation.tokenCounts.size(); index < messages.size(); index++) {
+            conversation.tokenCounts.add(countTokens(messages.get(index)));
+        }
+    }
+
+    private int countTokens(Message message) {
+        int tokenCount = MESSAGE_OVERHEAD_TOKENS + countTokens(message.getText());
+        if (message instanceof AssistantMessage assistantMessage && assistantMessage.hasToolCalls()) {
+            for (AssistantMessage.ToolCall toolCall : assistantMessage.getToolCalls()) {
+                tokenCount += countTokens(toolCall.name()) + countTokens(toolCall.arguments());
+            }
+        } else if (message instanceof ToolResponseMessage toolResponseMessage) {
+            for (ToolResponseMessage.ToolResponse response : toolResponseMessage.getResponses()) {
+                tokenCount += countTokens(response.responseData());
+            }
+        }
+        return tokenCount;
+    }
+
+    private int countTokens(String text) {
+        return isEmpty(text) ? 0 : tokenCountEstimator.estimate(text);
+    }
+
+    private Conversation getConversation(String conversationId) {
+        return conversations.computeIfAbsent(conversationId, id -> new Conversation(maximumTokens));
+    }
+
+    /**
+     * Converts messages to turns (a question and its answer), as text, indexed by the position of their first message
+     * in the conversation.
+     */
+    private static Map<Long, String> toTurns(List<Message> messages, long position) {
+        Map<Long, String> turns = new LinkedHashMap<>();
+        StringBuilder turn = new StringBuilder();
+        long turnPosition = position;
+        for (int index = 0; index < messages.size(); index++) {
+            Message message = messages.get(index);
+            if (isEmpty(message.getText())) continue;
+            if (message.getMessageType() == MessageType.USER) {
+                if (!turn.isEmpty()) turns.put(turnPosition, turn.toString().trim());
+                turn.setLength(0);
+                turnPosition = position + index;
+                turn.append("User: ").append(message.getText()).append('\n');
+            } else if (message.getMessageType() == MessageType.ASSISTANT) {
+                turn.append("Assistant: ").append(message.getText()).append('\n');
+            }
+        }
+        if (!turn.isEmpty()) turns.put(turnPosition, turn.toString().trim());
+        return turns;
+    }
+
+    private static double cosine(float[] first, float[] second) {
+        if (first.length != second.length) return 0;
+        double dotProduct = 0;
+        double firstNorm = 0;
+        double secondNorm = 0;
+        for (int i = 0; i < first.length; i++) {
+            dotProduct += first[i] * second[i];
+            firstNorm += first[i] * first[i];
+            secondNorm += second[i] * second[i];
+        }
+        return firstNorm == 0 || secondNorm == 0 ? 0 : dotProduct / Math.sqrt(firstNorm * secondNorm);
+    }
+
+    private static class Conversation {
+
+        private final List<Integer> tokenCounts = new ArrayList<>();
+        private final List<String> pendingSummary = new ArrayList<>();
+        private final List<Turn> turns = new ArrayList<>();
+        private int maximumTokens;
+        private boolean internal;
+        private int evicted;
+        private long trimmed;
+        private boolean summarizing;
+        private volatile String summary;
+        private volatile String question;
+
+        private Conversation(int maximumTokens) {
+            this.maximumTokens = maximumTokens;
+        }
+    }
+
+    private record Turn(String text, int tokenCount, float[] vector, long position) {
+    }
+}
@@ -0,0 +1,225 @@
+package net.microfalx.bootstrap.ai.core;
+
+import net.microfalx.bootstrap.ai.api.AiException;
+import net.microfalx.bootstrap.ai.api.Tool;
+import net.microfalx.bootstrap.model.Types;
+import net.microfalx.bootstrap.security.SecurityContext;
+import net.microfalx.bootstrap.security.user.SecurityContextImpl;
+import net.microfalx.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+import static net.microfalx.bootstrap.ai.core.AiUtils.TOOL_EXECUTION_METRICS;
+import static net.microfalx.bootstrap.ai.core.AiUtils.TOOL_METRICS;
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.ExceptionUtils.getRootCause;
+
+/**
+ * Executes tool calls requested by models, on virtual threads.
+ * <p>
+ * When a model requests several tools in one turn, all calls are {@link #submit(Tool, String, Callable) submitted}
+ * before the first result is {@link #call(Tool, String, Callable) collected}, so the turn waits for the slowest tool
+ * instead of the sum of all tools. Each call is cancelled if it does not complete within the timeout of the tool,
+ * measured from the moment the call was submitted.
+ * <p>
+ * The results of {@link Tool#isIdempotent() idempotent} tools are cached by user, tool and arguments; tools run
+ * under the security context of the caller, so a result is never shared between users.
+ */
+final class ToolCallExecutor implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ToolCallExecutor.class);
+
+    private static final Metrics CACHE_METRICS = TOOL_METRICS.withGroup("Cache");
+
+    static final String FAILED_OBSERVATION = "Observation: The tool failed, maybe use a different tool.";
+    static final String TIMEOUT_OBSERVATION = "Observation: The tool did not respond in time, maybe use a different tool.";
+
+    /**
+     * Holds the calls submitted by the current thread, which were not collected yet.
+     */
+    private final ThreadLocal<Map<String, SubmittedCall>> submittedCalls = ThreadLocal.withInitial(HashMap::new);
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ai-tool-", 1).factory());
+    private final Duration timeout;
+    private final Duration cacheTimeToLive;
+    private final int cacheSize;
+    private final Map<String, CachedResult> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    ToolCallExecutor(Duration timeout, Duration cacheTimeToLive, int cacheSize) {
+        requireNonNull(timeout);
+        requireNonNull(cacheTimeToLive);
+        this.timeout = timeout;
+        this.cacheTimeToLive = cacheTimeToLive;
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Returns the timeout used for tools without a timeout.
+     *
+     * @return a non-null instance
+     */
+    Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Starts the execution of a tool, the result is collected later with {@link #call(Tool, String, Callable)},
+     * on the same thread.
+     *
+     * @param tool  the tool
+     * @param input the arguments, as JSON
+     * @param task  the task which executes the tool
+     */
+    void submit(Tool tool, String input, Callable<String> task) {
+        requireNonNull(tool);
+        requireNonNull(task);
+        String key = getKey(tool, input);
+        // the cache is not counted, the result is requested again when the call is collected
+        if (getCachedResult(tool, key, false) != null) return;
+        submittedCalls.get().computeIfAbsent(key, k -> doSubmit(tool, task));
+    }
+
+    /**
+     * Executes a tool and waits for its result, reusing a call already {@link #submit(Tool, String, Callable) submitted}
+     * with the same arguments or a cached result.
+     *
+     * @param tool  the tool
+     * @param input the arguments, as JSON
+     * @param task  the task which executes the tool
+     * @return the result of the tool, or an observation about the failure of the tool
+     */
+    String call(Tool tool, String input, Callable<String> task) {
+        return call(tool, input, task, null);
+    }
+
+    /**
+     * Executes a tool and waits for its result, reusing a call already {@link #submit(Tool, String, Callable) submitted}
+     * with the same arguments or a cached result.
+     *
+     * @param tool           the tool
+     * @param input          the arguments, as JSON
+     * @param task           the task which executes the tool
+     * @param cachedListener a listener called with the result when the result comes from the cache, can be null
+     * @return the result of the tool, or an observation about the failure of the tool
+     */
+    String call(Tool tool, String input, Callable<String> task, Consumer<String> cachedListener) {
+        requireNonNull(tool);
+        requireNonNull(task);
+        String key = getKey(tool, input);
+        String result = getCachedResult(tool, key, true);
+        if (result != null) {
+            if (cachedListener != null) cachedListener.accept(result);
+            return result;
+        }
+        SubmittedCall call = submittedCalls.get().remove(key);
+        if (call == null) call = doSubmit(tool, task);
+        Future<String> future = call.future();
+        Duration toolTimeout = tool.getTimeout() != null ? tool.getTimeout() : timeout;
+        long remainingNanos = toolTimeout.toNanos() - (System.nanoTime() - call.submittedAt());
+        try {
+            result = future.get(Math.max(0, remainingNanos), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            TOOL_METRICS.count("Timeout");
+            LOGGER.warn("Tool '{}' did not complete in {}ms, input: {}", tool.getName(), toolTimeout.toMillis(), input);
+            return TIMEOUT_OBSERVATION;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AiException("Interrupted while waiting for tool '" + tool.getName() + "'", e);
+        } catch (ExecutionException e) {
+            LOGGER.atError().setCause(getRootCause(e)).log("Tool '{}' failed for input: {}", tool.getName(), input);
+            return FAILED_OBSERVATION;
+        }
+        if (tool.isIdempotent() && cacheSize > 0) putCachedResult(key, result);
+        return result;
+    }
+
+    /**
+     * Cancels the calls submitted by the current thread which were not collected.
+     */
+    void cancel() {
+        Map<String, SubmittedCall> calls = submittedCalls.get();
+        calls.values().forEach(call -> call.future().cancel(true));
+        submittedCalls.remove();
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        clearCache();
+    }
+
+    private SubmittedCall doSubmit(Tool tool, Callable<String> task) {
+        SecurityContext securityContext = SecurityContext.get();
+        long submittedAt = System.nanoTime();
+        Future<String> future = executor.submit(() -> {
+            SecurityContextImpl.CONTEXT.set(securityContext);
+            try {
+                return TOOL_EXECUTION_METRICS.timeCallable(tool.getName(), task);
+            } finally {
+                SecurityContextImpl.CONTEXT.remove();
+            }
+        });
+        return new SubmittedCall(future, submittedAt);
+    }
+
+    private String getCachedResult(Tool tool, String key, boolean count) {
+        if (!tool.isIdempotent() || cacheSize <= 0) return null;
+        synchronized (cache) {
+            CachedResult result = cache.get(key);
+            if (result != null && System.nanoTime() - result.createdAt > cacheTimeToLive.toNanos()) {
+                cache.remove(key);
+                result = null;
+            }
+            if (count) CACHE_METRICS.count(result != null ? "Hit" : "Miss");
+            return result != null ? result.value : null;
+        }
+    }
+
+    private void putCachedResult(String key, String value) {
+        synchronized (cache) {
+            cache.put(key, new CachedResult(value, System.nanoTime()));
+            Iterator<CachedResult> iterator = cache.values().iterator();
+            while (cache.size() > cacheSize && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                CACHE_METRICS.count("Evict");
+            }
+        }
+    }
+
+    /**
+     * Creates a key from the current user, the tool and its arguments, independent of the order (and formatting)
+     * of the arguments.
+     */
+    private static String getKey(Tool tool, String input) {
+        String arguments;
+        try {
+            arguments = new TreeMap<>(Types.asMap(input)).toString();
+        } catch (Exception e) {
+            arguments = String.valueOf(input);
+        }
+        return SecurityContext.get().getUser().getUsername() + ":" + tool.getId() + ":" + arguments;
+    }
+
+    private record CachedResult(String value, long createdAt) {
+    }
+
+    private record SubmittedCall(Future<String> future, long submittedAt) {
+    }
+}
@@ -0,0 +1,75 @@
+package net.microfalx.bootstrap.ai.core;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+
+import java.util.Collections;
+import java.util.List;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * A tool calling manager which executes the tool calls requested by a model in one turn concurrently.
+ * <p>
+ * All the calls of a turn are submitted to the {@link ToolCallExecutor} first, then the turn is handed to the
+ * default manager, which invokes the tools one by one (and builds the messages sent back to the model); each
+ * invocation only collects the result of a call already running.
+ */
+final class ToolCallingManagerImpl implements ToolCallingManager {
+
+    private final ToolCallingManager delegate;
+    private final ToolCallExecutor executor;
+
+    ToolCallingManagerImpl(ToolCallingManager delegate, ToolCallExecutor executor) {
+        requireNonNull(delegate);
+        requireNonNull(executor);
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public List<ToolDefinition> resolveToolDefinitions(ToolCallingChatOptions chatOptions) {
+        return delegate.resolveToolDefinitions(chatOptions);
+    }
+
+    @Override
+    public ToolExecutionResult executeToolCalls(Prompt prompt, ChatResponse chatResponse) {
+        List<AssistantMessage.ToolCall> toolCalls = getToolCalls(chatResponse);
+        try {
+            if (toolCalls.size() > 1 && prompt.getOptions() instanceof ToolCallingChatOptions options) {
+                for (AssistantMessage.ToolCall toolCall : toolCalls) {
+                    submit(options, toolCall);
+                }
+            }
+            return delegate.executeToolCalls(prompt, chatResponse);
+        } finally {
+            executor.cancel();
+        }
+    }
+
+    private void submit(ToolCallingChatOptions options, AssistantMessage.ToolCall toolCall) {
+        for (ToolCallback toolCallback : options.getToolCallbacks()) {
+            if (toolCallback instanceof ToolExecutors.ToolCallbackImpl toolCallbackImpl
+                    && toolCallback.getToolDefinition().name().equals(toolCall.name())) {
+                toolCallbackImpl.submit(toolCall.arguments());
+                return;
+            }
+        }
+    }
+
+    private static List<AssistantMessage.ToolCall> getToolCalls(ChatResponse chatResponse) {
+        if (chatResponse == null) return Collections.emptyList();
+        for (Generation generation : chatResponse.getResults()) {
+            AssistantMessage message = generation.getOutput();
+            if (message != null && message.hasToolCalls()) return message.getToolCalls();
+        }
+        return Collections.emptyList();
+    }
+}
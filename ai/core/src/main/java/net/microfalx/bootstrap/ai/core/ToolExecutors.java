@@ -4,12 +4,16 @@ import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import net.microfalx.bootstrap.ai.api.AiException;
 import net.microfalx.bootstrap.ai.api.Chat;
+import net.microfalx.bootstrap.ai.api.Content;
 import net.microfalx.bootstrap.ai.api.Tool;
 import net.microfalx.bootstrap.model.Types;
 import net.microfalx.lang.ObjectUtils;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
 import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.definition.ToolDefinition;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -87,12 +91,15 @@ public class ToolExecutors {
 
         private final Chat chat;
         private final Tool tool;
+        private final ToolCallExecutor executor;
 
-        ToolCallbackImpl(Chat chat, Tool tool) {
+        ToolCallbackImpl(Chat chat, Tool tool, ToolCallExecutor executor) {
             requireNonNull(chat);
             requireNonNull(tool);
+            requireNonNull(executor);
             this.chat = chat;
             this.tool = tool;
+            this.executor = executor;
         }
 
         @Override
@@ -102,19 +109,97 @@ public class ToolExecutors {
 
         @Override
         public String call(String toolInput) {
-            Tool.ExecutionRequest request = null;
+            return executor.call(tool, toolInput, () -> execute(toolInput), result -> registerCached(toolInput, result));
+        }
+
+        /**
+         * Starts the execution of the tool, the result is collected by {@link #call(String)}.
+         *
+         * @param toolInput the arguments, as JSON
+         */
+        void submit(String toolInput) {
+            executor.submit(tool, toolInput, () -> execute(toolInput));
+        }
+
+        private String execute(String toolInput) throws Exception {
+            Tool.ExecutionRequest request = ToolExecutors.createRequest(chat, tool, toolInput);
             try {
-                request = ToolExecutors.createRequest(chat, tool, toolInput);
                 Tool.ExecutionResponse response = tool.getExecutor().execute(request);
                 ((AbstractChat) chat).registerToolExecution(request, response);
                 return response.getContent().getResource().loadAsString();
             } catch (Exception e) {
-                if (request != null) ((AbstractChat) chat).registerToolExecution(request, e);
-                LOGGER.atError().setCause(e).log("Tool '{}' failed for input", toolInput);
-                return "Observation: The tool failed, maybe use a different tool.";
+                ((AbstractChat) chat).registerToolExecution(request, e);
+                throw e;
             }
         }
 
+        private void registerCached(String toolInput, String result) {
+            Tool.ExecutionRequest request = ToolExecutors.createRequest(chat, tool, toolInput);
+            ((AbstractChat) chat).registerToolExecution(request, new CachedExecutionResponse(request, result));
+        }
+
+    }
+
+    /**
+     * A response for a tool call served from the cache of the tool executor, the tool was not executed.
+     */
+    @ToString
+    static class CachedExecutionResponse implements Tool.ExecutionResponse {
+
+        private final Tool.ExecutionRequest request;
+        private final Content content;
+        private final LocalDateTime executedAt = LocalDateTime.now();
+
+        CachedExecutionResponse(Tool.ExecutionRequest request, String result) {
+            requireNonNull(request);
+            this.request = request;
+            this.content = ContentImpl.from(result);
+        }
+
+        @Override
+        public String getName() {
+            return request.getTool().getName();
+        }
+
+        @Override
+        public Chat getChat() {
+            return request.getChat();
+        }
+
+        @Override
+        public Tool getTool() {
+            return request.getTool();
+        }
+
+        @Override
+        public int getItemCount() {
+            // the items are not known, only the (rendered) result of the tool is cached
+            return 0;
+        }
+
+        @Override
+        public int getTokenCount() {
+            try {
+                return new JTokkitTokenCountEstimator().estimate(content.getResource().loadAsString());
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+
+        @Override
+        public LocalDateTime getExecutedAt() {
+            return executedAt;
+        }
+
+        @Override
+        public Duration getDuration() {
+            return Duration.ZERO;
+        }
+
+        @Override
+        public Content getContent() {
+            return content;
+        }
     }
 
     @ToString
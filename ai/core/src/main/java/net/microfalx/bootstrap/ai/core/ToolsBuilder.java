@@ -41,7 +41,7 @@ class ToolsBuilder {
         for (Tool tool : chat.getTools()) {
             ToolCallback toolCallback = AiTools.callbackFromTool(tool);
             if (toolCallback == null) {
-                toolCallback = new ToolExecutors.ToolCallbackImpl(chat, tool);
+                toolCallback = new ToolExecutors.ToolCallbackImpl(chat, tool, service.getToolCallExecutor());
             }
             tools.put(tool.getName(), toolCallback);
         }
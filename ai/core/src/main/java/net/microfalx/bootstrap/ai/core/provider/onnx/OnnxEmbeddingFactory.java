@@ -1,40 +1,48 @@
 package net.microfalx.bootstrap.ai.core.provider.onnx;
 
-import net.microfalx.bootstrap.ai.api.AiNotAvailableException;
 import net.microfalx.bootstrap.ai.api.Embedding;
 import net.microfalx.bootstrap.ai.api.Model;
 import net.microfalx.bootstrap.ai.core.AbstractEmbeddingFactory;
-import net.microfalx.lang.JvmUtils;
-import org.springframework.ai.embedding.EmbeddingModel;
-import org.springframework.ai.embedding.EmbeddingResponse;
-import org.springframework.ai.transformers.TransformersEmbeddingModel;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
 
 public class OnnxEmbeddingFactory extends AbstractEmbeddingFactory {
 
-    private EmbeddingModel embeddingModel;
+    private static final String MODEL_PATH = "/onnx/all-MiniLM-L6-v2/model.onnx";
+    private static final String TOKENIZER_PATH = "/onnx/all-MiniLM-L6-v2/tokenizer.json";
+
+    private volatile OnnxEmbeddingModel embeddingModel;
 
     @Override
     public Embedding createEmbedding(Model model, String text) {
-        EmbeddingResponse response = getEmbeddingModel().embedForResponse(List.of(text));
-        return create(model, response.getResult());
+        requireNonNull(text);
+        return createEmbeddings(model, List.of(text)).get(0);
+    }
+
+    @Override
+    public List<Embedding> createEmbeddings(Model model, List<String> texts) {
+        requireNonNull(model);
+        requireNonNull(texts);
+        List<float[]> vectors = getEmbeddingModel().embed(texts);
+        List<Embedding> embeddings = new ArrayList<>(vectors.size());
+        for (float[] vector : vectors) {
+            embeddings.add(create(model, new org.springframework.ai.embedding.Embedding(vector, embeddings.size())));
+        }
+        return embeddings;
     }
 
-    private EmbeddingModel getEmbeddingModel() {
-        if (embeddingModel != null) return embeddingModel;
-        TransformersEmbeddingModel embeddingModel = new TransformersEmbeddingModel();
-        embeddingModel.setTokenizerResource("classpath:/onnx/all-MiniLM-L6-v2/tokenizer.json");
-        embeddingModel.setModelResource("classpath:/onnx/all-MiniLM-L6-v2/model.onnx");
-        embeddingModel.setResourceCacheDirectory(JvmUtils.getCacheDirectory("onnx").getAbsolutePath());
-        embeddingModel.setTokenizerOptions(Map.of("padding", "true"));
-        try {
-            embeddingModel.afterPropertiesSet();
-        } catch (Exception e) {
-            throw new AiNotAvailableException("Failed to initialize embedding model", e);
+    private OnnxEmbeddingModel getEmbeddingModel() {
+        OnnxEmbeddingModel currentEmbeddingModel = embeddingModel;
+        if (currentEmbeddingModel != null) return currentEmbeddingModel;
+        synchronized (this) {
+            if (embeddingModel == null) {
+                embeddingModel = OnnxEmbeddingModel.load(MODEL_PATH, TOKENIZER_PATH,
+                        getProperties().getEmbeddingIntraOpThreads(), getProperties().getEmbeddingInterOpThreads());
+            }
+            return embeddingModel;
         }
-        this.embeddingModel = embeddingModel;
-        return embeddingModel;
     }
 }
@@ -0,0 +1,157 @@
+package net.microfalx.bootstrap.ai.core.provider.onnx;
+
+import ai.djl.huggingface.tokenizers.Encoding;
+import ai.djl.huggingface.tokenizers.HuggingFaceTokenizer;
+import ai.onnxruntime.*;
+import net.microfalx.bootstrap.ai.api.AiException;
+import net.microfalx.bootstrap.ai.api.AiNotAvailableException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Runs a sentence transformer model (exported to ONNX) in process.
+ * <p>
+ * The model receives the token ids (and the attention mask) of a batch of texts and produces one vector per token;
+ * the embedding of a text is the mean of its token vectors (the padding tokens are ignored).
+ * <p>
+ * The session is created with an explicit number of intra-op and inter-op threads. The session is thread-safe,
+ * but a batch already uses all intra-op threads, so callers should rather send larger batches than run
+ * more batches in parallel.
+ */
+final class OnnxEmbeddingModel implements AutoCloseable {
+
+    private static final String INPUT_IDS = "input_ids";
+    private static final String ATTENTION_MASK = "attention_mask";
+    private static final String TOKEN_TYPE_IDS = "token_type_ids";
+    private static final String LAST_HIDDEN_STATE = "last_hidden_state";
+
+    private final OrtEnvironment environment;
+    private final OrtSession session;
+    private final HuggingFaceTokenizer tokenizer;
+
+    /**
+     * Loads a model from the class path.
+     *
+     * @param modelPath        the path of the model
+     * @param tokenizerPath    the path of the tokenizer
+     * @param intraOpThreads   the number of threads used to execute one operator, zero for the runtime default
+     * @param interOpThreads   the number of threads used to execute independent operators, zero to execute
+     *                         operators sequentially
+     * @return a non-null instance
+     */
+    static OnnxEmbeddingModel load(String modelPath, String tokenizerPath, int intraOpThreads, int interOpThreads) {
+        requireNonNull(modelPath);
+        requireNonNull(tokenizerPath);
+        OrtEnvironment environment = OrtEnvironment.getEnvironment();
+        try (OrtSession.SessionOptions options = new OrtSession.SessionOptions()) {
+            options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+            if (intraOpThreads > 0) options.setIntraOpNumThreads(intraOpThreads);
+            if (interOpThreads > 0) {
+                options.setExecutionMode(OrtSession.SessionOptions.ExecutionMode.PARALLEL);
+                options.setInterOpNumThreads(interOpThreads);
+            }
+            OrtSession session = environment.createSession(readResource(modelPath), options);
+            HuggingFaceTokenizer tokenizer;
+            try (InputStream inputStream = openResource(tokenizerPath)) {
+                tokenizer = HuggingFaceTokenizer.newInstance(inputStream, Map.of("padding", "true",
+                        "truncation", "true"));
+            }
+            return new OnnxEmbeddingModel(environment, session, tokenizer);
+        } catch (OrtException | IOException e) {
+            throw new AiNotAvailableException("Failed to initialize embedding model '" + modelPath + "'", e);
+        }
+    }
+
+    private OnnxEmbeddingModel(OrtEnvironment environment, OrtSession session, HuggingFaceTokenizer tokenizer) {
+        this.environment = environment;
+        this.session = session;
+        this.tokenizer = tokenizer;
+    }
+
+    /**
+     * Embeds a batch of texts.
+     *
+     * @param texts the texts
+     * @return the vectors, in the same order as the texts
+     */
+    List<float[]> embed(List<String> texts) {
+        requireNonNull(texts);
+        if (texts.isEmpty()) return Collections.emptyList();
+        Encoding[] encodings = tokenizer.batchEncode(texts);
+        long[][] inputIds = new long[encodings.length][];
+        long[][] attentionMask = new long[encodings.length][];
+        long[][] tokenTypeIds = new long[encodings.length][];
+        for (int i = 0; i < encodings.length; i++) {
+            inputIds[i] = encodings[i].getIds();
+            attentionMask[i] = encodings[i].getAttentionMask();
+            tokenTypeIds[i] = encodings[i].getTypeIds();
+        }
+        Map<String, OnnxTensor> inputs = new HashMap<>();
+        try {
+            addInput(inputs, INPUT_IDS, inputIds);
+            addInput(inputs, ATTENTION_MASK, attentionMask);
+            addInput(inputs, TOKEN_TYPE_IDS, tokenTypeIds);
+            try (OrtSession.Result result = session.run(inputs)) {
+                OnnxValue output = result.get(LAST_HIDDEN_STATE).orElseGet(() -> result.get(0));
+                return meanPooling((float[][][]) output.getValue(), attentionMask);
+            }
+        } catch (OrtException e) {
+            throw new AiException("Failed to embed " + texts.size() + " texts", e);
+        } finally {
+            inputs.values().forEach(OnnxTensor::close);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            session.close();
+        } catch (OrtException e) {
+            // nothing to do, the session is discarded anyway
+        }
+        tokenizer.close();
+    }
+
+    private void addInput(Map<String, OnnxTensor> inputs, String name, long[][] values) throws OrtException {
+        if (session.getInputNames().contains(name)) inputs.put(name, OnnxTensor.createTensor(environment, values));
+    }
+
+    private static List<float[]> meanPooling(float[][][] tokenEmbeddings, long[][] attentionMask) {
+        List<float[]> embeddings = new ArrayList<>(tokenEmbeddings.length);
+        for (int i = 0; i < tokenEmbeddings.length; i++) {
+            float[][] tokens = tokenEmbeddings[i];
+            float[] embedding = new float[tokens[0].length];
+            float tokenCount = 0;
+            for (int token = 0; token < tokens.length; token++) {
+                if (attentionMask[i][token] == 0) continue;
+                tokenCount++;
+                float[] values = tokens[token];
+                for (int dimension = 0; dimension < embedding.length; dimension++) {
+                    embedding[dimension] += values[dimension];
+                }
+            }
+            float divisor = Math.max(tokenCount, 1e-9f);
+            for (int dimension = 0; dimension < embedding.length; dimension++) {
+                embedding[dimension] /= divisor;
+            }
+            embeddings.add(embedding);
+        }
+        return embeddings;
+    }
+
+    private static InputStream openResource(String path) throws IOException {
+        InputStream inputStream = OnnxEmbeddingModel.class.getResourceAsStream(path);
+        if (inputStream == null) throw new IOException("Resource '" + path + "' does not exist");
+        return inputStream;
+    }
+
+    private static byte[] readResource(String path) throws IOException {
+        try (InputStream inputStream = openResource(path)) {
+            return inputStream.readAllBytes();
+        }
+    }
+}
@@ -9,10 +9,12 @@ public class OnnxProviderFactory extends AbstractProviderFactory {
 
     @Override
     public Provider createProvider() {
+        OnnxEmbeddingFactory embeddingFactory = new OnnxEmbeddingFactory();
+        embeddingFactory.setProperties(getProperties());
         net.microfalx.bootstrap.ai.api.Provider.Builder builder = new net.microfalx.bootstrap.ai.api.Provider.Builder("onnx");
         builder.name("ONNX").description("A cross-platform runtime for machine-learning model accelerator");
         builder.version("1.22").author("Microsoft").license("MIT")
-                .chatFactory(new OnnxChatFactory()).embeddingFactory(new OnnxEmbeddingFactory())
+                .chatFactory(new OnnxChatFactory()).embeddingFactory(embeddingFactory)
                 .tag("onnx").tag("microsoft");
         registerModels(builder);
         return builder.build();
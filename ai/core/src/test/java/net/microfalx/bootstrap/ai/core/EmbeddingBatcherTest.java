@@ -0,0 +1,92 @@
+package net.microfalx.bootstrap.ai.core;
+
+import net.microfalx.bootstrap.ai.api.AiException;
+import net.microfalx.bootstrap.ai.api.Embedding;
+import net.microfalx.bootstrap.ai.api.Model;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmbeddingBatcherTest {
+
+    private final Model model = Model.create("Test", "test").build();
+    private final TestEmbeddingFactory factory = new TestEmbeddingFactory();
+    private final ExecutorService executor = Executors.newFixedThreadPool(16);
+    private EmbeddingBatcher batcher;
+
+    @AfterEach
+    void release() {
+        if (batcher != null) batcher.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void embed() {
+        batcher = new EmbeddingBatcher(model, factory, 8, Duration.ofMillis(5));
+        Embedding embedding = batcher.embed("abc");
+        assertEquals(3f, embedding.getVector()[0]);
+        assertEquals(1, factory.batchSizes.size());
+    }
+
+    @Test
+    void coalesceConcurrentRequests() throws Exception {
+        batcher = new EmbeddingBatcher(model, factory, 8, Duration.ofMillis(50));
+        List<Future<Embedding>> futures = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            String text = "x".repeat(i + 1);
+            futures.add(executor.submit(() -> batcher.embed(text)));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i + 1f, futures.get(i).get(10, TimeUnit.SECONDS).getVector()[0]);
+        }
+        assertTrue(factory.batchSizes.size() < 32);
+        assertTrue(factory.batchSizes.stream().allMatch(size -> size <= 8));
+        assertEquals(32, factory.batchSizes.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void failure() {
+        factory.failure = new AiException("Model is not available");
+        batcher = new EmbeddingBatcher(model, factory, 8, Duration.ofMillis(5));
+        AiException exception = assertThrows(AiException.class, () -> batcher.embed("abc"));
+        assertEquals("Model is not available", exception.getMessage());
+        factory.failure = null;
+        assertEquals(3f, batcher.embed("abc").getVector()[0]);
+    }
+
+    @Test
+    void closed() {
+        batcher = new EmbeddingBatcher(model, factory, 8, Duration.ofMillis(5));
+        batcher.close();
+        assertThrows(AiException.class, () -> batcher.embed("abc"));
+    }
+
+    private static class TestEmbeddingFactory extends AbstractEmbeddingFactory {
+
+        private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        private volatile RuntimeException failure;
+
+        @Override
+        public Embedding createEmbedding(Model model, String text) {
+            return createEmbeddings(model, List.of(text)).get(0);
+        }
+
+        @Override
+        public List<Embedding> createEmbeddings(Model model, List<String> texts) {
+            if (failure != null) throw failure;
+            batchSizes.add(texts.size());
+            List<Embedding> embeddings = new ArrayList<>();
+            for (String text : texts) {
+                float[] vector = {text.length()};
+                embeddings.add(create(model, new org.springframework.ai.embedding.Embedding(vector, embeddings.size())));
+            }
+            return embeddings;
+        }
+    }
+}
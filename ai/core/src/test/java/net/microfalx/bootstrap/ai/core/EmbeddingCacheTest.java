@@ -0,0 +1,118 @@
+package net.microfalx.bootstrap.ai.core;
+
+import net.microfalx.bootstrap.store.Store;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class EmbeddingCacheTest {
+
+    private final Map<String, CachedEmbedding> items = new HashMap<>();
+    private Store<CachedEmbedding, String> store;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        store = mock(Store.class);
+        doAnswer(invocation -> {
+            CachedEmbedding embedding = invocation.getArgument(0);
+            items.put(embedding.getId(), embedding);
+            return null;
+        }).when(store).add(any(CachedEmbedding.class));
+        doAnswer(invocation -> items.remove((String) invocation.getArgument(0))).when(store).remove(anyString());
+        when(store.find(anyString())).thenAnswer(invocation -> items.get((String) invocation.getArgument(0)));
+    }
+
+    @Test
+    void key() {
+        EmbeddingCache cache = new EmbeddingCache(store, 1024 * 1024, CachedEmbedding.Encoding.FLOAT16);
+        assertEquals(cache.getKey("m1", "Hello  world\n"), cache.getKey("m1", " Hello world"));
+        assertNotEquals(cache.getKey("m1", "Hello world"), cache.getKey("m2", "Hello world"));
+        assertNotEquals(cache.getKey("m1", "Hello world"), cache.getKey("m1", "Hello, world"));
+        assertTrue(cache.getKey("m1", "Hello world").startsWith("m1:"));
+    }
+
+    @Test
+    void hitAndMiss() {
+        EmbeddingCache cache = new EmbeddingCache(store, 1024 * 1024, CachedEmbedding.Encoding.FLOAT16);
+        String key = cache.getKey("m1", "Hello world");
+        assertNull(cache.get(key));
+        cache.put(key, new float[]{0.5f, -0.25f, 1});
+        assertArrayEquals(new float[]{0.5f, -0.25f, 1}, cache.get(key));
+        assertEquals(0.5, cache.getHitRate(), 0.001);
+    }
+
+    @Test
+    void sameVectorOnMissAndHit() {
+        float[] vector = createVector(new Random(1), 384);
+        for (CachedEmbedding.Encoding encoding : CachedEmbedding.Encoding.values()) {
+            EmbeddingCache cache = new EmbeddingCache(store, 1024 * 1024, encoding);
+            String key = cache.getKey("m1", "Text " + encoding);
+            float[] missVector = cache.put(key, vector);
+            assertArrayEquals(missVector, cache.get(key));
+        }
+    }
+
+    @Test
+    void evict() {
+        EmbeddingCache cache = new EmbeddingCache(store, 3000, CachedEmbedding.Encoding.FLOAT16);
+        for (int i = 0; i < 10; i++) {
+            cache.put(cache.getKey("m1", "Text " + i), new float[384]);
+            // keep the first entry recently used
+            cache.get(cache.getKey("m1", "Text 0"));
+        }
+        assertTrue(cache.getSize() <= 3000);
+        assertEquals(3, items.size());
+        assertNotNull(cache.get(cache.getKey("m1", "Text 0")));
+        assertNotNull(cache.get(cache.getKey("m1", "Text 9")));
+        assertNull(cache.get(cache.getKey("m1", "Text 1")));
+    }
+
+    @Test
+    void float16() {
+        assertEquals(0f, CachedEmbedding.fromFloat16(CachedEmbedding.toFloat16(0f)));
+        assertEquals(1f, CachedEmbedding.fromFloat16(CachedEmbedding.toFloat16(1f)));
+        assertEquals(-2.5f, CachedEmbedding.fromFloat16(CachedEmbedding.toFloat16(-2.5f)));
+        assertEquals(65504f, CachedEmbedding.fromFloat16(CachedEmbedding.toFloat16(65504f)));
+        assertEquals(Float.POSITIVE_INFINITY, CachedEmbedding.fromFloat16(CachedEmbedding.toFloat16(1e6f)));
+        assertTrue(Float.isNaN(CachedEmbedding.fromFloat16(CachedEmbedding.toFloat16(Float.NaN))));
+        assertEquals(0x1p-24f, CachedEmbedding.fromFloat16(CachedEmbedding.toFloat16(0x1p-24f)));
+    }
+
+    @Test
+    void encodings() {
+        float[] vector = createVector(new Random(42), 384);
+        float[] float16 = new CachedEmbedding("a", vector, CachedEmbedding.Encoding.FLOAT16).getVector();
+        float[] int8 = new CachedEmbedding("a", vector, CachedEmbedding.Encoding.INT8).getVector();
+        assertEquals(1, cosine(vector, float16), 1e-5);
+        assertEquals(1, cosine(vector, int8), 1e-3);
+        assertEquals(2 + 2 * 384, new CachedEmbedding("a", vector, CachedEmbedding.Encoding.FLOAT16).getSize());
+        assertEquals(2 + 384, new CachedEmbedding("a", vector, CachedEmbedding.Encoding.INT8).getSize());
+    }
+
+    private static float[] createVector(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static double cosine(float[] first, float[] second) {
+        double dot = 0, firstNorm = 0, secondNorm = 0;
+        for (int i = 0; i < first.length; i++) {
+            dot += first[i] * second[i];
+            firstNorm += first[i] * first[i];
+            secondNorm += second[i] * second[i];
+        }
+        return dot / Math.sqrt(firstNorm * secondNorm);
+    }
+}
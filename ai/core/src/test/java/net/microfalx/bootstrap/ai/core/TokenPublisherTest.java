@@ -0,0 +1,115 @@
+package net.microfalx.bootstrap.ai.core;
+
+import net.microfalx.bootstrap.ai.api.Token;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenPublisherTest {
+
+    @Test
+    void deliverAllTokens() {
+        TokenPublisher publisher = new TokenPublisher(4);
+        createTokens(10).subscribe(publisher);
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(subscriber);
+        assertEquals(10, subscriber.tokens.size());
+        assertEquals("0", subscriber.tokens.getFirst().getText());
+        assertTrue(subscriber.completed.get());
+    }
+
+    @Test
+    void requestOnlyWhatIsConsumed() {
+        AtomicLong upstreamRequested = new AtomicLong();
+        TokenPublisher publisher = new TokenPublisher(4);
+        createTokens(100).doOnRequest(upstreamRequested::addAndGet).subscribe(publisher);
+        assertEquals(4, upstreamRequested.get());
+        TestSubscriber subscriber = new TestSubscriber(2);
+        publisher.subscribe(subscriber);
+        assertEquals(2, subscriber.tokens.size());
+        assertEquals(6, upstreamRequested.get());
+        subscriber.subscription.request(3);
+        assertEquals(5, subscriber.tokens.size());
+        assertEquals(9, upstreamRequested.get());
+        assertFalse(subscriber.completed.get());
+    }
+
+    @Test
+    void cancelUpstream() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        TokenPublisher publisher = new TokenPublisher(4);
+        createTokens(100).doOnCancel(() -> cancelled.set(true)).subscribe(publisher);
+        TestSubscriber subscriber = new TestSubscriber(1);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.cancel();
+        assertTrue(cancelled.get());
+        assertFalse(subscriber.completed.get());
+    }
+
+    @Test
+    void propagateError() {
+        TokenPublisher publisher = new TokenPublisher(4);
+        createTokens(2).concatWith(Flux.error(new IllegalStateException("Broken"))).subscribe(publisher);
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(subscriber);
+        assertEquals(2, subscriber.tokens.size());
+        assertInstanceOf(IllegalStateException.class, subscriber.error.get());
+    }
+
+    @Test
+    void consumeOnce() {
+        TokenPublisher publisher = new TokenPublisher(4);
+        createTokens(10).subscribe(publisher);
+        publisher.subscribe(new TestSubscriber(1));
+        TestSubscriber subscriber = new TestSubscriber(1);
+        publisher.subscribe(subscriber);
+        assertTrue(subscriber.tokens.isEmpty());
+        assertInstanceOf(IllegalStateException.class, subscriber.error.get());
+    }
+
+    private static Flux<Token> createTokens(int count) {
+        return Flux.range(0, count).map(index -> Token.create(Token.Type.ANSWER, Integer.toString(index)));
+    }
+
+    private static class TestSubscriber implements Flow.Subscriber<Token> {
+
+        private final long initialRequest;
+        private final List<Token> tokens = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private Flow.Subscription subscription;
+
+        private TestSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(Token item) {
+            tokens.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error.set(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completed.set(true);
+        }
+    }
+}
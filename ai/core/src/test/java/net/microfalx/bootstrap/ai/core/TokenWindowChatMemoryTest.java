@@ -0,0 +1,187 @@
+package net.microfalx.bootstrap.ai.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
+import org.springframework.ai.chat.memory.MessageWindowChatMemory;
+import org.springframework.ai.chat.messages.*;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenWindowChatMemoryTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenWindowChatMemoryTest.class);
+
+    private static final String CONVERSATION_ID = "test";
+    private static final String[] TOPICS = {"database", "network", "storage", "security", "billing"};
+
+    private final ChatMemoryRepository repository = new InMemoryChatMemoryRepository();
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+
+    @Test
+    void keepAllMessagesWithinBudget() {
+        TokenWindowChatMemory memory = new TokenWindowChatMemory(repository, Runnable::run).setMaximumTokens(1000);
+        addTurns(memory, 3);
+        assertEquals(6, memory.get(CONVERSATION_ID).size());
+        assertNull(memory.getSummary(CONVERSATION_ID));
+    }
+
+    @Test
+    void windowStartsWithUserMessage() {
+        TokenWindowChatMemory memory = new TokenWindowChatMemory(repository, Runnable::run).setMaximumTokens(200);
+        addTurns(memory, 50);
+        List<Message> messages = memory.get(CONVERSATION_ID);
+        assertFalse(messages.isEmpty());
+        assertEquals(MessageType.USER, messages.getFirst().getMessageType());
+        assertTrue(countTokens(messages) <= 200);
+        assertEquals(100, repository.findByConversationId(CONVERSATION_ID).size());
+    }
+
+    @Test
+    void summarizeEvictedTurns() {
+        AtomicInteger summaries = new AtomicInteger();
+        TokenWindowChatMemory memory = new TokenWindowChatMemory(repository, Runnable::run).setMaximumTokens(300)
+                .setSummarizer(text -> "Summary " + summaries.incrementAndGet());
+        addTurns(memory, 50);
+        List<Message> messages = memory.get(CONVERSATION_ID);
+        assertEquals(MessageType.SYSTEM, messages.getFirst().getMessageType());
+        assertTrue(messages.getFirst().getText().contains("Summary " + summaries.get()));
+        assertEquals(MessageType.USER, messages.get(1).getMessageType());
+        assertTrue(summaries.get() > 0);
+    }
+
+    @Test
+    void doNotSummarizeInternalConversations() {
+        TokenWindowChatMemory memory = new TokenWindowChatMemory(repository, Runnable::run).setMaximumTokens(300)
+                .setSummarizer(text -> fail("Internal conversations are not summarized"));
+        memory.prepare(CONVERSATION_ID, null, 300, true);
+        addTurns(memory, 50);
+        assertEquals(MessageType.USER, memory.get(CONVERSATION_ID).getFirst().getMessageType());
+        assertNull(memory.getSummary(CONVERSATION_ID));
+    }
+
+    @Test
+    void recallRelevantTurns() {
+        TokenWindowChatMemory memory = new TokenWindowChatMemory(repository, Runnable::run).setMaximumTokens(1000)
+                .setRecallCount(1).setEmbedder(TokenWindowChatMemoryTest::embed);
+        addTurns(memory, 50);
+        memory.prepare(CONVERSATION_ID, "What about the billing?", 1000, false);
+        List<Message> messages = memory.get(CONVERSATION_ID);
+        assertEquals(MessageType.SYSTEM, messages.getFirst().getMessageType());
+        assertTrue(messages.getFirst().getText().contains("billing"));
+    }
+
+    @Test
+    void trimMessages() {
+        TokenWindowChatMemory memory = new TokenWindowChatMemory(repository, Runnable::run).setMaximumTokens(200)
+                .setMaximumMessages(20);
+        addTurns(memory, 50);
+        assertEquals(20, repository.findByConversationId(CONVERSATION_ID).size());
+        assertEquals(MessageType.USER, memory.get(CONVERSATION_ID).getFirst().getMessageType());
+    }
+
+    @Test
+    void trimTurns() {
+        TokenWindowChatMemory memory = new TokenWindowChatMemory(repository, Runnable::run).setMaximumTokens(200)
+                .setMaximumMessages(20).setEmbedder(TokenWindowChatMemoryTest::embed);
+        for (int turn = 0; turn < 50; turn++) {
+            memory.add(CONVERSATION_ID, List.of(new UserMessage(createQuestion(turn)), new AssistantMessage(createAnswer(turn))));
+            memory.get(CONVERSATION_ID);
+        }
+        int turnCount = memory.getTurnCount(CONVERSATION_ID);
+        assertTrue(turnCount > 0);
+        // only the turns of the 20 messages kept can be recalled
+        assertTrue(turnCount <= 10);
+    }
+
+    @Test
+    void clear() {
+        TokenWindowChatMemory memory = new TokenWindowChatMemory(repository, Runnable::run);
+        addTurns(memory, 5);
+        memory.clear(CONVERSATION_ID);
+        assertTrue(memory.get(CONVERSATION_ID).isEmpty());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "ai.benchmark", matches = "true")
+    void benchmark() {
+        int turns = 500;
+        ChatMemory legacyMemory = MessageWindowChatMemory.builder().chatMemoryRepository(new InMemoryChatMemoryRepository())
+                .maxMessages(1000).build();
+        ChatMemory tokenMemory = new TokenWindowChatMemory(new InMemoryChatMemoryRepository(), Runnable::run)
+                .setMaximumTokens(4096).setSummarizer(text -> text.substring(0, Math.min(1000, text.length())))
+                .setEmbedder(TokenWindowChatMemoryTest::embed);
+        for (Map.Entry<String, ChatMemory> entry : Map.of("Message Window", legacyMemory, "Token Window", tokenMemory).entrySet()) {
+            ChatMemory memory = entry.getValue();
+            long promptTokens = 0;
+            long maximumPromptTokens = 0;
+            long duration = 0;
+            for (int turn = 0; turn < turns; turn++) {
+                if (memory instanceof TokenWindowChatMemory tokenWindowChatMemory) {
+                    tokenWindowChatMemory.prepare(CONVERSATION_ID, createQuestion(turn), 4096, false);
+                }
+                long start = System.nanoTime();
+                List<Message> messages = memory.get(CONVERSATION_ID);
+                duration += System.nanoTime() - start;
+                int tokenCount = countTokens(messages);
+                promptTokens += tokenCount;
+                maximumPromptTokens = Math.max(maximumPromptTokens, tokenCount);
+                memory.add(CONVERSATION_ID, List.of(new UserMessage(createQuestion(turn)), new AssistantMessage(createAnswer(turn))));
+            }
+            LOGGER.info("{}: turns {}, average prompt tokens {}, maximum prompt tokens {}, average assembly {}us",
+                    entry.getKey(), turns, promptTokens / turns, maximumPromptTokens,
+                    TimeUnit.NANOSECONDS.toMicros(duration / turns));
+        }
+    }
+
+    private void addTurns(ChatMemory memory, int count) {
+        for (int turn = 0; turn < count; turn++) {
+            memory.add(CONVERSATION_ID, List.of(new UserMessage(createQuestion(turn)), new AssistantMessage(createAnswer(turn))));
+        }
+    }
+
+    private int countTokens(List<Message> messages) {
+        int tokenCount = 0;
+        for (Message message : messages) {
+            tokenCount += 4 + tokenCountEstimator.estimate(message.getText());
+        }
+        return tokenCount;
+    }
+
+    private static String createQuestion(int turn) {
+        return "Question " + turn + ": how do I configure the " + TOPICS[turn % TOPICS.length] + " of the application?";
+    }
+
+    private static String createAnswer(int turn) {
+        String topic = TOPICS[turn % TOPICS.length];
+        List<String> sentences = new ArrayList<>();
+        for (int sentence = 0; sentence < 5; sentence++) {
+            sentences.add("Step " + sentence + " of the " + topic + " configuration is to open the " + topic
+                    + " settings and review option " + (turn * 5 + sentence) + ".");
+        }
+        return String.join(" ", sentences);
+    }
+
+    /**
+     * A fake embedding, one dimension per topic.
+     */
+    private static float[] embed(String text) {
+        float[] vector = new float[TOPICS.length];
+        for (int i = 0; i < TOPICS.length; i++) {
+            vector[i] = text.contains(TOPICS[i]) ? 1 : 0;
+        }
+        return vector;
+    }
+}
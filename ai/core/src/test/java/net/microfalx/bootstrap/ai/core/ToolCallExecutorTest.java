@@ -0,0 +1,173 @@
+package net.microfalx.bootstrap.ai.core;
+
+import net.microfalx.bootstrap.ai.api.Tool;
+import net.microfalx.bootstrap.security.SecurityContext;
+import net.microfalx.bootstrap.security.user.SecurityContextImpl;
+import net.microfalx.bootstrap.security.user.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ToolCallExecutorTest {
+
+    private final ToolCallExecutor executor = new ToolCallExecutor(Duration.ofSeconds(5), Duration.ofMinutes(1), 10);
+
+    @AfterEach
+    void release() {
+        executor.close();
+    }
+
+    @Test
+    void call() {
+        assertEquals("result", executor.call(createTool("Test", false, null), "{}", () -> "result"));
+    }
+
+    @Test
+    void submittedCallsRunConcurrently() {
+        Tool first = createTool("First", false, null);
+        Tool second = createTool("Second", false, null);
+        Tool third = createTool("Third", false, null);
+        long start = System.nanoTime();
+        executor.submit(first, "{}", () -> sleep(300, "first"));
+        executor.submit(second, "{}", () -> sleep(300, "second"));
+        executor.submit(third, "{}", () -> sleep(300, "third"));
+        assertEquals("first", executor.call(first, "{}", () -> fail("Already submitted")));
+        assertEquals("second", executor.call(second, "{}", () -> fail("Already submitted")));
+        assertEquals("third", executor.call(third, "{}", () -> fail("Already submitted")));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 800);
+    }
+
+    @Test
+    void timeout() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Tool tool = createTool("Slow", false, Duration.ofMillis(100));
+        String result = executor.call(tool, "{}", () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "late";
+        });
+        assertEquals(ToolCallExecutor.TIMEOUT_OBSERVATION, result);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void timeoutStartsAtSubmission() {
+        Tool first = createTool("First", false, Duration.ofMillis(600));
+        Tool second = createTool("Second", false, Duration.ofMillis(600));
+        long start = System.nanoTime();
+        executor.submit(first, "{}", () -> sleep(500, "first"));
+        executor.submit(second, "{}", () -> sleep(10_000, "second"));
+        assertEquals("first", executor.call(first, "{}", () -> fail("Already submitted")));
+        assertEquals(ToolCallExecutor.TIMEOUT_OBSERVATION, executor.call(second, "{}", () -> fail("Already submitted")));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 950);
+    }
+
+    @Test
+    void cancel() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        executor.submit(createTool("Slow", false, null), "{}", () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "late";
+        });
+        executor.cancel();
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void failure() {
+        String result = executor.call(createTool("Test", false, null), "{}", () -> {
+            throw new IllegalStateException("Broken");
+        });
+        assertEquals(ToolCallExecutor.FAILED_OBSERVATION, result);
+    }
+
+    @Test
+    void cacheIdempotentTools() {
+        AtomicInteger executions = new AtomicInteger();
+        Tool tool = createTool("Lookup", true, null);
+        assertEquals("1", executor.call(tool, "{\"a\":1,\"b\":2}", () -> String.valueOf(executions.incrementAndGet())));
+        assertEquals("1", executor.call(tool, "{\"b\":2, \"a\":1}", () -> String.valueOf(executions.incrementAndGet())));
+        assertEquals("2", executor.call(tool, "{\"a\":2,\"b\":2}", () -> String.valueOf(executions.incrementAndGet())));
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void cachePerUser() {
+        AtomicInteger executions = new AtomicInteger();
+        Tool tool = createTool("Lookup", true, null);
+        try {
+            SecurityContextImpl.CONTEXT.set(createSecurityContext("john"));
+            assertEquals("1", executor.call(tool, "{\"a\":1}", () -> String.valueOf(executions.incrementAndGet())));
+            SecurityContextImpl.CONTEXT.set(createSecurityContext("jane"));
+            assertEquals("2", executor.call(tool, "{\"a\":1}", () -> String.valueOf(executions.incrementAndGet())));
+            SecurityContextImpl.CONTEXT.set(createSecurityContext("john"));
+            assertEquals("1", executor.call(tool, "{\"a\":1}", () -> String.valueOf(executions.incrementAndGet())));
+        } finally {
+            SecurityContextImpl.CONTEXT.remove();
+        }
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void notifyCachedResults() {
+        List<String> cachedResults = new ArrayList<>();
+        Tool tool = createTool("Lookup", true, null);
+        assertEquals("result", executor.call(tool, "{}", () -> "result", cachedResults::add));
+        assertTrue(cachedResults.isEmpty());
+        assertEquals("result", executor.call(tool, "{}", () -> fail("Cached"), cachedResults::add));
+        assertEquals(List.of("result"), cachedResults);
+    }
+
+    @Test
+    void doNotCacheOtherTools() {
+        AtomicInteger executions = new AtomicInteger();
+        Tool tool = createTool("Update", false, null);
+        assertEquals("1", executor.call(tool, "{\"a\":1}", () -> String.valueOf(executions.incrementAndGet())));
+        assertEquals("2", executor.call(tool, "{\"a\":1}", () -> String.valueOf(executions.incrementAndGet())));
+    }
+
+    @Test
+    void doNotCacheFailures() {
+        AtomicInteger executions = new AtomicInteger();
+        Tool tool = createTool("Lookup", true, null);
+        assertEquals(ToolCallExecutor.FAILED_OBSERVATION, executor.call(tool, "{}", () -> {
+            executions.incrementAndGet();
+            throw new IllegalStateException("Broken");
+        }));
+        assertEquals("2", executor.call(tool, "{}", () -> String.valueOf(executions.incrementAndGet())));
+    }
+
+    private static Tool createTool(String name, boolean idempotent, Duration timeout) {
+        return Tool.builder(name).idempotent(idempotent).timeout(timeout).executor(request -> null).build();
+    }
+
+    private static SecurityContext createSecurityContext(String userName) {
+        User user = mock(User.class);
+        when(user.getUsername()).thenReturn(userName);
+        SecurityContext securityContext = mock(SecurityContext.class);
+        when(securityContext.getUser()).thenReturn(user);
+        return securityContext;
+    }
+
+    private static String sleep(long millis, String result) throws InterruptedException {
+        Thread.sleep(millis);
+        return result;
+    }
+}
@@ -5,11 +5,23 @@ import net.microfalx.bootstrap.ai.api.Model;
 import net.microfalx.bootstrap.ai.api.Provider;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class OnnxEmbeddingFactoryTest {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(OnnxEmbeddingFactoryTest.class);
+
     private Provider provider;
 
     @BeforeEach
@@ -23,6 +35,65 @@ class OnnxEmbeddingFactoryTest {
         assertEquals(384, embedding.getDimension());
     }
 
+    @Test
+    void embedBatch() {
+        OnnxEmbeddingFactory factory = new OnnxEmbeddingFactory();
+        Model model = loadModel("onnx-all-minilm-l6-v2-q");
+        List<String> texts = List.of("This is a test embedding", "A much longer text, which needs more tokens than the first one",
+                "Short");
+        List<Embedding> embeddings = factory.createEmbeddings(model, texts);
+        assertEquals(3, embeddings.size());
+        for (int i = 0; i < texts.size(); i++) {
+            Embedding embedding = factory.createEmbedding(model, texts.get(i));
+            assertArrayEquals(embedding.getVector(), embeddings.get(i).getVector(), 1e-4f);
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "ai.benchmark", matches = "true")
+    void throughput() throws Exception {
+        OnnxEmbeddingFactory factory = new OnnxEmbeddingFactory();
+        Model model = loadModel("onnx-all-minilm-l6-v2-q");
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 512; i++) {
+            texts.add("Document " + i + " describes how the service processes requests and stores the results");
+        }
+        factory.createEmbeddings(model, texts.subList(0, 32));
+
+        long start = System.nanoTime();
+        for (String text : texts) {
+            factory.createEmbedding(model, text);
+        }
+        report("One at a time", texts.size(), start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < texts.size(); i += 32) {
+            factory.createEmbeddings(model, texts.subList(i, i + 32));
+        }
+        report("Batches of 32", texts.size(), start);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < texts.size(); i += 32) {
+                List<String> batch = texts.subList(i, i + 32);
+                futures.add(executor.submit(() -> factory.createEmbeddings(model, batch)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            report("Batches of 32, 4 threads", texts.size(), start);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void report(String name, int count, long start) {
+        double duration = (System.nanoTime() - start) / 1_000_000_000d;
+        LOGGER.info("{}: {} texts in {} ms, {} texts/s", name, count, (long) (duration * 1000), (long) (count / duration));
+    }
+
     private Embedding createEmbedding(String modelId, String text) {
         OnnxEmbeddingFactory factory = new OnnxEmbeddingFactory();
         Model model = loadModel(modelId);
@@ -33,4 +104,4 @@ class OnnxEmbeddingFactoryTest {
         return provider.getModel(modelId);
     }
 
-}
\ No newline at end of file
+}
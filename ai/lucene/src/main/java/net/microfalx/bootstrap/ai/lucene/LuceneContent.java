@@ -3,20 +3,59 @@ package net.microfalx.bootstrap.ai.lucene;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.ai.content.Content;
 import org.springframework.ai.embedding.Embedding;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * A chunk of text retrieved from the embedding index.
+ */
 @Getter
 @Setter
-public class LuceneContent {
+public class LuceneContent implements Content {
 
     protected static final String DUMMY_TEXT = "Dummy";
 
+    @Setter(AccessLevel.NONE)
+    private final String text;
+    @Setter(AccessLevel.NONE)
+    private final String documentId;
+    @Setter(AccessLevel.PROTECTED)
+    private double score;
     @Setter(AccessLevel.PROTECTED)
     private Embedding embedding;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<String, Object> metadata = new HashMap<>();
+
+    LuceneContent(String text, String documentId) {
+        requireNonNull(text);
+        this.text = text;
+        this.documentId = documentId;
+    }
 
-    LuceneContent() {
-
+    @Override
+    public Map<String, Object> getMetadata() {
+        return Collections.unmodifiableMap(metadata);
     }
 
+    LuceneContent addMetadata(Map<String, Object> metadata) {
+        this.metadata.putAll(metadata);
+        return this;
+    }
 
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", LuceneContent.class.getSimpleName() + "[", "]")
+                .add("documentId='" + documentId + "'")
+                .add("score=" + score)
+                .add("text='" + text + "'")
+                .toString();
+    }
 }
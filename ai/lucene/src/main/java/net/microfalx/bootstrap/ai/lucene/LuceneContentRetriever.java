@@ -2,44 +2,54 @@ package net.microfalx.bootstrap.ai.lucene;
 
 import lombok.AccessLevel;
 import lombok.Setter;
-import net.microfalx.bootstrap.ai.api.AiException;
 import net.microfalx.bootstrap.search.Searcher;
 import net.microfalx.bootstrap.search.SearcherOptions;
 import net.microfalx.lang.ExceptionUtils;
 import net.microfalx.lang.StringUtils;
-import net.microfalx.lang.UriUtils;
-import net.microfalx.resource.Resource;
-import net.microfalx.resource.ResourceFactory;
+import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
-import org.apache.lucene.document.KnnFloatVectorField;
 import org.apache.lucene.document.StoredValue;
 import org.apache.lucene.index.IndexNotFoundException;
 import org.apache.lucene.index.IndexableField;
-import org.apache.lucene.queryparser.classic.ParseException;
-import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.StoredFields;
 import org.apache.lucene.search.*;
+import org.apache.lucene.util.QueryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.content.Content;
-import org.springframework.ai.embedding.Embedding;
 
 import java.io.IOException;
 import java.util.*;
 
-import static net.microfalx.bootstrap.ai.lucene.LuceneFields.CONTENT_FIELD_NAME;
-import static net.microfalx.bootstrap.ai.lucene.LuceneFields.TOKEN_COUNT_FIELD_NAME;
+import static net.microfalx.bootstrap.ai.lucene.LuceneFields.*;
 import static net.microfalx.bootstrap.search.SearchUtils.SEARCH_METRICS;
 import static net.microfalx.lang.ArgumentUtils.requireNonNull;
 import static net.microfalx.lang.ExceptionUtils.rethrowExceptionAndReturn;
 import static net.microfalx.lang.StringUtils.isEmpty;
-import static org.apache.lucene.search.Sort.RELEVANCE;
 
+/**
+ * Retrieves the chunks of text relevant for a query from the embedding index.
+ * <p>
+ * Chunks are found with an approximate nearest neighbour search (HNSW) over their vectors and, when the query has
+ * text, with a full text search (BM25) over their content. The two rankings are fused with reciprocal rank fusion:
+ * a chunk scores {@code 1 / (k + rank)} for each ranking it appears in, so chunks ranked high by both searches
+ * come first, without having to normalize the (incomparable) scores of the two searches.
+ * <p>
+ * When the index holds quantized vectors, the vector search retrieves more candidates, which are rescored with the
+ * full precision vectors.
+ * <p>
+ * The content of a chunk is served from the stored fields of the index.
+ */
 class LuceneContentRetriever {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(LuceneContentRetriever.class);
 
     private final LuceneEmbeddingModel embeddingStore;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final QueryBuilder queryBuilder = new QueryBuilder(analyzer);
 
     private Searcher searcher;
     private final Object lock = new Object();
@@ -51,20 +61,48 @@ class LuceneContentRetriever {
         this.embeddingStore = embeddingStore;
     }
 
-    public List<Content> retrieve(Query query) {
-        requireNonNull(query);
-        return retrieve(query, null);
+    /**
+     * Retrieves the chunks relevant for a text, using both the vector of the text and its terms.
+     *
+     * @param text the text
+     * @return a non-null instance
+     */
+    public List<Content> retrieve(String text) {
+        requireNonNull(text);
+        if (!embeddingStore.isEnabled()) return Collections.emptyList();
+        float[] vector = embeddingStore.getAiService().embed(text).getVector();
+        return retrieve(text, vector);
     }
 
-    public List<Content> retrieve(Query query, Embedding embedding) {
-        requireNonNull(query);
+    /**
+     * Retrieves the chunks relevant for a text and its vector.
+     *
+     * @param text   the text, null or empty to search only by vector
+     * @param vector the vector of the text, null to search only by text
+     * @return a non-null instance
+     */
+    public List<Content> retrieve(String text, float[] vector) {
         if (!embeddingStore.isEnabled()) return Collections.emptyList();
-        String queryText = "";//query.text();
-        org.apache.lucene.search.Query luceneQuery = buildQuery(queryText, embedding);
+        QueryParams params = queryParams.get();
         try {
             Searcher searcher = getSearcher(false);
-            TopFieldDocs topDocs = searcher.doWithSearcher("Query", s -> s.search(luceneQuery, queryParams.get().maxResults, RELEVANCE, true));
-            return extractContent(topDocs);
+            return searcher.doWithSearcher("Query", indexSearcher -> {
+                int candidateCount = params.maxResults * params.candidateFactor;
+                List<ScoreDoc> vectorHits = vector != null && vector.length > 0
+                        ? filterByScore(searchVector(indexSearcher, vector, candidateCount, params), params.minScore)
+                        : Collections.emptyList();
+                List<ScoreDoc> textHits = params.hybrid && !isEmpty(text)
+                        ? searchText(indexSearcher, text, candidateCount, params.filter) : Collections.emptyList();
+                List<ScoreDoc> hits;
+                if (textHits.isEmpty()) {
+                    hits = vectorHits;
+                } else if (vectorHits.isEmpty()) {
+                    hits = textHits;
+                } else {
+                    hits = fuse(params.rankConstant, vectorHits, textHits);
+                }
+                return extractContent(indexSearcher.storedFields(), hits, params);
+            });
         } catch (Exception e) {
             Throwable rootCause = ExceptionUtils.getRootCause(e);
             if (rootCause instanceof IndexNotFoundException) {
@@ -75,84 +113,124 @@ class LuceneContentRetriever {
         }
     }
 
-    private List<Content> extractContent(TopFieldDocs topDocs) {
-        return getSearcher(false).doWithSearcher("Extract", indexSearcher -> {
-            List<Content> hits = new ArrayList<>();
-            int docCount = 0;
-            int tokenCount = 0;
-            double minScore = queryParams.get().minScore;
-            int maxResults = queryParams.get().maxResults;
-            int maxTokens = queryParams.get().maxTokens;
-            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
-                if (scoreDoc.score < minScore) continue;
-                Document document = searcher.getDocument(scoreDoc.doc);
-                String contentUri = document.get(LuceneFields.CONTENT_URI_FIELD_NAME);
-                String content = null;
-                if (contentUri != null) {
-                    Resource resource = ResourceFactory.resolve(UriUtils.parseUri(contentUri));
-                    try {
-                        content = resource.loadAsString();
-                    } catch (IOException e) {
-                        throw new AiException("Failed to load content from resource: " + contentUri, e);
-                    }
-                } else {
-                    content = document.get(CONTENT_FIELD_NAME);
-                }
-                if (isEmpty(content)) continue;
-                if (docCount++ > maxResults) break;
-                // Check token count
-                IndexableField tokenCountField = document.getField(TOKEN_COUNT_FIELD_NAME);
-                if (tokenCountField != null) {
-                    int docTokens = tokenCountField.numericValue().intValue();
-                    // There may be smaller documents to come after this that we can accommodate
-                    if (tokenCount + docTokens > maxTokens) continue;
-                    tokenCount = tokenCount + docTokens;
-                }
-                Embedding embedding = null;
-                IndexableField embeddingField = document.getField(LuceneFields.EMBEDDING_FIELD_NAME);
-                if (embeddingField instanceof KnnFloatVectorField vectorField) {
-                    embedding = null;//new Embedding(vectorField.vectorValue());
-                }
-                // Add all other document fields to metadata
-                //Metadata metadata = createTextSegmentMetadata(document);
-                // Finally, add text segment to the list
-                //TextSegment textSegment = TextSegment.from(content, metadata);
-                //hits.add(new LuceneContent(textSegment, withScore(scoreDoc)).setEmbedding(embedding));
+    /**
+     * Fuses rankings with reciprocal rank fusion.
+     *
+     * @param rankConstant the constant added to each rank, which dampens the weight of the first ranks
+     * @param rankings     the rankings, each ordered by relevance
+     * @return the fused ranking
+     */
+    @SafeVarargs
+    static List<ScoreDoc> fuse(int rankConstant, List<ScoreDoc>... rankings) {
+        Map<Integer, ScoreDoc> fused = new HashMap<>();
+        for (List<ScoreDoc> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                int doc = ranking.get(rank).doc;
+                float score = 1f / (rankConstant + rank + 1);
+                fused.computeIfAbsent(doc, d -> new ScoreDoc(d, 0)).score += score;
             }
-            return hits;
-        });
+        }
+        List<ScoreDoc> hits = new ArrayList<>(fused.values());
+        hits.sort(Comparator.comparingDouble((ScoreDoc hit) -> hit.score).reversed().thenComparingInt(hit -> hit.doc));
+        return hits;
+    }
+
+    private List<ScoreDoc> searchVector(IndexSearcher indexSearcher, float[] vector, int count, QueryParams params) throws Exception {
+        boolean rescore = embeddingStore.getQuantization().isQuantized() && params.rescoreFactor > 1;
+        int candidateCount = rescore ? count * params.rescoreFactor : count;
+        Query query = new KnnFloatVectorQuery(EMBEDDING_FIELD_NAME, vector, candidateCount, params.filter);
+        ScoreDoc[] hits = SEARCH_METRICS.timeCallable("Vector", () -> indexSearcher.search(query, candidateCount)).scoreDocs;
+        if (!rescore) return Arrays.asList(hits);
+        List<ScoreDoc> rescoredHits = SEARCH_METRICS.timeCallable("Rescore", () -> rescore(indexSearcher, vector, hits));
+        return rescoredHits.subList(0, Math.min(count, rescoredHits.size()));
     }
 
-    @SuppressWarnings("StringEquality")
-    private org.apache.lucene.search.Query buildQuery(String query, Embedding embedding) {
-        BooleanQuery.Builder builder = new BooleanQuery.Builder();
-        if (query != null && query != LuceneContent.DUMMY_TEXT) {
-            try {
-                QueryParser parser = new QueryParser(CONTENT_FIELD_NAME, new StandardAnalyzer());
-                org.apache.lucene.search.Query fullTextQuery = parser.parse(query);
-                builder.add(fullTextQuery, BooleanClause.Occur.SHOULD);
-            } catch (ParseException e) {
-                LOGGER.warn(String.format("Could not create query <%s>", query), e);
+    /**
+     * Scores the hits of a search over quantized vectors with the full precision vectors.
+     *
+     * @param indexSearcher the searcher
+     * @param vector        the vector of the query
+     * @param hits          the hits
+     * @return the hits, ordered by their new score
+     */
+    private List<ScoreDoc> rescore(IndexSearcher indexSearcher, float[] vector, ScoreDoc[] hits) throws IOException {
+        List<LeafReaderContext> leaves = indexSearcher.getIndexReader().leaves();
+        ScoreDoc[] sortedHits = hits.clone();
+        // vector values can only move forward, visit the hits in document order
+        Arrays.sort(sortedHits, Comparator.comparingInt(hit -> hit.doc));
+        List<ScoreDoc> rescoredHits = new ArrayList<>(hits.length);
+        LeafReaderContext leaf = null;
+        DoubleValues values = null;
+        for (ScoreDoc hit : sortedHits) {
+            if (leaf == null || hit.doc >= leaf.docBase + leaf.reader().maxDoc()) {
+                leaf = leaves.get(ReaderUtil.subIndex(hit.doc, leaves));
+                values = DoubleValuesSource.similarityToQueryVector(leaf, vector, EMBEDDING_FIELD_NAME);
             }
+            float score = values.advanceExact(hit.doc - leaf.docBase) ? (float) values.doubleValue() : hit.score;
+            rescoredHits.add(new ScoreDoc(hit.doc, score));
+        }
+        rescoredHits.sort(Comparator.comparingDouble((ScoreDoc hit) -> hit.score).reversed().thenComparingInt(hit -> hit.doc));
+        return rescoredHits;
+    }
+
+    /**
+     * Removes the vector hits less similar than the minimum score.
+     * <p>
+     * The minimum score is a similarity threshold: it applies only to vector hits, before they are fused with the
+     * text hits (which have unrelated BM25 scores, and fused hits have rank based scores).
+     *
+     * @param hits     the vector hits
+     * @param minScore the minimum similarity
+     * @return the hits at least as similar as the minimum score
+     */
+    private static List<ScoreDoc> filterByScore(List<ScoreDoc> hits, double minScore) {
+        if (minScore <= 0) return hits;
+        return hits.stream().filter(hit -> hit.score >= minScore).toList();
+    }
+
+    private List<ScoreDoc> searchText(IndexSearcher indexSearcher, String text, int count, Query filter) throws Exception {
+        Query textQuery = queryBuilder.createBooleanQuery(CONTENT_FIELD_NAME, text);
+        if (textQuery == null) return Collections.emptyList();
+        Query query = textQuery;
+        if (filter != null) {
+            query = new BooleanQuery.Builder().add(textQuery, BooleanClause.Occur.MUST)
+                    .add(filter, BooleanClause.Occur.FILTER).build();
         }
-        /*if (embedding != null && embedding.vector().length > 0) {
-            final org.apache.lucene.search.Query vectorQuery = new KnnFloatVectorQuery(LuceneFields.EMBEDDING_FIELD_NAME,
-                    embedding.vector(), queryParams.get().maxResults);
-            builder.add(vectorQuery, BooleanClause.Occur.SHOULD);
-        }*/
-        if (!queryParams.get().onlyMatches) {
-            builder.add(new MatchAllDocsQuery(), BooleanClause.Occur.SHOULD);
+        Query finalQuery = query;
+        return Arrays.asList(SEARCH_METRICS.timeCallable("Text", () -> indexSearcher.search(finalQuery, count)).scoreDocs);
+    }
+
+    private List<Content> extractContent(StoredFields storedFields, List<ScoreDoc> hits, QueryParams params) throws IOException {
+        List<Content> contents = new ArrayList<>();
+        int tokenCount = 0;
+        for (ScoreDoc hit : hits) {
+            if (contents.size() >= params.maxResults) break;
+            Document document = storedFields.document(hit.doc);
+            String content = document.get(CONTENT_FIELD_NAME);
+            if (isEmpty(content)) continue;
+            IndexableField tokenCountField = document.getField(TOKEN_COUNT_FIELD_NAME);
+            if (tokenCountField != null) {
+                int docTokens = tokenCountField.numericValue().intValue();
+                // There may be smaller chunks to come after this that we can accommodate
+                if (tokenCount + docTokens > params.maxTokens) continue;
+                tokenCount = tokenCount + docTokens;
+            }
+            LuceneContent luceneContent = new LuceneContent(content, document.get(DOCUMENT_ID_FIELD_NAME));
+            luceneContent.setScore(hit.score);
+            luceneContent.addMetadata(createMetadata(document));
+            contents.add(luceneContent);
         }
-        return builder.build();
+        return contents;
     }
 
-    private Object createTextSegmentMetadata(Document document) {
+    private Map<String, Object> createMetadata(Document document) {
         Map<String, Object> metadata = new HashMap<>();
         for (IndexableField field : document) {
             String fieldName = field.name();
             // skip our standard fields
             if (StringUtils.containsInArray(fieldName, LuceneFields.FIELDS)) continue;
             StoredValue storedValue = field.storedValue();
+            if (storedValue == null) continue;
             StoredValue.Type type = storedValue.getType();
             switch (type) {
                 case INTEGER:
@@ -177,21 +255,42 @@ class LuceneContentRetriever {
         return metadata;
     }
 
-    private Embedding embedQuery(String queryText) {
-        return null;
-    }
-
     static class QueryParams {
-        @Setter(AccessLevel.PROTECTED)
-        private boolean onlyMatches = true;
         @Setter(AccessLevel.PROTECTED)
         private int maxResults = 10;
         @Setter(AccessLevel.PROTECTED)
         private int maxTokens = Integer.MAX_VALUE;
+        /**
+         * The minimum similarity of a vector hit, applied before the vector hits are fused with the text hits.
+         */
         @Setter(AccessLevel.PROTECTED)
         private double minScore = 0;
-        //@Setter(AccessLevel.PROTECTED)
-        //private Filter filter;
+        /**
+         * Whether the text of the query is also searched with BM25 and fused with the vector search.
+         */
+        @Setter(AccessLevel.PROTECTED)
+        private boolean hybrid = true;
+        /**
+         * The number of candidates retrieved by each search, as a multiple of the maximum number of results.
+         */
+        @Setter(AccessLevel.PROTECTED)
+        private int candidateFactor = 4;
+        /**
+         * The constant of the reciprocal rank fusion (60 in the original paper).
+         */
+        @Setter(AccessLevel.PROTECTED)
+        private int rankConstant = 60;
+        /**
+         * The number of candidates retrieved from a quantized index and rescored with full precision vectors, as
+         * a multiple of the number of candidates of the vector search.
+         */
+        @Setter(AccessLevel.PROTECTED)
+        private int rescoreFactor = 3;
+        /**
+         * A query which restricts the chunks considered by both searches (applied before the vector search).
+         */
+        @Setter(AccessLevel.PROTECTED)
+        private Query filter;
     }
 
     private Searcher getSearcher(boolean reopen) {
@@ -202,7 +301,7 @@ class LuceneContentRetriever {
                 LOGGER.debug("Open searcher");
                 SearcherOptions options = (SearcherOptions) SearcherOptions.create(LuceneFields.INDEX_NAME)
                         .threadPool(embeddingStore.getThreadPool())
-                        .analyzer(new StandardAnalyzer()).metrics(LuceneEmbeddingModel.SEARCH_METRICS)
+                        .analyzer(analyzer).metrics(LuceneEmbeddingModel.SEARCH_METRICS)
                         .build();
                 searcher = embeddingStore.getSearchService().createSearcher(options);
             }
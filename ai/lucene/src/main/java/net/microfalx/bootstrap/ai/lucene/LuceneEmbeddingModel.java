@@ -7,24 +7,30 @@ import com.knuddels.jtokkit.api.EncodingType;
 import lombok.AccessLevel;
 import lombok.Getter;
 import net.microfalx.bootstrap.ai.api.AiService;
+import net.microfalx.bootstrap.ai.api.Embedding;
 import net.microfalx.bootstrap.search.*;
 import net.microfalx.bootstrap.search.Document;
 import net.microfalx.metrics.Metrics;
 import net.microfalx.threadpool.ThreadPool;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.*;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.VectorSimilarityFunction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.ai.embedding.Embedding;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.embedding.EmbeddingRequest;
 import org.springframework.ai.embedding.EmbeddingResponse;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
 
 import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.StringUtils.isEmpty;
 
 public class LuceneEmbeddingModel implements IndexListener, EmbeddingModel {
 
@@ -33,27 +39,39 @@ public class LuceneEmbeddingModel implements IndexListener, EmbeddingModel {
     static Metrics INDEX_METRICS = Metrics.of("Lucene Embedding");
     static Metrics SEARCH_METRICS = Metrics.of("Lucene Embedding");
 
+    private static final Pattern SENTENCE_SEPARATOR = Pattern.compile("(?<=[.!?])\\s+|\\n\\s*\\n");
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("\\s+");
+
     @Getter(AccessLevel.PROTECTED)
     private final AiService aiService;
     @Getter(AccessLevel.PROTECTED)
     private final IndexService indexService;
     @Getter(AccessLevel.PROTECTED)
     private final SearchService searchService;
+    private final VectorQuantization quantization;
     private Encoding encoding;
 
     private Indexer indexer;
     private ThreadPool threadPool;
     private boolean enabled = false;
+    private int chunkTokens = 256;
 
     private volatile LuceneContentRetriever contentRetriever;
 
     public LuceneEmbeddingModel(AiService aiService, IndexService indexService, SearchService searchService) {
+        this(aiService, indexService, searchService, VectorQuantization.NONE);
+    }
+
+    public LuceneEmbeddingModel(AiService aiService, IndexService indexService, SearchService searchService,
+                                VectorQuantization quantization) {
         requireNonNull(indexService);
         requireNonNull(indexService);
         requireNonNull(searchService);
+        requireNonNull(quantization);
         this.aiService = aiService;
         this.indexService = indexService;
         this.searchService = searchService;
+        this.quantization = quantization;
         initIndex();
         initEncodings();
     }
@@ -70,6 +88,15 @@ public class LuceneEmbeddingModel implements IndexListener, EmbeddingModel {
         return enabled;
     }
 
+    /**
+     * Returns how the vectors are quantized in the index.
+     *
+     * @return a non-null instance
+     */
+    public VectorQuantization getQuantization() {
+        return quantization;
+    }
+
     public LuceneEmbeddingModel setThreadPool(ThreadPool threadPool) {
         this.threadPool = threadPool;
         return this;
@@ -80,6 +107,21 @@ public class LuceneEmbeddingModel implements IndexListener, EmbeddingModel {
         return this;
     }
 
+    /**
+     * Returns the maximum number of tokens in a chunk of text.
+     *
+     * @return a positive integer
+     */
+    public int getChunkTokens() {
+        return chunkTokens;
+    }
+
+    public LuceneEmbeddingModel setChunkTokens(int chunkTokens) {
+        if (chunkTokens < 1) throw new IllegalArgumentException("Chunk tokens must be positive, received " + chunkTokens);
+        this.chunkTokens = chunkTokens;
+        return this;
+    }
+
     @Override
     public void afterIndexing(Collection<Document> documents) {
         requireNonNull(documents);
@@ -90,21 +132,53 @@ public class LuceneEmbeddingModel implements IndexListener, EmbeddingModel {
     }
 
     public void index(Document document) {
-        AtomicReference<Embedding> embedding = new AtomicReference<>();
+        requireNonNull(document);
+        AtomicReference<List<String>> chunks = new AtomicReference<>();
         INDEX_METRICS.time("Extract", (t) -> {
             TextExtractor textExtractor = new TextExtractor(getIndexService().getContentService(), document);
             try {
+                chunks.set(split(textExtractor.execute()));
             } catch (Exception e) {
-                LOGGER.atError().setCause(e).log("Failed to create embedding from document {}", document.getId());
+                LOGGER.atError().setCause(e).log("Failed to extract text from document {}", document.getId());
             }
         });
-        if (embedding.get() != null) {
+        if (chunks.get() == null || chunks.get().isEmpty()) return;
+        List<float[]> vectors;
+        try {
+            vectors = INDEX_METRICS.time("Embed", () -> aiService.embedAll(chunks.get()).stream()
+                    .map(Embedding::getVector).toList());
+        } catch (Exception e) {
+            LOGGER.atError().setCause(e).log("Failed to create embedding from document {}", document.getId());
+            return;
+        }
+        index(document.getId(), chunks.get(), vectors);
+    }
+
+    /**
+     * Indexes the chunks of a document and their vectors, replacing the chunks previously indexed for the document.
+     *
+     * @param documentId the identifier of the document
+     * @param chunks     the chunks of text
+     * @param vectors    the vectors of the chunks
+     */
+    void index(String documentId, List<String> chunks, List<float[]> vectors) {
+        requireNonNull(documentId);
+        requireNonNull(chunks);
+        requireNonNull(vectors);
+        if (chunks.size() != vectors.size()) {
+            throw new IllegalArgumentException("Expected " + chunks.size() + " vectors, received " + vectors.size());
+        }
+        List<org.apache.lucene.document.Document> luceneDocuments = new ArrayList<>(chunks.size());
+        for (int index = 0; index < chunks.size(); index++) {
+            luceneDocuments.add(createDocument(documentId, index, chunks.get(index), vectors.get(index)));
+        }
+        try {
             INDEX_METRICS.time("Index", (t) -> {
-                try {
-                } catch (Exception e) {
-                    LOGGER.atError().setCause(e).log("Failed to index embedding for {}", document.getId());
-                }
+                indexer.doWithIndex("Index", indexWriter -> indexWriter.updateDocuments(
+                        new Term(LuceneFields.DOCUMENT_ID_FIELD_NAME, documentId), luceneDocuments));
             });
+        } catch (Exception e) {
+            LOGGER.atError().setCause(e).log("Failed to index embedding for {}", documentId);
         }
     }
 
@@ -123,8 +197,11 @@ public class LuceneEmbeddingModel implements IndexListener, EmbeddingModel {
     }
 
     private void initIndex() {
-        IndexerOptions options = (IndexerOptions) IndexerOptions.create(LuceneFields.INDEX_NAME)
-                .analyzer(new StandardAnalyzer()).metrics(INDEX_METRICS)
+        IndexerOptions.Builder builder = IndexerOptions.create(LuceneFields.INDEX_NAME);
+        if (quantization.isQuantized()) {
+            builder.vectorsFormat(LuceneFields.EMBEDDING_FIELD_NAME, quantization.createFormat());
+        }
+        IndexerOptions options = (IndexerOptions) builder.analyzer(new StandardAnalyzer()).metrics(INDEX_METRICS)
                 .tag("embedding").tag("lucene")
                 .name("Embedding").description("An index for storing embeddings and their associated text segments")
                 .build();
@@ -146,6 +223,69 @@ public class LuceneEmbeddingModel implements IndexListener, EmbeddingModel {
     }
 
 
+    /**
+     * Splits a text in chunks of (approximately) {@link #getChunkTokens()} tokens, at sentence boundaries when possible.
+     *
+     * @param text the text
+     * @return the chunks
+     */
+    List<String> split(String text) {
+        List<String> chunks = new ArrayList<>();
+        if (isEmpty(text)) return chunks;
+        StringBuilder chunk = new StringBuilder();
+        int chunkTokens = 0;
+        for (String sentence : SENTENCE_SEPARATOR.split(text.trim())) {
+            int sentenceTokens = encoding.countTokens(sentence);
+            if (sentenceTokens > this.chunkTokens) {
+                addChunk(chunks, chunk);
+                chunkTokens = 0;
+                splitWords(chunks, sentence);
+                continue;
+            }
+            if (chunkTokens + sentenceTokens > this.chunkTokens) {
+                addChunk(chunks, chunk);
+                chunkTokens = 0;
+            }
+            if (!chunk.isEmpty()) chunk.append(' ');
+            chunk.append(sentence);
+            chunkTokens += sentenceTokens;
+        }
+        addChunk(chunks, chunk);
+        return chunks;
+    }
+
+    private void splitWords(List<String> chunks, String sentence) {
+        StringBuilder chunk = new StringBuilder();
+        int chunkTokens = 0;
+        for (String word : WORD_SEPARATOR.split(sentence)) {
+            int wordTokens = encoding.countTokens(word) + 1;
+            if (chunkTokens + wordTokens > this.chunkTokens) {
+                addChunk(chunks, chunk);
+                chunkTokens = 0;
+            }
+            if (!chunk.isEmpty()) chunk.append(' ');
+            chunk.append(word);
+            chunkTokens += wordTokens;
+        }
+        addChunk(chunks, chunk);
+    }
+
+    private void addChunk(List<String> chunks, StringBuilder chunk) {
+        if (!chunk.isEmpty()) chunks.add(chunk.toString());
+        chunk.setLength(0);
+    }
+
+    private org.apache.lucene.document.Document createDocument(String documentId, int index, String chunk, float[] vector) {
+        org.apache.lucene.document.Document document = new org.apache.lucene.document.Document();
+        document.add(new StringField(LuceneFields.ID_FIELD_NAME, documentId + "#" + index, Field.Store.YES));
+        document.add(new StringField(LuceneFields.DOCUMENT_ID_FIELD_NAME, documentId, Field.Store.YES));
+        document.add(new StoredField(LuceneFields.CHUNK_FIELD_NAME, index));
+        document.add(new TextField(LuceneFields.CONTENT_FIELD_NAME, chunk, Field.Store.YES));
+        document.add(new StoredField(LuceneFields.TOKEN_COUNT_FIELD_NAME, encoding.countTokens(chunk)));
+        document.add(new KnnFloatVectorField(LuceneFields.EMBEDDING_FIELD_NAME, vector, VectorSimilarityFunction.COSINE));
+        return document;
+    }
+
     private Field toField(Map.Entry<String, Object> entry) {
         String fieldName = entry.getKey();
         var fieldValue = entry.getValue();
@@ -0,0 +1,55 @@
+package net.microfalx.bootstrap.ai.lucene;
+
+import org.apache.lucene.codecs.KnnVectorsFormat;
+import org.apache.lucene.codecs.lucene99.Lucene99HnswScalarQuantizedVectorsFormat;
+
+import static org.apache.lucene.codecs.lucene99.Lucene99HnswVectorsFormat.DEFAULT_BEAM_WIDTH;
+import static org.apache.lucene.codecs.lucene99.Lucene99HnswVectorsFormat.DEFAULT_MAX_CONN;
+
+/**
+ * An enum for the ways vectors are quantized in the embedding index.
+ * <p>
+ * A quantized index keeps a compact copy of each vector next to the HNSW graph, which is used to navigate the graph.
+ * The full precision vectors stay on disk (they are needed to re-quantize on merges) and are used to rescore the
+ * best candidates, which recovers most of the recall lost by quantization.
+ */
+public enum VectorQuantization {
+
+    /**
+     * The vectors are stored as 32-bit floats.
+     */
+    NONE,
+
+    /**
+     * The vectors are quantized to 7-bit integers (one byte per dimension, a quarter of the memory).
+     */
+    INT8,
+
+    /**
+     * The vectors are quantized to 4-bit integers (half a byte per dimension, an eighth of the memory).
+     */
+    INT4;
+
+    /**
+     * Returns whether the vectors are quantized.
+     *
+     * @return {@code true} if quantized, {@code false} otherwise
+     */
+    public boolean isQuantized() {
+        return this != NONE;
+    }
+
+    /**
+     * Creates the format used to store vectors.
+     *
+     * @return the format, null for the default format
+     */
+    KnnVectorsFormat createFormat() {
+        return switch (this) {
+            case NONE -> null;
+            case INT8 -> new Lucene99HnswScalarQuantizedVectorsFormat();
+            case INT4 -> new Lucene99HnswScalarQuantizedVectorsFormat(DEFAULT_MAX_CONN, DEFAULT_BEAM_WIDTH, 1, 4,
+                    true, null, null);
+        };
+    }
+}
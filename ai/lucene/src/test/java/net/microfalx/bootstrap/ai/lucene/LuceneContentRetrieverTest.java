@@ -0,0 +1,246 @@
+package net.microfalx.bootstrap.ai.lucene;
+
+import net.microfalx.bootstrap.ai.api.AiService;
+import net.microfalx.bootstrap.content.ContentService;
+import net.microfalx.bootstrap.search.IndexService;
+import net.microfalx.bootstrap.search.SearchService;
+import net.microfalx.bootstrap.test.ServiceIntegrationTestCase;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TermQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Answers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.content.Content;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.File;
+import java.util.*;
+
+import static net.microfalx.lang.FormatterUtils.formatBytes;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@ContextConfiguration(classes = {ContentService.class, IndexService.class, SearchService.class})
+class LuceneContentRetrieverTest extends ServiceIntegrationTestCase {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LuceneContentRetrieverTest.class);
+
+    @MockitoBean(answers = Answers.RETURNS_SMART_NULLS)
+    private AiService aiService;
+
+    @Autowired
+    private IndexService indexService;
+
+    @Autowired
+    private SearchService searchService;
+
+    private LuceneEmbeddingModel embeddingStore;
+    private LuceneContentRetriever retriever;
+
+    @BeforeEach
+    void setup() {
+        createStore(VectorQuantization.NONE);
+    }
+
+    @AfterEach
+    void destroy() {
+        LuceneContentRetriever.queryParams.remove();
+        embeddingStore.close();
+    }
+
+    @Test
+    void retrieveByVector() {
+        embeddingStore.index("doc1", List.of("Apples are red", "Bananas are yellow"),
+                List.of(new float[]{1, 0, 0}, new float[]{0, 1, 0}));
+        embeddingStore.index("doc2", List.of("The sky is blue"), List.<float[]>of(new float[]{0, 0, 1}));
+        embeddingStore.getIndexer().commit();
+        List<Content> contents = retriever.retrieve(null, new float[]{0.1f, 0.9f, 0});
+        assertThat(contents).hasSize(3);
+        assertThat(contents.get(0).getText()).isEqualTo("Bananas are yellow");
+        assertThat(((LuceneContent) contents.get(0)).getDocumentId()).isEqualTo("doc1");
+    }
+
+    @Test
+    void retrieveWithFilter() {
+        embeddingStore.index("doc1", List.of("Apples are red", "Bananas are yellow"),
+                List.of(new float[]{1, 0, 0}, new float[]{0, 1, 0}));
+        embeddingStore.index("doc2", List.of("The sky is blue"), List.<float[]>of(new float[]{0, 0, 1}));
+        embeddingStore.getIndexer().commit();
+        LuceneContentRetriever.queryParams.get().setFilter(new TermQuery(new Term(LuceneFields.DOCUMENT_ID_FIELD_NAME, "doc2")));
+        List<Content> contents = retriever.retrieve(null, new float[]{0.1f, 0.9f, 0});
+        assertThat(contents).hasSize(1);
+        assertThat(contents.get(0).getText()).isEqualTo("The sky is blue");
+    }
+
+    @Test
+    void retrieveHybrid() {
+        embeddingStore.index("doc1", List.of("Apples are red", "Bananas are yellow", "Cherries are red"),
+                List.of(new float[]{1, 0, 0}, new float[]{0, 1, 0}, new float[]{0.7f, 0.7f, 0}));
+        embeddingStore.getIndexer().commit();
+        LuceneContentRetriever.queryParams.get().setMaxResults(1);
+        // the vector prefers bananas, the text prefers cherries, and cherries rank well in both
+        List<Content> contents = retriever.retrieve("cherries", new float[]{0.2f, 1, 0});
+        assertThat(contents).hasSize(1);
+        assertThat(contents.get(0).getText()).isEqualTo("Cherries are red");
+    }
+
+    @Test
+    void retrieveHybridWithMinScore() {
+        embeddingStore.index("doc1", List.of("Apples are red", "Bananas are yellow", "Cherries are red"),
+                List.of(new float[]{1, 0, 0}, new float[]{0, 1, 0}, new float[]{0.7f, 0.7f, 0}));
+        embeddingStore.getIndexer().commit();
+        // the threshold is a similarity, the fused (rank based) scores are far lower and must not filter the hits
+        LuceneContentRetriever.queryParams.get().setMinScore(0.9);
+        List<Content> contents = retriever.retrieve("bananas", new float[]{0, 1, 0});
+        assertThat(contents.stream().map(Content::getText).toList()).contains("Bananas are yellow");
+        assertThat(contents.stream().map(Content::getText).toList()).doesNotContain("Apples are red");
+    }
+
+    @Test
+    void retrieveQuantized() {
+        createStore(VectorQuantization.INT8);
+        embeddingStore.index("doc1", List.of("Apples are red", "Bananas are yellow", "Cherries are red"),
+                List.of(new float[]{1, 0, 0, 0}, new float[]{0, 1, 0, 0}, new float[]{0.7f, 0.7f, 0, 0}));
+        embeddingStore.index("doc2", List.of("The sky is blue"), List.<float[]>of(new float[]{0, 0, 1, 0}));
+        embeddingStore.getIndexer().commit();
+        List<Content> contents = retriever.retrieve(null, new float[]{0.1f, 0.9f, 0, 0});
+        assertThat(contents).hasSize(4);
+        assertThat(contents.stream().map(Content::getText).toList())
+                .containsExactly("Bananas are yellow", "Cherries are red", "Apples are red", "The sky is blue");
+        // scores come from the full precision vectors
+        assertThat(((LuceneContent) contents.get(0)).getScore()).isCloseTo(similarity(new float[]{0, 1, 0, 0},
+                new float[]{0.1f, 0.9f, 0, 0}), within(1e-5));
+    }
+
+    @Test
+    void fuse() {
+        List<ScoreDoc> vector = List.of(new ScoreDoc(1, 0.9f), new ScoreDoc(2, 0.8f), new ScoreDoc(3, 0.7f));
+        List<ScoreDoc> text = List.of(new ScoreDoc(3, 12f), new ScoreDoc(4, 10f));
+        List<ScoreDoc> fused = LuceneContentRetriever.fuse(60, vector, text);
+        assertThat(fused.stream().map(hit -> hit.doc).toList()).containsExactly(3, 1, 2, 4);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "ai.benchmark", matches = "true")
+    void recallAndLatency() {
+        int dimension = 384;
+        int documentCount = 20_000;
+        int queryCount = 200;
+        int k = 10;
+        Random random = new Random(42);
+        List<float[]> vectors = new ArrayList<>(documentCount);
+        for (int i = 0; i < documentCount; i++) {
+            vectors.add(createVector(random, dimension));
+        }
+        List<float[]> queries = new ArrayList<>(queryCount);
+        List<Set<String>> expectedNeighbours = new ArrayList<>(queryCount);
+        for (int i = 0; i < queryCount; i++) {
+            float[] query = createVector(random, dimension);
+            queries.add(query);
+            expectedNeighbours.add(exactNeighbours(vectors, query, k));
+        }
+        for (VectorQuantization quantization : VectorQuantization.values()) {
+            createStore(quantization);
+            long start = System.nanoTime();
+            for (int i = 0; i < documentCount; i += 1000) {
+                List<String> chunks = new ArrayList<>();
+                for (int j = i; j < i + 1000; j++) {
+                    chunks.add("Chunk " + j);
+                }
+                embeddingStore.index("doc" + i, chunks, vectors.subList(i, i + 1000));
+            }
+            embeddingStore.getIndexer().doWithIndex("Merge", indexWriter -> {
+                indexWriter.forceMerge(1);
+                return null;
+            });
+            embeddingStore.getIndexer().commit();
+            long indexDuration = System.nanoTime() - start;
+
+            LuceneContentRetriever.queryParams.get().setMaxResults(k);
+            double recall = 0;
+            long duration = 0;
+            for (int i = 0; i < queryCount; i++) {
+                start = System.nanoTime();
+                List<Content> contents = retriever.retrieve(null, queries.get(i));
+                duration += System.nanoTime() - start;
+                Set<String> expected = expectedNeighbours.get(i);
+                recall += contents.stream().filter(content -> expected.contains(content.getText())).count() / (double) k;
+            }
+            recall /= queryCount;
+            Map<String, Long> fileSizes = getFileSizes(embeddingStore.getIndexer().getOptions().getDirectory());
+            LOGGER.info("Quantization: {}, recall@{}: {}, average latency: {} us, indexing: {} ms, index size: {}, "
+                            + "vectors: {} (graph {}, full precision {}, quantized {})", quantization, k,
+                    String.format("%.3f", recall), duration / queryCount / 1000, indexDuration / 1_000_000,
+                    formatBytes(fileSizes.values().stream().mapToLong(Long::longValue).sum()),
+                    formatBytes(fileSizes.getOrDefault("vex", 0L) + fileSizes.getOrDefault(quantization.isQuantized() ? "veq" : "vec", 0L)),
+                    formatBytes(fileSizes.getOrDefault("vex", 0L)), formatBytes(fileSizes.getOrDefault("vec", 0L)),
+                    formatBytes(fileSizes.getOrDefault("veq", 0L)));
+            assertThat(recall).isGreaterThan(quantization.isQuantized() ? 0.7 : 0.8);
+        }
+    }
+
+    private void createStore(VectorQuantization quantization) {
+        if (embeddingStore != null) embeddingStore.close();
+        LuceneContentRetriever.queryParams.remove();
+        embeddingStore = new LuceneEmbeddingModel(aiService, indexService, searchService, quantization).setEnabled(true);
+        embeddingStore.getIndexer().doWithIndex("Clear", indexWriter -> indexWriter.deleteAll());
+        embeddingStore.getIndexer().commit();
+        retriever = embeddingStore.getContentRetriever();
+    }
+
+    private static Map<String, Long> getFileSizes(File directory) {
+        Map<String, Long> fileSizes = new HashMap<>();
+        File[] files = directory.listFiles();
+        if (files == null) return fileSizes;
+        for (File file : files) {
+            String extension = file.getName().substring(file.getName().lastIndexOf('.') + 1);
+            fileSizes.merge(extension, file.length(), Long::sum);
+        }
+        return fileSizes;
+    }
+
+    private static float similarity(float[] first, float[] second) {
+        return VectorSimilarityFunction.COSINE.compare(first, second);
+    }
+
+    private static Set<String> exactNeighbours(List<float[]> vectors, float[] query, int k) {
+        PriorityQueue<Map.Entry<Integer, Float>> queue = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (int i = 0; i < vectors.size(); i++) {
+            queue.add(Map.entry(i, dotProduct(vectors.get(i), query)));
+            if (queue.size() > k) queue.poll();
+        }
+        Set<String> neighbours = new HashSet<>();
+        queue.forEach(entry -> neighbours.add("Chunk " + entry.getKey()));
+        return neighbours;
+    }
+
+    private static float[] createVector(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        float norm = 0;
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        norm = (float) Math.sqrt(norm);
+        for (int i = 0; i < dimension; i++) {
+            vector[i] /= norm;
+        }
+        return vector;
+    }
+
+    private static float dotProduct(float[] first, float[] second) {
+        float value = 0;
+        for (int i = 0; i < first.length; i++) {
+            value += first[i] * second[i];
+        }
+        return value;
+    }
+}
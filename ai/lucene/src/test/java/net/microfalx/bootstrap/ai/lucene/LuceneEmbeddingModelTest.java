@@ -21,9 +21,11 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
@@ -55,6 +57,10 @@ class LuceneEmbeddingModelTest extends ServiceIntegrationTestCase {
         embeddingStore = new LuceneEmbeddingModel(aiService, indexService, searchService);
         net.microfalx.bootstrap.ai.api.Embedding embeddings = createEmbeddings();
         when(aiService.embed(anyString())).thenReturn(embeddings);
+        when(aiService.embedAll(anyList())).thenAnswer(invocation -> {
+            List<String> texts = invocation.getArgument(0);
+            return texts.stream().map(text -> embeddings).toList();
+        });
     }
 
     @AfterEach
@@ -84,6 +90,17 @@ class LuceneEmbeddingModelTest extends ServiceIntegrationTestCase {
         embeddingStore.getIndexer().commit();
     }
 
+    @Test
+    void split() {
+        embeddingStore.setChunkTokens(8);
+        List<String> chunks = embeddingStore.split("The first sentence is short. The second sentence is a little longer. "
+                + "The third one is short.");
+        assertThat(chunks).hasSize(3);
+        assertThat(chunks.get(0)).isEqualTo("The first sentence is short.");
+        assertThat(embeddingStore.split("one two three four five six seven eight nine ten eleven twelve")).hasSizeGreaterThan(1);
+        assertThat(embeddingStore.split("")).isEmpty();
+    }
+
     private void assertAtLeastOneDocumentIndexed() {
         Indexer indexer = embeddingStore.getIndexer();
         assertThat(indexer.getDocumentCount() + indexer.getPendingDocumentCount()).isGreaterThan(0);
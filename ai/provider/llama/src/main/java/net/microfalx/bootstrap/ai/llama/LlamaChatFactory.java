@@ -26,6 +26,7 @@ public class LlamaChatFactory extends AbstractChatFactory {
         OpenAiChatModel chatModel = OpenAiChatModel.builder()
                 .openAiApi(api)
                 .defaultOptions(createOptions(model))
+                .toolCallingManager(getToolCallingManager())
                 .build();
         chat.setChatModel(chatModel);
         return chat;
@@ -30,6 +30,7 @@ public class OllamaChatFactory extends AbstractChatFactory {
         OllamaChatModel chatModel = OllamaChatModel.builder().ollamaApi(api)
                 .defaultOptions(createOptions(model))
                 .modelManagementOptions(modelManagementOptions)
+                .toolCallingManager(getToolCallingManager())
                 .build();
         return new OllamaChat(prompt, model).setChatModel(chatModel);
     }
@@ -23,6 +23,7 @@ public class OpenAiChatFactory extends AbstractChatFactory {
         OpenAiChatModel chatModel = OpenAiChatModel.builder()
                 .openAiApi(api)
                 .defaultOptions(createOptions(model))
+                .toolCallingManager(getToolCallingManager())
                 .build();
         return new OpenAiChat(prompt, model).setChatModel(chatModel);
     }
@@ -32,6 +32,10 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -42,9 +46,7 @@ import static net.microfalx.lang.ExceptionUtils.getRootCauseDescription;
 import static net.microfalx.lang.ExceptionUtils.rethrowException;
 import static net.microfalx.lang.StringUtils.EMPTY_STRING;
 import static net.microfalx.lang.StringUtils.isNotEmpty;
-import static net.microfalx.lang.ThreadUtils.sleepMillis;
 import static net.microfalx.lang.TimeUtils.FIVE_SECONDS;
-import static net.microfalx.lang.TimeUtils.millisSince;
 
 @Controller()
 @RequestMapping("/ai/chat")
@@ -136,8 +138,11 @@ public class ChatController extends PageController {
         net.microfalx.bootstrap.ai.api.Chat chat = aiService.getChat(chatId);
         TokenStream stream = chatAnswer.get(chatId);
         SseEmitter emitter = new SseEmitter();
-        ThreadPool threadPool = getChatThreadPool(aiService);
-        threadPool.execute(new ChatMessageTask(emitter, chat, stream));
+        if (stream == null) {
+            emitter.completeWithError(new IllegalStateException("No message stream available for chat: " + chat.getId()));
+        } else {
+            stream.subscribe(new ChatMessageSubscriber(emitter, chat, getChatThreadPool(aiService)));
+        }
         return emitter;
     }
 
@@ -223,27 +228,131 @@ public class ChatController extends PageController {
         private final String token;
     }
 
-    private static class ChatMessageTask implements Runnable {
+    /**
+     * Sends the tokens of an answer to the browser as they arrive from the model.
+     * <p>
+     * The subscriber asks for a few tokens and for one more after each token is sent, so a slow client slows down
+     * the model response instead of buffering it. A closed connection cancels the model response.
+     */
+    /**
+     * Streams the tokens of a chat to the browser.
+     * <p>
+     * Tokens are delivered on the thread of the model provider (usually an event loop shared by all streams), so the
+     * (blocking) sends happen on the chat thread pool, one at a time and in the order they were received.
+     */
+    private static class ChatMessageSubscriber implements Flow.Subscriber<net.microfalx.bootstrap.ai.api.Token> {
+
+        private static final int INITIAL_REQUEST = 16;
 
         private final SseEmitter emitter;
         private final net.microfalx.bootstrap.ai.api.Chat chat;
-        private final TokenStream stream;
+        private final ThreadPool threadPool;
         private final AtomicInteger index = new AtomicInteger(1);
         private final ObjectMapper objectMapper;
         private final AtomicBoolean completed = new AtomicBoolean(false);
-        private volatile Throwable throwable;
-        private volatile long lastTokenSent = System.currentTimeMillis();
-        private volatile long lastPingSent = System.currentTimeMillis();
+        private volatile Flow.Subscription subscription;
+        private volatile ScheduledFuture<?> pingTask;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger taskCount = new AtomicInteger();
 
-        public ChatMessageTask(SseEmitter emitter, net.microfalx.bootstrap.ai.api.Chat chat, TokenStream stream) {
+        public ChatMessageSubscriber(SseEmitter emitter, net.microfalx.bootstrap.ai.api.Chat chat, ThreadPool threadPool) {
             this.emitter = emitter;
-            this.emitter.onCompletion(this::onCompletion);
-            this.emitter.onError(this::onError);
+            this.emitter.onCompletion(this::onClose);
+            this.emitter.onTimeout(this::onClose);
+            this.emitter.onError(this::onClose);
             this.chat = chat;
-            this.stream = stream;
+            this.threadPool = threadPool;
             this.objectMapper = new ObjectMapper();
         }
 
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            pingTask = threadPool.scheduleAtFixedRate(() -> execute(this::sendPing), FIVE_SECONDS, FIVE_SECONDS, TimeUnit.MILLISECONDS);
+            subscription.request(INITIAL_REQUEST);
+        }
+
+        @Override
+        public void onNext(net.microfalx.bootstrap.ai.api.Token token) {
+            execute(() -> doNext(token));
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            execute(() -> {
+                finish(throwable);
+                emitter.completeWithError(throwable);
+            });
+        }
+
+        @Override
+        public void onComplete() {
+            execute(this::doComplete);
+        }
+
+        private void doNext(net.microfalx.bootstrap.ai.api.Token token) {
+            if (completed.get()) return;
+            try {
+                sendToken(getEncodedToken(token), false);
+                // ask for the next token only after this one was sent, a slow browser slows down only its stream
+                subscription.request(1);
+            } catch (IllegalStateException e) {
+                subscription.cancel();
+                finish(e);
+            }
+        }
+
+        private void doComplete() {
+            try {
+                sendToken(END_OF_DATA, true);
+                finish(null);
+            } catch (IllegalStateException e) {
+                finish(e);
+            } finally {
+                emitter.complete();
+            }
+        }
+
+        private void execute(Runnable task) {
+            tasks.add(task);
+            if (taskCount.getAndIncrement() == 0) threadPool.execute(this::drain);
+        }
+
+        private void drain() {
+            do {
+                Runnable task = tasks.poll();
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    LOGGER.error("Failed to stream chat {}, root cause: {}", chat.getId(), getRootCauseDescription(e));
+                }
+            } while (taskCount.decrementAndGet() > 0);
+        }
+
+        private void onClose() {
+            Flow.Subscription currentSubscription = subscription;
+            if (!completed.get() && currentSubscription != null) currentSubscription.cancel();
+            finish(null);
+        }
+
+        private void onClose(Throwable throwable) {
+            Flow.Subscription currentSubscription = subscription;
+            if (!completed.get() && currentSubscription != null) currentSubscription.cancel();
+            finish(throwable);
+        }
+
+        private void finish(Throwable throwable) {
+            if (!completed.compareAndSet(false, true)) return;
+            ScheduledFuture<?> currentPingTask = pingTask;
+            if (currentPingTask != null) currentPingTask.cancel(false);
+            if (throwable == null) return;
+            if (throwable instanceof IllegalStateException) {
+                LOGGER.info("Communication error with client for chat '{}', reason: {}", chat.getId(), getRootCauseDescription(throwable));
+            } else {
+                LOGGER.warn("Error while processing chat {}, root cause: {}", chat.getId(), getRootCauseDescription(throwable));
+            }
+        }
+
         private void sendToken(String token, boolean asText) {
             SseEmitter.SseEventBuilder builder = SseEmitter.event().id(chat.getId());
             try {
@@ -260,15 +369,6 @@ public class ChatController extends PageController {
             }
         }
 
-        private void onCompletion() {
-            completed.set(true);
-        }
-
-        private void onError(Throwable throwable) {
-            completed.set(true);
-            this.throwable = throwable;
-        }
-
         private String getPrefix(net.microfalx.bootstrap.ai.api.Token token) {
             if (token.getType() == ANSWER) {
                 return "A:";
@@ -283,50 +383,19 @@ public class ChatController extends PageController {
             }
         }
 
-        private void sendPingIfNeeded() {
+        private void sendPing() {
+            if (completed.get()) return;
             net.microfalx.bootstrap.ai.api.Token token = net.microfalx.bootstrap.ai.api.Token.create(PING, ".");
-            if (millisSince(lastPingSent) > FIVE_SECONDS) {
+            try {
                 sendToken(getEncodedToken(token), true);
                 chat.ping();
-                lastPingSent = System.currentTimeMillis();
+            } catch (IllegalStateException e) {
+                onClose(e);
             }
         }
 
         private String getEncodedToken(net.microfalx.bootstrap.ai.api.Token token) {
             return getPrefix(token) + token.getText();
         }
-
-        @Override
-        public void run() {
-            if (stream == null) {
-                emitter.completeWithError(new IllegalStateException("No message stream available for chat: " + chat.getId()));
-            } else {
-                try {
-                    while (!(stream.isComplete() || completed.get())) {
-                        while (stream.hasNext()) {
-                            sendToken(getEncodedToken(stream.next()), false);
-                            lastTokenSent = System.currentTimeMillis();
-                        }
-                        sendPingIfNeeded();
-                        sleepMillis(50);
-                    }
-                    if (stream.isComplete()) sendToken(END_OF_DATA, true);
-                } catch (IllegalStateException e) {
-                    throwable = e;
-                } catch (Exception e) {
-                    throwable = e;
-                    emitter.completeWithError(e);
-                } finally {
-                    emitter.complete();
-                }
-            }
-            if (throwable != null) {
-                if (throwable instanceof IllegalStateException) {
-                    LOGGER.info("Communication error with client for chat '{}', reason: {}", chat.getId(), getRootCauseDescription(throwable));
-                } else {
-                    LOGGER.warn("Error while processing chat {}, root cause: {}", chat.getId(), getRootCauseDescription(throwable));
-                }
-            }
-        }
     }
 }
@@ -0,0 +1,122 @@
+package net.microfalx.bootstrap.configuration;
+
+import net.microfalx.lang.ClassUtils;
+
+import java.util.StringJoiner;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * A typed handle to a configuration entry.
+ * <p>
+ * The value is resolved (looked up, decrypted and converted) once and kept until the entry changes, so reading
+ * a value through a key costs a field read. Keys are invalidated when the entry changes in the registry or through
+ * {@link ConfigurationService}, no expiration (and stale values) involved.
+ * <p>
+ * Keys are shared and thread-safe, hold them in (static) fields of the components which read the configuration.
+ *
+ * @param <T> the type of the value
+ * @see ConfigurationService#getKey(String, Class)
+ */
+@SuppressWarnings("unchecked")
+public final class ConfigurationKey<T> {
+
+    private static final Object UNRESOLVED = new Object();
+    private static final Object NULL = new Object();
+
+    private final ConfigurationService configurationService;
+    private final String key;
+    private final Class<T> type;
+    private final String registryPath;
+
+    private volatile Object value = UNRESOLVED;
+    private long generation;
+
+    ConfigurationKey(ConfigurationService configurationService, String key, Class<T> type, String registryPath) {
+        requireNonNull(configurationService);
+        requireNonNull(key);
+        requireNonNull(type);
+        requireNonNull(registryPath);
+        this.configurationService = configurationService;
+        this.key = key;
+        this.type = type;
+        this.registryPath = registryPath;
+    }
+
+    /**
+     * Returns the configuration key.
+     *
+     * @return a non-null instance
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the type of the value.
+     *
+     * @return a non-null instance
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Returns the value of the configuration entry.
+     *
+     * @return the value, null if the entry has no value
+     */
+    public T get() {
+        Object current = value;
+        if (current == UNRESOLVED) current = load();
+        return current == NULL ? null : (T) current;
+    }
+
+    /**
+     * Returns the value of the configuration entry.
+     *
+     * @param defaultValue the value returned when the entry has no value
+     * @return the value
+     */
+    public T get(T defaultValue) {
+        T current = get();
+        return current != null ? current : defaultValue;
+    }
+
+    /**
+     * Discards the resolved value, the next read resolves the value again.
+     */
+    public void invalidate() {
+        synchronized (this) {
+            generation++;
+            value = UNRESOLVED;
+        }
+    }
+
+    String getRegistryPath() {
+        return registryPath;
+    }
+
+    private Object load() {
+        long loadGeneration;
+        synchronized (this) {
+            loadGeneration = generation;
+        }
+        T converted = configurationService.convert(key, configurationService.loadValue(key), type);
+        Object loaded = converted != null ? converted : NULL;
+        synchronized (this) {
+            // an invalidation while loading means the loaded value might be stale, do not keep it
+            if (loadGeneration == generation) value = loaded;
+        }
+        return loaded;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", ConfigurationKey.class.getSimpleName() + "[", "]")
+                .add("key='" + key + "'")
+                .add("type=" + ClassUtils.getName(type))
+                .add("resolved=" + (value != UNRESOLVED))
+                .toString();
+    }
+}
@@ -31,6 +31,7 @@ import static java.lang.System.currentTimeMillis;
 import static java.util.Collections.unmodifiableCollection;
 import static net.microfalx.bootstrap.configuration.ConfigurationUtils.REGISTRY_PATH;
 import static net.microfalx.bootstrap.configuration.ConfigurationUtils.ROOT_METADATA_ID;
+import static net.microfalx.bootstrap.registry.RegistryUtils.normalizePath;
 import static net.microfalx.lang.ArgumentUtils.requireNonNull;
 import static net.microfalx.lang.ExceptionUtils.getRootCauseDescription;
 import static net.microfalx.lang.StringUtils.*;
@@ -53,6 +54,7 @@ public class ConfigurationService implements InitializingBean {
     private Binder binder;
     private final Map<String, Metadata> metadatas = new ConcurrentHashMap<>();
     private final Map<String, CachedValue> cachedValues = new ConcurrentHashMap<>();
+    private final Map<String, ConfigurationKey<?>> keys = new ConcurrentHashMap<>();
     private final Collection<ConfigurationListener> listeners = new CopyOnWriteArrayList<>();
 
     /**
@@ -73,6 +75,24 @@ public class ConfigurationService implements InitializingBean {
         return configuration;
     }
 
+    /**
+     * Returns a typed handle to a configuration entry.
+     * <p>
+     * The value behind the handle is resolved once and invalidated when the entry changes, which makes it the
+     * preferred way to read configuration in hot paths.
+     *
+     * @param key  the configuration key
+     * @param type the type of the value
+     * @param <T>  the type of the value
+     * @return a non-null instance
+     */
+    public <T> ConfigurationKey<T> getKey(String key, Class<T> type) {
+        requireNonNull(key);
+        requireNonNull(type);
+        return (ConfigurationKey<T>) keys.computeIfAbsent(key + "|" + type.getName(),
+                k -> new ConfigurationKey<>(this, key, type, normalizePath(getRegistryPath(key))));
+    }
+
     /**
      * Registers a configuration listener.
      *
@@ -172,6 +192,7 @@ public class ConfigurationService implements InitializingBean {
         configuration = new SubsetImpl(this, null, EMPTY_STRING, "Root");
         loadMetadata();
         initBinder();
+        initRegistry();
         threadPool.execute(this::registerMetadata);
     }
 
@@ -180,9 +201,16 @@ public class ConfigurationService implements InitializingBean {
      */
     public void clearCache() {
         cachedValues.clear();
+        for (ConfigurationKey<?> configurationKey : keys.values()) {
+            configurationKey.invalidate();
+        }
     }
 
     void propertyChanged(Configuration configuration, String key, String previousValue, String currentValue) {
+        cachedValues.remove(key);
+        for (ConfigurationKey<?> configurationKey : keys.values()) {
+            if (configurationKey.getKey().equals(key)) configurationKey.invalidate();
+        }
         ConfigurationEvent event = new ConfigurationEvent(configuration, ConfigurationEvent.Type.PROPERTY, key, previousValue, currentValue);
         fireConfigurationEvent(event);
     }
@@ -207,19 +235,20 @@ public class ConfigurationService implements InitializingBean {
     String getFromRegistry(Configuration configuration, String key, String defaultValue) {
         String value = getFromCache(key);
         if (isEmpty(value)) {
-            String registryKey = getRegistryPath(key);
-            Optional<Data> data = getRegistry().get(registryKey);
-            if (data.isPresent()) {
-                value = ObjectUtils.toString(data.get().get());
-            } else {
-                value = getProperty(key);
-            }
+            value = lookupValue(key);
             cachedValues.put(key, new CachedValue(value));
         }
-        if (SecretUtils.isSecret(key) && EncryptionUtils.isEncrypted(value)) {
-            value = EncryptionUtils.decrypt(value);
-        }
-        return defaultIfNull(value, defaultValue);
+        return defaultIfNull(decrypt(key, value), defaultValue);
+    }
+
+    /**
+     * Loads the (decrypted) value of a configuration entry, bypassing the cache.
+     *
+     * @param key the configuration key
+     * @return the value, null if not available
+     */
+    String loadValue(String key) {
+        return decrypt(key, lookupValue(key));
     }
 
     void setToRegistry(Configuration configuration, String key, Object value) {
@@ -231,10 +260,40 @@ public class ConfigurationService implements InitializingBean {
         propertyChanged(configuration, key, previousValue, ObjectUtils.toString(value));
     }
 
+    private String lookupValue(String key) {
+        String registryKey = getRegistryPath(key);
+        Optional<Data> data = getRegistry().get(registryKey);
+        if (data.isPresent()) {
+            return ObjectUtils.toString(data.get().get());
+        } else {
+            return getProperty(key);
+        }
+    }
+
+    private String decrypt(String key, String value) {
+        if (SecretUtils.isSecret(key) && EncryptionUtils.isEncrypted(value)) {
+            return EncryptionUtils.decrypt(value);
+        } else {
+            return value;
+        }
+    }
+
+    private void registryChanged(String path) {
+        if (!path.startsWith(normalizePath(REGISTRY_PATH))) return;
+        for (ConfigurationKey<?> configurationKey : keys.values()) {
+            if (configurationKey.getRegistryPath().equals(path)) configurationKey.invalidate();
+        }
+        cachedValues.keySet().removeIf(key -> path.equals(normalizePath(getRegistryPath(key))));
+    }
+
     private void initBinder() {
         binder = Binder.get(environment);
     }
 
+    private void initRegistry() {
+        getRegistry().addListener(this::registryChanged);
+    }
+
     private void loadMetadata() {
         ConfigurationLoader loader = new ConfigurationLoader();
         loader.load();
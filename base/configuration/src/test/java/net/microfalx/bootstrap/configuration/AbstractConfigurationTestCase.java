@@ -33,6 +33,7 @@ public abstract class AbstractConfigurationTestCase {
 
     @BeforeEach
     void setup() throws Exception {
+        when(registryService.getRegistry()).thenReturn(registry);
         configurationService.afterPropertiesSet();
         postSetup();
     }
@@ -41,8 +42,4 @@ public abstract class AbstractConfigurationTestCase {
 
     }
 
-    protected void mockRegistry() {
-        when(registryService.getRegistry()).thenReturn(registry);
-    }
-
 }
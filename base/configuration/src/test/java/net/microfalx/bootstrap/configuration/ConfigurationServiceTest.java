@@ -1,13 +1,18 @@
 package net.microfalx.bootstrap.configuration;
 
+import net.microfalx.bootstrap.registry.Data;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.test.util.ReflectionTestUtils;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.*;
 
 class ConfigurationServiceTest extends AbstractConfigurationTestCase {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigurationServiceTest.class);
+
     @Test
     void getMetadata() {
         assertEquals(2, configurationService.getRootMetadata().getChildren().size());
@@ -15,7 +20,6 @@ class ConfigurationServiceTest extends AbstractConfigurationTestCase {
 
     @Test
     void getRegistry() {
-        mockRegistry();
         assertNotNull(configurationService.getRegistry());
     }
 
@@ -42,7 +46,6 @@ class ConfigurationServiceTest extends AbstractConfigurationTestCase {
 
     @Test
     void getConfiguration() {
-        mockRegistry();
         ReflectionTestUtils.invokeMethod(configurationService, "registerMetadata");
         assertEquals("20", configurationService.getConfiguration().get("group1.group12.item1"));
         assertEquals("20", configurationService.getConfiguration().get("group1.group12.item1", "10"));
@@ -55,5 +58,57 @@ class ConfigurationServiceTest extends AbstractConfigurationTestCase {
         assertEquals(1, configurationService.convert("a", "1", Integer.class));
     }
 
+    @Test
+    void getKey() {
+        ReflectionTestUtils.invokeMethod(configurationService, "registerMetadata");
+        ConfigurationKey<Integer> key = configurationService.getKey("group1.group12.item1", Integer.class);
+        assertSame(key, configurationService.getKey("group1.group12.item1", Integer.class));
+        assertEquals(20, key.get());
+        assertEquals(20, key.get(10));
+        assertNull(configurationService.getKey("group1.group12.missing", Integer.class).get());
+        assertEquals(10, configurationService.getKey("group1.group12.missing", Integer.class).get(10));
+    }
+
+    @Test
+    void getKeyAfterChange() {
+        ReflectionTestUtils.invokeMethod(configurationService, "registerMetadata");
+        ConfigurationKey<Integer> key = configurationService.getKey("group1.group12.item1", Integer.class);
+        assertEquals(20, key.get());
+        configurationService.getConfiguration().set("group1.group12.item1", 30);
+        assertEquals(30, key.get());
+
+        String path = ReflectionTestUtils.invokeMethod(configurationService, "getRegistryPath", "group1.group12.item1");
+        Data data = registry.getOrCreate(path);
+        data.set(40);
+        registry.set(data);
+        assertEquals(40, key.get());
+        assertEquals(40, configurationService.getConfiguration().get("group1.group12.item1", 10));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "configuration.benchmark", matches = "true")
+    void benchmark() {
+        ReflectionTestUtils.invokeMethod(configurationService, "registerMetadata");
+        Configuration configuration = configurationService.getConfiguration();
+        ConfigurationKey<Integer> key = configurationService.getKey("group1.group12.item1", Integer.class);
+        int iterations = 1_000_000;
+        long sum = 0;
+        for (int i = 0; i < iterations / 10; i++) {
+            sum += configuration.get("group1.group12.item1", 10) + key.get();
+        }
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sum += configuration.get("group1.group12.item1", 10);
+        }
+        long configurationDuration = System.nanoTime() - startTime;
+        startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sum += key.get();
+        }
+        long keyDuration = System.nanoTime() - startTime;
+        assertTrue(sum > 0);
+        LOGGER.info("Read {} values, configuration {}ns/read, key {}ns/read", iterations,
+                configurationDuration / iterations, keyDuration / iterations);
+    }
 
-}
\ No newline at end of file
+}
@@ -12,7 +12,6 @@ public class ConfigurationTest extends AbstractConfigurationTestCase {
     protected void postSetup() {
         super.postSetup();
         setupEnvironment();
-        mockRegistry();
         configuration = new ConfigurationImpl(configurationService);
     }
 
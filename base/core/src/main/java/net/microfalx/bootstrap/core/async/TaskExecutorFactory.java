@@ -1,8 +1,10 @@
 package net.microfalx.bootstrap.core.async;
 
+import net.microfalx.lang.ClassUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
@@ -11,12 +13,10 @@ import org.springframework.util.ErrorHandler;
 
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
+import java.time.Instant;
 import java.util.Collection;
 import java.util.Objects;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
@@ -26,6 +26,10 @@ import static net.microfalx.lang.ArgumentUtils.requireNonNull;
  * A factory which builds a {@link ThreadPoolTaskScheduler} with the most common settings.
  * <p>
  * The settings can be customized using {@link AsynchronousProperties}.
+ * <p>
+ * Tasks are decorated (at submission) by all {@link TaskDecorator} providers, which allows modules to carry
+ * thread context (like the current trace span) from the thread submitting the task to the thread running it.
+ * Periodic tasks are not decorated, they are not part of the context which scheduled them.
  */
 public class TaskExecutorFactory implements Thread.UncaughtExceptionHandler, ErrorHandler {
 
@@ -35,6 +39,7 @@ public class TaskExecutorFactory implements Thread.UncaughtExceptionHandler, Err
     private static final AtomicInteger ID_GENERATOR = new AtomicInteger(1);
     private static final Collection<WeakReference<TaskExecutor>> TASK_EXECUTORS = new CopyOnWriteArrayList<>();
     private static final Collection<WeakReference<TaskScheduler>> TASK_SCHEDULERS = new CopyOnWriteArrayList<>();
+    private static volatile TaskDecorator taskDecorator;
 
     private AsynchronousProperties properties = new AsynchronousProperties();
     private float ratio = 1;
@@ -102,6 +107,7 @@ public class TaskExecutorFactory implements Thread.UncaughtExceptionHandler, Err
         taskExecutor.setMaxPoolSize((int) (properties.getMaximumThreads() * ratio));
         taskExecutor.setQueueCapacity((int) (properties.getQueueCapacity() * ratio));
         taskExecutor.setVirtualThreads(properties.isVirtual());
+        taskExecutor.setTaskDecorator(getTaskDecorator());
         taskExecutor.initialize();
         LOGGER.info("Create task executor, prefix '{}', core threads {}, queue capacity {}", taskExecutor.getThreadNamePrefix(),
                 taskExecutor.getCorePoolSize(), taskExecutor.getQueueCapacity());
@@ -110,7 +116,7 @@ public class TaskExecutorFactory implements Thread.UncaughtExceptionHandler, Err
     }
 
     public TaskScheduler createScheduler() {
-        ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+        ThreadPoolTaskScheduler taskScheduler = new DecoratingTaskScheduler(getTaskDecorator());
         taskScheduler.setBeanName(properties.getThreadNamePrefix() + "_" + ID_GENERATOR.getAndIncrement());
         taskScheduler.setThreadNamePrefix(properties.getThreadNamePrefix());
         taskScheduler.setWaitForTasksToCompleteOnShutdown(true);
@@ -131,6 +137,26 @@ public class TaskExecutorFactory implements Thread.UncaughtExceptionHandler, Err
         return taskScheduler;
     }
 
+    /**
+     * Returns a decorator which applies all registered task decorators.
+     *
+     * @return a non-null instance
+     */
+    public static TaskDecorator getTaskDecorator() {
+        if (taskDecorator == null) {
+            Collection<TaskDecorator> decorators = ClassUtils.resolveProviderInstances(TaskDecorator.class);
+            LOGGER.debug("Loaded {} task decorators", decorators.size());
+            taskDecorator = runnable -> {
+                Runnable decoratedRunnable = runnable;
+                for (TaskDecorator decorator : decorators) {
+                    decoratedRunnable = decorator.decorate(decoratedRunnable);
+                }
+                return decoratedRunnable;
+            };
+        }
+        return taskDecorator;
+    }
+
     public static Collection<TaskScheduler> getTaskSchedulers() {
         return TASK_SCHEDULERS.stream().map(Reference::get).filter(Objects::nonNull).collect(Collectors.toList());
     }
@@ -139,4 +165,41 @@ public class TaskExecutorFactory implements Thread.UncaughtExceptionHandler, Err
         return TASK_EXECUTORS.stream().map(Reference::get).filter(Objects::nonNull).collect(Collectors.toList());
     }
 
+    /**
+     * A scheduler which decorates only the tasks executed once.
+     * <p>
+     * A {@link ThreadPoolTaskScheduler#setTaskDecorator(TaskDecorator) task decorator} would also decorate each run
+     * of a periodic (fixed rate, fixed delay or trigger) task with the context captured when the task was scheduled.
+     */
+    private static class DecoratingTaskScheduler extends ThreadPoolTaskScheduler {
+
+        private final TaskDecorator decorator;
+
+        private DecoratingTaskScheduler(TaskDecorator decorator) {
+            this.decorator = decorator;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            super.execute(decorator.decorate(task));
+        }
+
+        @Override
+        public Future<?> submit(Runnable task) {
+            return super.submit(decorator.decorate(task));
+        }
+
+        @Override
+        public <T> Future<T> submit(Callable<T> task) {
+            FutureTask<T> future = new FutureTask<>(task);
+            execute(future);
+            return future;
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable task, Instant startTime) {
+            return super.schedule(decorator.decorate(task), startTime);
+        }
+    }
+
 }
@@ -0,0 +1,225 @@
+package net.microfalx.bootstrap.metrics;
+
+import net.microfalx.bootstrap.metrics.util.PercentileSummary;
+import net.microfalx.lang.ExceptionUtils;
+import net.microfalx.metrics.Metrics;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static java.util.Collections.unmodifiableCollection;
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.ArgumentUtils.requireNotEmpty;
+
+/**
+ * A timer which keeps the distribution of the recorded durations, to report percentiles (P50, P90, P99, P999).
+ * <p>
+ * Timers are registered by group and name, the same group and name used by the {@link net.microfalx.metrics.Timer}
+ * of an operation, so the percentiles can be displayed next to the regular timer. The percentiles of each interval
+ * are persisted by {@link MetricsService}.
+ * <p>
+ * Instrumented operations use {@link #time(Metrics, String, Supplier)} (or
+ * {@link #timeCallable(Metrics, String, Callable)}) instead of {@link Metrics#time(String, Supplier)}, which records
+ * the duration in both the regular timer and the latency timer.
+ */
+public final class LatencyTimer {
+
+    private static final Map<String, LatencyTimer> TIMERS = new ConcurrentHashMap<>();
+
+    private final String group;
+    private final String name;
+    private final PercentileSummary summary = new PercentileSummary();
+
+    /**
+     * Returns (and registers if missing) a timer.
+     *
+     * @param group the group of the timer
+     * @param name  the name of the timer
+     * @return a non-null instance
+     */
+    public static LatencyTimer get(String group, String name) {
+        requireNotEmpty(group);
+        requireNotEmpty(name);
+        return TIMERS.computeIfAbsent(getKey(group, name), k -> new LatencyTimer(group, name));
+    }
+
+    /**
+     * Returns (and registers if missing) the timer associated with a regular timer.
+     *
+     * @param timer the regular timer
+     * @return a non-null instance
+     */
+    public static LatencyTimer get(net.microfalx.metrics.Timer timer) {
+        requireNonNull(timer);
+        return get(timer.getGroup(), timer.getName());
+    }
+
+    /**
+     * Executes a task and records its duration with the regular timer and its latency timer.
+     *
+     * @param metrics  the metrics group of the timer
+     * @param name     the name of the timer
+     * @param supplier the task
+     * @param <T>      the type of the result
+     * @return the result of the task
+     */
+    public static <T> T time(Metrics metrics, String name, Supplier<T> supplier) {
+        requireNonNull(supplier);
+        return timeCallable(metrics, name, supplier::get);
+    }
+
+    /**
+     * Executes a task and records its duration with the regular timer and its latency timer.
+     *
+     * @param metrics  the metrics group of the timer
+     * @param name     the name of the timer
+     * @param callable the task
+     * @param <T>      the type of the result
+     * @return the result of the task
+     */
+    public static <T> T timeCallable(Metrics metrics, String name, Callable<T> callable) {
+        requireNonNull(metrics);
+        requireNonNull(callable);
+        net.microfalx.metrics.Timer timer = metrics.getTimer(name);
+        LatencyTimer latencyTimer = get(timer);
+        long startTime = System.nanoTime();
+        try {
+            return callable.call();
+        } catch (Exception e) {
+            return ExceptionUtils.rethrowExceptionAndReturn(e);
+        } finally {
+            Duration duration = Duration.ofNanos(System.nanoTime() - startTime);
+            timer.record(duration);
+            latencyTimer.record(duration);
+        }
+    }
+
+    /**
+     * Returns a registered timer.
+     *
+     * @param group the group of the timer
+     * @param name  the name of the timer
+     * @return a timer, empty if the timer was never registered
+     */
+    public static Optional<LatencyTimer> find(String group, String name) {
+        return Optional.ofNullable(TIMERS.get(getKey(group, name)));
+    }
+
+    /**
+     * Returns all registered timers.
+     *
+     * @return a non-null instance
+     */
+    public static Collection<LatencyTimer> getAll() {
+        return unmodifiableCollection(TIMERS.values());
+    }
+
+    private LatencyTimer(String group, String name) {
+        this.group = group;
+        this.name = name;
+    }
+
+    /**
+     * Returns the group of the timer.
+     *
+     * @return a non-null instance
+     */
+    public String getGroup() {
+        return group;
+    }
+
+    /**
+     * Returns the name of the timer.
+     *
+     * @return a non-null instance
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the summary which holds the recorded durations (in nanoseconds).
+     *
+     * @return a non-null instance
+     */
+    public PercentileSummary getSummary() {
+        return summary;
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param duration the duration
+     */
+    public void record(Duration duration) {
+        requireNonNull(duration);
+        summary.record(duration.toNanos());
+    }
+
+    /**
+     * Executes a task and records its duration.
+     *
+     * @param callable the task
+     * @param <T>      the type of the result
+     * @return the result of the task
+     */
+    public <T> T time(Callable<T> callable) {
+        requireNonNull(callable);
+        long startTime = System.nanoTime();
+        try {
+            return callable.call();
+        } catch (Exception e) {
+            return ExceptionUtils.rethrowExceptionAndReturn(e);
+        } finally {
+            summary.record(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Executes a task and records its duration.
+     *
+     * @param runnable the task
+     */
+    public void time(Runnable runnable) {
+        requireNonNull(runnable);
+        long startTime = System.nanoTime();
+        try {
+            runnable.run();
+        } finally {
+            summary.record(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Returns the durations at the {@link PercentileSummary#PERCENTILES default percentiles}, for all recorded events.
+     *
+     * @return a non-null instance
+     */
+    public Duration[] getPercentiles() {
+        long[] values = summary.getSnapshot().getPercentiles();
+        Duration[] durations = new Duration[values.length];
+        for (int index = 0; index < values.length; index++) {
+            durations[index] = Duration.ofNanos(values[index]);
+        }
+        return durations;
+    }
+
+    private static String getKey(String group, String name) {
+        return group + "|" + name;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", LatencyTimer.class.getSimpleName() + "[", "]")
+                .add("group='" + group + "'")
+                .add("name='" + name + "'")
+                .add("summary=" + summary)
+                .toString();
+    }
+}
@@ -5,10 +5,14 @@ import net.microfalx.bootstrap.core.utils.ApplicationContextSupport;
 import net.microfalx.bootstrap.resource.ResourceService;
 import net.microfalx.jvm.ServerMetrics;
 import net.microfalx.jvm.VirtualMachineMetrics;
+import net.microfalx.bootstrap.metrics.util.PercentileSummary;
 import net.microfalx.lang.ClassUtils;
+import net.microfalx.metrics.Metric;
 import net.microfalx.metrics.Query;
 import net.microfalx.metrics.Repository;
 import net.microfalx.metrics.Result;
+import net.microfalx.metrics.SeriesStore;
+import net.microfalx.metrics.Value;
 import net.microfalx.threadpool.ThreadPool;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +20,7 @@ import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.Collection;
 import java.util.concurrent.CopyOnWriteArrayList;
 
@@ -27,6 +32,9 @@ import static net.microfalx.lang.ArgumentUtils.requireNonNull;
 @Order(Ordered.HIGHEST_PRECEDENCE)
 public class MetricsService extends ApplicationContextSupport implements InitializingBean {
 
+    private static final Duration LATENCY_INTERVAL = Duration.ofSeconds(60);
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
     private final Collection<Repository> repositories = new CopyOnWriteArrayList<>();
 
     // Do not remove, tt is wired because resource service setups the JVM paths
@@ -41,6 +49,38 @@ public class MetricsService extends ApplicationContextSupport implements Initial
         return unmodifiableCollection(repositories);
     }
 
+    /**
+     * Returns registered latency timers.
+     *
+     * @return a non-null instance
+     */
+    public Collection<LatencyTimer> getLatencies() {
+        return LatencyTimer.getAll();
+    }
+
+    /**
+     * Returns (and registers if missing) a latency timer.
+     *
+     * @param group the group of the timer
+     * @param name  the name of the timer
+     * @return a non-null instance
+     */
+    public LatencyTimer getLatency(String group, String name) {
+        return LatencyTimer.get(group, name);
+    }
+
+    /**
+     * Returns the metric which holds a percentile of a latency timer.
+     *
+     * @param timer      the timer
+     * @param percentile the index of the percentile in {@link PercentileSummary#PERCENTILES}
+     * @return a non-null instance
+     */
+    public static Metric getLatencyMetric(LatencyTimer timer, int percentile) {
+        requireNonNull(timer);
+        return Metric.create("latency." + timer.getGroup() + "." + timer.getName() + "." + PERCENTILE_NAMES[percentile]);
+    }
+
     /**
      * Executes a query with a repository and returns the results.
      * <p>
@@ -96,5 +136,32 @@ public class MetricsService extends ApplicationContextSupport implements Initial
         } catch (Exception e) {
             LOGGER.error("Failed to start server metrics", e);
         }
+        threadPool.scheduleAtFixedRate(new PersistLatenciesTask(), LATENCY_INTERVAL);
+    }
+
+    /**
+     * Persists the percentiles (in milliseconds) of the events recorded since the previous call.
+     *
+     * @param store     the store
+     * @param timers    the timers
+     * @param timestamp the timestamp of the values
+     */
+    static void persistLatencies(SeriesStore store, Collection<LatencyTimer> timers, long timestamp) {
+        for (LatencyTimer timer : timers) {
+            PercentileSummary.Snapshot snapshot = timer.getSummary().getIntervalSnapshot();
+            if (snapshot.getN() == 0) continue;
+            long[] percentiles = snapshot.getPercentiles();
+            for (int index = 0; index < percentiles.length; index++) {
+                store.add(getLatencyMetric(timer, index), Value.create(timestamp, percentiles[index] / 1_000_000d));
+            }
+        }
+    }
+
+    private static class PersistLatenciesTask implements Runnable {
+
+        @Override
+        public void run() {
+            persistLatencies(VirtualMachineMetrics.get().getStore(), LatencyTimer.getAll(), System.currentTimeMillis());
+        }
     }
 }
@@ -0,0 +1,272 @@
+package net.microfalx.bootstrap.metrics.util;
+
+import org.apache.commons.math3.stat.descriptive.StatisticalSummary;
+
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * A summary which tracks the distribution of recorded values, to extract percentiles.
+ * <p>
+ * Values are counted in logarithmic buckets (similar to DDSketch), so any percentile is reported with a bounded
+ * relative error (1% by default) while the memory used is fixed, regardless of how many values are recorded.
+ * Recording is lock-free and can be called from any number of threads.
+ * <p>
+ * Snapshots are immutable and can be merged, which allows aggregating summaries across intervals or instances.
+ */
+public final class PercentileSummary {
+
+    /**
+     * The percentiles reported by default.
+     */
+    public static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+
+    private final double gamma;
+    private final double logGamma;
+    private final AtomicLongArray counts;
+    private final LongAdder zeroCount = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    private Snapshot lastSnapshot;
+
+    public PercentileSummary() {
+        this(DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    public PercentileSummary(double relativeAccuracy) {
+        if (relativeAccuracy < 0.0001 || relativeAccuracy > 0.1) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0.0001 and 0.1, received " + relativeAccuracy);
+        }
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.counts = new AtomicLongArray(getIndex(Long.MAX_VALUE) + 1);
+        this.lastSnapshot = new Snapshot(gamma, new long[counts.length()], 0, 0, 0, 0);
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param value the value, values lower than 1 are counted as 0
+     */
+    public void record(long value) {
+        if (value < 1) {
+            zeroCount.increment();
+            value = 0;
+        } else {
+            counts.incrementAndGet(getIndex(value));
+        }
+        sum.add(value);
+        min.accumulate(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Returns a snapshot with all the values recorded so far.
+     *
+     * @return a non-null instance
+     */
+    public Snapshot getSnapshot() {
+        long[] currentCounts = new long[counts.length()];
+        for (int index = 0; index < currentCounts.length; index++) {
+            currentCounts[index] = counts.get(index);
+        }
+        long currentMin = min.get();
+        long currentMax = max.get();
+        return new Snapshot(gamma, currentCounts, zeroCount.sum(), sum.sum(),
+                currentMin == Long.MAX_VALUE ? 0 : currentMin, currentMax == Long.MIN_VALUE ? 0 : currentMax);
+    }
+
+    /**
+     * Returns a snapshot with the values recorded since the previous call of this method.
+     * <p>
+     * The minimum and maximum of an interval are derived from the buckets, so they carry the same relative error
+     * as the percentiles.
+     *
+     * @return a non-null instance
+     */
+    public synchronized Snapshot getIntervalSnapshot() {
+        Snapshot snapshot = getSnapshot();
+        long[] intervalCounts = new long[snapshot.counts.length];
+        for (int index = 0; index < intervalCounts.length; index++) {
+            intervalCounts[index] = snapshot.counts[index] - lastSnapshot.counts[index];
+        }
+        Snapshot intervalSnapshot = new Snapshot(gamma, intervalCounts, snapshot.zeroCount - lastSnapshot.zeroCount,
+                snapshot.sum - lastSnapshot.sum, -1, -1);
+        lastSnapshot = snapshot;
+        return intervalSnapshot;
+    }
+
+    private int getIndex(long value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", PercentileSummary.class.getSimpleName() + "[", "]")
+                .add("gamma=" + gamma)
+                .add("snapshot=" + getSnapshot())
+                .toString();
+    }
+
+    /**
+     * An immutable view of the distribution of values.
+     */
+    public static final class Snapshot implements StatisticalSummary {
+
+        private final double gamma;
+        private final long[] counts;
+        private final long zeroCount;
+        private final long n;
+        private final long sum;
+        private final long min;
+        private final long max;
+
+        private Snapshot(double gamma, long[] counts, long zeroCount, long sum, long min, long max) {
+            this.gamma = gamma;
+            this.counts = counts;
+            this.zeroCount = zeroCount;
+            this.sum = sum;
+            long n = zeroCount;
+            int first = -1;
+            int last = -1;
+            for (int index = 0; index < counts.length; index++) {
+                if (counts[index] == 0) continue;
+                n += counts[index];
+                if (first < 0) first = index;
+                last = index;
+            }
+            this.n = n;
+            if (min >= 0) {
+                this.min = min;
+                this.max = max;
+            } else {
+                this.min = zeroCount > 0 || first < 0 ? 0 : getValue(first);
+                this.max = last < 0 ? 0 : getValue(last);
+            }
+        }
+
+        /**
+         * Returns the value at a given percentile.
+         *
+         * @param percentile the percentile, between 0 and 100
+         * @return the value, 0 if there are no values
+         */
+        public long getPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100, received " + percentile);
+            }
+            if (n == 0) return 0;
+            long rank = (long) Math.floor(percentile / 100 * (n - 1));
+            long count = zeroCount;
+            if (count > rank) return 0;
+            for (int index = 0; index < counts.length; index++) {
+                count += counts[index];
+                if (count > rank) return Math.max(min, Math.min(max, getValue(index)));
+            }
+            return max;
+        }
+
+        /**
+         * Returns the values at the {@link #PERCENTILES default percentiles}.
+         *
+         * @return a non-null instance
+         */
+        public long[] getPercentiles() {
+            long[] values = new long[PERCENTILES.length];
+            for (int index = 0; index < PERCENTILES.length; index++) {
+                values[index] = getPercentile(PERCENTILES[index]);
+            }
+            return values;
+        }
+
+        /**
+         * Merges this snapshot with another snapshot.
+         *
+         * @param snapshot the other snapshot, recorded with the same accuracy
+         * @return a new instance
+         */
+        public Snapshot merge(Snapshot snapshot) {
+            requireNonNull(snapshot);
+            if (Double.compare(gamma, snapshot.gamma) != 0) {
+                throw new IllegalArgumentException("Snapshots with different accuracy cannot be merged");
+            }
+            long[] mergedCounts = new long[counts.length];
+            for (int index = 0; index < mergedCounts.length; index++) {
+                mergedCounts[index] = counts[index] + snapshot.counts[index];
+            }
+            long mergedMin = n == 0 ? snapshot.min : (snapshot.n == 0 ? min : Math.min(min, snapshot.min));
+            return new Snapshot(gamma, mergedCounts, zeroCount + snapshot.zeroCount, sum + snapshot.sum,
+                    mergedMin, Math.max(max, snapshot.max));
+        }
+
+        @Override
+        public double getMean() {
+            return n == 0 ? 0 : (double) sum / n;
+        }
+
+        /**
+         * Returns the variance, estimated from the buckets.
+         *
+         * @return a positive number
+         */
+        @Override
+        public double getVariance() {
+            if (n < 2) return 0;
+            double mean = getMean();
+            double squares = zeroCount * mean * mean;
+            for (int index = 0; index < counts.length; index++) {
+                if (counts[index] == 0) continue;
+                double delta = getValue(index) - mean;
+                squares += counts[index] * delta * delta;
+            }
+            return squares / (n - 1);
+        }
+
+        @Override
+        public double getStandardDeviation() {
+            return Math.sqrt(getVariance());
+        }
+
+        @Override
+        public double getMax() {
+            return max;
+        }
+
+        @Override
+        public double getMin() {
+            return min;
+        }
+
+        @Override
+        public long getN() {
+            return n;
+        }
+
+        @Override
+        public double getSum() {
+            return sum;
+        }
+
+        private long getValue(int index) {
+            return Math.round(2 * Math.pow(gamma, index) / (gamma + 1));
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Snapshot.class.getSimpleName() + "[", "]")
+                    .add("n=" + n)
+                    .add("sum=" + sum)
+                    .add("min=" + min)
+                    .add("max=" + max)
+                    .toString();
+        }
+    }
+}
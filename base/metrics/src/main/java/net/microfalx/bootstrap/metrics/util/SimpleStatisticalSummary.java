@@ -89,7 +89,7 @@ public class SimpleStatisticalSummary implements StatisticalSummary {
      * @param value the value
      */
     public void add(double value) {
-        this.sum = value;
+        this.sum += value;
         this.n++;
         this.min = Math.min(this.min, value);
         this.max = Math.max(this.max, value);
@@ -0,0 +1,81 @@
+package net.microfalx.bootstrap.metrics;
+
+import net.microfalx.metrics.Metric;
+import net.microfalx.metrics.Metrics;
+import net.microfalx.metrics.SeriesStore;
+import net.microfalx.metrics.Value;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class LatencyTimerTest {
+
+    private static final Metrics METRICS = Metrics.of("Test").withGroup("Latency");
+
+    @Test
+    void recordThroughMetrics() {
+        recordSleeps("Sleep");
+        net.microfalx.metrics.Timer timer = METRICS.getTimer("Sleep");
+        assertEquals(100, timer.getCount());
+        LatencyTimer latencyTimer = LatencyTimer.find(timer.getGroup(), timer.getName()).orElseThrow();
+        assertSame(latencyTimer, LatencyTimer.get(timer));
+        assertEquals(100, latencyTimer.getSummary().getSnapshot().getN());
+        Duration[] percentiles = latencyTimer.getPercentiles();
+        assertTrue(percentiles[0].compareTo(Duration.ofMillis(1)) >= 0);
+        assertTrue(percentiles[0].compareTo(Duration.ofMillis(40)) < 0);
+        assertTrue(percentiles[2].compareTo(Duration.ofMillis(49)) >= 0);
+    }
+
+    @Test
+    void recordFailures() {
+        assertThrows(IllegalStateException.class, () -> LatencyTimer.time(METRICS, "Failure", () -> {
+            throw new IllegalStateException("Broken");
+        }));
+        net.microfalx.metrics.Timer timer = METRICS.getTimer("Failure");
+        assertEquals(1, timer.getCount());
+        assertEquals(1, LatencyTimer.get(timer).getSummary().getSnapshot().getN());
+    }
+
+    @Test
+    void persist() {
+        recordSleeps("Persist");
+        LatencyTimer latencyTimer = LatencyTimer.get(METRICS.getTimer("Persist"));
+        SeriesStore store = mock(SeriesStore.class);
+        MetricsService.persistLatencies(store, List.of(latencyTimer), System.currentTimeMillis());
+        ArgumentCaptor<Value> values = ArgumentCaptor.forClass(Value.class);
+        verify(store, times(4)).add(any(Metric.class), values.capture());
+        float p50 = values.getAllValues().get(0).asFloat();
+        float p99 = values.getAllValues().get(2).asFloat();
+        assertTrue(p50 >= 1 && p50 < 40);
+        assertTrue(p99 >= 49);
+
+        // only the events recorded since the previous interval are persisted
+        clearInvocations(store);
+        MetricsService.persistLatencies(store, List.of(latencyTimer), System.currentTimeMillis());
+        verify(store, never()).add(any(Metric.class), any(Value.class));
+    }
+
+    private void recordSleeps(String name) {
+        for (int i = 0; i < 100; i++) {
+            long millis = i % 33 == 0 ? 50 : 1;
+            LatencyTimer.time(METRICS, name, () -> {
+                sleep(millis);
+                return null;
+            });
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
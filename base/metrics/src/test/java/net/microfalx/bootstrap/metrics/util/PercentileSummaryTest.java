@@ -0,0 +1,109 @@
+package net.microfalx.bootstrap.metrics.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PercentileSummaryTest {
+
+    @Test
+    void empty() {
+        PercentileSummary.Snapshot snapshot = new PercentileSummary().getSnapshot();
+        assertEquals(0, snapshot.getN());
+        assertEquals(0, snapshot.getPercentile(99));
+        assertEquals(0, snapshot.getMean());
+    }
+
+    @Test
+    void percentiles() {
+        PercentileSummary summary = new PercentileSummary();
+        for (int value = 1; value <= 100_000; value++) {
+            summary.record(value);
+        }
+        PercentileSummary.Snapshot snapshot = summary.getSnapshot();
+        assertEquals(100_000, snapshot.getN());
+        assertEquals(1, snapshot.getMin());
+        assertEquals(100_000, snapshot.getMax());
+        assertEquals(50_000.5, snapshot.getMean(), 0.001);
+        assertWithinAccuracy(50_000, snapshot.getPercentile(50));
+        assertWithinAccuracy(90_000, snapshot.getPercentile(90));
+        assertWithinAccuracy(99_000, snapshot.getPercentile(99));
+        assertWithinAccuracy(99_900, snapshot.getPercentile(99.9));
+        assertEquals(4, snapshot.getPercentiles().length);
+    }
+
+    @Test
+    void zeroAndNegative() {
+        PercentileSummary summary = new PercentileSummary();
+        summary.record(0);
+        summary.record(-5);
+        summary.record(10);
+        PercentileSummary.Snapshot snapshot = summary.getSnapshot();
+        assertEquals(3, snapshot.getN());
+        assertEquals(0, snapshot.getPercentile(50));
+        assertWithinAccuracy(10, snapshot.getPercentile(100));
+    }
+
+    @Test
+    void intervals() {
+        PercentileSummary summary = new PercentileSummary();
+        for (int i = 0; i < 1000; i++) summary.record(100);
+        PercentileSummary.Snapshot first = summary.getIntervalSnapshot();
+        assertEquals(1000, first.getN());
+        assertWithinAccuracy(100, first.getPercentile(99));
+
+        for (int i = 0; i < 500; i++) summary.record(10_000);
+        PercentileSummary.Snapshot second = summary.getIntervalSnapshot();
+        assertEquals(500, second.getN());
+        assertWithinAccuracy(10_000, second.getPercentile(50));
+        assertWithinAccuracy(10_000, second.getMin());
+
+        assertEquals(0, summary.getIntervalSnapshot().getN());
+        assertEquals(1500, summary.getSnapshot().getN());
+    }
+
+    @Test
+    void merge() {
+        PercentileSummary summary1 = new PercentileSummary();
+        PercentileSummary summary2 = new PercentileSummary();
+        for (int value = 1; value <= 1000; value++) {
+            summary1.record(value);
+            summary2.record(value + 1000);
+        }
+        PercentileSummary.Snapshot merged = summary1.getSnapshot().merge(summary2.getSnapshot());
+        assertEquals(2000, merged.getN());
+        assertEquals(1, merged.getMin());
+        assertEquals(2000, merged.getMax());
+        assertWithinAccuracy(1000, merged.getPercentile(50));
+        assertWithinAccuracy(1980, merged.getPercentile(99));
+
+        PercentileSummary.Snapshot other = new PercentileSummary(0.05).getSnapshot();
+        assertThrows(IllegalArgumentException.class, () -> merged.merge(other));
+    }
+
+    @Test
+    void concurrent() throws InterruptedException {
+        PercentileSummary summary = new PercentileSummary();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    summary.record(ThreadLocalRandom.current().nextLong(1, 1_000_000));
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        PercentileSummary.Snapshot snapshot = summary.getSnapshot();
+        assertEquals(40_000, snapshot.getN());
+        assertTrue(snapshot.getPercentile(50) > 400_000 && snapshot.getPercentile(50) < 600_000);
+    }
+
+    private static void assertWithinAccuracy(double expected, double actual) {
+        assertEquals(expected, actual, expected * 0.011 + 1, "Expected " + expected + ", actual " + actual);
+    }
+}
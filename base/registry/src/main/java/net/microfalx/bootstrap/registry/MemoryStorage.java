@@ -4,12 +4,10 @@ import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
-import java.util.Collection;
-import java.util.Map;
-import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
 
+import static net.microfalx.bootstrap.registry.RegistryUtils.getDepth;
 import static net.microfalx.bootstrap.registry.RegistryUtils.normalizePath;
 import static net.microfalx.lang.UriUtils.SLASH;
 
@@ -17,15 +15,48 @@ import static net.microfalx.lang.UriUtils.SLASH;
 @Component
 public class MemoryStorage extends AbstractStorage {
 
-    private final Map<String, NodeImpl> nodes = new ConcurrentHashMap<>();
+    /**
+     * The nodes, sorted by path, so the descendants of a node are always a contiguous range of keys.
+     */
+    private final NavigableMap<String, NodeImpl> nodes = new ConcurrentSkipListMap<>();
+
+    @Override
+    public boolean isBinary() {
+        return true;
+    }
 
     @Override
     public Collection<Node> getChildren(String path, boolean recursive) {
         String normalizedPath = normalizePath(path);
-        return nodes.keySet().stream()
-                .filter(nodePath -> isChild(normalizedPath, nodePath, recursive))
-                .map(nodes::get)
-                .collect(Collectors.toList());
+        if (recursive) return new ArrayList<>(getDescendants(normalizedPath).values());
+        String prefix = getDescendantsPrefix(normalizedPath);
+        List<Node> children = new ArrayList<>();
+        Map.Entry<String, NodeImpl> entry = nodes.higherEntry(prefix);
+        while (entry != null && entry.getKey().startsWith(prefix)) {
+            String nodePath = entry.getKey();
+            int index = nodePath.indexOf(SLASH, prefix.length());
+            if (index < 0) {
+                children.add(entry.getValue());
+                entry = nodes.higherEntry(nodePath);
+            } else {
+                // a descendant of a child, skip the whole range of the child (the child node might not exist)
+                entry = nodes.ceilingEntry(getRangeEnd(nodePath.substring(0, index + 1)));
+            }
+        }
+        return children;
+    }
+
+    @Override
+    public Collection<Node> getSubtree(String path, int depth) {
+        String normalizedPath = normalizePath(path);
+        List<Node> subtree = new ArrayList<>();
+        NodeImpl node = nodes.get(normalizedPath);
+        if (node != null) subtree.add(node);
+        if (depth <= 0) return subtree;
+        for (NodeImpl descendant : getDescendants(normalizedPath).values()) {
+            if (getDepth(normalizedPath, descendant.getPath()) <= depth) subtree.add(descendant);
+        }
+        return subtree;
     }
 
     @Override
@@ -44,7 +75,8 @@ public class MemoryStorage extends AbstractStorage {
     @Override
     public byte[] get(String path) {
         String normalizedPath = normalizePath(path);
-        return nodes.getOrDefault(normalizedPath, null).data;
+        NodeImpl node = nodes.get(normalizedPath);
+        return node != null ? node.data : null;
     }
 
     @Override
@@ -62,6 +94,8 @@ public class MemoryStorage extends AbstractStorage {
             newNode.setVersion(1);
             return newNode;
         });
+        // the data changes before the version, a node with a new version never holds old data
+        node.data = data;
         node.setExists(true);
         node.setUpdatedAt(now);
         node.setUpdateCount(node.getUpdateCount() + 1);
@@ -71,7 +105,6 @@ public class MemoryStorage extends AbstractStorage {
             node.setVersion(node.getVersion() + 1);
         }
         node.setLeaf(true);
-        node.data = data;
     }
 
     @Override
@@ -80,15 +113,19 @@ public class MemoryStorage extends AbstractStorage {
         nodes.remove(normalizedPath);
     }
 
-    private boolean isChild(String parentPath, String childPath, boolean recursive) {
-        if (childPath.equals(parentPath)) return false;
-        if (!childPath.startsWith(parentPath)) return false;
-        String relativePath = childPath.substring(parentPath.length());
-        if (relativePath.startsWith(SLASH)) relativePath = relativePath.substring(1);
-        if (recursive) {
-            return !relativePath.isEmpty();
-        } else {
-            return !relativePath.isEmpty() && !relativePath.contains(SLASH);
-        }
+    private NavigableMap<String, NodeImpl> getDescendants(String path) {
+        String prefix = getDescendantsPrefix(path);
+        return nodes.subMap(prefix, false, getRangeEnd(prefix), false);
+    }
+
+    private static String getDescendantsPrefix(String path) {
+        return path.endsWith(SLASH) ? path : path + SLASH;
+    }
+
+    /**
+     * Returns the first key after all the keys starting with the given prefix (which ends with a slash).
+     */
+    private static String getRangeEnd(String prefix) {
+        return prefix.substring(0, prefix.length() - 1) + (char) ('/' + 1);
     }
 }
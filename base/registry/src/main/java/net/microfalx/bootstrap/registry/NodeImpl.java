@@ -31,7 +31,7 @@ final class NodeImpl implements Node {
 
     @Getter(AccessLevel.NONE)
     @Setter(AccessLevel.NONE)
-    byte[] data;
+    volatile byte[] data;
 
     NodeImpl(Node node) {
         requireNonNull(node);
@@ -89,6 +89,13 @@ public interface Registry {
      */
     void set(Data data);
 
+    /**
+     * Registers a listener which is notified when data changes through this registry.
+     *
+     * @param listener a non-null instance
+     */
+    void addListener(RegistryListener listener);
+
     /**
      * Returns the storage used by this registry.
      *
@@ -0,0 +1,78 @@
+package net.microfalx.bootstrap.registry;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileConstants;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import net.microfalx.bootstrap.core.utils.Json;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Encodes and decodes the attributes of registry nodes.
+ * <p>
+ * Attributes are encoded with Smile (binary JSON) when the storage can hold binary payloads, JSON otherwise.
+ * The encoding is detected for each node when decoded (Smile payloads start with a header), so nodes written as
+ * JSON before the binary encoding was available remain readable.
+ */
+final class RegistryCodec {
+
+    private static volatile ObjectMapper smileObjectMapper;
+
+    private RegistryCodec() {
+    }
+
+    /**
+     * Encodes the attributes of a node.
+     *
+     * @param attributes the attributes
+     * @param binary     {@code true} to encode with Smile, {@code false} to encode with JSON
+     * @return a non-null instance
+     */
+    static byte[] encode(Map<String, Object> attributes, boolean binary) {
+        requireNonNull(attributes);
+        if (!binary) return Json.asBytes(attributes);
+        try {
+            return getSmileObjectMapper().writeValueAsBytes(attributes);
+        } catch (IOException e) {
+            throw new RegistryException("Failed to encode attributes", e);
+        }
+    }
+
+    /**
+     * Decodes the attributes of a node.
+     *
+     * @param data the encoded attributes, JSON or Smile
+     * @return a non-null instance
+     * @throws IOException if the attributes cannot be decoded
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> decode(byte[] data) throws IOException {
+        if (isBinary(data)) {
+            return getSmileObjectMapper().readValue(data, Map.class);
+        } else {
+            return Json.asMap(data);
+        }
+    }
+
+    /**
+     * Returns whether the data was encoded with Smile.
+     *
+     * @param data the encoded attributes
+     * @return {@code true} if binary, {@code false} otherwise
+     */
+    static boolean isBinary(byte[] data) {
+        return data != null && data.length >= 3 && data[0] == SmileConstants.HEADER_BYTE_1
+                && data[1] == SmileConstants.HEADER_BYTE_2 && data[2] == SmileConstants.HEADER_BYTE_3;
+    }
+
+    private static ObjectMapper getSmileObjectMapper() {
+        if (smileObjectMapper == null) {
+            // same modules and settings as the JSON object mapper, only the format changes
+            smileObjectMapper = Json.getObjectMapper().copyWith(new SmileFactory());
+        }
+        return smileObjectMapper;
+    }
+}
@@ -1,23 +1,31 @@
 package net.microfalx.bootstrap.registry;
 
-import net.microfalx.bootstrap.core.utils.Json;
+import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
-import java.util.Collection;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static net.microfalx.bootstrap.registry.RegistryUtils.getParent;
 import static net.microfalx.bootstrap.registry.RegistryUtils.normalizePath;
 import static net.microfalx.lang.ArgumentUtils.requireNonNull;
 import static net.microfalx.lang.ArgumentUtils.requireNotEmpty;
 
+@Slf4j
 final class RegistryImpl implements Registry {
 
+    private static final int MAXIMUM_CACHED_DATA = 10_000;
+
     private final RegistryService registryService;
     private final Storage storage;
+    private final Collection<RegistryListener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, CachedData> cachedData = new ConcurrentHashMap<>();
+    private final AtomicLong cacheGeneration = new AtomicLong();
 
     RegistryImpl(RegistryService registryService) {
         requireNonNull(registryService);
@@ -35,8 +43,17 @@ final class RegistryImpl implements Registry {
     public boolean walk(String path, int depth, BiFunction<String, Node, Boolean> visitor) {
         requireNotEmpty(path);
         requireNonNull(visitor);
-        Storage storage = getStorage();
-        return walkInternal(path, depth, visitor, storage);
+        path = normalizePath(path);
+        Node root = null;
+        Map<String, List<Node>> children = new HashMap<>();
+        for (Node node : getStorage().getSubtree(path, Math.max(0, depth))) {
+            if (node.getPath().equals(path)) {
+                root = node;
+            } else {
+                children.computeIfAbsent(getParent(node.getPath()), parent -> new ArrayList<>()).add(node);
+            }
+        }
+        return root == null || walkInternal(root, depth, visitor, children);
     }
 
     @Override
@@ -95,29 +112,54 @@ final class RegistryImpl implements Registry {
         requireNonNull(data);
         String path = normalizePath(data.getNode().getPath());
         Storage storage = getStorage();
-        byte[] json = Json.asBytes(((DataImpl) data).attributes);
-        storage.put(path, json);
+        byte[] encodedData = RegistryCodec.encode(((DataImpl) data).attributes, storage.isBinary());
+        storage.put(path, encodedData);
+        cachedData.remove(path);
+        cacheGeneration.incrementAndGet();
+        fireChanged(path);
     }
 
-    private boolean walkInternal(String path, int depth, BiFunction<String, Node, Boolean> visitor, Storage storage) {
-        Optional<Node> node = storage.getNode(path);
-        if (node.isEmpty()) return true;
-        Boolean continueWalking = visitor.apply(path, node.get());
+    @Override
+    public void addListener(RegistryListener listener) {
+        requireNonNull(listener);
+        listeners.add(listener);
+    }
+
+    private void fireChanged(String path) {
+        for (RegistryListener listener : listeners) {
+            try {
+                listener.onChanged(path);
+            } catch (Exception e) {
+                LOGGER.atError().setCause(e).log("Failed to notify listener about changes in '{}'", path);
+            }
+        }
+    }
+
+    private boolean walkInternal(Node node, int depth, BiFunction<String, Node, Boolean> visitor,
+                                 Map<String, List<Node>> children) {
+        Boolean continueWalking = visitor.apply(node.getPath(), node);
         if (!Boolean.TRUE.equals(continueWalking)) return false;
         if (depth <= 0) return true;
-        Collection<Node> children = storage.getChildren(path, false);
-        for (Node child : children) {
-            if (!walkInternal(child.getPath(), depth - 1, visitor, storage)) return false;
+        for (Node child : children.getOrDefault(node.getPath(), List.of())) {
+            if (!walkInternal(child, depth - 1, visitor, children)) return false;
         }
         return true;
     }
 
     private Data toData(Node node) {
         NodeImpl nodeImpl = new NodeImpl(node);
+        CachedData cached = cachedData.get(node.getPath());
+        if (cached != null && cached.isCurrent(node)) return new DataImpl(nodeImpl, cached.attributes);
+        long generation = cacheGeneration.get();
         Storage storage = getStorage();
         byte[] dataBytes = storage.get(node.getPath());
         try {
-            Map<String, Object> attributes = Json.asMap(dataBytes);
+            Map<String, Object> attributes = RegistryCodec.decode(dataBytes);
+            // a local write while loading might have changed the node after it was looked up, do not cache
+            if (generation == cacheGeneration.get()) {
+                if (cachedData.size() >= MAXIMUM_CACHED_DATA) cachedData.clear();
+                cachedData.put(node.getPath(), new CachedData(node, attributes));
+            }
             return new DataImpl(nodeImpl, attributes);
         } catch (IOException e) {
             throw new RegistryException("Failed to deserialize data for node '" + node.getPath() + "'", e);
@@ -128,4 +170,23 @@ final class RegistryImpl implements Registry {
         return storage != null ? storage : registryService.getStorage();
     }
 
+    /**
+     * Holds the decoded attributes of a node, valid as long as the node is not updated.
+     */
+    private static class CachedData {
+
+        private final int version;
+        private final int updateCount;
+        private final Map<String, Object> attributes;
+
+        private CachedData(Node node, Map<String, Object> attributes) {
+            this.version = node.getVersion();
+            this.updateCount = node.getUpdateCount();
+            this.attributes = attributes;
+        }
+
+        private boolean isCurrent(Node node) {
+            return version == node.getVersion() && updateCount == node.getUpdateCount();
+        }
+    }
 }
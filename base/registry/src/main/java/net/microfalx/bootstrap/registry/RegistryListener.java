@@ -0,0 +1,15 @@
+package net.microfalx.bootstrap.registry;
+
+/**
+ * A listener which is notified when data changes in the registry.
+ */
+@FunctionalInterface
+public interface RegistryListener {
+
+    /**
+     * Invoked after the data of a node was changed.
+     *
+     * @param path the (normalized) path of the node
+     */
+    void onChanged(String path);
+}
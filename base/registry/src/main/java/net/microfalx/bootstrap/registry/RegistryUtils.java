@@ -43,6 +43,24 @@ public class RegistryUtils {
         return SLASH + String.join(SLASH, parts);
     }
 
+    /**
+     * Returns the depth of a path relative to one of its ancestors.
+     *
+     * @param ancestorPath the (normalized) path of the ancestor
+     * @param path         the (normalized) path
+     * @return 0 for the ancestor itself, 1 for its children and so on, -1 if the path is not under the ancestor
+     */
+    public static int getDepth(String ancestorPath, String path) {
+        if (path.equals(ancestorPath)) return 0;
+        String prefix = ancestorPath.endsWith(SLASH) ? ancestorPath : ancestorPath + SLASH;
+        if (!path.startsWith(prefix) || path.length() == prefix.length()) return -1;
+        int depth = 1;
+        for (int index = prefix.length(); index < path.length(); index++) {
+            if (path.charAt(index) == '/') depth++;
+        }
+        return depth;
+    }
+
     /**
      * Returns the natural identifier for a path.
      * <p>
@@ -1,8 +1,13 @@
 package net.microfalx.bootstrap.registry;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
+import static net.microfalx.bootstrap.registry.RegistryUtils.getDepth;
+import static net.microfalx.bootstrap.registry.RegistryUtils.normalizePath;
+
 /**
  * An interface representing the storage used by {@link Registry} to store data.
  */
@@ -26,6 +31,17 @@ public interface Storage {
         return true;
     }
 
+    /**
+     * Returns whether the storage can hold binary data.
+     * <p>
+     * When supported, the registry encodes data in a compact binary format instead of JSON.
+     *
+     * @return {@code true} if binary data is supported, {@code false} otherwise
+     */
+    default boolean isBinary() {
+        return false;
+    }
+
     /**
      * Returns the children of a given path.
      *
@@ -35,6 +51,27 @@ public interface Storage {
      */
     Collection<Node> getChildren(String path, boolean recursive);
 
+    /**
+     * Returns the node at a given path and its descendants, up to a given depth.
+     * <p>
+     * Storages should load the subtree with as few round trips as possible, since this is used to walk the registry.
+     * The default implementation loads the children recursively and filters them by depth.
+     *
+     * @param path  the path
+     * @param depth the maximum depth, relative to the path (0 returns only the node, 1 includes the children, etc)
+     * @return a non-null instance
+     */
+    default Collection<Node> getSubtree(String path, int depth) {
+        String normalizedPath = normalizePath(path);
+        Collection<Node> nodes = new ArrayList<>();
+        getNode(normalizedPath).ifPresent(nodes::add);
+        if (depth <= 0) return nodes;
+        for (Node child : getChildren(normalizedPath, true)) {
+            if (getDepth(normalizedPath, child.getPath()) <= depth) nodes.add(child);
+        }
+        return nodes;
+    }
+
     /**
      * Loads a node by a given path
      *
@@ -75,6 +112,19 @@ public interface Storage {
      */
     void put(String path, byte[] data, int version);
 
+    /**
+     * Changes the data in the registry for multiple paths.
+     * <p>
+     * Storages should apply the changes in bulk, the default implementation stores the data one path at a time.
+     *
+     * @param data the data, keyed by path
+     */
+    default void putAll(Map<String, byte[]> data) {
+        for (Map.Entry<String, byte[]> entry : data.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
     /**
      * Removes the data and the node under a given path.
      *
@@ -2,14 +2,19 @@ package net.microfalx.bootstrap.registry;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.Collection;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class MemoryStorageTest {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(MemoryStorageTest.class);
+
     private MemoryStorage storage;
 
     @BeforeEach
@@ -349,4 +354,82 @@ class MemoryStorageTest {
         assertTrue(children.size() >= 2);
     }
 
-}
\ No newline at end of file
+    // Tests for getSubtree() and putAll()
+
+    @Test
+    void getSubtreeIncludesNodeAndDescendants() {
+        storage.put("/a", "data".getBytes());
+        storage.put("/a/b", "data".getBytes());
+        storage.put("/a/b/c", "data".getBytes());
+        storage.put("/a/b/c/d", "data".getBytes());
+        storage.put("/ab", "data".getBytes());
+
+        List<Node> nodes = new ArrayList<>(storage.getSubtree("/a", 2));
+
+        assertEquals(3, nodes.size());
+        assertEquals("/a", nodes.get(0).getPath());
+        assertEquals("/a/b", nodes.get(1).getPath());
+        assertEquals("/a/b/c", nodes.get(2).getPath());
+    }
+
+    @Test
+    void getSubtreeEmpty() {
+        assertTrue(storage.getSubtree("/nonexistent", 5).isEmpty());
+    }
+
+    @Test
+    void putAllStoresData() {
+        Map<String, byte[]> data = new LinkedHashMap<>();
+        data.put("/Parent/Child1", "data1".getBytes());
+        data.put("/parent/child2", "data2".getBytes());
+        storage.putAll(data);
+
+        assertArrayEquals("data1".getBytes(), storage.get("/parent/child1"));
+        assertArrayEquals("data2".getBytes(), storage.get("/parent/child2"));
+        assertEquals(2, storage.getChildren("/parent", false).size());
+    }
+
+    @Test
+    void getChildrenSkipsNestedRanges() {
+        storage.put("/p/a/x/y", "data".getBytes());
+        storage.put("/p/a/z", "data".getBytes());
+        storage.put("/p/b", "data".getBytes());
+        storage.put("/p/b/c", "data".getBytes());
+        storage.put("/p/d", "data".getBytes());
+
+        List<String> paths = storage.getChildren("/p", false).stream().map(Node::getPath).toList();
+
+        assertEquals(List.of("/p/b", "/p/d"), paths);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "registry.benchmark", matches = "true")
+    void benchmark() {
+        Map<String, Node> scanNodes = new ConcurrentHashMap<>();
+        for (int parent = 0; parent < 100; parent++) {
+            for (int child = 0; child < 1000; child++) {
+                storage.put("/parent" + parent + "/child" + child, "data".getBytes());
+            }
+        }
+        for (Node node : storage.getChildren("/", true)) {
+            scanNodes.put(node.getPath(), node);
+        }
+        assertEquals(100_000, scanNodes.size());
+        int iterations = 200;
+        long count = 0;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            String parentPath = "/parent" + (i % 100);
+            count += scanNodes.keySet().stream().filter(path -> path.startsWith(parentPath + "/")).count();
+        }
+        long scanDuration = System.nanoTime() - startTime;
+        startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            count -= storage.getChildren("/parent" + (i % 100), false).size();
+        }
+        long rangeDuration = System.nanoTime() - startTime;
+        assertEquals(0, count);
+        LOGGER.info("Listed children in a registry with {} nodes, scan {}us, range {}us", scanNodes.size(),
+                scanDuration / iterations / 1000, rangeDuration / iterations / 1000);
+    }
+}
@@ -0,0 +1,39 @@
+package net.microfalx.bootstrap.registry;
+
+import net.microfalx.bootstrap.core.utils.Json;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegistryCodecTest {
+
+    private static final Map<String, Object> ATTRIBUTES = Map.of("key", "a.b", "count", 2, "enabled", true);
+
+    @Test
+    void encodeBinary() throws IOException {
+        byte[] data = RegistryCodec.encode(ATTRIBUTES, true);
+        assertTrue(RegistryCodec.isBinary(data));
+        assertEquals(ATTRIBUTES, RegistryCodec.decode(data));
+    }
+
+    @Test
+    void encodeJson() throws IOException {
+        byte[] data = RegistryCodec.encode(ATTRIBUTES, false);
+        assertFalse(RegistryCodec.isBinary(data));
+        assertEquals(ATTRIBUTES, RegistryCodec.decode(data));
+    }
+
+    @Test
+    void decodeExistingJson() throws IOException {
+        assertEquals(ATTRIBUTES, RegistryCodec.decode(Json.asBytes(ATTRIBUTES)));
+    }
+
+    @Test
+    void decodeEmpty() throws IOException {
+        assertTrue(RegistryCodec.decode(null).isEmpty());
+        assertTrue(RegistryCodec.decode(new byte[0]).isEmpty());
+    }
+}
@@ -114,4 +114,37 @@ class RegistryImplTest {
         assertTrue(visited[0]);
     }
 
-}
\ No newline at end of file
+    @Test
+    void setNotifiesListeners() {
+        List<String> paths = new java.util.ArrayList<>();
+        registry.addListener(paths::add);
+        Data data = Data.create("/notify/Child");
+        data.set("value");
+        registry.set(data);
+        assertEquals(List.of(RegistryUtils.normalizePath("/notify/Child")), paths);
+    }
+
+    @Test
+    void walkRespectsDepth() {
+        for (String path : List.of("/tree", "/tree/a", "/tree/a/b", "/tree/a/b/c", "/tree/d")) {
+            Data data = Data.create(path);
+            data.set(path);
+            registry.set(data);
+        }
+        List<String> paths = new java.util.ArrayList<>();
+        registry.walk("/tree", 2, (path, node) -> paths.add(path));
+        assertEquals(List.of("/tree", "/tree/a", "/tree/a/b", "/tree/d"), paths);
+    }
+
+    @Test
+    void getAfterUpdate() {
+        Data data = Data.create("/updated");
+        data.set("first");
+        registry.set(data);
+        assertEquals("first", registry.get("/updated").orElseThrow().get());
+        assertEquals("first", registry.get("/updated").orElseThrow().get());
+        data.set("second");
+        registry.set(data);
+        assertEquals("second", registry.get("/updated").orElseThrow().get());
+    }
+}
@@ -105,4 +105,13 @@ class RegistryUtilsTest {
         assertEquals("/user_profile/my_data", result);
     }
 
-}
\ No newline at end of file
+    @Test
+    void getDepth() {
+        assertEquals(0, RegistryUtils.getDepth("/a", "/a"));
+        assertEquals(1, RegistryUtils.getDepth("/a", "/a/b"));
+        assertEquals(2, RegistryUtils.getDepth("/a", "/a/b/c"));
+        assertEquals(2, RegistryUtils.getDepth("/", "/a/b"));
+        assertEquals(-1, RegistryUtils.getDepth("/a", "/ab"));
+        assertEquals(-1, RegistryUtils.getDepth("/a/b", "/a"));
+    }
+}
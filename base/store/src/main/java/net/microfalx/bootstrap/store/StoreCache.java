@@ -0,0 +1,267 @@
+package net.microfalx.bootstrap.store;
+
+import net.microfalx.lang.Identifiable;
+import net.microfalx.metrics.Metrics;
+import net.microfalx.threadpool.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.ArgumentUtils.requireNotEmpty;
+import static net.microfalx.lang.FormatterUtils.formatBytes;
+
+/**
+ * A persistent cache backed by a {@link Store}, bounded by size.
+ * <p>
+ * The cache keeps (in memory) only the size of each entry, in access order, and evicts the least recently used
+ * entries (from the store) once the cache exceeds its size. The index is rebuilt (in the background) from the store
+ * at startup, and the last access of each entry is persisted (at most once per hour) so the order survives restarts.
+ *
+ * @param <T> the type of the cached items
+ */
+public abstract class StoreCache<T extends Identifiable<String>> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StoreCache.class);
+
+    private static final long ACCESS_UPDATE_INTERVAL = TimeUnit.HOURS.toMillis(1);
+
+    private final String name;
+    private final Store<T, String> store;
+    private final long maximumSize;
+    private final Metrics metrics;
+
+    private final Map<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    protected StoreCache(String name, Store<T, String> store, long maximumSize, Metrics metrics) {
+        requireNotEmpty(name);
+        requireNonNull(store);
+        requireNonNull(metrics);
+        this.name = name;
+        this.store = store;
+        this.maximumSize = maximumSize;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the store holding the cached items.
+     *
+     * @return a non-null instance
+     */
+    public final Store<T, String> getStore() {
+        return store;
+    }
+
+    /**
+     * Loads the existing entries (in the background) to track the size of the cache.
+     */
+    public final void load() {
+        ThreadPool.get().execute(this::doLoad);
+    }
+
+    /**
+     * Returns the size of the cache.
+     *
+     * @return the size in bytes
+     */
+    public final long getSize() {
+        synchronized (entries) {
+            return size;
+        }
+    }
+
+    /**
+     * Returns the ratio of lookups which found a cached item since the application was started.
+     *
+     * @return a value between 0 and 1
+     */
+    public final double getHitRate() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Loads the existing entries, on the current thread.
+     */
+    public final void doLoad() {
+        long startTime = System.currentTimeMillis();
+        List<Entry> loadedEntries = new ArrayList<>(loadEntries());
+        loadedEntries.sort(Comparator.comparingLong(Entry::accessedAt));
+        synchronized (entries) {
+            // entries accessed since startup are the most recent ones, the loaded entries go in front of them
+            Map<String, Long> recentEntries = new LinkedHashMap<>(entries);
+            entries.clear();
+            size = 0;
+            for (Entry entry : loadedEntries) {
+                entries.put(entry.id(), entry.size());
+            }
+            entries.putAll(recentEntries);
+            for (Long entrySize : entries.values()) {
+                size += entrySize;
+            }
+        }
+        LOGGER.info("Loaded {} entries in cache '{}', size {}, in {}ms", loadedEntries.size(), name,
+                formatBytes(getSize()), System.currentTimeMillis() - startTime);
+        evict();
+    }
+
+    /**
+     * Returns a cached item.
+     *
+     * @param key the cache key
+     * @return the item, null if not cached
+     */
+    protected final T doGet(String key) {
+        requireNonNull(key);
+        T item = store.find(key);
+        if (item == null || !isValid(item)) {
+            missCount.incrementAndGet();
+            metrics.count("Miss");
+            if (item == null) untrack(key);
+            return null;
+        }
+        hitCount.incrementAndGet();
+        metrics.count("Hit");
+        track(item);
+        long now = System.currentTimeMillis();
+        if (now - getAccessedAt(item) > ACCESS_UPDATE_INTERVAL) {
+            setAccessedAt(item, now);
+            store.add(item);
+            onAdded(item);
+        }
+        return item;
+    }
+
+    /**
+     * Stores an item in the cache, evicting older entries if the cache exceeds its size.
+     *
+     * @param item the item
+     */
+    protected final void doPut(T item) {
+        requireNonNull(item);
+        if (getSize(item) > maximumSize) return;
+        store.add(item);
+        onAdded(item);
+        track(item);
+        evict();
+    }
+
+    /**
+     * Returns the size of an item, in bytes.
+     *
+     * @param item the item
+     * @return a positive integer
+     */
+    protected abstract long getSize(T item);
+
+    /**
+     * Returns the last time an item was accessed.
+     *
+     * @param item the item
+     * @return the timestamp (millis since epoch)
+     */
+    protected abstract long getAccessedAt(T item);
+
+    /**
+     * Changes the last time an item was accessed.
+     *
+     * @param item       the item
+     * @param accessedAt the timestamp (millis since epoch)
+     */
+    protected abstract void setAccessedAt(T item, long accessedAt);
+
+    /**
+     * Returns whether a stored item can be served from the cache.
+     *
+     * @param item the item
+     * @return {@code true} if valid, {@code false} to treat the lookup as a miss
+     */
+    protected boolean isValid(T item) {
+        return true;
+    }
+
+    /**
+     * Returns the entries of the cache, used to rebuild the index at startup.
+     * <p>
+     * By default, the entries are read from the store.
+     *
+     * @return a non-null instance
+     */
+    protected Collection<Entry> loadEntries() {
+        Collection<Entry> loadedEntries = new ArrayList<>();
+        for (T item : store) {
+            loadedEntries.add(new Entry(item.getId(), getSize(item), getAccessedAt(item)));
+        }
+        return loadedEntries;
+    }
+
+    /**
+     * Invoked after an item was stored.
+     *
+     * @param item the item
+     */
+    protected void onAdded(T item) {
+        // empty by default
+    }
+
+    /**
+     * Invoked after an item was removed from the cache.
+     *
+     * @param key the cache key
+     */
+    protected void onRemoved(String key) {
+        // empty by default
+    }
+
+    private void track(T item) {
+        long itemSize = getSize(item);
+        synchronized (entries) {
+            Long prevSize = entries.put(item.getId(), itemSize);
+            if (prevSize != null) size -= prevSize;
+            size += itemSize;
+        }
+    }
+
+    private void untrack(String key) {
+        Long entrySize;
+        synchronized (entries) {
+            entrySize = entries.remove(key);
+            if (entrySize != null) size -= entrySize;
+        }
+        if (entrySize != null) onRemoved(key);
+    }
+
+    private void evict() {
+        while (true) {
+            String key;
+            synchronized (entries) {
+                if (size <= maximumSize || entries.isEmpty()) return;
+                Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+                Map.Entry<String, Long> eldest = iterator.next();
+                key = eldest.getKey();
+                size -= eldest.getValue();
+                iterator.remove();
+            }
+            metrics.count("Evict");
+            store.remove(key);
+            onRemoved(key);
+        }
+    }
+
+    /**
+     * Holds the size and last access of a cached item.
+     *
+     * @param id         the cache key
+     * @param size       the size of the item, in bytes
+     * @param accessedAt the last time the item was accessed
+     */
+    public record Entry(String id, long size, long accessedAt) {
+    }
+}
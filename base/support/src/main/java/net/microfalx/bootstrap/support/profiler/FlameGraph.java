@@ -0,0 +1,252 @@
+package net.microfalx.bootstrap.support.profiler;
+
+import java.util.*;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableCollection;
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.ArgumentUtils.requireNotEmpty;
+
+/**
+ * Holds aggregated stack traces as a tree, the data behind a flame graph.
+ * <p>
+ * Each node is a frame (a method), the value of a node is the total weight (samples or bytes) of the stack traces
+ * passing through the frame, and the self value is the weight of the stack traces ending in the frame.
+ * <p>
+ * A flame graph is built by a single thread, once built it is only read.
+ */
+public final class FlameGraph {
+
+    static final String ROOT_NAME = "all";
+
+    private final String name;
+    private long value;
+    private long selfValue;
+    private Map<String, FlameGraph> children;
+
+    /**
+     * Creates an empty flame graph.
+     *
+     * @return a non-null instance
+     */
+    public static FlameGraph create() {
+        return new FlameGraph(ROOT_NAME);
+    }
+
+    /**
+     * Merges a collection of flame graphs.
+     *
+     * @param flameGraphs the flame graphs
+     * @return a new instance
+     */
+    public static FlameGraph merge(Collection<FlameGraph> flameGraphs) {
+        requireNonNull(flameGraphs);
+        FlameGraph merged = create();
+        for (FlameGraph flameGraph : flameGraphs) {
+            merged.mergeFrom(flameGraph);
+        }
+        return merged;
+    }
+
+    private FlameGraph(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name of the frame.
+     *
+     * @return a non-null instance
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the weight of all stack traces passing through this frame.
+     *
+     * @return a positive integer
+     */
+    public long getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the weight of the stack traces ending in this frame.
+     *
+     * @return a positive integer
+     */
+    public long getSelfValue() {
+        return selfValue;
+    }
+
+    /**
+     * Returns the frames called by this frame.
+     *
+     * @return a non-null instance
+     */
+    public Collection<FlameGraph> getChildren() {
+        return children == null ? emptyList() : unmodifiableCollection(children.values());
+    }
+
+    /**
+     * Returns whether the flame graph has no samples.
+     *
+     * @return {@code true} if empty, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return value == 0;
+    }
+
+    /**
+     * Adds a stack trace.
+     *
+     * @param frames the frames, from the outermost (thread entry point) to the innermost
+     * @param weight the weight of the stack trace (samples, bytes, etc)
+     */
+    public void add(List<String> frames, long weight) {
+        requireNonNull(frames);
+        FlameGraph node = this;
+        node.value += weight;
+        for (String frame : frames) {
+            node = node.getOrCreateChild(frame);
+            node.value += weight;
+        }
+        node.selfValue += weight;
+    }
+
+    /**
+     * Merges this flame graph with another flame graph.
+     *
+     * @param flameGraph the other flame graph
+     * @return a new instance
+     */
+    public FlameGraph merge(FlameGraph flameGraph) {
+        requireNonNull(flameGraph);
+        FlameGraph merged = new FlameGraph(name);
+        merged.mergeFrom(this);
+        merged.mergeFrom(flameGraph);
+        return merged;
+    }
+
+    /**
+     * Returns the frames with the largest self value (the "hot" methods).
+     *
+     * @param count the maximum number of frames
+     * @return a non-null instance
+     */
+    public List<Frame> getTopFrames(int count) {
+        Map<String, Frame> frames = new HashMap<>();
+        collectFrames(frames, new HashSet<>());
+        List<Frame> topFrames = new ArrayList<>(frames.values());
+        topFrames.sort(Comparator.comparingLong(Frame::getSelfValue).thenComparingLong(Frame::getValue).reversed());
+        return topFrames.size() > count ? topFrames.subList(0, count) : topFrames;
+    }
+
+    /**
+     * Returns the stack traces in the "collapsed" format, one stack trace per line, with frames separated by semicolons
+     * and followed by the weight.
+     * <p>
+     * The format is understood by most flame graph tools (FlameGraph, speedscope, etc).
+     *
+     * @return a non-null instance
+     */
+    public String toFolded() {
+        StringBuilder builder = new StringBuilder();
+        for (FlameGraph child : getChildren()) {
+            child.appendFolded(builder, child.name);
+        }
+        return builder.toString();
+    }
+
+    private FlameGraph getOrCreateChild(String name) {
+        requireNotEmpty(name);
+        if (children == null) children = new HashMap<>();
+        return children.computeIfAbsent(name, FlameGraph::new);
+    }
+
+    private void mergeFrom(FlameGraph flameGraph) {
+        value += flameGraph.value;
+        selfValue += flameGraph.selfValue;
+        for (FlameGraph child : flameGraph.getChildren()) {
+            getOrCreateChild(child.name).mergeFrom(child);
+        }
+    }
+
+    private void collectFrames(Map<String, Frame> frames, Set<String> path) {
+        for (FlameGraph child : getChildren()) {
+            Frame frame = frames.computeIfAbsent(child.name, Frame::new);
+            frame.selfValue += child.selfValue;
+            // recursive calls are counted only once, for the outermost frame
+            boolean added = path.add(child.name);
+            if (added) frame.value += child.value;
+            child.collectFrames(frames, path);
+            if (added) path.remove(child.name);
+        }
+    }
+
+    private void appendFolded(StringBuilder builder, String stack) {
+        if (selfValue > 0) builder.append(stack).append(' ').append(selfValue).append('\n');
+        for (FlameGraph child : getChildren()) {
+            child.appendFolded(builder, stack + ";" + child.name);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", FlameGraph.class.getSimpleName() + "[", "]")
+                .add("name='" + name + "'")
+                .add("value=" + value)
+                .add("selfValue=" + selfValue)
+                .toString();
+    }
+
+    /**
+     * Holds the aggregated values of a frame (method) across all stack traces.
+     */
+    public static final class Frame {
+
+        private final String name;
+        private long value;
+        private long selfValue;
+
+        private Frame(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Returns the name of the frame.
+         *
+         * @return a non-null instance
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the weight of all stack traces passing through this frame.
+         *
+         * @return a positive integer
+         */
+        public long getValue() {
+            return value;
+        }
+
+        /**
+         * Returns the weight of the stack traces ending in this frame.
+         *
+         * @return a positive integer
+         */
+        public long getSelfValue() {
+            return selfValue;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Frame.class.getSimpleName() + "[", "]")
+                    .add("name='" + name + "'")
+                    .add("value=" + value)
+                    .add("selfValue=" + selfValue)
+                    .toString();
+        }
+    }
+}
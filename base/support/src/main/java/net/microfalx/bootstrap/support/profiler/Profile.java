@@ -0,0 +1,97 @@
+package net.microfalx.bootstrap.support.profiler;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.StringJoiner;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Holds the samples aggregated from one recording of the {@link ProfilerService profiler}.
+ */
+public final class Profile {
+
+    private final File file;
+    private final LocalDateTime startedAt;
+    private final LocalDateTime endedAt;
+    private final FlameGraph execution;
+    private final FlameGraph allocation;
+
+    Profile(File file, LocalDateTime startedAt, LocalDateTime endedAt, FlameGraph execution, FlameGraph allocation) {
+        requireNonNull(file);
+        requireNonNull(startedAt);
+        requireNonNull(endedAt);
+        requireNonNull(execution);
+        requireNonNull(allocation);
+        this.file = file;
+        this.startedAt = startedAt;
+        this.endedAt = endedAt;
+        this.execution = execution;
+        this.allocation = allocation;
+    }
+
+    /**
+     * Returns the file which holds the recording (in JFR format).
+     *
+     * @return a non-null instance
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the timestamp when the recording was started.
+     *
+     * @return a non-null instance
+     */
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Returns the timestamp when the recording was ended.
+     *
+     * @return a non-null instance
+     */
+    public LocalDateTime getEndedAt() {
+        return endedAt;
+    }
+
+    /**
+     * Returns the flame graph for a type of samples.
+     *
+     * @param type the type of samples
+     * @return a non-null instance
+     */
+    public FlameGraph getFlameGraph(Type type) {
+        requireNonNull(type);
+        return type == Type.EXECUTION ? execution : allocation;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", Profile.class.getSimpleName() + "[", "]")
+                .add("file=" + file)
+                .add("startedAt=" + startedAt)
+                .add("endedAt=" + endedAt)
+                .add("executionSamples=" + execution.getValue())
+                .add("allocatedBytes=" + allocation.getValue())
+                .toString();
+    }
+
+    /**
+     * An enum for the types of samples.
+     */
+    public enum Type {
+
+        /**
+         * The samples are the stack traces of the running threads (CPU), weighted by the number of samples.
+         */
+        EXECUTION,
+
+        /**
+         * The samples are the stack traces of the allocations, weighted by the allocated bytes.
+         */
+        ALLOCATION
+    }
+}
@@ -0,0 +1,49 @@
+package net.microfalx.bootstrap.support.profiler;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+import static java.time.Duration.*;
+
+@Configuration
+@ConfigurationProperties("bootstrap.support.profiler")
+@Setter
+@Getter
+@ToString
+public class ProfilerProperties {
+
+    /**
+     * Enables or disables the continuous profiler.
+     */
+    private boolean enabled = true;
+
+    /**
+     * The duration of one recording; samples become visible only after the recording is rotated.
+     */
+    private Duration interval = ofMinutes(1);
+
+    /**
+     * How long recordings (and their aggregated samples) are kept.
+     */
+    private Duration retention = ofHours(1);
+
+    /**
+     * The interval between two execution samples of the same thread.
+     */
+    private Duration executionPeriod = ofMillis(20);
+
+    /**
+     * The maximum rate of allocation samples, in the format expected by JFR ("100/s").
+     */
+    private String allocationThrottle = "100/s";
+
+    /**
+     * The maximum number of frames kept for a stack trace.
+     */
+    private int maximumStackDepth = 64;
+}
@@ -0,0 +1,230 @@
+package net.microfalx.bootstrap.support.profiler;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.extern.slf4j.Slf4j;
+import net.microfalx.lang.JvmUtils;
+import net.microfalx.threadpool.ThreadPool;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.ExceptionUtils.getRootCauseDescription;
+import static net.microfalx.lang.FileUtils.validateDirectoryExists;
+import static net.microfalx.lang.FormatterUtils.formatDuration;
+
+/**
+ * A service which continuously profiles the application with the JDK Flight Recorder.
+ * <p>
+ * The service keeps a recording running with only two events enabled (execution and allocation samples), at rates
+ * low enough to be left on in production. The recording is rotated at a fixed interval, each rotated recording is
+ * kept on disk for a limited time and its samples are aggregated into {@link FlameGraph flame graphs}.
+ */
+@Service
+@Slf4j
+public class ProfilerService implements InitializingBean, DisposableBean {
+
+    private static final String EXECUTION_SAMPLE = "jdk.ExecutionSample";
+    private static final String ALLOCATION_SAMPLE = "jdk.ObjectAllocationSample";
+    private static final DateTimeFormatter FILE_NAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    @Autowired(required = false) private ProfilerProperties properties = new ProfilerProperties();
+    @Autowired private ThreadPool threadPool;
+
+    private final Collection<Profile> profiles = new CopyOnWriteArrayList<>();
+    private final Object lock = new Object();
+    private File directory;
+    private volatile Recording recording;
+    private volatile LocalDateTime recordingStartedAt;
+
+    /**
+     * Returns whether the profiler is recording.
+     *
+     * @return {@code true} if recording, {@code false} otherwise
+     */
+    public boolean isRunning() {
+        return recording != null;
+    }
+
+    /**
+     * Returns the profiles (rotated recordings) still available, the most recent first.
+     *
+     * @return a non-null instance
+     */
+    public Collection<Profile> getProfiles() {
+        List<Profile> orderedProfiles = new ArrayList<>(profiles);
+        orderedProfiles.sort(Comparator.comparing(Profile::getStartedAt).reversed());
+        return orderedProfiles;
+    }
+
+    /**
+     * Returns a flame graph with the samples of all profiles.
+     *
+     * @param type the type of samples
+     * @return a non-null instance
+     */
+    public FlameGraph getFlameGraph(Profile.Type type) {
+        return getFlameGraph(type, LocalDateTime.MIN, LocalDateTime.MAX);
+    }
+
+    /**
+     * Returns a flame graph with the samples of the profiles overlapping a time interval.
+     *
+     * @param type      the type of samples
+     * @param startTime the start of the interval
+     * @param endTime   the end of the interval
+     * @return a non-null instance
+     */
+    public FlameGraph getFlameGraph(Profile.Type type, LocalDateTime startTime, LocalDateTime endTime) {
+        requireNonNull(type);
+        requireNonNull(startTime);
+        requireNonNull(endTime);
+        Collection<FlameGraph> flameGraphs = new ArrayList<>();
+        for (Profile profile : profiles) {
+            if (profile.getEndedAt().isBefore(startTime) || profile.getStartedAt().isAfter(endTime)) continue;
+            flameGraphs.add(profile.getFlameGraph(type));
+        }
+        return FlameGraph.merge(flameGraphs);
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (!properties.isEnabled()) {
+            LOGGER.info("Profiler is disabled");
+            return;
+        } else if (!FlightRecorder.isAvailable()) {
+            LOGGER.warn("Profiler cannot be started, JDK Flight Recorder is not available");
+            return;
+        }
+        directory = validateDirectoryExists(new File(JvmUtils.getTemporaryDirectory(), "profiler"));
+        deleteRecordings();
+        try {
+            recording = startRecording();
+        } catch (Exception e) {
+            LOGGER.error("Failed to start profiler, root cause: {}", getRootCauseDescription(e));
+            return;
+        }
+        threadPool.scheduleAtFixedRate(new RotateTask(), properties.getInterval());
+        LOGGER.info("Profiler started, interval {}, retention {}, directory {}", formatDuration(properties.getInterval()),
+                formatDuration(properties.getRetention()), directory);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        synchronized (lock) {
+            if (recording == null) return;
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private Recording startRecording() {
+        Map<String, String> settings = new HashMap<>();
+        settings.put(EXECUTION_SAMPLE + "#enabled", "true");
+        settings.put(EXECUTION_SAMPLE + "#period", properties.getExecutionPeriod().toMillis() + " ms");
+        settings.put(ALLOCATION_SAMPLE + "#enabled", "true");
+        settings.put(ALLOCATION_SAMPLE + "#throttle", properties.getAllocationThrottle());
+        settings.put(ALLOCATION_SAMPLE + "#stackTrace", "true");
+        Recording newRecording = new Recording();
+        newRecording.setName("Profiler");
+        newRecording.setSettings(settings);
+        newRecording.setToDisk(true);
+        newRecording.start();
+        recordingStartedAt = LocalDateTime.now();
+        return newRecording;
+    }
+
+    private void rotate() {
+        Recording previousRecording;
+        LocalDateTime startedAt;
+        synchronized (lock) {
+            if (recording == null) return;
+            previousRecording = recording;
+            startedAt = recordingStartedAt;
+            previousRecording.stop();
+            recording = startRecording();
+        }
+        LocalDateTime endedAt = LocalDateTime.now();
+        File file = new File(directory, "profile_" + FILE_NAME_FORMATTER.format(startedAt) + ".jfr");
+        try {
+            previousRecording.dump(file.toPath());
+            profiles.add(parse(file, startedAt, endedAt));
+        } catch (Exception e) {
+            LOGGER.error("Failed to process recording {}, root cause: {}", file, getRootCauseDescription(e));
+        } finally {
+            previousRecording.close();
+        }
+        prune();
+    }
+
+    private Profile parse(File file, LocalDateTime startedAt, LocalDateTime endedAt) throws IOException {
+        FlameGraph execution = FlameGraph.create();
+        FlameGraph allocation = FlameGraph.create();
+        try (RecordingFile recordingFile = new RecordingFile(file.toPath())) {
+            while (recordingFile.hasMoreEvents()) {
+                RecordedEvent event = recordingFile.readEvent();
+                String eventName = event.getEventType().getName();
+                if (EXECUTION_SAMPLE.equals(eventName)) {
+                    add(execution, event, 1);
+                } else if (ALLOCATION_SAMPLE.equals(eventName)) {
+                    add(allocation, event, event.getLong("weight"));
+                }
+            }
+        }
+        return new Profile(file, startedAt, endedAt, execution, allocation);
+    }
+
+    private void add(FlameGraph flameGraph, RecordedEvent event, long weight) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        if (stackTrace == null || weight <= 0) return;
+        List<RecordedFrame> recordedFrames = stackTrace.getFrames();
+        int depth = Math.min(recordedFrames.size(), properties.getMaximumStackDepth());
+        List<String> frames = new ArrayList<>(depth);
+        // JFR frames start with the innermost frame, flame graphs start with the outermost frame
+        for (int index = depth - 1; index >= 0; index--) {
+            RecordedMethod method = recordedFrames.get(index).getMethod();
+            if (method == null) continue;
+            frames.add(method.getType().getName() + "." + method.getName());
+        }
+        flameGraph.add(frames, weight);
+    }
+
+    private void prune() {
+        LocalDateTime threshold = LocalDateTime.now().minus(properties.getRetention());
+        for (Profile profile : profiles) {
+            if (profile.getEndedAt().isAfter(threshold)) continue;
+            profiles.remove(profile);
+            if (!profile.getFile().delete()) LOGGER.warn("Failed to delete recording {}", profile.getFile());
+        }
+    }
+
+    private void deleteRecordings() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".jfr"));
+        if (files == null) return;
+        for (File file : files) {
+            if (!file.delete()) LOGGER.warn("Failed to delete recording {}", file);
+        }
+    }
+
+    private class RotateTask implements Runnable {
+
+        @Override
+        public void run() {
+            rotate();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package net.microfalx.bootstrap.support.report.fragment;
+
+import net.microfalx.bootstrap.support.profiler.FlameGraph;
+import net.microfalx.bootstrap.support.profiler.Profile;
+import net.microfalx.bootstrap.support.profiler.ProfilerService;
+import net.microfalx.bootstrap.support.report.AbstractFragmentProvider;
+import net.microfalx.bootstrap.support.report.Fragment;
+import net.microfalx.bootstrap.support.report.Report;
+import net.microfalx.bootstrap.support.report.Template;
+
+import java.util.Collection;
+import java.util.List;
+
+@net.microfalx.lang.annotation.Provider
+public class ProfilerProvider extends AbstractFragmentProvider {
+
+    private static final int TOP_FRAMES = 20;
+
+    @Override
+    public Fragment create() {
+        return Fragment.builder("Profiler").template("profiler")
+                .icon("fa-solid fa-fire")
+                .order(850)
+                .build();
+    }
+
+    @Override
+    public void update(Template template) {
+        super.update(template);
+        template.addVariable("profilerHelper", this);
+        template.addVariable("executionFrames", getTopFrames(Profile.Type.EXECUTION));
+        template.addVariable("allocationFrames", getTopFrames(Profile.Type.ALLOCATION));
+    }
+
+    /**
+     * Returns the flame graph for the current report time interval.
+     *
+     * @param type the type of samples
+     * @return a non-null instance
+     */
+    public FlameGraph getFlameGraph(Profile.Type type) {
+        Report report = Report.current();
+        return report.getAttribute("profiler-" + type.name().toLowerCase(), () -> doGetFlameGraph(type));
+    }
+
+    /**
+     * Returns the share of a frame from all execution samples, as a percentage.
+     *
+     * @param value the value of a frame
+     * @return a percentage
+     */
+    public double getExecutionPercent(long value) {
+        return getPercent(Profile.Type.EXECUTION, value);
+    }
+
+    /**
+     * Returns the share of a frame from all allocated bytes, as a percentage.
+     *
+     * @param value the value of a frame
+     * @return a percentage
+     */
+    public double getAllocationPercent(long value) {
+        return getPercent(Profile.Type.ALLOCATION, value);
+    }
+
+    private double getPercent(Profile.Type type, long value) {
+        long total = getFlameGraph(type).getValue();
+        return total == 0 ? 0 : (100d * value) / total;
+    }
+
+    private List<FlameGraph.Frame> getTopFrames(Profile.Type type) {
+        return getFlameGraph(type).getTopFrames(TOP_FRAMES);
+    }
+
+    private FlameGraph doGetFlameGraph(Profile.Type type) {
+        Collection<ProfilerService> profilerServices = getBeansOfType(ProfilerService.class);
+        if (profilerServices.isEmpty()) return FlameGraph.create();
+        Report report = Report.current();
+        return profilerServices.iterator().next().getFlameGraph(type, report.getStartTime().toLocalDateTime(),
+                report.getEndTime().toLocalDateTime());
+    }
+}
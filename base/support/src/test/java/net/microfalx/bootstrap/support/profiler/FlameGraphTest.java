@@ -0,0 +1,77 @@
+package net.microfalx.bootstrap.support.profiler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlameGraphTest {
+
+    @Test
+    void empty() {
+        FlameGraph flameGraph = FlameGraph.create();
+        assertTrue(flameGraph.isEmpty());
+        assertEquals(0, flameGraph.getValue());
+        assertTrue(flameGraph.getChildren().isEmpty());
+        assertTrue(flameGraph.getTopFrames(10).isEmpty());
+        assertEquals("", flameGraph.toFolded());
+    }
+
+    @Test
+    void add() {
+        FlameGraph flameGraph = createFlameGraph();
+        assertEquals(6, flameGraph.getValue());
+        assertEquals(1, flameGraph.getChildren().size());
+        FlameGraph main = flameGraph.getChildren().iterator().next();
+        assertEquals("main", main.getName());
+        assertEquals(6, main.getValue());
+        assertEquals(1, main.getSelfValue());
+        assertEquals(2, main.getChildren().size());
+    }
+
+    @Test
+    void topFrames() {
+        List<FlameGraph.Frame> frames = createFlameGraph().getTopFrames(2);
+        assertEquals(2, frames.size());
+        assertEquals("parse", frames.get(0).getName());
+        assertEquals(3, frames.get(0).getSelfValue());
+        assertEquals(3, frames.get(0).getValue());
+        assertEquals("render", frames.get(1).getName());
+        assertEquals(2, frames.get(1).getSelfValue());
+    }
+
+    @Test
+    void recursion() {
+        FlameGraph flameGraph = FlameGraph.create();
+        flameGraph.add(List.of("main", "visit", "visit", "visit"), 4);
+        FlameGraph.Frame visit = flameGraph.getTopFrames(1).get(0);
+        assertEquals("visit", visit.getName());
+        assertEquals(4, visit.getSelfValue());
+        assertEquals(4, visit.getValue());
+    }
+
+    @Test
+    void merge() {
+        FlameGraph merged = createFlameGraph().merge(createFlameGraph());
+        assertEquals(12, merged.getValue());
+        assertEquals(6, merged.getTopFrames(1).get(0).getSelfValue());
+        assertEquals(18, FlameGraph.merge(List.of(createFlameGraph(), createFlameGraph(), createFlameGraph())).getValue());
+    }
+
+    @Test
+    void folded() {
+        String folded = createFlameGraph().toFolded();
+        assertTrue(folded.contains("main 1\n"));
+        assertTrue(folded.contains("main;parse 3\n"));
+        assertTrue(folded.contains("main;render 2\n"));
+    }
+
+    private FlameGraph createFlameGraph() {
+        FlameGraph flameGraph = FlameGraph.create();
+        flameGraph.add(List.of("main", "parse"), 3);
+        flameGraph.add(List.of("main", "render"), 2);
+        flameGraph.add(List.of("main"), 1);
+        return flameGraph;
+    }
+}
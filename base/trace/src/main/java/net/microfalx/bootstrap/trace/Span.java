@@ -0,0 +1,379 @@
+package net.microfalx.bootstrap.trace;
+
+import net.microfalx.lang.ClassUtils;
+import net.microfalx.lang.ExceptionUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Collections.unmodifiableMap;
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.ArgumentUtils.requireNotEmpty;
+import static net.microfalx.lang.TimeUtils.toLocalDateTime;
+
+/**
+ * A timed operation which is part of a {@link Trace}.
+ * <p>
+ * Spans are started with {@link #start(String)} and become the current span of the thread until they are ended.
+ * A span started while another span is current becomes its child, a span started without a current span starts
+ * a new trace. The usual pattern is:
+ * <pre>
+ * Span span = Span.start("JDBC Query").setAttribute("sql", sql);
+ * try {
+ *     ...
+ * } catch (RuntimeException e) {
+ *     throw span.fail(e);
+ * } finally {
+ *     span.end();
+ * }
+ * </pre>
+ * The current span is attached to a thread, it does not follow the work handed to other threads. Tasks submitted to
+ * a {@link net.microfalx.threadpool.ThreadPool thread pool} or executed in a virtual thread need to be wrapped with
+ * {@link #wrap(Runnable)} (or one of its variants) to become part of the trace.
+ * <p>
+ * A span is updated only by the thread which started it.
+ */
+public final class Span implements AutoCloseable {
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+    private static final AtomicLong ID_GENERATOR = new AtomicLong(1);
+    private static final Span NONE = new Span();
+    private static volatile boolean enabled = true;
+
+    private final long id;
+    private final Trace trace;
+    private final Span parent;
+    private final String name;
+    private final long startedAt;
+    private final long startNanos;
+    private final Map<String, Object> attributes;
+    private volatile long duration = -1;
+    private Throwable throwable;
+
+    /**
+     * Starts a new span and makes it the current span.
+     *
+     * @param name the name of the span
+     * @return a non-null instance
+     */
+    public static Span start(String name) {
+        requireNotEmpty(name);
+        if (!enabled) return NONE;
+        Span current = CURRENT.get();
+        Span span = new Span(current != null ? current.trace : new Trace(), current, name);
+        CURRENT.set(span);
+        return span;
+    }
+
+    /**
+     * Returns the current span.
+     *
+     * @return the current span, null if there is no active span
+     */
+    public static Span current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Detaches the current span (and its parents) from the current thread.
+     * <p>
+     * Threads returned to a pool call this method, so the next task never joins a trace of a previous task, even
+     * if some spans were not ended.
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Returns whether spans are recorded.
+     *
+     * @return {@code true} if recorded, {@code false} otherwise
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Changes whether spans are recorded.
+     * <p>
+     * When disabled, {@link #start(String)} returns a span which records nothing.
+     *
+     * @param enabled {@code true} to record spans, {@code false} otherwise
+     */
+    public static void setEnabled(boolean enabled) {
+        Span.enabled = enabled;
+    }
+
+    /**
+     * Wraps a task to be executed with the current span as parent.
+     *
+     * @param runnable the task
+     * @return the wrapped task, or the original task if there is no current span
+     */
+    public static Runnable wrap(Runnable runnable) {
+        requireNonNull(runnable);
+        Span current = CURRENT.get();
+        if (current == null) return runnable;
+        return () -> {
+            Span previous = attach(current);
+            try {
+                runnable.run();
+            } finally {
+                detach(previous);
+            }
+        };
+    }
+
+    /**
+     * Wraps a task to be executed with the current span as parent.
+     *
+     * @param callable the task
+     * @param <T>      the type of the result
+     * @return the wrapped task, or the original task if there is no current span
+     */
+    public static <T> Callable<T> wrap(Callable<T> callable) {
+        requireNonNull(callable);
+        Span current = CURRENT.get();
+        if (current == null) return callable;
+        return () -> {
+            Span previous = attach(current);
+            try {
+                return callable.call();
+            } finally {
+                detach(previous);
+            }
+        };
+    }
+
+    /**
+     * Wraps an executor so that all the tasks are executed with the span current at submission time as parent.
+     *
+     * @param executor the executor
+     * @return a non-null instance
+     */
+    public static Executor wrap(Executor executor) {
+        requireNonNull(executor);
+        return command -> executor.execute(wrap(command));
+    }
+
+    private Span() {
+        this.id = 0;
+        this.trace = null;
+        this.parent = null;
+        this.name = "None";
+        this.startedAt = 0;
+        this.startNanos = 0;
+        this.attributes = Collections.emptyMap();
+    }
+
+    private Span(Trace trace, Span parent, String name) {
+        this.id = ID_GENERATOR.getAndIncrement();
+        this.trace = trace;
+        this.parent = parent;
+        this.name = name;
+        this.startedAt = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+        this.attributes = new LinkedHashMap<>();
+        trace.start(this);
+    }
+
+    /**
+     * Returns the identifier of the span.
+     *
+     * @return a positive integer
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Returns the trace which owns this span.
+     *
+     * @return the trace, null if the span is not recorded
+     */
+    public Trace getTrace() {
+        return trace;
+    }
+
+    /**
+     * Returns the parent span.
+     *
+     * @return the parent, null for the root span of a trace
+     */
+    public Span getParent() {
+        return parent;
+    }
+
+    /**
+     * Returns the name of the span.
+     *
+     * @return a non-null instance
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the depth of the span in the trace.
+     *
+     * @return a positive integer, 0 for the root span
+     */
+    public int getDepth() {
+        int depth = 0;
+        Span current = parent;
+        while (current != null) {
+            depth++;
+            current = current.parent;
+        }
+        return depth;
+    }
+
+    /**
+     * Returns the timestamp when the span was started.
+     *
+     * @return a non-null instance
+     */
+    public LocalDateTime getStartedAt() {
+        return toLocalDateTime(startedAt);
+    }
+
+    /**
+     * Returns the duration of the span.
+     *
+     * @return the duration, or the time elapsed since the span was started if the span is not ended
+     */
+    public Duration getDuration() {
+        long currentDuration = duration;
+        return Duration.ofNanos(currentDuration >= 0 ? currentDuration : System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Returns whether the span was ended.
+     *
+     * @return {@code true} if ended, {@code false} otherwise
+     */
+    public boolean isEnded() {
+        return duration >= 0;
+    }
+
+    /**
+     * Returns the attributes of the span.
+     *
+     * @return a non-null instance
+     */
+    public Map<String, Object> getAttributes() {
+        return unmodifiableMap(attributes);
+    }
+
+    /**
+     * Changes an attribute of the span.
+     *
+     * @param name  the name of the attribute
+     * @param value the value of the attribute
+     * @return self
+     */
+    public Span setAttribute(String name, Object value) {
+        requireNotEmpty(name);
+        if (this != NONE) attributes.put(name, value);
+        return this;
+    }
+
+    /**
+     * Returns the failure which ended the span.
+     *
+     * @return the failure, null if the span did not fail
+     */
+    public Throwable getThrowable() {
+        return throwable;
+    }
+
+    /**
+     * Returns whether the span has failed.
+     *
+     * @return {@code true} if failed, {@code false} otherwise
+     */
+    public boolean isFailed() {
+        return throwable != null;
+    }
+
+    /**
+     * Marks the span as failed.
+     *
+     * @param throwable the failure
+     * @param <E>       the type of the failure
+     * @return the failure, to be thrown by the caller
+     */
+    public <E extends Throwable> E fail(E throwable) {
+        requireNonNull(throwable);
+        if (this != NONE && this.throwable == null) this.throwable = throwable;
+        return throwable;
+    }
+
+    /**
+     * Ends the span and restores the span which was current when this span was started.
+     * <p>
+     * Children which were not ended are detached too.
+     */
+    public void end() {
+        if (this == NONE || duration >= 0) return;
+        duration = System.nanoTime() - startNanos;
+        if (isCurrentOrAncestor()) detach(parent);
+        trace.end(this);
+    }
+
+    @Override
+    public void close() {
+        end();
+    }
+
+    String getDescription() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(name);
+        if (!attributes.isEmpty()) builder.append(' ').append(attributes);
+        if (throwable != null) {
+            builder.append(", failed with ").append(ClassUtils.getCompactName(throwable))
+                    .append(": ").append(ExceptionUtils.getRootCauseDescription(throwable));
+        }
+        return builder.toString();
+    }
+
+    private boolean isCurrentOrAncestor() {
+        Span current = CURRENT.get();
+        while (current != null) {
+            if (current == this) return true;
+            current = current.parent;
+        }
+        return false;
+    }
+
+    private static Span attach(Span span) {
+        Span previous = CURRENT.get();
+        CURRENT.set(span);
+        return previous;
+    }
+
+    private static void detach(Span previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", Span.class.getSimpleName() + "[", "]")
+                .add("id=" + id)
+                .add("name='" + name + "'")
+                .add("duration=" + getDuration())
+                .add("attributes=" + attributes)
+                .toString();
+    }
+}
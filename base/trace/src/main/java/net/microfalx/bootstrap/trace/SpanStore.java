@@ -0,0 +1,193 @@
+package net.microfalx.bootstrap.trace;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.time.Duration.ofMillis;
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * An in-memory store for completed traces.
+ * <p>
+ * Traces are sampled after they complete (tail sampling): slow traces (slower than a threshold) and failed traces are
+ * always kept, the rest are kept with a (low) probability, to have a baseline for comparison. Each category holds
+ * a limited number of traces, the oldest traces are discarded first.
+ */
+public final class SpanStore {
+
+    private static final SpanStore INSTANCE = new SpanStore();
+
+    private final Deque<Trace> slowTraces = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger slowTraceCount = new AtomicInteger();
+    private final Deque<Trace> sampledTraces = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger sampledTraceCount = new AtomicInteger();
+    private final AtomicLong completedTraceCount = new AtomicLong();
+
+    private volatile Duration slowThreshold = ofMillis(500);
+    private volatile double sampleRatio = 0.01;
+    private volatile int capacity = 500;
+
+    /**
+     * Returns the store.
+     *
+     * @return a non-null instance
+     */
+    public static SpanStore get() {
+        return INSTANCE;
+    }
+
+    private SpanStore() {
+    }
+
+    /**
+     * Returns the duration above which a trace is considered slow (and always kept).
+     *
+     * @return a non-null instance
+     */
+    public Duration getSlowThreshold() {
+        return slowThreshold;
+    }
+
+    /**
+     * Changes the duration above which a trace is considered slow (and always kept).
+     *
+     * @param slowThreshold the threshold
+     * @return self
+     */
+    public SpanStore setSlowThreshold(Duration slowThreshold) {
+        requireNonNull(slowThreshold);
+        this.slowThreshold = slowThreshold;
+        return this;
+    }
+
+    /**
+     * Returns the probability to keep a trace which is neither slow nor failed.
+     *
+     * @return a value between 0 and 1
+     */
+    public double getSampleRatio() {
+        return sampleRatio;
+    }
+
+    /**
+     * Changes the probability to keep a trace which is neither slow nor failed.
+     *
+     * @param sampleRatio a value between 0 and 1
+     * @return self
+     */
+    public SpanStore setSampleRatio(double sampleRatio) {
+        if (sampleRatio < 0 || sampleRatio > 1) {
+            throw new IllegalArgumentException("Sample ratio must be between 0 and 1, received " + sampleRatio);
+        }
+        this.sampleRatio = sampleRatio;
+        return this;
+    }
+
+    /**
+     * Returns the maximum number of slow (or failed) traces kept by the store.
+     * <p>
+     * The store keeps up to a fifth of this number of sampled traces.
+     *
+     * @return a positive integer
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Changes the maximum number of slow (or failed) traces kept by the store.
+     *
+     * @param capacity a positive integer
+     * @return self
+     */
+    public SpanStore setCapacity(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be positive, received " + capacity);
+        this.capacity = capacity;
+        return this;
+    }
+
+    /**
+     * Returns the number of traces completed since the application was started, kept or not.
+     *
+     * @return a positive integer
+     */
+    public long getCompletedTraceCount() {
+        return completedTraceCount.get();
+    }
+
+    /**
+     * Returns the traces kept by the store, the most recent first.
+     *
+     * @return a non-null instance
+     */
+    public Collection<Trace> getTraces() {
+        Collection<Trace> traces = new ArrayList<>(slowTraces);
+        traces.addAll(sampledTraces);
+        return traces;
+    }
+
+    /**
+     * Returns the slow (or failed) traces kept by the store, the most recent first.
+     *
+     * @return a non-null instance
+     */
+    public Collection<Trace> getSlowTraces() {
+        return new ArrayList<>(slowTraces);
+    }
+
+    /**
+     * Returns a trace by its identifier.
+     *
+     * @param id the identifier
+     * @return the trace, null if the trace is not kept by the store
+     */
+    public Trace find(String id) {
+        requireNonNull(id);
+        for (Trace trace : getTraces()) {
+            if (trace.getId().equals(id)) return trace;
+        }
+        return null;
+    }
+
+    /**
+     * Removes all traces.
+     */
+    public void clear() {
+        slowTraces.clear();
+        slowTraceCount.set(0);
+        sampledTraces.clear();
+        sampledTraceCount.set(0);
+    }
+
+    void add(Trace trace) {
+        completedTraceCount.incrementAndGet();
+        if (trace.getDuration().compareTo(slowThreshold) >= 0 || trace.isFailed()) {
+            add(slowTraces, slowTraceCount, trace, capacity);
+        } else if (sampleRatio > 0 && ThreadLocalRandom.current().nextDouble() < sampleRatio) {
+            add(sampledTraces, sampledTraceCount, trace, Math.max(1, capacity / 5));
+        }
+    }
+
+    private static void add(Deque<Trace> traces, AtomicInteger count, Trace trace, int capacity) {
+        traces.offerFirst(trace);
+        if (count.incrementAndGet() > capacity && traces.pollLast() != null) count.decrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", SpanStore.class.getSimpleName() + "[", "]")
+                .add("slowThreshold=" + slowThreshold)
+                .add("sampleRatio=" + sampleRatio)
+                .add("capacity=" + capacity)
+                .add("slowTraceCount=" + slowTraceCount)
+                .add("sampledTraceCount=" + sampledTraceCount)
+                .toString();
+    }
+}
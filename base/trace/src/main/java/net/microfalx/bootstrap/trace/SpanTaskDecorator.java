@@ -0,0 +1,21 @@
+package net.microfalx.bootstrap.trace;
+
+import net.microfalx.lang.annotation.Provider;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * A task decorator which executes the tasks submitted to the shared executors and schedulers with the span
+ * current at submission as parent.
+ * <p>
+ * The shared schedulers do not decorate periodic tasks, each run of a periodic task starts its own trace.
+ *
+ * @see net.microfalx.bootstrap.core.async.TaskExecutorFactory
+ */
+@Provider
+public class SpanTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return Span.wrap(runnable);
+    }
+}
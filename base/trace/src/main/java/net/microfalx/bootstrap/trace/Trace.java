@@ -0,0 +1,161 @@
+package net.microfalx.bootstrap.trace;
+
+import net.microfalx.lang.Identifiable;
+import net.microfalx.lang.Nameable;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A tree of {@link Span spans} started from a root span (a web request, a task, etc).
+ * <p>
+ * A trace is completed when its root span ends, and it is offered to the {@link SpanStore}, which decides whether
+ * the trace is kept.
+ */
+public final class Trace implements Identifiable<String>, Nameable {
+
+    /**
+     * The maximum number of spans kept for a trace, the rest are only counted.
+     */
+    static final int MAXIMUM_SPANS = 1000;
+
+    private final String id = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private final Queue<Span> spans = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger spanCount = new AtomicInteger();
+    private final AtomicInteger keptCount = new AtomicInteger();
+    private Span root;
+
+    Trace() {
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the name of the root span.
+     *
+     * @return a non-null instance
+     */
+    @Override
+    public String getName() {
+        return root.getName();
+    }
+
+    /**
+     * Returns the root span.
+     *
+     * @return a non-null instance
+     */
+    public Span getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns the timestamp when the trace was started.
+     *
+     * @return a non-null instance
+     */
+    public LocalDateTime getStartedAt() {
+        return root.getStartedAt();
+    }
+
+    /**
+     * Returns the duration of the trace (the duration of the root span).
+     *
+     * @return a non-null instance
+     */
+    public Duration getDuration() {
+        return root.getDuration();
+    }
+
+    /**
+     * Returns the number of spans started in this trace, including the spans which were not kept.
+     *
+     * @return a positive integer
+     */
+    public int getSpanCount() {
+        return spanCount.get();
+    }
+
+    /**
+     * Returns the spans of the trace, ordered by start time.
+     *
+     * @return a non-null instance
+     */
+    public List<Span> getSpans() {
+        List<Span> orderedSpans = new ArrayList<>(spans);
+        orderedSpans.sort(Comparator.comparing(Span::getStartedAt).thenComparing(Span::getId));
+        return orderedSpans;
+    }
+
+    /**
+     * Returns whether any span of the trace failed.
+     *
+     * @return {@code true} if failed, {@code false} otherwise
+     */
+    public boolean isFailed() {
+        for (Span span : spans) {
+            if (span.isFailed()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the first failure of the trace.
+     *
+     * @return the failure, null if no span failed
+     */
+    public Throwable getThrowable() {
+        if (root.isFailed()) return root.getThrowable();
+        for (Span span : spans) {
+            if (span.isFailed()) return span.getThrowable();
+        }
+        return null;
+    }
+
+    /**
+     * Returns a description of the trace, one span per line, indented by depth.
+     *
+     * @return a non-null instance
+     */
+    public String getDescription() {
+        StringBuilder builder = new StringBuilder();
+        for (Span span : getSpans()) {
+            builder.append("  ".repeat(span.getDepth())).append(span.getDuration().toMillis()).append("ms ")
+                    .append(span.getDescription()).append('\n');
+        }
+        int droppedCount = Math.max(0, keptCount.get() - MAXIMUM_SPANS);
+        if (droppedCount > 0) builder.append("... and ").append(droppedCount).append(" more spans\n");
+        return builder.toString();
+    }
+
+    void start(Span span) {
+        if (root == null) root = span;
+        spanCount.incrementAndGet();
+    }
+
+    void end(Span span) {
+        if (span == root || keptCount.incrementAndGet() <= MAXIMUM_SPANS) spans.offer(span);
+        if (span == root) SpanStore.get().add(this);
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", Trace.class.getSimpleName() + "[", "]")
+                .add("id='" + id + "'")
+                .add("name='" + getName() + "'")
+                .add("duration=" + getDuration())
+                .add("spanCount=" + spanCount)
+                .toString();
+    }
+}
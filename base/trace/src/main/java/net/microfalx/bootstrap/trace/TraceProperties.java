@@ -0,0 +1,24 @@
+package net.microfalx.bootstrap.trace;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+import static java.time.Duration.ofMillis;
+
+@Configuration
+@ConfigurationProperties("bootstrap.trace")
+@Setter
+@Getter
+@ToString
+public class TraceProperties {
+
+    private boolean enabled = true;
+    private Duration slowThreshold = ofMillis(500);
+    private double sampleRatio = 0.01;
+    private int capacity = 500;
+}
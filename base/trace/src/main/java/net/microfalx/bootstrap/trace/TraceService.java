@@ -7,6 +7,7 @@ import net.microfalx.bootstrap.trace.startup.ApplicationStartupImpl;
 import net.microfalx.bootstrap.trace.startup.StartupRecorderTask;
 import net.microfalx.bootstrap.trace.startup.StartupTimeline;
 import net.microfalx.threadpool.ThreadPool;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationContext;
@@ -18,6 +19,9 @@ import org.springframework.core.metrics.ApplicationStartup;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.util.Collection;
+
+import static net.microfalx.lang.FormatterUtils.formatDuration;
 
 /**
  * A service which configures and tracks the application traces.
@@ -25,13 +29,14 @@ import java.time.Duration;
 @Service
 @CustomLog
 @Order(Ordered.HIGHEST_PRECEDENCE)
-public class TraceService implements ApplicationListener<ApplicationReadyEvent> {
+public class TraceService implements ApplicationListener<ApplicationReadyEvent>, InitializingBean {
 
     // Do not remove, it is wired because resource service setups the JVM paths
     @Autowired(required = false) private ResourceService resourceService;
     @Autowired ThreadPool threadPool;
     @Autowired private ApplicationContext applicationContext;
     @Autowired private StoreService storeService;
+    @Autowired(required = false) private TraceProperties properties = new TraceProperties();
 
     /**
      * Returns the startup timeline for the current instance.
@@ -48,11 +53,42 @@ public class TraceService implements ApplicationListener<ApplicationReadyEvent>
         return new StartupTimeline();
     }
 
+    /**
+     * Returns the store which holds the completed (and sampled) traces.
+     *
+     * @return a non-null instance
+     */
+    public SpanStore getSpanStore() {
+        return SpanStore.get();
+    }
+
+    /**
+     * Returns the slow (or failed) traces, the most recent first.
+     *
+     * @return a non-null instance
+     */
+    public Collection<Trace> getSlowTraces() {
+        return SpanStore.get().getSlowTraces();
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        initializeSpans();
+    }
+
     @Override
     public void onApplicationEvent(ApplicationReadyEvent event) {
         recordMetrics(event.getTimeTaken());
     }
 
+    private void initializeSpans() {
+        Span.setEnabled(properties.isEnabled());
+        SpanStore.get().setSlowThreshold(properties.getSlowThreshold()).setSampleRatio(properties.getSampleRatio())
+                .setCapacity(properties.getCapacity());
+        LOGGER.info("Span tracing is {}, slow threshold {}", properties.isEnabled() ? "enabled" : "disabled",
+                formatDuration(properties.getSlowThreshold()));
+    }
+
     private void recordMetrics(Duration duration) {
         threadPool.execute(new StartupRecorderTask(getStartupTimeline(), duration));
     }
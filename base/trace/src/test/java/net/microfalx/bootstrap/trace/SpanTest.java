@@ -0,0 +1,149 @@
+package net.microfalx.bootstrap.trace;
+
+import net.microfalx.bootstrap.core.async.TaskExecutorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpanTest {
+
+    private final SpanStore store = SpanStore.get();
+
+    @BeforeEach
+    void setup() {
+        store.clear();
+        store.setSlowThreshold(Duration.ZERO).setSampleRatio(0);
+    }
+
+    @AfterEach
+    void cleanup() {
+        store.setSlowThreshold(Duration.ofMillis(500)).setSampleRatio(0.01);
+        Span.setEnabled(true);
+    }
+
+    @Test
+    void nested() {
+        Span root = Span.start("Root");
+        Span child = Span.start("Child").setAttribute("sql", "select 1");
+        assertSame(child, Span.current());
+        assertSame(root, child.getParent());
+        assertSame(root.getTrace(), child.getTrace());
+        assertEquals(1, child.getDepth());
+        child.end();
+        assertSame(root, Span.current());
+        root.end();
+        assertNull(Span.current());
+
+        Trace trace = store.find(root.getTrace().getId());
+        assertNotNull(trace);
+        assertEquals("Root", trace.getName());
+        assertEquals(2, trace.getSpanCount());
+        List<Span> spans = trace.getSpans();
+        assertEquals(2, spans.size());
+        assertEquals("Root", spans.get(0).getName());
+        assertEquals("select 1", spans.get(1).getAttributes().get("sql"));
+    }
+
+    @Test
+    void endWithChildNotEnded() {
+        Span root = Span.start("Root");
+        Span.start("Child");
+        root.end();
+        assertNull(Span.current());
+    }
+
+    @Test
+    void wrap() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Span root = Span.start("Root");
+            executor.submit(Span.wrap(() -> Span.start("Task").end())).get();
+            executor.submit(() -> assertNull(Span.current())).get();
+            root.end();
+            assertEquals(2, root.getTrace().getSpanCount());
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void sharedExecutor() throws Exception {
+        ThreadPoolTaskExecutor executor = (ThreadPoolTaskExecutor) TaskExecutorFactory.create("Trace").createExecutor();
+        try {
+            Span root = Span.start("Root");
+            Span child = executor.submit(() -> {
+                Span span = Span.start("Task");
+                span.end();
+                return span;
+            }).get();
+            root.end();
+            assertSame(root, child.getParent());
+            assertSame(root.getTrace(), child.getTrace());
+            assertNull(executor.submit(Span::current).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void sharedSchedulerSkipsPeriodicTasks() throws Exception {
+        ThreadPoolTaskScheduler scheduler = (ThreadPoolTaskScheduler) TaskExecutorFactory.create("Trace").createScheduler();
+        try {
+            Span root = Span.start("Root");
+            assertSame(root, scheduler.submit(Span::current).get());
+            CompletableFuture<Span> periodicSpan = new CompletableFuture<>();
+            ScheduledFuture<?> future = scheduler.scheduleWithFixedDelay(() -> periodicSpan.complete(Span.current()),
+                    Duration.ofMillis(10));
+            assertNull(periodicSpan.get(5, TimeUnit.SECONDS));
+            future.cancel(false);
+            root.end();
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void tailSampling() {
+        store.setSlowThreshold(Duration.ofHours(1));
+        Span.start("Fast").end();
+        Span failed = Span.start("Failed");
+        failed.fail(new IllegalStateException("Test"));
+        failed.end();
+        assertEquals(1, store.getTraces().size());
+        assertTrue(store.getTraces().iterator().next().isFailed());
+        assertTrue(store.getCompletedTraceCount() >= 2);
+    }
+
+    @Test
+    void capacity() {
+        store.setCapacity(2);
+        try {
+            for (int i = 0; i < 5; i++) {
+                Span.start("Span " + i).end();
+            }
+            assertEquals(2, store.getSlowTraces().size());
+            assertEquals("Span 4", store.getSlowTraces().iterator().next().getName());
+        } finally {
+            store.setCapacity(500);
+        }
+    }
+
+    @Test
+    void disabled() {
+        Span.setEnabled(false);
+        Span span = Span.start("Disabled").setAttribute("a", 1);
+        assertNull(Span.current());
+        assertNull(span.getTrace());
+        span.end();
+        assertTrue(store.getTraces().isEmpty());
+    }
+}
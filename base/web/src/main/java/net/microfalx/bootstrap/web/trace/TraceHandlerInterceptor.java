@@ -0,0 +1,63 @@
+package net.microfalx.bootstrap.web.trace;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import net.microfalx.bootstrap.trace.Span;
+import net.microfalx.bootstrap.web.util.PathFilter;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Starts a {@link Span} for each web request, which becomes the root of the spans started while the request
+ * is handled (queries, templates, etc).
+ * <p>
+ * Asynchronous requests are traced only until the request thread is released.
+ */
+class TraceHandlerInterceptor implements AsyncHandlerInterceptor {
+
+    private final static String SPAN_ATTRIBUTE = "$BOOTSTRAP_TRACE_SPAN$";
+
+    private final PathFilter pathFilter = new PathFilter(true, true);
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (request.getAttribute(SPAN_ATTRIBUTE) != null || !pathFilter.shouldInclude(request)) return true;
+        Span span = Span.start(getName(request)).setAttribute("uri", request.getRequestURI());
+        if (request.getQueryString() != null) span.setAttribute("query", request.getQueryString());
+        request.setAttribute(SPAN_ATTRIBUTE, span);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception exception) throws Exception {
+        Span span = (Span) request.getAttribute(SPAN_ATTRIBUTE);
+        try {
+            if (span == null) return;
+            request.removeAttribute(SPAN_ATTRIBUTE);
+            span.setAttribute("status", response.getStatus());
+            if (exception != null) span.fail(exception);
+            span.end();
+        } finally {
+            // the request thread goes back to the pool, it must not carry spans which were not ended
+            Span.clear();
+        }
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        Span span = (Span) request.getAttribute(SPAN_ATTRIBUTE);
+        try {
+            if (span == null) return;
+            request.removeAttribute(SPAN_ATTRIBUTE);
+            span.setAttribute("async", true);
+            span.end();
+        } finally {
+            Span.clear();
+        }
+    }
+
+    private String getName(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+    }
+}
@@ -95,7 +95,45 @@ public abstract class BrokerConsumer<K, V> implements Identifiable<String>, Init
     }
 
     /**
-     * Commits the consumes events if the auto-commit is off.
+     * Commits a collection of events, regardless of the auto-commit setting.
+     * <p>
+     * Used when events are processed out of order: the caller is responsible to commit only events which were
+     * processed, and for each partition, only events without gaps (all previous events of the partition were
+     * processed).
+     *
+     * @param events the processed events
+     */
+    public final void commit(Collection<? extends Event<K, V>> events) {
+        requireNonNull(events);
+        if (events.isEmpty()) return;
+        commitCount.incrementAndGet();
+        METRICS.time("Commit Events", (t) -> doCommit(events));
+    }
+
+    /**
+     * Stops fetching events from a collection of partitions, until the partitions are {@link #resume(Collection) resumed}.
+     * <p>
+     * Events already fetched are still returned by the following polls.
+     *
+     * @param partitions the partitions
+     */
+    public final void pause(Collection<Partition> partitions) {
+        requireNonNull(partitions);
+        if (!partitions.isEmpty()) doPause(partitions);
+    }
+
+    /**
+     * Resumes fetching events from a collection of partitions.
+     *
+     * @param partitions the partitions
+     */
+    public final void resume(Collection<Partition> partitions) {
+        requireNonNull(partitions);
+        if (!partitions.isEmpty()) doResume(partitions);
+    }
+
+    /**
+     * Discards the consumed events if the auto-commit is off.
      */
     public final void rollback() {
         rollbackCount.incrementAndGet();
@@ -212,11 +250,32 @@ public abstract class BrokerConsumer<K, V> implements Identifiable<String>, Init
      */
     protected abstract void doCommit();
 
+    /**
+     * Subclasses will implement this method to commit a collection of events.
+     *
+     * @param events the events
+     */
+    protected abstract void doCommit(Collection<? extends Event<K, V>> events);
+
     /**
      * Subclasses will implement this method to rollback events.
      */
     protected abstract void doRollback();
 
+    /**
+     * Subclasses will implement this method to stop fetching events from partitions.
+     *
+     * @param partitions the partitions
+     */
+    protected abstract void doPause(Collection<Partition> partitions);
+
+    /**
+     * Subclasses will implement this method to resume fetching events from partitions.
+     *
+     * @param partitions the partitions
+     */
+    protected abstract void doResume(Collection<Partition> partitions);
+
     /**
      * Initializes consumer resources.
      */
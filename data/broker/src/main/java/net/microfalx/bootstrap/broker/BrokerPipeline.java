@@ -0,0 +1,441 @@
+package net.microfalx.bootstrap.broker;
+
+import net.microfalx.threadpool.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.ExceptionUtils.getRootCauseDescription;
+
+/**
+ * Polls events with a {@link BrokerConsumer} on one thread and processes them in parallel.
+ * <p>
+ * Events are dispatched to a fixed number of lanes, based on the key of the event (or the partition, for events
+ * without a key). Each lane processes its events one at a time, in the order they were polled, on an
+ * {@link Executor executor}, so events with the same key are processed in order while a slow event only delays
+ * the events of its lane.
+ * <p>
+ * Since events complete out of order, the pipeline commits, for each partition, only the events without gaps
+ * (all the previous events of the partition completed). When too many events of a partition are waiting to be
+ * processed, the partition is paused until the workers catch up.
+ * <p>
+ * The pipeline commits events itself, so the topic should not use auto-commit. An event is considered processed
+ * even when the handler fails; the failure is logged and counted.
+ *
+ * @param <K> the type of the key
+ * @param <V> the type of the value
+ */
+public final class BrokerPipeline<K, V> implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BrokerPipeline.class);
+
+    private static final int MAXIMUM_EVENTS_PER_RUN = 100;
+
+    private final BrokerConsumer<K, V> consumer;
+    private final Consumer<Event<K, V>> handler;
+
+    private Executor executor = ThreadPool.get()::execute;
+    private int laneCount = 16;
+    private int maximumPendingEvents = 1000;
+    private Duration pollTimeout = Duration.ofSeconds(1);
+    private Duration commitInterval = Duration.ofSeconds(1);
+
+    private final Map<Partition, PartitionTracker> trackers = new ConcurrentHashMap<>();
+    private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private volatile Lane[] lanes;
+    private volatile Thread thread;
+    private volatile boolean running;
+    private volatile Duration drainTimeout = Duration.ZERO;
+    private long lastCommit = System.nanoTime();
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param consumer the consumer which polls the events
+     * @param handler  the handler which processes an event
+     * @param <K>      the type of the key
+     * @param <V>      the type of the value
+     * @return a non-null instance
+     */
+    public static <K, V> BrokerPipeline<K, V> create(BrokerConsumer<K, V> consumer, Consumer<Event<K, V>> handler) {
+        return new BrokerPipeline<>(consumer, handler);
+    }
+
+    private BrokerPipeline(BrokerConsumer<K, V> consumer, Consumer<Event<K, V>> handler) {
+        requireNonNull(consumer);
+        requireNonNull(handler);
+        this.consumer = consumer;
+        this.handler = handler;
+    }
+
+    /**
+     * Returns the consumer which polls the events.
+     *
+     * @return a non-null instance
+     */
+    public BrokerConsumer<K, V> getConsumer() {
+        return consumer;
+    }
+
+    /**
+     * Changes the executor which processes the events.
+     * <p>
+     * By default, events are processed by the shared thread pool.
+     *
+     * @param executor the executor
+     * @return self
+     */
+    public BrokerPipeline<K, V> setExecutor(Executor executor) {
+        requireNonNull(executor);
+        checkNotStarted();
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Changes the number of lanes, the maximum number of events processed in parallel.
+     *
+     * @param laneCount a positive integer
+     * @return self
+     */
+    public BrokerPipeline<K, V> setLaneCount(int laneCount) {
+        if (laneCount < 1) throw new IllegalArgumentException("Lane count must be positive, received " + laneCount);
+        checkNotStarted();
+        this.laneCount = laneCount;
+        return this;
+    }
+
+    /**
+     * Changes the maximum number of events (of a partition) polled but not yet processed, before the partition is
+     * paused.
+     *
+     * @param maximumPendingEvents a positive integer
+     * @return self
+     */
+    public BrokerPipeline<K, V> setMaximumPendingEvents(int maximumPendingEvents) {
+        if (maximumPendingEvents < 1) {
+            throw new IllegalArgumentException("Maximum pending events must be positive, received " + maximumPendingEvents);
+        }
+        checkNotStarted();
+        this.maximumPendingEvents = maximumPendingEvents;
+        return this;
+    }
+
+    /**
+     * Changes how long a poll waits for events.
+     *
+     * @param pollTimeout the timeout
+     * @return self
+     */
+    public BrokerPipeline<K, V> setPollTimeout(Duration pollTimeout) {
+        requireNonNull(pollTimeout);
+        checkNotStarted();
+        this.pollTimeout = pollTimeout;
+        return this;
+    }
+
+    /**
+     * Changes the interval between two commits of the processed events.
+     *
+     * @param commitInterval the interval
+     * @return self
+     */
+    public BrokerPipeline<K, V> setCommitInterval(Duration commitInterval) {
+        requireNonNull(commitInterval);
+        checkNotStarted();
+        this.commitInterval = commitInterval;
+        return this;
+    }
+
+    /**
+     * Returns whether the pipeline is running.
+     *
+     * @return {@code true} if running, {@code false} otherwise
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Returns the number of events processed since the pipeline was started, including the failed events.
+     *
+     * @return a positive integer
+     */
+    public long getProcessedCount() {
+        return processedCount.get();
+    }
+
+    /**
+     * Returns the number of events which failed to be processed since the pipeline was started.
+     *
+     * @return a positive integer
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * Returns the number of events polled but not yet processed.
+     *
+     * @return a positive integer
+     */
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * Returns the partitions paused because too many events are waiting to be processed.
+     *
+     * @return a non-null instance
+     */
+    public Collection<Partition> getPausedPartitions() {
+        return trackers.values().stream().filter(t -> t.paused).map(t -> t.partition).toList();
+    }
+
+    /**
+     * Starts polling and processing events.
+     */
+    public synchronized void start() {
+        checkNotStarted();
+        Lane[] newLanes = new Lane[laneCount];
+        for (int i = 0; i < newLanes.length; i++) {
+            newLanes[i] = new Lane();
+        }
+        lanes = newLanes;
+        trackers.clear();
+        running = true;
+        thread = new Thread(this::poll, "Broker Pipeline " + consumer.getTopic().getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops polling events, waits for the polled events to be processed and commits them.
+     *
+     * @param timeout the maximum time to wait for the polled events to be processed
+     */
+    public void stop(Duration timeout) {
+        requireNonNull(timeout);
+        Thread currentThread = thread;
+        if (currentThread == null) return;
+        drainTimeout = timeout;
+        running = false;
+        try {
+            currentThread.join(timeout.toMillis() + pollTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (currentThread.isAlive()) {
+            LOGGER.warn("Pipeline for {} did not stop in {}, {} events are still pending",
+                    BrokerUtils.describe(consumer.getTopic()), timeout, pendingCount.get());
+        }
+    }
+
+    @Override
+    public void close() {
+        stop(Duration.ofSeconds(30));
+    }
+
+    private void poll() {
+        try {
+            while (running) {
+                try {
+                    rescheduleLanes();
+                    dispatch(consumer.poll(pollTimeout));
+                    updatePausedPartitions();
+                    if (System.nanoTime() - lastCommit >= commitInterval.toNanos()) commit();
+                } catch (Exception e) {
+                    LOGGER.error("Failed to poll events from {}, root cause: {}", BrokerUtils.describe(consumer.getTopic()),
+                            getRootCauseDescription(e));
+                    sleep(pollTimeout.toMillis());
+                }
+            }
+            drain();
+        } finally {
+            thread = null;
+        }
+    }
+
+    private void dispatch(Collection<Event<K, V>> events) {
+        for (Event<K, V> event : events) {
+            Partition partition = event.getOffset().getPartition();
+            PartitionTracker tracker = trackers.computeIfAbsent(partition, PartitionTracker::new);
+            Entry entry = new Entry(event, tracker);
+            tracker.entries.add(entry);
+            tracker.pendingCount.incrementAndGet();
+            pendingCount.incrementAndGet();
+            Object key = event.getKey() != null ? event.getKey() : partition;
+            lanes[Math.floorMod(key.hashCode(), lanes.length)].submit(entry);
+        }
+    }
+
+    private void rescheduleLanes() {
+        for (Lane lane : lanes) {
+            if (!lane.entries.isEmpty()) lane.schedule();
+        }
+    }
+
+    private void updatePausedPartitions() {
+        Collection<Partition> pausedPartitions = new ArrayList<>();
+        Collection<Partition> resumedPartitions = new ArrayList<>();
+        for (PartitionTracker tracker : trackers.values()) {
+            int trackerPendingCount = tracker.pendingCount.get();
+            if (!tracker.paused && trackerPendingCount >= maximumPendingEvents) {
+                tracker.paused = true;
+                pausedPartitions.add(tracker.partition);
+            } else if (tracker.paused && trackerPendingCount <= maximumPendingEvents / 2) {
+                tracker.paused = false;
+                resumedPartitions.add(tracker.partition);
+            }
+        }
+        consumer.pause(pausedPartitions);
+        consumer.resume(resumedPartitions);
+    }
+
+    private void commit() {
+        lastCommit = System.nanoTime();
+        Collection<Event<K, V>> events = new ArrayList<>();
+        for (PartitionTracker tracker : trackers.values()) {
+            Entry entry;
+            while ((entry = tracker.entries.peek()) != null && entry.done) {
+                tracker.entries.poll();
+                events.add(entry.event);
+            }
+        }
+        consumer.commit(events);
+    }
+
+    private void drain() {
+        long end = System.currentTimeMillis() + drainTimeout.toMillis();
+        while (pendingCount.get() > 0 && System.currentTimeMillis() < end) {
+            try {
+                rescheduleLanes();
+            } catch (BrokerException e) {
+                // the executor still rejects the lanes, try again until the timeout
+            }
+            sleep(10);
+        }
+        try {
+            commit();
+        } catch (Exception e) {
+            LOGGER.error("Failed to commit events to {}, root cause: {}", BrokerUtils.describe(consumer.getTopic()),
+                    getRootCauseDescription(e));
+        }
+        Collection<Partition> pausedPartitions = getPausedPartitions();
+        trackers.values().forEach(t -> t.paused = false);
+        consumer.resume(pausedPartitions);
+    }
+
+    private void process(Entry entry) {
+        try {
+            handler.accept(entry.event);
+        } catch (Exception e) {
+            failedCount.incrementAndGet();
+            LOGGER.error("Failed to process event {} from {}, root cause: {}", entry.event.getId(),
+                    BrokerUtils.describe(consumer.getTopic()), getRootCauseDescription(e));
+        } finally {
+            processedCount.incrementAndGet();
+            entry.done = true;
+            entry.tracker.pendingCount.decrementAndGet();
+            pendingCount.decrementAndGet();
+        }
+    }
+
+    private void checkNotStarted() {
+        if (running) throw new BrokerException("Pipeline for " + BrokerUtils.describe(consumer.getTopic()) + " is running");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Holds the events of a partition, in the order they were polled.
+     */
+    private class PartitionTracker {
+
+        private final Partition partition;
+        private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private volatile boolean paused;
+
+        private PartitionTracker(Partition partition) {
+            this.partition = partition;
+        }
+    }
+
+    private class Entry {
+
+        private final Event<K, V> event;
+        private final PartitionTracker tracker;
+        private volatile boolean done;
+
+        private Entry(Event<K, V> event, PartitionTracker tracker) {
+            this.event = event;
+            this.tracker = tracker;
+        }
+    }
+
+    /**
+     * Processes events one at a time, in the order they were submitted.
+     */
+    private class Lane implements Runnable {
+
+        private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private void submit(Entry entry) {
+            entries.add(entry);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) return;
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // the lane is scheduled again on the next poll
+                scheduled.set(false);
+                throw new BrokerException("Executor rejected the events of " + BrokerUtils.describe(consumer.getTopic())
+                        + ", " + entries.size() + " events are waiting", e);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Entry entry;
+                int count = 0;
+                while (count++ < MAXIMUM_EVENTS_PER_RUN && (entry = entries.poll()) != null) {
+                    process(entry);
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            if (!entries.isEmpty()) {
+                try {
+                    schedule();
+                } catch (BrokerException e) {
+                    LOGGER.warn(e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -5,9 +5,14 @@ import net.microfalx.lang.Initializable;
 import net.microfalx.lang.Releasable;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -32,6 +37,7 @@ public abstract class BrokerProducer<K, V> implements Identifiable<String>, Init
     private volatile boolean closed;
     private volatile Status status = Status.IDLE;
     private volatile String lastFailure;
+    private final AtomicReference<Throwable> sendFailure = new AtomicReference<>();
 
     public BrokerProducer(BrokerService brokerService, Topic topic) {
         requireNonNull(brokerService);
@@ -88,6 +94,7 @@ public abstract class BrokerProducer<K, V> implements Identifiable<String>, Init
      * Sends an event to the topic.
      *
      * @param event the event
+     * @see #send(Object, Object)
      */
     public final void send(V event) {
         send(null, event);
@@ -95,27 +102,92 @@ public abstract class BrokerProducer<K, V> implements Identifiable<String>, Init
 
     /**
      * Sends an event to the topic.
+     * <p>
+     * The event is buffered and sent (in batches) in the background, the method does not wait for the broker to
+     * acknowledge the event. A failure to send the event is reported by the next {@link #commit()}.
      *
      * @param key   the key (can be null)
      * @param event the event
      */
     public final void send(K key, V event) {
-        METRICS.time("Send", (t) -> doSend(key, event));
+        sendAsync(key, event);
     }
 
     /**
-     * Commits the producer events if the auto-commit is off.
+     * Sends an event to the topic.
+     *
+     * @param event the event
+     * @return a future which completes when the broker acknowledges the event
+     * @see #sendAsync(Object, Object)
+     */
+    public final CompletableFuture<PartitionOffset> sendAsync(V event) {
+        return sendAsync(null, event);
+    }
+
+    /**
+     * Sends an event to the topic.
+     * <p>
+     * The event is buffered and sent (in batches) in the background.
+     *
+     * @param key   the key (can be null)
+     * @param event the event
+     * @return a future which completes with the offset of the event when the broker acknowledges the event
+     */
+    public final CompletableFuture<PartitionOffset> sendAsync(K key, V event) {
+        requireNonNull(event);
+        checkClosed();
+        eventCount.incrementAndGet();
+        CompletableFuture<PartitionOffset> future;
+        try {
+            future = doSend(key, event);
+        } catch (Exception e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete(this::handleSendCompletion);
+    }
+
+    /**
+     * Sends a collection of events to the topic.
+     * <p>
+     * The events are handed to the broker client without waiting for each event to be acknowledged, which allows the
+     * client to group them in batches.
+     *
+     * @param events the events
+     * @return a future which completes with the offsets of the events (in the order of the events) when the broker
+     * acknowledges all the events
+     */
+    public final CompletableFuture<List<PartitionOffset>> sendAll(Collection<? extends Event<K, V>> events) {
+        requireNonNull(events);
+        return METRICS.time("Send All", () -> {
+            List<CompletableFuture<PartitionOffset>> futures = new ArrayList<>(events.size());
+            for (Event<K, V> event : events) {
+                futures.add(sendAsync(event.getKey(), event.getValue()));
+            }
+            return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    .thenApply(v -> futures.stream().map(CompletableFuture::join).toList());
+        });
+    }
+
+    /**
+     * Commits the producer events if the auto-commit is off, or waits for all buffered events to be sent otherwise.
+     *
+     * @throws BrokerException if the commit fails or an event sent since the last commit could not be sent
      */
     public final void commit() {
         commitCount.incrementAndGet();
         METRICS.time("Commit", (t) -> doCommit());
+        Throwable failure = sendFailure.getAndSet(null);
+        if (failure != null) {
+            throw new BrokerException("Failed to send events to " + BrokerUtils.describe(topic), failure);
+        }
     }
 
     /**
-     * Commits the producer events if the auto-commit is off.
+     * Discards the producer events if the auto-commit is off.
      */
     public final void rollback() {
         rollbackCount.incrementAndGet();
+        sendFailure.set(null);
         METRICS.time("Rollback", (t) -> doRollback());
     }
 
@@ -192,12 +264,13 @@ public abstract class BrokerProducer<K, V> implements Identifiable<String>, Init
     protected abstract void doRelease();
 
     /**
-     * Sends an event to the topic.
+     * Sends an event to the topic, without waiting for the broker to acknowledge the event.
      *
      * @param key   the key (can be null)
      * @param event the event
+     * @return a future which completes when the broker acknowledges the event
      */
-    protected abstract void doSend(K key, V event);
+    protected abstract CompletableFuture<PartitionOffset> doSend(K key, V event);
 
     /**
      * Checks whether the consumer was closed and throws an exception if true.
@@ -277,6 +350,12 @@ public abstract class BrokerProducer<K, V> implements Identifiable<String>, Init
         this.lastFailure = getRootCauseDescription(throwable);
     }
 
+    private void handleSendCompletion(PartitionOffset offset, Throwable throwable) {
+        if (throwable == null) return;
+        handleException(throwable);
+        sendFailure.compareAndSet(null, throwable);
+    }
+
     /**
      * A status for the consumer
      */
@@ -5,13 +5,26 @@ import net.microfalx.lang.Identifiable;
 import java.time.LocalDateTime;
 
 /**
- * An event produced by a {@link BrokerConsumer}
+ * An event consumed by a {@link BrokerConsumer} or sent by a {@link BrokerProducer}
  *
  * @param <K> the type of the key
  * @param <V> the type of the value
  */
 public interface Event<K, V> extends Identifiable<String> {
 
+    /**
+     * Creates an event to be sent with a {@link BrokerProducer}.
+     *
+     * @param key   the key (can be null)
+     * @param value the value
+     * @param <K>   the type of the key
+     * @param <V>   the type of the value
+     * @return a non-null instance
+     */
+    static <K, V> Event<K, V> create(K key, V value) {
+        return new SimpleEvent<>(key, value);
+    }
+
     /**
      * Returns the key associated with the record
      *
@@ -29,7 +42,7 @@ public interface Event<K, V> extends Identifiable<String> {
     /**
      * Returns the offset of the event inside the partition.
      *
-     * @return the offset
+     * @return the offset, null for events which were not sent yet
      */
     PartitionOffset getOffset();
 
@@ -56,6 +56,23 @@ public final class Partition implements Identifiable<String>, Nameable, Comparab
         return value;
     }
 
+    public Topic getTopic() {
+        return topic;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Partition partition = (Partition) o;
+        return id.equals(partition.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", Partition.class.getSimpleName() + "[", "]")
@@ -0,0 +1,61 @@
+package net.microfalx.bootstrap.broker;
+
+import java.time.LocalDateTime;
+import java.util.StringJoiner;
+import java.util.UUID;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * An event created by the application, not sent yet.
+ *
+ * @param <K> the type of the key
+ * @param <V> the type of the value
+ */
+final class SimpleEvent<K, V> implements Event<K, V> {
+
+    private final String id = UUID.randomUUID().toString();
+    private final K key;
+    private final V value;
+    private final LocalDateTime timestamp = LocalDateTime.now();
+
+    SimpleEvent(K key, V value) {
+        requireNonNull(value);
+        this.key = key;
+        this.value = value;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public K getKey() {
+        return key;
+    }
+
+    @Override
+    public V getValue() {
+        return value;
+    }
+
+    @Override
+    public PartitionOffset getOffset() {
+        return null;
+    }
+
+    @Override
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", SimpleEvent.class.getSimpleName() + "[", "]")
+                .add("id='" + id + "'")
+                .add("key=" + key)
+                .add("timestamp=" + timestamp)
+                .toString();
+    }
+}
@@ -30,6 +30,9 @@ public final class Topic implements Identifiable<String>, Nameable, Descriptable
     private int maximumPollRecords = 500;
     private Duration timeout = Duration.ofSeconds(30);
     private OffsetResetStrategy offsetResetStrategy = OffsetResetStrategy.CURRENT;
+    private Duration lingerTime = Duration.ofMillis(5);
+    private int batchSize = 64 * 1024;
+    private Compression compression = Compression.SNAPPY;
 
     /**
      * Creates a topic.
@@ -227,6 +230,72 @@ public final class Topic implements Identifiable<String>, Nameable, Descriptable
         return copy;
     }
 
+    /**
+     * Returns how long a producer waits for more events before sending a batch.
+     *
+     * @return a non-null instance
+     */
+    public Duration getLingerTime() {
+        return lingerTime;
+    }
+
+    /**
+     * Creates a copy of this topic and changes how long a producer waits for more events before sending a batch.
+     *
+     * @param lingerTime the linger time, zero to send events as soon as possible
+     * @return a new instance
+     */
+    public Topic withLingerTime(Duration lingerTime) {
+        requireNonNull(lingerTime);
+        Topic copy = copy();
+        copy.lingerTime = lingerTime;
+        return copy;
+    }
+
+    /**
+     * Returns the maximum size (in bytes) of a batch of events sent by a producer to a partition.
+     *
+     * @return a positive integer
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Creates a copy of this topic and changes the maximum size of a batch of events.
+     *
+     * @param batchSize the batch size, in bytes
+     * @return a new instance
+     */
+    public Topic withBatchSize(int batchSize) {
+        if (batchSize < 0) throw new IllegalArgumentException("Batch size cannot be negative, received " + batchSize);
+        Topic copy = copy();
+        copy.batchSize = batchSize;
+        return copy;
+    }
+
+    /**
+     * Returns the compression applied by producers to batches of events.
+     *
+     * @return a non-null instance
+     */
+    public Compression getCompression() {
+        return compression;
+    }
+
+    /**
+     * Creates a copy of this topic and changes the compression applied by producers.
+     *
+     * @param compression the compression
+     * @return a new instance
+     */
+    public Topic withCompression(Compression compression) {
+        requireNonNull(compression);
+        Topic copy = copy();
+        copy.compression = compression;
+        return copy;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -252,6 +321,9 @@ public final class Topic implements Identifiable<String>, Nameable, Descriptable
                 .add("maximumPollRecords=" + maximumPollRecords)
                 .add("timeout=" + timeout)
                 .add("offsetResetStrategy=" + offsetResetStrategy)
+                .add("lingerTime=" + lingerTime)
+                .add("batchSize=" + batchSize)
+                .add("compression=" + compression)
                 .add("broker=" + broker.getName())
                 .toString();
     }
@@ -307,6 +379,17 @@ public final class Topic implements Identifiable<String>, Nameable, Descriptable
 
     }
 
+    /**
+     * The compression applied to batches of events.
+     */
+    public enum Compression {
+        NONE,
+        GZIP,
+        SNAPPY,
+        LZ4,
+        ZSTD
+    }
+
     /**
      * The encoding format for events
      */
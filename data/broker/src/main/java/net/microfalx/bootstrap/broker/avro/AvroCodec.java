@@ -0,0 +1,192 @@
+package net.microfalx.bootstrap.broker.avro;
+
+import net.microfalx.bootstrap.broker.BrokerException;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericContainer;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.message.BinaryMessageDecoder;
+import org.apache.avro.message.BinaryMessageEncoder;
+import org.apache.avro.reflect.ReflectData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Encodes and decodes events with Avro, using the
+ * <a href="https://avro.apache.org/docs/current/specification/#single-object-encoding">single-object encoding</a>.
+ * <p>
+ * The schema of an event is derived (with reflection) from the class of the event, and every encoded event starts
+ * with the fingerprint of the schema, registered in an {@link AvroSchemaRegistry}. The decoder resolves the schema
+ * which encoded the event (writer schema) against the schema of the local class (reader schema), so the two can
+ * evolve independently: fields added to the class are decoded with their default value (null for objects, or the
+ * value of {@link org.apache.avro.reflect.AvroDefault}) and fields removed from the class are skipped.
+ * <p>
+ * Encoders and decoders are created once per schema (class) and reused, they are thread-safe.
+ */
+public final class AvroCodec {
+
+    private static final byte MARKER_1 = (byte) 0xC3;
+    private static final byte MARKER_2 = (byte) 0x01;
+    private static final int HEADER_SIZE = 10;
+
+    private static volatile AvroCodec DEFAULT;
+
+    private final AvroSchemaRegistry registry;
+    private final ReflectData model = ReflectData.AllowNull.get();
+    private final Map<Class<?>, Schema> schemas = new ConcurrentHashMap<>();
+    private final Map<Schema, BinaryMessageEncoder<Object>> encoders = new ConcurrentHashMap<>();
+    private final Map<Schema, BinaryMessageEncoder<Object>> genericEncoders = new ConcurrentHashMap<>();
+    private final Map<Object, BinaryMessageDecoder<Object>> decoders = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the codec which uses the default registry.
+     *
+     * @return a non-null instance
+     * @see AvroSchemaRegistry#get()
+     */
+    public static AvroCodec get() {
+        if (DEFAULT == null) {
+            synchronized (AvroCodec.class) {
+                if (DEFAULT == null) DEFAULT = create(AvroSchemaRegistry.get());
+            }
+        }
+        return DEFAULT;
+    }
+
+    /**
+     * Creates a codec which uses a given registry.
+     *
+     * @param registry the registry
+     * @return a non-null instance
+     */
+    public static AvroCodec create(AvroSchemaRegistry registry) {
+        return new AvroCodec(registry);
+    }
+
+    private AvroCodec(AvroSchemaRegistry registry) {
+        requireNonNull(registry);
+        this.registry = registry;
+    }
+
+    /**
+     * Returns the registry which holds the schemas.
+     *
+     * @return a non-null instance
+     */
+    public AvroSchemaRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Returns the schema of a class.
+     *
+     * @param type the class
+     * @return a non-null instance
+     */
+    public Schema getSchema(Class<?> type) {
+        requireNonNull(type);
+        return schemas.computeIfAbsent(type, model::getSchema);
+    }
+
+    /**
+     * Encodes a value.
+     *
+     * @param value the value, a POJO or an Avro {@link GenericContainer generic container}
+     * @return the encoded value, null if the value is null
+     */
+    public byte[] encode(Object value) {
+        if (value == null) return null;
+        Schema schema;
+        BinaryMessageEncoder<Object> encoder;
+        if (value instanceof GenericContainer container) {
+            schema = container.getSchema();
+            encoder = genericEncoders.computeIfAbsent(schema, k -> createEncoder(GenericData.get(), k));
+        } else {
+            schema = getSchema(value.getClass());
+            encoder = encoders.computeIfAbsent(schema, k -> createEncoder(model, k));
+        }
+        try {
+            ByteBuffer buffer = encoder.encode(value);
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        } catch (IOException e) {
+            throw new BrokerException("Failed to encode event with schema '" + schema.getFullName() + "'", e);
+        }
+    }
+
+    /**
+     * Decodes a value into the class which matches the schema of the encoded value.
+     * <p>
+     * If the class (of a record) cannot be found, the value is decoded as a {@link GenericData.Record}.
+     *
+     * @param bytes the encoded value
+     * @param <T>   the type of the value
+     * @return the decoded value, null if the encoded value is null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T decode(byte[] bytes) {
+        if (bytes == null) return null;
+        Schema writerSchema = getWriterSchema(bytes);
+        Class<?> type = writerSchema.getType() == Schema.Type.RECORD ? model.getClass(writerSchema) : null;
+        BinaryMessageDecoder<Object> decoder;
+        if (type != null) {
+            decoder = decoders.computeIfAbsent(type, k -> createDecoder(model, getSchema(type)));
+        } else {
+            GenericData data = writerSchema.getType() == Schema.Type.RECORD ? GenericData.get() : model;
+            decoder = decoders.computeIfAbsent(writerSchema, k -> createDecoder(data, writerSchema));
+        }
+        return (T) doDecode(decoder, bytes);
+    }
+
+    /**
+     * Decodes a value into a given class.
+     *
+     * @param bytes the encoded value
+     * @param type  the class of the decoded value
+     * @param <T>   the type of the value
+     * @return the decoded value, null if the encoded value is null
+     */
+    public <T> T decode(byte[] bytes, Class<T> type) {
+        requireNonNull(type);
+        if (bytes == null) return null;
+        BinaryMessageDecoder<Object> decoder = decoders.computeIfAbsent(type, k -> createDecoder(model, getSchema(type)));
+        return type.cast(doDecode(decoder, bytes));
+    }
+
+    private Object doDecode(BinaryMessageDecoder<Object> decoder, byte[] bytes) {
+        try {
+            return decoder.decode(bytes);
+        } catch (IOException e) {
+            throw new BrokerException("Failed to decode event", e);
+        }
+    }
+
+    private Schema getWriterSchema(byte[] bytes) {
+        if (bytes.length < HEADER_SIZE || bytes[0] != MARKER_1 || bytes[1] != MARKER_2) {
+            throw new BrokerException("Event is not encoded with Avro (single-object encoding)");
+        }
+        long fingerprint = ByteBuffer.wrap(bytes, 2, 8).order(ByteOrder.LITTLE_ENDIAN).getLong();
+        Schema schema = registry.findByFingerprint(fingerprint);
+        if (schema == null) {
+            throw new BrokerException("Avro schema with fingerprint " + Long.toHexString(fingerprint)
+                    + " is not registered in " + registry.getDirectory());
+        }
+        return schema;
+    }
+
+    private BinaryMessageEncoder<Object> createEncoder(GenericData data, Schema schema) {
+        registry.register(schema);
+        return new BinaryMessageEncoder<>(data, schema);
+    }
+
+    private BinaryMessageDecoder<Object> createDecoder(GenericData data, Schema readerSchema) {
+        registry.register(readerSchema);
+        return new BinaryMessageDecoder<>(data, readerSchema, registry);
+    }
+}
@@ -0,0 +1,134 @@
+package net.microfalx.bootstrap.broker.avro;
+
+import net.microfalx.bootstrap.broker.BrokerException;
+import net.microfalx.lang.JvmUtils;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.message.SchemaStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.FileUtils.validateDirectoryExists;
+
+/**
+ * A schema registry which keeps the Avro schemas in a local directory, one file per schema.
+ * <p>
+ * Schemas are identified by their fingerprint (the 64-bit Rabin fingerprint of the canonical form), which is the
+ * identifier written in front of every event encoded with the {@link AvroCodec}. A consumer can decode an event only
+ * if the registry (the directory) has the schema of the producer which encoded the event, so producers and consumers
+ * running on different hosts need to share the directory.
+ */
+public final class AvroSchemaRegistry implements SchemaStore {
+
+    private static final String EXTENSION = ".avsc";
+    private static volatile AvroSchemaRegistry DEFAULT;
+
+    private final File directory;
+    private final Map<Long, Schema> schemas = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the default registry, stored under the variable directory of the application.
+     *
+     * @return a non-null instance
+     */
+    public static AvroSchemaRegistry get() {
+        if (DEFAULT == null) {
+            synchronized (AvroSchemaRegistry.class) {
+                if (DEFAULT == null) DEFAULT = create(new File(JvmUtils.getVariableDirectory(), "broker/schema"));
+            }
+        }
+        return DEFAULT;
+    }
+
+    /**
+     * Creates a registry stored in a given directory.
+     *
+     * @param directory the directory
+     * @return a non-null instance
+     */
+    public static AvroSchemaRegistry create(File directory) {
+        return new AvroSchemaRegistry(directory);
+    }
+
+    private AvroSchemaRegistry(File directory) {
+        requireNonNull(directory);
+        this.directory = validateDirectoryExists(directory);
+    }
+
+    /**
+     * Returns the directory which holds the schemas.
+     *
+     * @return a non-null instance
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Registers a schema, if not already registered.
+     *
+     * @param schema the schema
+     * @return the fingerprint of the schema
+     */
+    public long register(Schema schema) {
+        requireNonNull(schema);
+        long fingerprint = SchemaNormalization.parsingFingerprint64(schema);
+        if (schemas.putIfAbsent(fingerprint, schema) == null) store(fingerprint, schema);
+        return fingerprint;
+    }
+
+    /**
+     * Returns the schemas loaded by the registry.
+     *
+     * @return a non-null instance
+     */
+    public Collection<Schema> getSchemas() {
+        return new ArrayList<>(schemas.values());
+    }
+
+    @Override
+    public Schema findByFingerprint(long fingerprint) {
+        Schema schema = schemas.get(fingerprint);
+        if (schema == null) {
+            schema = load(fingerprint);
+            if (schema != null) schemas.putIfAbsent(fingerprint, schema);
+        }
+        return schema;
+    }
+
+    private Schema load(long fingerprint) {
+        File file = getFile(fingerprint);
+        if (!file.exists()) return null;
+        try {
+            return new Schema.Parser().parse(file);
+        } catch (IOException e) {
+            throw new BrokerException("Failed to load Avro schema from " + file, e);
+        }
+    }
+
+    private void store(long fingerprint, Schema schema) {
+        File file = getFile(fingerprint);
+        if (file.exists()) return;
+        try {
+            File temporaryFile = File.createTempFile("schema", EXTENSION, directory);
+            Files.writeString(temporaryFile.toPath(), schema.toString(true), StandardCharsets.UTF_8);
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            schemas.remove(fingerprint);
+            throw new BrokerException("Failed to store Avro schema '" + schema.getFullName() + "' in " + file, e);
+        }
+    }
+
+    private File getFile(long fingerprint) {
+        return new File(directory, Long.toHexString(fingerprint) + EXTENSION);
+    }
+}
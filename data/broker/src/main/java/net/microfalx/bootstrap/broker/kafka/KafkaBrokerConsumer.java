@@ -108,6 +108,39 @@ public class KafkaBrokerConsumer<K, V> extends BrokerConsumer<K, V> {
         });
     }
 
+    @Override
+    protected void doCommit(Collection<? extends Event<K, V>> events) {
+        checkClosed();
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (Event<K, V> event : events) {
+            TopicPartition partition = toTopicPartition(event.getOffset().getPartition());
+            if (!currentPartitions.contains(partition)) continue;
+            long nextOffset = ((Number) event.getOffset().getValue()).longValue() + 1;
+            offsets.merge(partition, new OffsetAndMetadata(nextOffset), (o1, o2) -> o1.offset() >= o2.offset() ? o1 : o2);
+        }
+        if (offsets.isEmpty()) return;
+        doWithStatus(Status.COMMIT, (t) -> {
+            try {
+                consumer.commitSync(offsets);
+            } catch (Exception e) {
+                handleException(e);
+                throw new BrokerException("Failed to commit events to " + BrokerUtils.describe(getTopic()), e);
+            }
+        });
+    }
+
+    @Override
+    protected void doPause(Collection<Partition> partitions) {
+        checkClosed();
+        consumer.pause(partitions.stream().map(this::toTopicPartition).toList());
+    }
+
+    @Override
+    protected void doResume(Collection<Partition> partitions) {
+        checkClosed();
+        consumer.resume(partitions.stream().map(this::toTopicPartition).toList());
+    }
+
     @Override
     protected void doRollback() {
         checkClosed();
@@ -137,6 +170,10 @@ public class KafkaBrokerConsumer<K, V> extends BrokerConsumer<K, V> {
         return props;
     }
 
+    private TopicPartition toTopicPartition(Partition partition) {
+        return new TopicPartition(getTopic().getName(), ((Number) partition.getValue()).intValue());
+    }
+
     private static String getOffsetResetStrategy(Topic.OffsetResetStrategy strategy) {
         return switch (strategy) {
             case LATEST -> "latest";
@@ -1,23 +1,37 @@
 package net.microfalx.bootstrap.broker.kafka;
 
-import net.microfalx.bootstrap.broker.BrokerProducer;
-import net.microfalx.bootstrap.broker.BrokerService;
-import net.microfalx.bootstrap.broker.Topic;
+import net.microfalx.bootstrap.broker.*;
 import net.microfalx.lang.IOUtils;
-import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.serialization.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static net.microfalx.lang.ExceptionUtils.getRootCauseDescription;
 
 public class KafkaBrokerProducer<K, V> extends BrokerProducer<K, V> {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(KafkaBrokerProducer.class);
+
     private static final ThreadLocal<Serializer<?>> SERIALIZER = new ThreadLocal<>();
 
     private volatile Producer<K, V> producer;
+    /**
+     * Sends (which join the current transaction) hold the read lock, the transaction is started, committed or
+     * aborted under the write lock, so a commit never misses an event which was already added to the transaction.
+     */
+    private final ReadWriteLock transactionLock = new ReentrantReadWriteLock();
+    private volatile boolean transactionActive;
 
     public KafkaBrokerProducer(BrokerService brokerService, Topic topic) {
         super(brokerService, topic);
@@ -25,9 +39,9 @@ public class KafkaBrokerProducer<K, V> extends BrokerProducer<K, V> {
 
     @Override
     public void doInitialize(Object... context) {
-        Topic topic = getTopic();
         final Map<String, Object> props = createProperties();
-        producer = new KafkaProducer<>(props);
+        producer = createProducer(props);
+        if (isTransactional()) producer.initTransactions();
     }
 
     @Override
@@ -41,25 +55,140 @@ public class KafkaBrokerProducer<K, V> extends BrokerProducer<K, V> {
     }
 
     @Override
-    protected void doSend(K key, V event) {
-checkClosed();
+    protected CompletableFuture<PartitionOffset> doSend(K key, V event) {
+        checkClosed();
+        if (!isTransactional()) return send(key, event);
+        Lock lock = beginTransaction();
+        try {
+            return send(key, event);
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
     protected void doCommit() {
         checkClosed();
-        if (getTopic().isAutoCommit()) {
-            producer.flush();
-        } else {
-            producer.commitTransaction();
-        }
+        doWithStatus(Status.COMMIT, (t) -> {
+            try {
+                if (isTransactional()) {
+                    commitTransaction();
+                } else {
+                    producer.flush();
+                }
+            } catch (Exception e) {
+                handleException(e);
+                throw new BrokerException("Failed to commit events to " + BrokerUtils.describe(getTopic()), e);
+            }
+        });
     }
 
     @Override
     protected void doRollback() {
         checkClosed();
-        if (!getTopic().isAutoCommit()) {
-            producer.commitTransaction();
+        if (!isTransactional()) return;
+        doWithStatus(Status.ROLLBACK, (t) -> {
+            try {
+                abortTransaction();
+            } catch (Exception e) {
+                handleException(e);
+                throw new BrokerException("Failed to rollback events to " + BrokerUtils.describe(getTopic()), e);
+            }
+        });
+    }
+
+    /**
+     * Creates the Kafka producer.
+     *
+     * @param properties the producer properties
+     * @return a non-null instance
+     */
+    Producer<K, V> createProducer(Map<String, Object> properties) {
+        return new KafkaProducer<>(properties);
+    }
+
+    private boolean isTransactional() {
+        return !getTopic().isAutoCommit();
+    }
+
+    private CompletableFuture<PartitionOffset> send(K key, V event) {
+        Topic topic = getTopic();
+        CompletableFuture<PartitionOffset> future = new CompletableFuture<>();
+        producer.send(new ProducerRecord<>(topic.getName(), key, event), (metadata, exception) -> {
+            if (exception != null) {
+                future.completeExceptionally(new BrokerException("Failed to send event to " + BrokerUtils.describe(topic), exception));
+            } else {
+                Partition partition = Partition.create(topic, metadata.partition());
+                future.complete(PartitionOffset.create(partition, metadata.offset()));
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Starts a transaction, if one is not already active.
+     *
+     * @return the (acquired) read lock, to be released after the event is sent
+     */
+    private Lock beginTransaction() {
+        Lock readLock = transactionLock.readLock();
+        readLock.lock();
+        if (transactionActive) return readLock;
+        readLock.unlock();
+        Lock writeLock = transactionLock.writeLock();
+        writeLock.lock();
+        try {
+            if (!transactionActive) {
+                producer.beginTransaction();
+                transactionActive = true;
+            }
+            // downgrade, the transaction cannot end until the event is sent
+            readLock.lock();
+        } finally {
+            writeLock.unlock();
+        }
+        return readLock;
+    }
+
+    private void commitTransaction() {
+        Lock writeLock = transactionLock.writeLock();
+        writeLock.lock();
+        try {
+            if (!transactionActive) return;
+            try {
+                producer.commitTransaction();
+            } catch (Exception e) {
+                abortTransactionQuietly();
+                throw e;
+            } finally {
+                transactionActive = false;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void abortTransaction() {
+        Lock writeLock = transactionLock.writeLock();
+        writeLock.lock();
+        try {
+            if (!transactionActive) return;
+            try {
+                producer.abortTransaction();
+            } finally {
+                transactionActive = false;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void abortTransactionQuietly() {
+        try {
+            producer.abortTransaction();
+        } catch (Exception e) {
+            LOGGER.warn("Failed to abort transaction for {}, root cause: {}", BrokerUtils.describe(getTopic()),
+                    getRootCauseDescription(e));
         }
     }
 
@@ -67,12 +196,19 @@ checkClosed();
         Topic topic = getTopic();
         SERIALIZER.set(new KafkaSerializer<>(topic));
         final Map<String, Object> props = new HashMap<>(topic.getBroker().getParameters());
-        props.put(ConsumerConfig.CLIENT_ID_CONFIG, topic.getClientId());
-        props.putIfAbsent(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, topic.getMaximumPollRecords());
-        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, SerializerWrapper.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, SerializerWrapper.class);
-        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, topic.isAutoCommit());
-        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "snappy");
+        props.put(ProducerConfig.CLIENT_ID_CONFIG, topic.getClientId());
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, SerializerWrapper.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, SerializerWrapper.class);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, topic.getLingerTime().toMillis());
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, topic.getBatchSize());
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, topic.getCompression().name().toLowerCase());
+        if (isTransactional()) {
+            // each producer needs its own transactional identifier, producers sharing one fence each other
+            String transactionalId = (String) props.get(ProducerConfig.TRANSACTIONAL_ID_CONFIG);
+            if (transactionalId == null) transactionalId = topic.getClientId();
+            props.put(ProducerConfig.TRANSACTIONAL_ID_CONFIG, transactionalId + "-" + getId());
+            props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        }
         return props;
     }
 
@@ -2,6 +2,7 @@ package net.microfalx.bootstrap.broker.kafka;
 
 import net.microfalx.bootstrap.broker.BrokerException;
 import net.microfalx.bootstrap.broker.Topic;
+import net.microfalx.bootstrap.broker.avro.AvroCodec;
 import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.Deserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
@@ -17,6 +18,7 @@ class KafkaDeserializer<T> implements Deserializer<T> {
         switch (topic.getFormat()) {
             case RAW -> deserializer = (Deserializer<T>) new ByteArrayDeserializer();
             case JSON -> deserializer = new JsonDeserializer<>();
+            case AVRO -> deserializer = (name, data) -> AvroCodec.get().decode(data);
             default -> {
                 throw new BrokerException("Unsupported format '" + topic.getFormat() + "' for topic '" + this.topic.getName() + "'");
             }
@@ -2,6 +2,7 @@ package net.microfalx.bootstrap.broker.kafka;
 
 import net.microfalx.bootstrap.broker.BrokerException;
 import net.microfalx.bootstrap.broker.Topic;
+import net.microfalx.bootstrap.broker.avro.AvroCodec;
 import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.Serializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
@@ -17,6 +18,7 @@ class KafkaSerializer<T> implements Serializer<T> {
         switch (topic.getFormat()) {
             case RAW -> serializer = (Serializer<T>) new ByteArraySerializer();
             case JSON -> serializer = new JsonSerializer<>();
+            case AVRO -> serializer = (name, data) -> AvroCodec.get().encode(data);
             default -> {
                 throw new BrokerException("Unsupported format '" + topic.getFormat() + "'  for topic '" + this.topic.getName() + "'");
             }
@@ -7,9 +7,9 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import static java.util.Collections.unmodifiableCollection;
@@ -21,7 +21,8 @@ public class PulsarBrokerConsumer<K, V> extends BrokerConsumer<K, V> {
     private final PulsarClient client;
     private volatile Consumer<V> consumer;
 
-    private final Queue<MessageId> pendingAcknowledge = new LinkedBlockingQueue<>();
+    private final Set<MessageId> pendingAcknowledge = ConcurrentHashMap.newKeySet();
+    private final Set<Partition> pausedPartitions = ConcurrentHashMap.newKeySet();
 
     public PulsarBrokerConsumer(BrokerService brokerService, Topic topic, PulsarClient client) {
         super(brokerService, topic);
@@ -81,6 +82,33 @@ public class PulsarBrokerConsumer<K, V> extends BrokerConsumer<K, V> {
         });
     }
 
+    @Override
+    protected void doCommit(Collection<? extends Event<K, V>> events) {
+        checkClosed();
+        doWithStatus(Status.COMMIT, (t) -> {
+            for (Event<K, V> event : events) {
+                MessageId messageId = ((PulsarEvent<K, V>) event).getMessage().getMessageId();
+                acknowledge(messageId);
+                pendingAcknowledge.remove(messageId);
+            }
+        });
+    }
+
+    @Override
+    protected void doPause(Collection<Partition> partitions) {
+        checkClosed();
+        // Pulsar pauses the whole consumer, the consumer is paused while at least one partition is paused
+        pausedPartitions.addAll(partitions);
+        consumer.pause();
+    }
+
+    @Override
+    protected void doResume(Collection<Partition> partitions) {
+        checkClosed();
+        pausedPartitions.removeAll(partitions);
+        if (pausedPartitions.isEmpty()) consumer.resume();
+    }
+
     @Override
     protected void doRollback() {
         checkClosed();
@@ -1,10 +1,10 @@
 package net.microfalx.bootstrap.broker.pulsar;
 
-import net.microfalx.bootstrap.broker.BrokerProducer;
-import net.microfalx.bootstrap.broker.BrokerService;
-import net.microfalx.bootstrap.broker.Topic;
+import net.microfalx.bootstrap.broker.*;
 import org.apache.pulsar.client.api.PulsarClient;
 
+import java.util.concurrent.CompletableFuture;
+
 import static net.microfalx.lang.ArgumentUtils.requireNonNull;
 
 public class PulsarBrokerProducer<K, V> extends BrokerProducer<K, V> {
@@ -43,7 +43,9 @@ public class PulsarBrokerProducer<K, V> extends BrokerProducer<K, V> {
     }
 
     @Override
-    protected void doSend(K key, V event) {
+    protected CompletableFuture<PartitionOffset> doSend(K key, V event) {
         checkClosed();
+        return CompletableFuture.failedFuture(new BrokerException("Sending events is not supported for "
+                + BrokerUtils.describe(getTopic())));
     }
 }
@@ -40,7 +40,7 @@ class PulsarEvent<K, V> implements Event<K, V> {
 
     @Override
     public PartitionOffset getOffset() {
-        return PartitionOffset.create(Partition.create(topic, 1), 1);
+        return PartitionOffset.create(Partition.create(topic, message.getTopicName()), message.getMessageId());
     }
 
     @Override
@@ -2,6 +2,7 @@ package net.microfalx.bootstrap.broker.pulsar;
 
 import net.microfalx.bootstrap.broker.BrokerException;
 import net.microfalx.bootstrap.broker.Topic;
+import net.microfalx.bootstrap.broker.avro.AvroCodec;
 import net.microfalx.lang.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.kafka.common.serialization.ByteArrayDeserializer;
@@ -49,6 +50,7 @@ public class PulsarSchema<T> extends AbstractSchema<T> {
         return switch (topic.getFormat()) {
             case RAW -> new ByteArraySerializer().serialize(topic.getName(), (byte[]) message);
             case JSON -> new JsonSerializer<>().serialize(topic.getName(), message);
+            case AVRO -> AvroCodec.get().encode(message);
             default -> throw new BrokerException("Unsupported format: " + topic.getFormat());
         };
     }
@@ -63,6 +65,7 @@ public class PulsarSchema<T> extends AbstractSchema<T> {
             return switch (topic.getFormat()) {
                 case RAW -> (T) new ByteArrayDeserializer().deserialize(topic.getName(), bytes);
                 case JSON -> (T) new JsonDeserializer<>().deserialize(topic.getName(), bytes);
+                case AVRO -> AvroCodec.get().decode(bytes);
                 default -> throw new BrokerException("Unsupported format: " + topic.getFormat());
             };
         } catch (Exception e) {
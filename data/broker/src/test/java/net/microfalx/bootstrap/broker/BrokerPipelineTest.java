@@ -0,0 +1,263 @@
+package net.microfalx.bootstrap.broker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BrokerPipelineTest {
+
+    private final BrokerService brokerService = new BrokerService();
+    private final Broker broker = Broker.builder(Broker.Type.KAFKA, "test").build();
+    private final Topic topic = Topic.create(broker, "events").withAutoCommit(false);
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    private final MemoryConsumer consumer = new MemoryConsumer();
+    private BrokerPipeline<String, String> pipeline;
+
+    @AfterEach
+    void release() {
+        if (pipeline != null) pipeline.stop(Duration.ofSeconds(5));
+        executor.shutdownNow();
+    }
+
+    @Test
+    void processInOrderPerKey() {
+        Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+        pipeline = createPipeline(event -> processed.computeIfAbsent(event.getKey(), k -> new CopyOnWriteArrayList<>())
+                .add(Integer.parseInt(event.getValue())));
+        for (int i = 0; i < 1000; i++) {
+            consumer.add(i % 4, "k" + (i % 10), Integer.toString(i));
+        }
+        pipeline.start();
+        waitUntil(() -> pipeline.getProcessedCount() == 1000);
+        assertEquals(10, processed.size());
+        for (List<Integer> values : processed.values()) {
+            List<Integer> sortedValues = new ArrayList<>(values);
+            Collections.sort(sortedValues);
+            assertEquals(sortedValues, values);
+        }
+        waitUntil(() -> consumer.getCommittedCount() == 1000);
+        assertEquals(0, pipeline.getFailedCount());
+    }
+
+    @Test
+    void commitContiguousEvents() {
+        CountDownLatch latch = new CountDownLatch(1);
+        pipeline = createPipeline(event -> {
+            if ("slow".equals(event.getKey())) await(latch);
+        });
+        consumer.add(0, "k1", "v1");
+        consumer.add(0, "slow", "v2");
+        consumer.add(0, "k2", "v3");
+        consumer.add(0, "k3", "v4");
+        pipeline.start();
+        waitUntil(() -> pipeline.getProcessedCount() == 3);
+        waitUntil(() -> consumer.getCommittedCount() == 1);
+        sleep(100);
+        assertEquals(1, consumer.getCommittedCount());
+        latch.countDown();
+        waitUntil(() -> consumer.getCommittedCount() == 4);
+    }
+
+    @Test
+    void pauseSlowPartitions() {
+        CountDownLatch latch = new CountDownLatch(1);
+        pipeline = createPipeline(event -> await(latch)).setMaximumPendingEvents(4);
+        for (int i = 0; i < 10; i++) {
+            consumer.add(0, "k" + i, "v" + i);
+        }
+        pipeline.start();
+        waitUntil(() -> consumer.pausedPartitions.contains(Partition.create(topic, 0)));
+        assertEquals(1, pipeline.getPausedPartitions().size());
+        latch.countDown();
+        waitUntil(() -> consumer.pausedPartitions.isEmpty());
+        waitUntil(() -> consumer.getCommittedCount() == 10);
+    }
+
+    @Test
+    void handlerFailure() {
+        pipeline = createPipeline(event -> {
+            if ("bad".equals(event.getKey())) throw new IllegalStateException("Cannot process");
+        });
+        consumer.add(0, "k1", "v1");
+        consumer.add(0, "bad", "v2");
+        consumer.add(0, "k2", "v3");
+        pipeline.start();
+        waitUntil(() -> consumer.getCommittedCount() == 3);
+        assertEquals(3, pipeline.getProcessedCount());
+        assertEquals(1, pipeline.getFailedCount());
+    }
+
+    @Test
+    void stopCommitsProcessedEvents() {
+        pipeline = createPipeline(event -> sleep(1)).setCommitInterval(Duration.ofHours(1));
+        for (int i = 0; i < 50; i++) {
+            consumer.add(i % 2, "k" + i, "v" + i);
+        }
+        pipeline.start();
+        waitUntil(() -> pipeline.getProcessedCount() == 50);
+        assertEquals(0, consumer.getCommittedCount());
+        pipeline.stop(Duration.ofSeconds(5));
+        waitUntil(() -> consumer.getCommittedCount() == 50);
+    }
+
+    @Test
+    void rejectedExecution() {
+        AtomicInteger rejectedCount = new AtomicInteger();
+        pipeline = createPipeline(event -> sleep(1)).setExecutor(task -> {
+            if (rejectedCount.incrementAndGet() <= 5) throw new RejectedExecutionException("Busy");
+            executor.execute(task);
+        });
+        for (int i = 0; i < 20; i++) {
+            consumer.add(0, "k" + i, "v" + i);
+        }
+        pipeline.start();
+        waitUntil(() -> consumer.getCommittedCount() == 20);
+        assertEquals(20, pipeline.getProcessedCount());
+    }
+
+    private BrokerPipeline<String, String> createPipeline(java.util.function.Consumer<Event<String, String>> handler) {
+        return BrokerPipeline.create(consumer, handler).setExecutor(executor).setLaneCount(4)
+                .setPollTimeout(Duration.ofMillis(10)).setCommitInterval(Duration.ofMillis(10));
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long end = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > end) fail("Condition not met in time");
+            sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class MemoryConsumer extends BrokerConsumer<String, String> {
+
+        private final Queue<Event<String, String>> events = new ConcurrentLinkedQueue<>();
+        private final Set<PartitionOffset> committed = ConcurrentHashMap.newKeySet();
+        private final Set<Partition> pausedPartitions = ConcurrentHashMap.newKeySet();
+        private final Map<Partition, Long> offsets = new HashMap<>();
+
+        private MemoryConsumer() {
+            super(brokerService, topic);
+        }
+
+        private void add(int partitionId, String key, String value) {
+            Partition partition = Partition.create(topic, partitionId);
+            long offset = offsets.merge(partition, 1L, Long::sum) - 1;
+            events.add(new MemoryEvent(PartitionOffset.create(partition, offset), key, value));
+        }
+
+        private int getCommittedCount() {
+            return committed.size();
+        }
+
+        @Override
+        public long getLag() {
+            return events.size();
+        }
+
+        @Override
+        public Collection<Partition> getPartitions() {
+            return offsets.keySet();
+        }
+
+        @Override
+        protected Collection<Event<String, String>> doPoll(Duration timeout) {
+            Collection<Event<String, String>> polledEvents = new ArrayList<>();
+            Iterator<Event<String, String>> iterator = events.iterator();
+            while (iterator.hasNext() && polledEvents.size() < 10) {
+                Event<String, String> event = iterator.next();
+                if (pausedPartitions.contains(event.getOffset().getPartition())) continue;
+                iterator.remove();
+                polledEvents.add(event);
+            }
+            if (polledEvents.isEmpty()) sleep(timeout.toMillis());
+            return polledEvents;
+        }
+
+        @Override
+        protected void doCommit() {
+            // nothing to commit
+        }
+
+        @Override
+        protected void doCommit(Collection<? extends Event<String, String>> events) {
+            events.forEach(event -> assertTrue(committed.add(event.getOffset())));
+        }
+
+        @Override
+        protected void doRollback() {
+            // nothing to rollback
+        }
+
+        @Override
+        protected void doPause(Collection<Partition> partitions) {
+            pausedPartitions.addAll(partitions);
+        }
+
+        @Override
+        protected void doResume(Collection<Partition> partitions) {
+            pausedPartitions.removeAll(partitions);
+        }
+
+        @Override
+        protected void doInitialize(Object... context) {
+            // nothing to initialize
+        }
+
+        @Override
+        protected void doRelease() {
+            // nothing to release
+        }
+    }
+
+    private record MemoryEvent(PartitionOffset offset, String key, String value) implements Event<String, String> {
+
+        @Override
+        public String getId() {
+            return offset.getId();
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public String getValue() {
+            return value;
+        }
+
+        @Override
+        public PartitionOffset getOffset() {
+            return offset;
+        }
+
+        @Override
+        public LocalDateTime getTimestamp() {
+            return LocalDateTime.MIN;
+        }
+    }
+}
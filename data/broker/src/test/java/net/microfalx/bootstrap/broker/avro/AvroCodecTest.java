@@ -0,0 +1,174 @@
+package net.microfalx.bootstrap.broker.avro;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.microfalx.bootstrap.broker.BrokerException;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AvroCodecTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AvroCodecTest.class);
+
+    @TempDir
+    private File directory;
+
+    private AvroCodec codec;
+
+    @BeforeEach
+    void setup() {
+        codec = AvroCodec.create(AvroSchemaRegistry.create(directory));
+    }
+
+    @Test
+    void encodeAndDecode() {
+        Order order = createOrder(1);
+        byte[] bytes = codec.encode(order);
+        assertEquals((byte) 0xC3, bytes[0]);
+        assertEquals((byte) 0x01, bytes[1]);
+        assertOrder(order, codec.decode(bytes));
+        assertOrder(order, codec.decode(bytes, Order.class));
+    }
+
+    @Test
+    void encodeNull() {
+        assertNull(codec.encode(null));
+        assertNull(codec.decode(null));
+    }
+
+    @Test
+    void encodeString() {
+        assertEquals("text", codec.decode(codec.encode("text")).toString());
+    }
+
+    @Test
+    void registry() {
+        byte[] bytes = codec.encode(createOrder(1));
+        assertEquals(1, codec.getRegistry().getSchemas().size());
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".avsc"));
+        assertNotNull(files);
+        assertEquals(1, files.length);
+
+        AvroCodec otherCodec = AvroCodec.create(AvroSchemaRegistry.create(directory));
+        assertOrder(createOrder(1), otherCodec.decode(bytes));
+    }
+
+    @Test
+    void unknownSchema(@TempDir File otherDirectory) {
+        byte[] bytes = codec.encode(createOrder(1));
+        AvroCodec otherCodec = AvroCodec.create(AvroSchemaRegistry.create(otherDirectory));
+        assertThrows(BrokerException.class, () -> otherCodec.decode(bytes));
+        assertThrows(BrokerException.class, () -> codec.decode(new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    void schemaEvolution() {
+        Schema schema = codec.getSchema(Order.class);
+        List<Schema.Field> fields = new ArrayList<>();
+        for (Schema.Field field : schema.getFields()) {
+            if (!field.name().equals("tags")) fields.add(new Schema.Field(field, field.schema()));
+        }
+        Schema previousSchema = Schema.createRecord(schema.getName(), null, schema.getNamespace(), false, fields);
+        GenericRecord record = new GenericData.Record(previousSchema);
+        record.put("id", "o1");
+        record.put("customer", "c1");
+        record.put("quantity", 5);
+        record.put("price", 10.5);
+        record.put("createdAt", 1000L);
+
+        Order order = codec.decode(codec.encode(record));
+        assertEquals("o1", order.id);
+        assertEquals("c1", order.customer);
+        assertEquals(5, order.quantity);
+        assertEquals(10.5, order.price);
+        assertEquals(1000L, order.createdAt);
+        assertNull(order.tags);
+    }
+
+    @Test
+    void payloadSize() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Order order = createOrder(1);
+        int avroSize = codec.encode(order).length;
+        int jsonSize = objectMapper.writeValueAsBytes(order).length;
+        assertTrue(avroSize < jsonSize);
+        LOGGER.info("Payload size, Avro {} bytes, JSON {} bytes", avroSize, jsonSize);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "broker.benchmark", matches = "true")
+    void benchmark() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        int iterations = 500_000;
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            orders.add(createOrder(i));
+        }
+        long avroBytes = 0;
+        long jsonBytes = 0;
+        for (int i = 0; i < iterations / 10; i++) {
+            Order order = orders.get(i % orders.size());
+            codec.decode(codec.encode(order), Order.class);
+            objectMapper.readValue(objectMapper.writeValueAsBytes(order), Order.class);
+        }
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            byte[] bytes = codec.encode(orders.get(i % orders.size()));
+            avroBytes += bytes.length;
+            assertNotNull(codec.decode(bytes, Order.class));
+        }
+        long avroDuration = System.nanoTime() - startTime;
+        startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            byte[] bytes = objectMapper.writeValueAsBytes(orders.get(i % orders.size()));
+            jsonBytes += bytes.length;
+            assertNotNull(objectMapper.readValue(bytes, Order.class));
+        }
+        long jsonDuration = System.nanoTime() - startTime;
+        LOGGER.info("Encoded and decoded {} events, Avro {}ns/event ({} bytes/event), JSON {}ns/event ({} bytes/event)",
+                iterations, avroDuration / iterations, avroBytes / iterations, jsonDuration / iterations,
+                jsonBytes / iterations);
+    }
+
+    private Order createOrder(int index) {
+        Order order = new Order();
+        order.id = "order-" + index;
+        order.customer = "customer-" + (index % 10);
+        order.quantity = index;
+        order.price = index * 1.5;
+        order.createdAt = 1_700_000_000_000L + index;
+        order.tags = List.of("priority", "region-" + (index % 3));
+        return order;
+    }
+
+    private void assertOrder(Order expected, Order actual) {
+        assertEquals(expected.id, actual.id);
+        assertEquals(expected.customer, actual.customer);
+        assertEquals(expected.quantity, actual.quantity);
+        assertEquals(expected.price, actual.price);
+        assertEquals(expected.createdAt, actual.createdAt);
+        assertEquals(expected.tags, actual.tags);
+    }
+
+    public static class Order {
+
+        public String id;
+        public String customer;
+        public int quantity;
+        public double price;
+        public long createdAt;
+        public List<String> tags;
+    }
+}
@@ -0,0 +1,196 @@
+package net.microfalx.bootstrap.broker.kafka;
+
+import net.microfalx.bootstrap.broker.*;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KafkaBrokerProducerTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KafkaBrokerProducerTest.class);
+
+    private final BrokerService brokerService = new BrokerService();
+    private final Broker broker = Broker.builder(Broker.Type.KAFKA, "test").build();
+    private MockProducer<String, String> mockProducer;
+    private KafkaBrokerProducer<String, String> producer;
+    private Map<String, Object> properties;
+
+    @AfterEach
+    void release() {
+        if (producer != null) producer.release();
+    }
+
+    @Test
+    void sendAsync() {
+        createProducer(Topic.create(broker, "events").withAutoCommit(true), true);
+        PartitionOffset offset1 = producer.sendAsync("k1", "v1").join();
+        PartitionOffset offset2 = producer.sendAsync("k2", "v2").join();
+        assertEquals(0L, offset1.getValue());
+        assertEquals(1L, offset2.getValue());
+        assertEquals(2, mockProducer.history().size());
+        assertEquals("k1", mockProducer.history().get(0).key());
+        assertEquals(2, producer.getEventCount());
+    }
+
+    @Test
+    void sendAll() {
+        createProducer(Topic.create(broker, "events").withAutoCommit(true), true);
+        Collection<Event<String, String>> events = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            events.add(Event.create("k" + i, "v" + i));
+        }
+        List<PartitionOffset> offsets = producer.sendAll(events).join();
+        assertEquals(100, offsets.size());
+        assertEquals(99L, offsets.get(99).getValue());
+        assertEquals(100, mockProducer.history().size());
+    }
+
+    @Test
+    void sendFailure() {
+        createProducer(Topic.create(broker, "events").withAutoCommit(true), false);
+        CompletableFuture<PartitionOffset> future = producer.sendAsync("k1", "v1");
+        assertFalse(future.isDone());
+        assertTrue(mockProducer.errorNext(new RuntimeException("Broker is down")));
+        CompletionException exception = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(BrokerException.class, exception.getCause());
+        assertNotNull(producer.getLastFailure());
+        assertThrows(BrokerException.class, () -> producer.commit());
+        producer.commit();
+    }
+
+    @Test
+    void commitTransaction() {
+        createProducer(Topic.create(broker, "events").withAutoCommit(false), true);
+        assertTrue(mockProducer.transactionInitialized());
+        producer.send("k1", "v1");
+        producer.send("k2", "v2");
+        assertTrue(mockProducer.transactionInFlight());
+        producer.commit();
+        assertTrue(mockProducer.transactionCommitted());
+        assertFalse(mockProducer.transactionInFlight());
+        assertEquals(2, mockProducer.history().size());
+    }
+
+    @Test
+    void abortTransaction() {
+        createProducer(Topic.create(broker, "events").withAutoCommit(false), true);
+        producer.send("k1", "v1");
+        producer.rollback();
+        assertTrue(mockProducer.transactionAborted());
+        assertFalse(mockProducer.transactionCommitted());
+        assertTrue(mockProducer.history().isEmpty());
+        producer.send("k2", "v2");
+        producer.commit();
+        assertEquals(1, mockProducer.history().size());
+        assertEquals("k2", mockProducer.history().get(0).key());
+    }
+
+    @Test
+    void transactionalIdPerProducer() {
+        Topic topic = Topic.create(broker, "events").withAutoCommit(false);
+        createProducer(topic, true);
+        Object transactionalId1 = properties.get(ProducerConfig.TRANSACTIONAL_ID_CONFIG);
+        producer.release();
+        createProducer(topic, true);
+        Object transactionalId2 = properties.get(ProducerConfig.TRANSACTIONAL_ID_CONFIG);
+        assertNotNull(transactionalId1);
+        assertNotEquals(transactionalId1, transactionalId2);
+        assertTrue(transactionalId1.toString().startsWith(topic.getClientId()));
+    }
+
+    @Test
+    void sendAndCommitConcurrently() throws Exception {
+        createProducer(Topic.create(broker, "events").withAutoCommit(false), true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int index = thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 250; i++) {
+                        producer.send("k" + index + "_" + i, "v" + i);
+                        if (i % 50 == 0) producer.commit();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        producer.commit();
+        assertFalse(mockProducer.transactionInFlight());
+        assertEquals(1000, mockProducer.history().size());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "broker.benchmark", matches = "true")
+    void throughput() throws Exception {
+        EmbeddedKafkaBroker kafka = new EmbeddedKafkaKraftBroker(1, 4, "throughput");
+        kafka.afterPropertiesSet();
+        try {
+            Broker embeddedBroker = Broker.builder(Broker.Type.KAFKA, "embedded")
+                    .parameter("bootstrap.servers", kafka.getBrokersAsString()).build();
+            Topic topic = Topic.create(embeddedBroker, "throughput").withFormat(Topic.Format.RAW).withAutoCommit(true);
+            int count = 100_000;
+            List<Event<byte[], byte[]>> events = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                events.add(Event.create(null, new byte[256]));
+            }
+            KafkaBrokerProducer<byte[], byte[]> rawProducer = new KafkaBrokerProducer<>(brokerService, topic);
+            rawProducer.initialize();
+            try {
+                long startTime = System.nanoTime();
+                for (int i = 0; i < count / 10; i++) {
+                    rawProducer.sendAsync(events.get(i).getValue()).join();
+                }
+                long syncDuration = (System.nanoTime() - startTime) / (count / 10);
+                startTime = System.nanoTime();
+                rawProducer.sendAll(events).join();
+                long batchDuration = (System.nanoTime() - startTime) / count;
+                rawProducer.commit();
+                assertTrue(batchDuration < syncDuration);
+                LOGGER.info("Sent {} events, one at a time {}ns/event, batched {}ns/event", count, syncDuration,
+                        batchDuration);
+            } finally {
+                rawProducer.release();
+            }
+        } finally {
+            kafka.destroy();
+        }
+    }
+
+    private void createProducer(Topic topic, boolean autoComplete) {
+        mockProducer = new MockProducer<>(autoComplete, new StringSerializer(), new StringSerializer());
+        producer = new KafkaBrokerProducer<>(brokerService, topic) {
+
+            @Override
+            Producer<String, String> createProducer(Map<String, Object> properties) {
+                KafkaBrokerProducerTest.this.properties = properties;
+                return mockProducer;
+            }
+        };
+        producer.initialize();
+    }
+}
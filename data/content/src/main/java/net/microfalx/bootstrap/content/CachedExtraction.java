@@ -0,0 +1,94 @@
+package net.microfalx.bootstrap.content;
+
+import net.microfalx.bootstrap.model.Attribute;
+import net.microfalx.bootstrap.model.Attributes;
+import net.microfalx.lang.Identifiable;
+import net.microfalx.resource.MemoryResource;
+import org.apache.tika.metadata.Metadata;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Holds the text and metadata extracted from a document, as stored by the {@link ExtractionCache}.
+ */
+final class CachedExtraction implements Identifiable<String> {
+
+    private String id;
+    private String text;
+    private Map<String, String> attributes = new HashMap<>();
+    private Map<String, String[]> metadata = new HashMap<>();
+    private long createdAt;
+    long accessedAt;
+
+    CachedExtraction() {
+    }
+
+    CachedExtraction(String id, String text, Attributes<?> attributes, Metadata metadata) {
+        requireNonNull(id);
+        requireNonNull(text);
+        this.id = id;
+        this.text = text;
+        for (Attribute attribute : attributes.toCollection()) {
+            this.attributes.put(attribute.getName(), attribute.asString());
+        }
+        for (String name : metadata.names()) {
+            this.metadata.put(name, metadata.getValues(name));
+        }
+        this.createdAt = System.currentTimeMillis();
+        this.accessedAt = createdAt;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the (approximate) size of the entry, in bytes.
+     *
+     * @return a positive integer
+     */
+    long getSize() {
+        long size = 2L * text.length();
+        for (Map.Entry<String, String> entry : attributes.entrySet()) {
+            size += 2L * (entry.getKey().length() + entry.getValue().length());
+        }
+        return size;
+    }
+
+    /**
+     * Creates the content from the cached text and copies the cached metadata into the given collector.
+     *
+     * @param extractAttributes {@code true} to attach the extracted attributes to the content
+     * @param metadata          the metadata collector
+     * @return a non-null instance
+     */
+    Content toContent(boolean extractAttributes, Metadata metadata) {
+        for (Map.Entry<String, String[]> entry : this.metadata.entrySet()) {
+            for (String value : entry.getValue()) {
+                metadata.add(entry.getKey(), value);
+            }
+        }
+        Content content = Content.create(MemoryResource.create(text));
+        if (extractAttributes && !attributes.isEmpty()) {
+            Attributes<Attribute> contentAttributes = Attributes.create();
+            attributes.forEach(contentAttributes::add);
+            content = content.withAttributes(contentAttributes);
+        }
+        return content;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", CachedExtraction.class.getSimpleName() + "[", "]")
+                .add("id='" + id + "'")
+                .add("length=" + text.length())
+                .add("attributes=" + attributes.size())
+                .add("accessedAt=" + accessedAt)
+                .toString();
+    }
+}
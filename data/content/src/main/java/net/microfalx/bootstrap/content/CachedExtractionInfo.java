@@ -0,0 +1,56 @@
+package net.microfalx.bootstrap.content;
+
+import net.microfalx.lang.Identifiable;
+
+import java.util.StringJoiner;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Holds the size and last access of a {@link CachedExtraction}, so the {@link ExtractionCache} can rebuild its
+ * index at startup without reading the cached texts.
+ */
+final class CachedExtractionInfo implements Identifiable<String> {
+
+    private String id;
+    private long size;
+    long accessedAt;
+
+    CachedExtractionInfo() {
+    }
+
+    CachedExtractionInfo(String id, long size, long accessedAt) {
+        requireNonNull(id);
+        this.id = id;
+        this.size = size;
+        this.accessedAt = accessedAt;
+    }
+
+    static CachedExtractionInfo create(CachedExtraction extraction) {
+        requireNonNull(extraction);
+        return new CachedExtractionInfo(extraction.getId(), extraction.getSize(), extraction.accessedAt);
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the size of the cached extraction, in bytes.
+     *
+     * @return a positive integer
+     */
+    long getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", CachedExtractionInfo.class.getSimpleName() + "[", "]")
+                .add("id='" + id + "'")
+                .add("size=" + size)
+                .add("accessedAt=" + accessedAt)
+                .toString();
+    }
+}
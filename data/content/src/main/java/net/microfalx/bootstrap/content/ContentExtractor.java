@@ -10,6 +10,7 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
 
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
 import static net.microfalx.lang.StringUtils.*;
 
 /**
@@ -25,6 +26,9 @@ public class ContentExtractor extends DefaultHandler {
     private Stack<String> elements = new Stack<>();
     private StringBuilder elementBody = new StringBuilder();
     private boolean extractAttributes;
+    private ExtractionOptions options = ExtractionOptions.create();
+    private long deadline = Long.MAX_VALUE;
+    private boolean truncated;
 
     public boolean isExtractAttributes() {
         return extractAttributes;
@@ -34,6 +38,32 @@ public class ContentExtractor extends DefaultHandler {
         this.extractAttributes = extractAttributes;
     }
 
+    public ExtractionOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Changes the limits applied during extraction.
+     * <p>
+     * The timeout is measured from the moment the options are set.
+     *
+     * @param options the options
+     */
+    public void setOptions(ExtractionOptions options) {
+        requireNonNull(options);
+        this.options = options;
+        this.deadline = System.currentTimeMillis() + options.getTimeout().toMillis();
+    }
+
+    /**
+     * Returns whether the text was truncated because the maximum length was reached.
+     *
+     * @return {@code true} if truncated, {@code false} otherwise
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
     public net.microfalx.bootstrap.model.Attributes<?> getAttributes() {
         if (!extractAttributes || attributes.isEmpty()) return net.microfalx.bootstrap.model.Attributes.empty();
         net.microfalx.bootstrap.model.Attributes<Attribute> finalAttributes = net.microfalx.bootstrap.model.Attributes.create();
@@ -58,6 +88,13 @@ public class ContentExtractor extends DefaultHandler {
 
     @Override
     public void characters(char[] ch, int start, int length) throws SAXException {
+        if (System.currentTimeMillis() > deadline) throw ExtractionLimitException.timeout(options);
+        long remaining = options.getMaximumLength() - builder.length();
+        if (length > remaining) {
+            builder.append(ch, start, (int) remaining);
+            truncated = true;
+            throw ExtractionLimitException.length(options.getMaximumLength());
+        }
         builder.append(ch, start, length);
         if (extractAttributes) {
             elementBody.append(ch, start, length);
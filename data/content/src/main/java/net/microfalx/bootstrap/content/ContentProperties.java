@@ -0,0 +1,71 @@
+package net.microfalx.bootstrap.content;
+
+import net.microfalx.lang.FormatterUtils;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds configuration for content extraction.
+ */
+@Configuration
+@ConfigurationProperties("bootstrap.content")
+public class ContentProperties {
+
+    private boolean extractionCacheEnabled = true;
+    private long extractionCacheSize = 512 * FormatterUtils.M;
+    private int extractionThreads = Runtime.getRuntime().availableProcessors();
+    private int extractionQueueSize = 1000;
+    private int extractionMimeConcurrency = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private Map<String, Integer> extractionMimeLimits = new HashMap<>();
+
+    public boolean isExtractionCacheEnabled() {
+        return extractionCacheEnabled;
+    }
+
+    public void setExtractionCacheEnabled(boolean extractionCacheEnabled) {
+        this.extractionCacheEnabled = extractionCacheEnabled;
+    }
+
+    public long getExtractionCacheSize() {
+        return extractionCacheSize;
+    }
+
+    public void setExtractionCacheSize(long extractionCacheSize) {
+        this.extractionCacheSize = extractionCacheSize;
+    }
+
+    public int getExtractionThreads() {
+        return extractionThreads;
+    }
+
+    public void setExtractionThreads(int extractionThreads) {
+        this.extractionThreads = extractionThreads;
+    }
+
+    public int getExtractionQueueSize() {
+        return extractionQueueSize;
+    }
+
+    public void setExtractionQueueSize(int extractionQueueSize) {
+        this.extractionQueueSize = extractionQueueSize;
+    }
+
+    public int getExtractionMimeConcurrency() {
+        return extractionMimeConcurrency;
+    }
+
+    public void setExtractionMimeConcurrency(int extractionMimeConcurrency) {
+        this.extractionMimeConcurrency = extractionMimeConcurrency;
+    }
+
+    public Map<String, Integer> getExtractionMimeLimits() {
+        return extractionMimeLimits;
+    }
+
+    public void setExtractionMimeLimits(Map<String, Integer> extractionMimeLimits) {
+        this.extractionMimeLimits = extractionMimeLimits;
+    }
+}
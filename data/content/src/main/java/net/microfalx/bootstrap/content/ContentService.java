@@ -3,8 +3,11 @@ package net.microfalx.bootstrap.content;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import net.microfalx.bootstrap.content.impl.JsonDetector;
+import net.microfalx.bootstrap.store.Store;
+import net.microfalx.bootstrap.store.StoreService;
 import net.microfalx.lang.ClassUtils;
 import net.microfalx.resource.*;
+import net.microfalx.threadpool.ThreadPool;
 import org.apache.tika.config.TikaConfig;
 import org.apache.tika.detect.CompositeDetector;
 import org.apache.tika.detect.Detector;
@@ -20,13 +23,14 @@ import org.apache.tika.parser.AutoDetectParser;
 import org.apache.tika.parser.ParseContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.*;
 import java.time.Duration;
 import java.util.Collection;
 import java.util.Collections;
@@ -34,23 +38,33 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
-import static net.microfalx.bootstrap.content.ContentUtils.removeRedundantNewLines;
+import static java.lang.System.currentTimeMillis;
+import static net.microfalx.bootstrap.content.ContentUtils.*;
 import static net.microfalx.lang.ArgumentUtils.requireNonNull;
 import static net.microfalx.lang.ArgumentUtils.requireNotEmpty;
+import static net.microfalx.lang.FormatterUtils.formatBytes;
 import static net.microfalx.lang.StringUtils.toIdentifier;
 
 /**
  * A service which uses Apache Tika to extract content.
  */
 @Service
-public class ContentService implements InitializingBean {
+public class ContentService implements InitializingBean, DisposableBean {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ContentService.class);
 
     private static final String ID_PREFIX = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
     private static final AtomicLong ID_SUFFIX = new AtomicLong(1);
+    private static final int PIPE_SIZE = 64 * 1024;
+
+    /**
+     * The options used by the extractions without options: the text is never truncated.
+     */
+    private static final ExtractionOptions UNLIMITED_OPTIONS = ExtractionOptions.create().withMaximumLength(Long.MAX_VALUE);
 
     private final Collection<ContentResolver> resolvers = new CopyOnWriteArrayList<>();
     private final Collection<ContentPersister> persisters = new CopyOnWriteArrayList<>();
@@ -61,6 +75,15 @@ public class ContentService implements InitializingBean {
     private final List<Detector> detectors = new CopyOnWriteArrayList<>();
     private final Map<String, Fragment> fragments = new ConcurrentHashMap<>();
     private TikaConfig tikaConfig;
+    private volatile AutoDetectParser parser;
+    private ExtractionCache extractionCache;
+    private volatile ExtractionExecutor extractionExecutor;
+
+    @Autowired(required = false)
+    private ContentProperties properties = new ContentProperties();
+
+    @Autowired(required = false)
+    private StoreService storeService;
 
     /**
      * Registers a custom text detector.
@@ -78,6 +101,7 @@ public class ContentService implements InitializingBean {
         LOGGER.info("Register text detector '{}'", ClassUtils.getName(detector));
         detectors.add(detector);
         this.detector = new CompositeDetector(tikaConfig.getMediaTypeRegistry(), detectors);
+        this.parser = createParser();
     }
 
     /**
@@ -201,27 +225,135 @@ public class ContentService implements InitializingBean {
 
     /**
      * Extracts the plain text from a document using an available parser.
+     * <p>
+     * The whole text is extracted, within the {@link ExtractionOptions#DEFAULT_TIMEOUT default timeout}.
      *
      * @param resource the content of the document
      * @throws IOException if an I/O exception occurs
      */
     public Content extract(Resource resource, boolean extractAttributes, Metadata metadata) throws IOException {
+        return extract(resource, extractAttributes, metadata, UNLIMITED_OPTIONS);
+    }
+
+    /**
+     * Extracts the plain text from a document using an available parser.
+     * <p>
+     * If the document has more text than {@link ExtractionOptions#getMaximumLength()}, the text is truncated.
+     * If the extraction takes longer than {@link ExtractionOptions#getTimeout()}, the extraction fails.
+     *
+     * @param resource the content of the document
+     * @param options  the extraction limits
+     * @throws IOException if an I/O exception occurs
+     */
+    public Content extract(Resource resource, boolean extractAttributes, Metadata metadata, ExtractionOptions options) throws IOException {
         requireNonNull(resource);
         requireNonNull(metadata);
+        requireNonNull(options);
         if (MimeType.APPLICATION_OCTET_STREAM.equals(resource.getMimeType())) {
             BinaryContentExtractor extractor = new BinaryContentExtractor(resource);
             return Content.create(MemoryResource.create(extractor.execute()));
         } else {
+            String cacheKey = extractionCache != null && options.isCacheEnabled()
+                    ? extractionCache.getKey(resource, extractAttributes, options) : null;
+            if (cacheKey != null) {
+                CachedExtraction extraction = extractionCache.get(cacheKey);
+                if (extraction != null) return extraction.toContent(extractAttributes, metadata);
+            }
+            long startTime = currentTimeMillis();
             ContentExtractor handler = new ContentExtractor();
             handler.setExtractAttributes(extractAttributes);
-            doParse(resource, handler, metadata);
-            Resource extractedContent = MemoryResource.create(removeRedundantNewLines(handler.toString()));
-            Content content = Content.create(extractedContent);
+            handler.setOptions(options);
+            long bytes = doParse(resource, handler, metadata, options);
+            String text = handler.toString();
+            updateMetrics(resource, metadata, bytes, text.length(), startTime);
+            text = removeRedundantNewLines(text);
+            if (cacheKey != null) {
+                extractionCache.put(new CachedExtraction(cacheKey, text, handler.getAttributes(), metadata));
+            }
+            Content content = Content.create(MemoryResource.create(text));
             if (extractAttributes) content = content.withAttributes(handler.getAttributes());
             return content;
         }
     }
 
+    /**
+     * Extracts the plain text from a document and streams it to a writer.
+     * <p>
+     * The text is not accumulated in memory, it is written as the parser discovers it.
+     *
+     * @param resource the content of the document
+     * @param writer   the writer receiving the text
+     * @param options  the extraction limits
+     * @return {@code true} if the whole text was extracted, {@code false} if the text was truncated
+     * @throws IOException if an I/O exception occurs
+     */
+    public boolean extract(Resource resource, Writer writer, ExtractionOptions options) throws IOException {
+        return extract(resource, writer, new Metadata(), options);
+    }
+
+    /**
+     * Extracts the plain text from a document and streams it to a writer.
+     * <p>
+     * The text is not accumulated in memory, it is written as the parser discovers it.
+     *
+     * @param resource the content of the document
+     * @param writer   the writer receiving the text
+     * @param metadata the metadata collector
+     * @param options  the extraction limits
+     * @return {@code true} if the whole text was extracted, {@code false} if the text was truncated
+     * @throws IOException if an I/O exception occurs
+     */
+    public boolean extract(Resource resource, Writer writer, Metadata metadata, ExtractionOptions options) throws IOException {
+        requireNonNull(resource);
+        requireNonNull(writer);
+        requireNonNull(metadata);
+        requireNonNull(options);
+        long startTime = currentTimeMillis();
+        StreamingContentExtractor handler = new StreamingContentExtractor(writer, options);
+        long bytes = doParse(resource, handler, metadata, options);
+        updateMetrics(resource, metadata, bytes, handler.getLength(), startTime);
+        return !handler.isTruncated();
+    }
+
+    /**
+     * Submits a batch of documents for text extraction.
+     * <p>
+     * Documents are extracted in the background by a bounded pool of workers, each document having its own
+     * timeout (see {@link ExtractionOptions#getTimeout()}). If too many documents are waiting to be extracted,
+     * this method blocks until workers catch up.
+     *
+     * @param resources the documents
+     * @param options   the extraction limits
+     * @return the job tracking the extraction
+     */
+    public ExtractionJob submit(Collection<Resource> resources, ExtractionOptions options) {
+        requireNonNull(resources);
+        requireNonNull(options);
+        ExtractionJob job = new ExtractionJob(ExtractionExecutor.nextJobId(), resources, options);
+        return getExtractionExecutor().submit(job);
+    }
+
+    /**
+     * Extracts the plain text from a document and returns a reader over the extracted text.
+     * <p>
+     * The document is parsed in the background while the text is consumed. Any parsing failure is reported
+     * by the reader once the text extracted before the failure was consumed.
+     *
+     * @param resource the content of the document
+     * @param options  the extraction limits
+     * @return a non-null instance
+     * @throws IOException if an I/O exception occurs
+     */
+    public Reader stream(Resource resource, ExtractionOptions options) throws IOException {
+        requireNonNull(resource);
+        requireNonNull(options);
+        PipedReader pipedReader = new PipedReader(PIPE_SIZE);
+        PipedWriter pipedWriter = new PipedWriter(pipedReader);
+        ExtractionReader reader = new ExtractionReader(pipedReader);
+        ThreadPool.get().execute(new StreamTask(resource, options, pipedWriter, reader));
+        return reader;
+    }
+
     /**
      * Resolves a content based on its identifier and URI.
      *
@@ -414,16 +546,33 @@ public class ContentService implements InitializingBean {
         registerTextDetectors();
         registerSuperTypes();
         registerResourceMimeTypeDetector();
+        setupExtractionCache();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        ExtractionExecutor executor = extractionExecutor;
+        if (executor != null) executor.shutdown();
     }
 
     private void setupTika() {
         tikaConfig = TikaConfig.getDefaultConfig();
         detectors.add(tikaConfig.getDetector());
+        parser = createParser();
         LOGGER.info("Loaded Apache Tika, mime types {}, detector {}, parser {}",
                 tikaConfig.getMediaTypeRegistry().getTypes().size(), ClassUtils.getName(tikaConfig.getDetector()),
                 ClassUtils.getName(tikaConfig.getParser()));
     }
 
+    private void setupExtractionCache() {
+        if (storeService == null || !properties.isExtractionCacheEnabled()) return;
+        LOGGER.info("Enable extraction cache, maximum size {}", formatBytes(properties.getExtractionCacheSize()));
+        Store<CachedExtraction, String> store = storeService.registerStore(Store.Options.create("Content Extraction"));
+        Store<CachedExtractionInfo, String> infoStore = storeService.registerStore(Store.Options.create("Content Extraction Index"));
+        extractionCache = new ExtractionCache(store, infoStore, properties.getExtractionCacheSize());
+        extractionCache.load();
+    }
+
     private void registerTextDetectors() {
         registerTextDetector(new JsonDetector());
     }
@@ -439,22 +588,95 @@ public class ContentService implements InitializingBean {
         }
     }
 
-    private void doParse(Resource resource, ContentHandler contentHandler, Metadata metadata) throws IOException {
-        AutoDetectParser parser = new AutoDetectParser(tikaConfig);
-        parser.setDetector(detector);
+    private long doParse(Resource resource, ContentHandler contentHandler, Metadata metadata) throws IOException {
+        return doParse(resource, contentHandler, metadata, (ExtractionWatchdog) null);
+    }
+
+    private long doParse(Resource resource, ContentHandler contentHandler, Metadata metadata, ExtractionOptions options) throws IOException {
+        ExtractionWatchdog watchdog = new ExtractionWatchdog(options.getTimeout());
+        try {
+            long bytes = doParse(resource, contentHandler, metadata, watchdog);
+            watchdog.close();
+            if (watchdog.isTimedOut()) throw createTimeoutException(resource, options);
+            return bytes;
+        } catch (IOException | RuntimeException e) {
+            watchdog.close();
+            if (watchdog.isTimedOut()) {
+                // the failure is caused by the watchdog (interrupted or closed input), it is not relevant
+                throw createTimeoutException(resource, options);
+            }
+            throw e;
+        }
+    }
+
+    private long doParse(Resource resource, ContentHandler contentHandler, Metadata metadata, ExtractionWatchdog watchdog) throws IOException {
+        AutoDetectParser parser = this.parser;
+        if (parser == null) parser = createParser();
         metadata = updateMetadata(metadata, resource);
         ParseContext context = new ParseContext();
+        CountingInputStream stream = new CountingInputStream(resource.getInputStream());
+        if (watchdog != null) watchdog.watch(stream);
         try {
-            try (InputStream stream = resource.getInputStream()) {
+            try (stream) {
                 parser.parse(stream, contentHandler, metadata, context);
             }
         } catch (SAXException e) {
-            throw new ContentParsingException("Failed to parse document '" + resource.toURI() + "' due to syntax errors", e);
+            if (!handleLimit(resource, e)) {
+                throw new ContentParsingException("Failed to parse document '" + resource.toURI() + "' due to syntax errors", e);
+            }
         } catch (ZeroByteFileException e) {
             // an empty document should just be ignored
         } catch (TikaException e) {
-            throw new ContentParsingException("Failed to parse document '" + resource.toURI() + "'", e);
+            if (!handleLimit(resource, e)) {
+                throw new ContentParsingException("Failed to parse document '" + resource.toURI() + "'", e);
+            }
         }
+        return stream.count;
+    }
+
+    private ContentParsingException createTimeoutException(Resource resource, ExtractionOptions options) {
+        return new ContentParsingException("Failed to parse document '" + resource.toURI()
+                + "', extraction timed out after " + options.getTimeout());
+    }
+
+    private boolean handleLimit(Resource resource, Throwable throwable) {
+        ExtractionLimitException limitException = ExtractionLimitException.find(throwable);
+        if (limitException == null) return false;
+        if (limitException.isTimeout()) {
+            throw new ContentParsingException("Failed to parse document '" + resource.toURI() + "', "
+                    + limitException.getMessage(), throwable);
+        }
+        LOGGER.debug("Text extracted from '{}' was truncated: {}", resource.toURI(), limitException.getMessage());
+        return true;
+    }
+
+    private ExtractionExecutor getExtractionExecutor() {
+        if (extractionExecutor == null) {
+            synchronized (this) {
+                if (extractionExecutor == null) extractionExecutor = new ExtractionExecutor(this, properties);
+            }
+        }
+        return extractionExecutor;
+    }
+
+    private AutoDetectParser createParser() {
+        AutoDetectParser parser = new AutoDetectParser(tikaConfig);
+        parser.setDetector(detector);
+        return parser;
+    }
+
+    private void updateMetrics(Resource resource, Metadata metadata, long bytes, long chars, long startTime) {
+        String mimeType = metadata.get(Metadata.CONTENT_TYPE);
+        if (mimeType == null) mimeType = resource.getMimeType();
+        try {
+            mimeType = MediaType.parse(mimeType).getBaseType().toString();
+        } catch (Exception e) {
+            // keep the mime type as reported
+        }
+        if (mimeType == null) mimeType = MimeType.APPLICATION_OCTET_STREAM.getValue();
+        EXTRACT_BYTES_METRICS.count(mimeType, (int) Math.min(bytes, Integer.MAX_VALUE));
+        EXTRACT_CHARS_METRICS.count(mimeType, (int) Math.min(chars, Integer.MAX_VALUE));
+        EXTRACT_LATENCY_METRICS.getTimer(mimeType).record(Duration.ofMillis(currentTimeMillis() - startTime));
     }
 
     private Metadata updateMetadata(Metadata metadata, Resource resource) {
@@ -491,4 +713,164 @@ public class ContentService implements InitializingBean {
         loader.load();
     }
 
+    private static class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value != -1) count++;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) count += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    /**
+     * Stops an extraction which takes longer than its timeout.
+     * <p>
+     * Parsers check the timeout only when they produce text, so a parser blocked on its input (or on its output)
+     * would never time out. The watchdog interrupts the thread running the extraction and closes the input of the
+     * parser. It interrupts only under the lock, while the extraction runs, and the extraction clears that interrupt
+     * under the same lock when it completes, so the thread is never interrupted after the extraction.
+     */
+    private static class ExtractionWatchdog {
+
+        private final Thread thread = Thread.currentThread();
+        private final ScheduledFuture<?> future;
+        private Closeable input;
+        private boolean done;
+        private boolean timedOut;
+
+        private ExtractionWatchdog(Duration timeout) {
+            this.future = ThreadPool.get().schedule(this::timeout, timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        private void watch(Closeable input) {
+            synchronized (this) {
+                this.input = input;
+                if (!timedOut) return;
+            }
+            closeInput(input);
+        }
+
+        private synchronized boolean isTimedOut() {
+            return timedOut;
+        }
+
+        private void close() {
+            future.cancel(false);
+            synchronized (this) {
+                if (done) return;
+                done = true;
+                // clears the interrupt of the watchdog, if any
+                if (timedOut) Thread.interrupted();
+            }
+        }
+
+        private void timeout() {
+            Closeable input;
+            synchronized (this) {
+                if (done) return;
+                timedOut = true;
+                thread.interrupt();
+                input = this.input;
+            }
+            closeInput(input);
+        }
+
+        private static void closeInput(Closeable input) {
+            if (input == null) return;
+            try {
+                input.close();
+            } catch (IOException e) {
+                // the parser fails anyway
+            }
+        }
+    }
+
+    /**
+     * Extracts the text of a document into a pipe.
+     * <p>
+     * The failure is always recorded before the pipe is closed, so the reader never mistakes a failed extraction
+     * for the end of the text.
+     */
+    private class StreamTask implements Runnable {
+
+        private final Resource resource;
+        private final ExtractionOptions options;
+        private final Writer writer;
+        private final ExtractionReader reader;
+
+        private StreamTask(Resource resource, ExtractionOptions options, Writer writer, ExtractionReader reader) {
+            this.resource = resource;
+            this.options = options;
+            this.writer = writer;
+            this.reader = reader;
+        }
+
+        @Override
+        public void run() {
+            try {
+                extract(resource, writer, options);
+            } catch (Exception e) {
+                reader.failure = e;
+            } finally {
+                closeWriter();
+            }
+        }
+
+        private void closeWriter() {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                // the pipe is already closed
+            }
+        }
+    }
+
+    private static class ExtractionReader extends FilterReader {
+
+        private volatile Exception failure;
+
+        private ExtractionReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            return checkFailure(super.read());
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            return checkFailure(super.read(cbuf, off, len));
+        }
+
+        private int checkFailure(int result) throws IOException {
+            if (result == -1 && failure != null) {
+                if (failure instanceof IOException ioException) throw ioException;
+                throw new IOException("Failed to extract content", failure);
+            }
+            return result;
+        }
+    }
+
 }
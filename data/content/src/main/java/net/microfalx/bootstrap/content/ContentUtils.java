@@ -2,6 +2,7 @@ package net.microfalx.bootstrap.content;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import net.microfalx.metrics.Metrics;
 import org.xml.sax.Attributes;
 
 import java.io.IOException;
@@ -24,6 +25,11 @@ public class ContentUtils {
 
     public static final Attributes EMPTY_ATTRIBUTES = new ContentAttributes();
 
+    public static final Metrics METRICS = Metrics.of("Content");
+    static final Metrics EXTRACT_BYTES_METRICS = METRICS.withGroup("Extract Bytes In");
+    static final Metrics EXTRACT_CHARS_METRICS = METRICS.withGroup("Extract Chars Out");
+    static final Metrics EXTRACT_LATENCY_METRICS = METRICS.withGroup("Extract Latency");
+
     /**
      * Creates an object mapper used to parse JSON content.
      * <p>
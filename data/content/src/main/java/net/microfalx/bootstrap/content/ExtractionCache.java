@@ -0,0 +1,152 @@
+package net.microfalx.bootstrap.content;
+
+import net.microfalx.bootstrap.store.Store;
+import net.microfalx.bootstrap.store.StoreCache;
+import net.microfalx.lang.ObjectUtils;
+import net.microfalx.metrics.Metrics;
+import net.microfalx.resource.FileResource;
+import net.microfalx.resource.Resource;
+import org.apache.tika.config.TikaConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * A persistent cache for extracted text.
+ * <p>
+ * Entries are keyed by the identity of the document (location, length and last modification for files, the SHA-256
+ * of the content otherwise) and the extractor version (which includes the options affecting the extracted text), so
+ * a document is parsed only once, until it changes.
+ * <p>
+ * The cache is bounded by size, the least recently used entries are evicted first. The size and last access of
+ * each entry are also kept in a separate (small) store, so the cache is indexed at startup without reading the texts.
+ */
+final class ExtractionCache extends StoreCache<CachedExtraction> {
+
+    /**
+     * The version of the extraction logic, change it when the extracted text changes for the same document.
+     */
+    static final int EXTRACTOR_VERSION = 1;
+
+    private static final Metrics METRICS = ContentUtils.METRICS.withGroup("Extract Cache");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Store<CachedExtractionInfo, String> infoStore;
+    private final String version;
+
+    ExtractionCache(Store<CachedExtraction, String> store, Store<CachedExtractionInfo, String> infoStore, long maximumSize) {
+        super("Extraction", store, maximumSize, METRICS);
+        requireNonNull(infoStore);
+        this.infoStore = infoStore;
+        this.version = EXTRACTOR_VERSION + ":" + ObjectUtils.defaultIfNull(TikaConfig.class.getPackage().getImplementationVersion(), "na");
+    }
+
+    /**
+     * Calculates the cache key for a document.
+     * <p>
+     * Files are identified by their location, length and last modification time, so the key is calculated without
+     * reading the document. Other documents are identified by the SHA-256 of their content.
+     *
+     * @param resource          the document
+     * @param extractAttributes whether attributes are extracted
+     * @param options           the extraction options
+     * @return a non-null instance
+     * @throws IOException if an I/O exception occurs
+     */
+    String getKey(Resource resource, boolean extractAttributes, ExtractionOptions options) throws IOException {
+        requireNonNull(resource);
+        requireNonNull(options);
+        MessageDigest digest = createDigest();
+        if (resource instanceof FileResource) {
+            digest.update(("file:" + resource.toURI() + ":" + resource.length() + ":" + resource.lastModified())
+                    .getBytes(StandardCharsets.UTF_8));
+        } else {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (InputStream inputStream = resource.getInputStream()) {
+                int count;
+                while ((count = inputStream.read(buffer)) != -1) {
+                    digest.update(buffer, 0, count);
+                }
+            }
+        }
+        digest.update((":" + version + ":" + extractAttributes + ":" + options.getMaximumLength()).getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Returns a cached extraction.
+     *
+     * @param key the cache key
+     * @return the extraction, null if not cached
+     */
+    CachedExtraction get(String key) {
+        return doGet(key);
+    }
+
+    /**
+     * Stores an extraction in the cache, evicting older entries if the cache exceeds its size.
+     *
+     * @param extraction the extraction
+     */
+    void put(CachedExtraction extraction) {
+        doPut(extraction);
+    }
+
+    @Override
+    protected long getSize(CachedExtraction extraction) {
+        return extraction.getSize();
+    }
+
+    @Override
+    protected long getAccessedAt(CachedExtraction extraction) {
+        return extraction.accessedAt;
+    }
+
+    @Override
+    protected void setAccessedAt(CachedExtraction extraction, long accessedAt) {
+        extraction.accessedAt = accessedAt;
+    }
+
+    @Override
+    protected Collection<Entry> loadEntries() {
+        Collection<Entry> loadedEntries = new ArrayList<>();
+        for (CachedExtractionInfo info : infoStore) {
+            loadedEntries.add(new Entry(info.getId(), info.getSize(), info.accessedAt));
+        }
+        if (loadedEntries.isEmpty()) {
+            // the texts were cached before the index existed, read them once to build the index
+            for (CachedExtraction extraction : getStore()) {
+                CachedExtractionInfo info = CachedExtractionInfo.create(extraction);
+                infoStore.add(info);
+                loadedEntries.add(new Entry(info.getId(), info.getSize(), info.accessedAt));
+            }
+        }
+        return loadedEntries;
+    }
+
+    @Override
+    protected void onAdded(CachedExtraction extraction) {
+        infoStore.add(CachedExtractionInfo.create(extraction));
+    }
+
+    @Override
+    protected void onRemoved(String key) {
+        infoStore.remove(key);
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new ContentException("SHA-256 is not available", e);
+        }
+    }
+}
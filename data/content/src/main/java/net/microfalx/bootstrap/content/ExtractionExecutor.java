@@ -0,0 +1,177 @@
+package net.microfalx.bootstrap.content;
+
+import net.microfalx.lang.StringUtils;
+import net.microfalx.resource.MimeType;
+import net.microfalx.resource.Resource;
+import net.microfalx.threadpool.ThreadPool;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Executes extraction jobs on a bounded pool of workers.
+ * <p>
+ * The number of documents waiting or being extracted is bounded: once the limit is reached, submitting more
+ * documents blocks the caller until workers catch up. Each mime type has its own concurrency limit, so a batch
+ * of slow documents (for example, PDFs) cannot take over all workers.
+ */
+final class ExtractionExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExtractionExecutor.class);
+
+    private static final AtomicLong JOB_ID = new AtomicLong(1);
+
+    private final ContentService contentService;
+    private final ContentProperties properties;
+    private final ThreadPool threadPool;
+    private final Semaphore pending;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    ExtractionExecutor(ContentService contentService, ContentProperties properties) {
+        requireNonNull(contentService);
+        requireNonNull(properties);
+        this.contentService = contentService;
+        this.properties = properties;
+        this.threadPool = ThreadPool.builder("Extract").maximumSize(properties.getExtractionThreads()).build();
+        this.pending = new Semaphore(properties.getExtractionQueueSize());
+    }
+
+    /**
+     * Submits a job, blocking the caller while the pending documents limit is reached.
+     *
+     * @param job the job
+     * @return the same job
+     */
+    ExtractionJob submit(ExtractionJob job) {
+        requireNonNull(job);
+        LOGGER.debug("Submit extraction job {}, {} documents", job.getId(), job.getCount());
+        for (ExtractionJob.Result result : job.getResults()) {
+            if (result.future.isDone()) continue;
+            try {
+                pending.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                job.cancel();
+                break;
+            }
+            Task task = new Task(job, result);
+            getLane(task.mimeType).submit(task);
+        }
+        return job;
+    }
+
+    /**
+     * Stops the workers, the extractions in progress are interrupted.
+     */
+    void shutdown() {
+        threadPool.shutdownNow();
+    }
+
+    static String nextJobId() {
+        return Long.toString(JOB_ID.getAndIncrement(), Character.MAX_RADIX);
+    }
+
+    private Lane getLane(String mimeType) {
+        return lanes.computeIfAbsent(mimeType, type -> new Lane(properties.getExtractionMimeLimits()
+                .getOrDefault(type, properties.getExtractionMimeConcurrency())));
+    }
+
+    private static String getMimeType(Resource resource) {
+        String mimeType = resource.getMimeType();
+        if (StringUtils.isEmpty(mimeType)) return MimeType.APPLICATION_OCTET_STREAM.getValue();
+        try {
+            return MediaType.parse(mimeType).getBaseType().toString();
+        } catch (Exception e) {
+            return mimeType;
+        }
+    }
+
+    /**
+     * Tracks the extractions of a mime type, making sure the concurrency limit is not exceeded.
+     */
+    private class Lane {
+
+        private final int limit;
+        private final Queue<Task> queue = new ArrayDeque<>();
+        private int running;
+
+        private Lane(int limit) {
+            this.limit = Math.max(1, limit);
+        }
+
+        private void submit(Task task) {
+            synchronized (this) {
+                if (running >= limit) {
+                    queue.add(task);
+                    return;
+                }
+                running++;
+            }
+            execute(task);
+        }
+
+        private void release() {
+            Task next;
+            synchronized (this) {
+                next = queue.poll();
+                if (next == null) {
+                    running--;
+                    return;
+                }
+            }
+            execute(next);
+        }
+
+        private void execute(Task task) {
+            try {
+                threadPool.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        // the document stops counting as pending only when the worker is done with it
+                        pending.release();
+                        release();
+                    }
+                });
+            } catch (Exception e) {
+                task.result.future.completeExceptionally(e);
+                pending.release();
+                release();
+            }
+        }
+    }
+
+    private class Task {
+
+        private final ExtractionJob job;
+        private final ExtractionJob.Result result;
+        private final String mimeType;
+
+        private Task(ExtractionJob job, ExtractionJob.Result result) {
+            this.job = job;
+            this.result = result;
+            this.mimeType = getMimeType(result.getResource());
+        }
+
+        private void run() {
+            if (result.future.isDone()) return;
+            try {
+                // the extraction fails by itself once the timeout of the job is reached
+                Content content = contentService.extract(result.getResource(), false, new Metadata(), job.getOptions());
+                result.future.complete(content);
+            } catch (Throwable e) {
+                result.future.completeExceptionally(e);
+            }
+        }
+    }
+}
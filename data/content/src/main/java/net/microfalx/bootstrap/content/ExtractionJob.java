@@ -0,0 +1,161 @@
+package net.microfalx.bootstrap.content;
+
+import net.microfalx.lang.Identifiable;
+import net.microfalx.resource.Resource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Collections.unmodifiableList;
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * A batch of documents submitted for (background) text extraction.
+ * <p>
+ * Each document has its own future, completed as soon as the text of the document is available, while
+ * {@link #getCompletion()} completes once all documents were processed (successfully or not).
+ *
+ * @see ContentService#submit(Collection, ExtractionOptions)
+ */
+public final class ExtractionJob implements Identifiable<String> {
+
+    private final String id;
+    private final ExtractionOptions options;
+    private final List<Result> results = new ArrayList<>();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    ExtractionJob(String id, Collection<Resource> resources, ExtractionOptions options) {
+        requireNonNull(id);
+        requireNonNull(resources);
+        requireNonNull(options);
+        this.id = id;
+        this.options = options;
+        for (Resource resource : resources) {
+            Result result = new Result(resource);
+            result.future.whenComplete((content, throwable) -> complete(throwable));
+            results.add(result);
+        }
+        if (results.isEmpty()) completion.complete(null);
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the options used to extract the documents.
+     *
+     * @return a non-null instance
+     */
+    public ExtractionOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Returns the results, in the order in which the documents were submitted.
+     *
+     * @return a non-null instance
+     */
+    public List<Result> getResults() {
+        return unmodifiableList(results);
+    }
+
+    /**
+     * Returns a future which completes once all documents were processed.
+     *
+     * @return a non-null instance
+     */
+    public CompletableFuture<Void> getCompletion() {
+        return completion;
+    }
+
+    /**
+     * Returns the number of documents in this job.
+     *
+     * @return a positive integer
+     */
+    public int getCount() {
+        return results.size();
+    }
+
+    /**
+     * Returns the number of documents processed so far (successfully or not).
+     *
+     * @return a positive integer
+     */
+    public int getCompletedCount() {
+        return completed.get();
+    }
+
+    /**
+     * Returns the number of documents which could not be extracted.
+     *
+     * @return a positive integer
+     */
+    public int getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Cancels the documents which were not processed yet.
+     */
+    public void cancel() {
+        for (Result result : results) {
+            result.future.cancel(false);
+        }
+    }
+
+    private void complete(Throwable throwable) {
+        if (throwable != null) failed.incrementAndGet();
+        if (completed.incrementAndGet() == results.size()) completion.complete(null);
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", ExtractionJob.class.getSimpleName() + "[", "]")
+                .add("id='" + id + "'")
+                .add("count=" + results.size())
+                .add("completed=" + completed)
+                .add("failed=" + failed)
+                .toString();
+    }
+
+    /**
+     * Holds the outcome of the extraction of a document.
+     */
+    public static final class Result {
+
+        private final Resource resource;
+        final CompletableFuture<Content> future = new CompletableFuture<>();
+
+        private Result(Resource resource) {
+            requireNonNull(resource);
+            this.resource = resource;
+        }
+
+        /**
+         * Returns the document.
+         *
+         * @return a non-null instance
+         */
+        public Resource getResource() {
+            return resource;
+        }
+
+        /**
+         * Returns a future which completes with the extracted content.
+         *
+         * @return a non-null instance
+         */
+        public CompletableFuture<Content> getFuture() {
+            return future;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package net.microfalx.bootstrap.content;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Raised by content handlers to stop parsing once an {@link ExtractionOptions extraction limit} is reached.
+ * <p>
+ * Parsers might wrap the exception, use {@link #find(Throwable)} to locate it in the cause chain.
+ */
+final class ExtractionLimitException extends SAXException {
+
+    private final boolean timeout;
+
+    static ExtractionLimitException length(long maximumLength) {
+        return new ExtractionLimitException("Maximum length (" + maximumLength + " characters) reached", false);
+    }
+
+    static ExtractionLimitException timeout(ExtractionOptions options) {
+        return new ExtractionLimitException("Extraction timed out after " + options.getTimeout(), true);
+    }
+
+    static ExtractionLimitException find(Throwable throwable) {
+        while (throwable != null) {
+            if (throwable instanceof ExtractionLimitException limitException) return limitException;
+            throwable = throwable.getCause();
+        }
+        return null;
+    }
+
+    private ExtractionLimitException(String message, boolean timeout) {
+        super(message);
+        this.timeout = timeout;
+    }
+
+    /**
+     * Returns whether the extraction was stopped because it took too long.
+     *
+     * @return {@code true} if timed out, {@code false} if the maximum length was reached
+     */
+    boolean isTimeout() {
+        return timeout;
+    }
+}
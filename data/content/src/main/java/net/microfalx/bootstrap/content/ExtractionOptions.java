@@ -0,0 +1,121 @@
+package net.microfalx.bootstrap.content;
+
+import java.time.Duration;
+import java.util.StringJoiner;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.ExceptionUtils.rethrowExceptionAndReturn;
+
+/**
+ * Holds the limits applied while text is extracted from a document.
+ * <p>
+ * Once the maximum number of characters is reached, the extraction stops and the text extracted so far is
+ * returned (the content is truncated). If the extraction takes longer than the timeout, the extraction fails.
+ * <p>
+ * Extracted text is cached (if the extraction cache is enabled), unless the options disable the cache.
+ */
+public final class ExtractionOptions implements Cloneable {
+
+    public static final long DEFAULT_MAXIMUM_LENGTH = 16 * 1024 * 1024;
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(2);
+
+    private static final ExtractionOptions DEFAULT = new ExtractionOptions();
+
+    private long maximumLength = DEFAULT_MAXIMUM_LENGTH;
+    private Duration timeout = DEFAULT_TIMEOUT;
+    private boolean cacheEnabled = true;
+
+    /**
+     * Returns the default options.
+     *
+     * @return a non-null instance
+     */
+    public static ExtractionOptions create() {
+        return DEFAULT;
+    }
+
+    private ExtractionOptions() {
+    }
+
+    /**
+     * Returns the maximum number of characters extracted from a document.
+     *
+     * @return a positive integer
+     */
+    public long getMaximumLength() {
+        return maximumLength;
+    }
+
+    /**
+     * Returns the maximum amount of time allowed to extract the text from a document.
+     *
+     * @return a non-null instance
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Returns whether the extracted text is looked up in (and stored into) the extraction cache.
+     *
+     * @return {@code true} to use the cache, {@code false} to always parse the document
+     */
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    /**
+     * Creates a copy of the options with a different maximum number of extracted characters.
+     *
+     * @param maximumLength the maximum number of characters
+     * @return a new instance
+     */
+    public ExtractionOptions withMaximumLength(long maximumLength) {
+        if (maximumLength <= 0) throw new IllegalArgumentException("Maximum length must be positive, received " + maximumLength);
+        ExtractionOptions copy = copy();
+        copy.maximumLength = maximumLength;
+        return copy;
+    }
+
+    /**
+     * Creates a copy of the options with a different timeout.
+     *
+     * @param timeout the maximum amount of time allowed for extraction
+     * @return a new instance
+     */
+    public ExtractionOptions withTimeout(Duration timeout) {
+        requireNonNull(timeout);
+        ExtractionOptions copy = copy();
+        copy.timeout = timeout;
+        return copy;
+    }
+
+    /**
+     * Creates a copy of the options which uses (or not) the extraction cache.
+     *
+     * @param cacheEnabled {@code true} to use the cache, {@code false} to always parse the document
+     * @return a new instance
+     */
+    public ExtractionOptions withCacheEnabled(boolean cacheEnabled) {
+        ExtractionOptions copy = copy();
+        copy.cacheEnabled = cacheEnabled;
+        return copy;
+    }
+
+    private ExtractionOptions copy() {
+        try {
+            return (ExtractionOptions) clone();
+        } catch (CloneNotSupportedException e) {
+            return rethrowExceptionAndReturn(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", ExtractionOptions.class.getSimpleName() + "[", "]")
+                .add("maximumLength=" + maximumLength)
+                .add("timeout=" + timeout)
+                .add("cacheEnabled=" + cacheEnabled)
+                .toString();
+    }
+}
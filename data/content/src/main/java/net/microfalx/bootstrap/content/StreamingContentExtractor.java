@@ -0,0 +1,83 @@
+package net.microfalx.bootstrap.content;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import static java.lang.System.currentTimeMillis;
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Extracts the text and forwards it to a {@link Writer}, without accumulating the text in memory.
+ */
+final class StreamingContentExtractor extends DefaultHandler {
+
+    private final Writer writer;
+    private final ExtractionOptions options;
+    private final long deadline;
+    private long length;
+    private boolean truncated;
+
+    StreamingContentExtractor(Writer writer, ExtractionOptions options) {
+        requireNonNull(writer);
+        requireNonNull(options);
+        this.writer = writer;
+        this.options = options;
+        this.deadline = currentTimeMillis() + options.getTimeout().toMillis();
+    }
+
+    /**
+     * Returns the number of characters written.
+     *
+     * @return a positive integer
+     */
+    long getLength() {
+        return length;
+    }
+
+    /**
+     * Returns whether the text was truncated because the maximum length was reached.
+     *
+     * @return {@code true} if truncated, {@code false} otherwise
+     */
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, org.xml.sax.Attributes attributes) throws SAXException {
+        checkTimeout();
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        write(ch, start, length);
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        write(ch, start, length);
+    }
+
+    private void write(char[] ch, int start, int count) throws SAXException {
+        checkTimeout();
+        long remaining = options.getMaximumLength() - length;
+        int finalCount = (int) Math.min(count, remaining);
+        try {
+            writer.write(ch, start, finalCount);
+        } catch (IOException e) {
+            throw new SAXException("Failed to write extracted text", e);
+        }
+        length += finalCount;
+        if (finalCount < count) {
+            truncated = true;
+            throw ExtractionLimitException.length(options.getMaximumLength());
+        }
+    }
+
+    private void checkTimeout() throws SAXException {
+        if (currentTimeMillis() > deadline) throw ExtractionLimitException.timeout(options);
+    }
+}
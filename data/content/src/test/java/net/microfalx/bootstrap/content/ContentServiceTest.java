@@ -5,6 +5,9 @@ import net.microfalx.bootstrap.test.annotation.Subject;
 import net.microfalx.lang.StringUtils;
 import net.microfalx.resource.ClassPathResource;
 import net.microfalx.resource.Resource;
+import net.microfalx.resource.StreamResource;
+import org.apache.commons.io.IOUtils;
+import org.apache.tika.metadata.Metadata;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.xml.sax.Attributes;
@@ -12,9 +15,13 @@ import org.xml.sax.ContentHandler;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
 
-import java.io.IOException;
+import java.io.*;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.apache.commons.lang3.exception.ExceptionUtils.getRootCauseMessage;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -72,6 +79,79 @@ class ContentServiceTest extends ServiceUnitTestCase {
                 .isEqualTo(0);
     }
 
+    @Test
+    void extractStreaming() throws IOException {
+        StringWriter writer = new StringWriter();
+        assertTrue(contentService.extract(ClassPathResource.file("test1.html"), writer, ExtractionOptions.create()));
+        assertThat(writer.toString()).contains("Company A").contains("Contact us").contains("sidebar");
+    }
+
+    @Test
+    void extractStreamingTruncated() throws IOException {
+        StringWriter writer = new StringWriter();
+        assertFalse(contentService.extract(ClassPathResource.file("test1.html"), writer,
+                ExtractionOptions.create().withMaximumLength(10)));
+        assertEquals(10, writer.toString().length());
+    }
+
+    @Test
+    void extractTruncated() throws IOException {
+        Content content = contentService.extract(ClassPathResource.file("test1.json"), false, new Metadata(),
+                ExtractionOptions.create().withMaximumLength(20));
+        assertThat(content.getResource().loadAsString().length()).isLessThanOrEqualTo(20);
+    }
+
+    @Test
+    void stream() throws IOException {
+        try (Reader reader = contentService.stream(ClassPathResource.file("test1.html"), ExtractionOptions.create())) {
+            assertThat(IOUtils.toString(reader)).contains("Company A").contains("Contact us");
+        }
+    }
+
+    @Test
+    void streamFailure() {
+        Resource resource = StreamResource.create(() -> new FailingInputStream(false), "failure.txt");
+        assertThrows(IOException.class, () -> {
+            try (Reader reader = contentService.stream(resource, ExtractionOptions.create())) {
+                IOUtils.toString(reader);
+            }
+        });
+    }
+
+    @Test
+    void streamTimeout() {
+        Resource resource = StreamResource.create(() -> new FailingInputStream(true), "hang.txt");
+        ExtractionOptions options = ExtractionOptions.create().withTimeout(Duration.ofMillis(500));
+        IOException exception = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(IOException.class, () -> {
+            try (Reader reader = contentService.stream(resource, options)) {
+                IOUtils.toString(reader);
+            }
+        }));
+        assertThat(getRootCauseMessage(exception)).contains("timed out");
+    }
+
+    @Test
+    void extractTimeout() {
+        Resource resource = StreamResource.create(() -> new FailingInputStream(true), "hang.txt");
+        ExtractionOptions options = ExtractionOptions.create().withTimeout(Duration.ofMillis(500));
+        ContentParsingException exception = assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+                assertThrows(ContentParsingException.class, () -> contentService.extract(resource, false, new Metadata(), options)));
+        assertThat(exception.getMessage()).contains("timed out");
+        assertThrows(ContentParsingException.class, () -> contentService.extract(resource, new StringWriter(), options));
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    void submit() throws Exception {
+        ExtractionJob job = contentService.submit(List.of(ClassPathResource.file("test1.html"),
+                ClassPathResource.file("test1.json")), ExtractionOptions.create());
+        job.getCompletion().get(30, TimeUnit.SECONDS);
+        assertEquals(2, job.getCompletedCount());
+        assertEquals(0, job.getFailedCount());
+        assertThat(job.getResults().get(0).getFuture().get().loadAsString()).contains("Company A");
+        assertThat(job.getResults().get(1).getFuture().get().loadAsString()).contains("Click Here");
+    }
+
     @Test
     void resolveHtml() throws IOException {
         Content content = contentService.resolve(ContentLocator.create(ClassPathResource.file("test1.html")));
@@ -132,6 +212,31 @@ class ContentServiceTest extends ServiceUnitTestCase {
         Assertions.assertThatThrownBy(() -> contentService.update(Content.create(ClassPathResource.file("2.txt")))).isExactlyInstanceOf(ContentException.class);
     }
 
+    /**
+     * A stream which returns some text, then fails or blocks until interrupted.
+     */
+    private static class FailingInputStream extends InputStream {
+
+        private final boolean hang;
+        private int remaining = 1024;
+
+        private FailingInputStream(boolean hang) {
+            this.hang = hang;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining-- > 0) return 'a';
+            if (!hang) throw new IOException("Broken stream");
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException("Interrupted");
+            }
+            return -1;
+        }
+    }
+
     class CountElementsContentHandler implements ContentHandler {
 
         @Override
@@ -0,0 +1,70 @@
+package net.microfalx.bootstrap.content;
+
+import net.microfalx.bootstrap.test.ServiceUnitTestCase;
+import net.microfalx.bootstrap.test.annotation.Subject;
+import net.microfalx.resource.Resource;
+import net.microfalx.resource.ResourceFactory;
+import org.apache.tika.metadata.Metadata;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares serial extraction with extraction jobs over a local corpus (office documents, PDFs, HTML, etc).
+ * <p>
+ * Runs only when the corpus is provided with <code>-Dcontent.corpus=/path/to/corpus</code>.
+ */
+@EnabledIfSystemProperty(named = "content.corpus", matches = ".+")
+class ExtractionBenchmarkTest extends ServiceUnitTestCase {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExtractionBenchmarkTest.class);
+
+    @Subject
+    private ContentService contentService;
+
+    @Test
+    void compare() throws Exception {
+        List<Resource> resources = loadCorpus();
+        // the extraction cache is disabled, so both runs parse every document
+        ExtractionOptions options = ExtractionOptions.create().withCacheEnabled(false);
+        long startTime = System.currentTimeMillis();
+        for (Resource resource : resources) {
+            try {
+                contentService.extract(resource, false, new Metadata(), options);
+            } catch (Exception e) {
+                LOGGER.warn("Failed to extract {}: {}", resource.getFileName(), e.getMessage());
+            }
+        }
+        long serialDuration = System.currentTimeMillis() - startTime;
+
+        startTime = System.currentTimeMillis();
+        ExtractionJob job = contentService.submit(resources, options);
+        job.getCompletion().join();
+        long jobDuration = System.currentTimeMillis() - startTime;
+
+        assertEquals(resources.size(), job.getCompletedCount());
+        LOGGER.info("Extracted {} documents, serial {}ms ({} docs/s), job {}ms ({} docs/s), {} failures", resources.size(),
+                serialDuration, getThroughput(resources.size(), serialDuration),
+                jobDuration, getThroughput(resources.size(), jobDuration), job.getFailedCount());
+    }
+
+    private static long getThroughput(int count, long duration) {
+        return duration == 0 ? count : count * 1000L / duration;
+    }
+
+    private List<Resource> loadCorpus() throws IOException {
+        Path directory = Path.of(System.getProperty("content.corpus"));
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile).map(path -> ResourceFactory.resolve(path.toUri())).toList();
+        }
+    }
+}
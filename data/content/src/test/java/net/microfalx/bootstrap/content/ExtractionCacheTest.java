@@ -0,0 +1,150 @@
+package net.microfalx.bootstrap.content;
+
+import net.microfalx.bootstrap.model.Attributes;
+import net.microfalx.bootstrap.store.Store;
+import net.microfalx.resource.Resource;
+import net.microfalx.resource.ResourceFactory;
+import org.apache.tika.metadata.Metadata;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ExtractionCacheTest {
+
+    private final Map<String, CachedExtraction> extractions = new LinkedHashMap<>();
+    private final Map<String, CachedExtractionInfo> infos = new LinkedHashMap<>();
+    private Store<CachedExtraction, String> store;
+    private Store<CachedExtractionInfo, String> infoStore;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        store = mock(Store.class);
+        doAnswer(invocation -> {
+            CachedExtraction extraction = invocation.getArgument(0);
+            extractions.put(extraction.getId(), extraction);
+            return null;
+        }).when(store).add(any(CachedExtraction.class));
+        doAnswer(invocation -> extractions.remove((String) invocation.getArgument(0))).when(store).remove(anyString());
+        when(store.find(anyString())).thenAnswer(invocation -> extractions.get((String) invocation.getArgument(0)));
+        when(store.iterator()).thenAnswer(invocation -> extractions.values().iterator());
+        infoStore = mock(Store.class);
+        doAnswer(invocation -> {
+            CachedExtractionInfo info = invocation.getArgument(0);
+            infos.put(info.getId(), info);
+            return null;
+        }).when(infoStore).add(any(CachedExtractionInfo.class));
+        doAnswer(invocation -> infos.remove((String) invocation.getArgument(0))).when(infoStore).remove(anyString());
+        when(infoStore.iterator()).thenAnswer(invocation -> infos.values().iterator());
+    }
+
+    @Test
+    void key() throws IOException {
+        ExtractionCache cache = createCache(1024 * 1024);
+        ExtractionOptions options = ExtractionOptions.create();
+        String key = cache.getKey(Resource.text("Hello world"), false, options);
+        assertEquals(64, key.length());
+        assertEquals(key, cache.getKey(Resource.text("Hello world"), false, options));
+        assertNotEquals(key, cache.getKey(Resource.text("Hello world!"), false, options));
+        assertNotEquals(key, cache.getKey(Resource.text("Hello world"), true, options));
+        assertNotEquals(key, cache.getKey(Resource.text("Hello world"), false, options.withMaximumLength(10)));
+    }
+
+    @Test
+    void fileKey(@TempDir Path directory) throws IOException {
+        ExtractionCache cache = createCache(1024 * 1024);
+        ExtractionOptions options = ExtractionOptions.create();
+        Path file1 = Files.writeString(directory.resolve("file1.txt"), "Hello world");
+        Path file2 = Files.writeString(directory.resolve("file2.txt"), "Hello world");
+        String key = cache.getKey(ResourceFactory.resolve(file1.toUri()), false, options);
+        assertEquals(key, cache.getKey(ResourceFactory.resolve(file1.toUri()), false, options));
+        // files are identified by location, not by content
+        assertNotEquals(key, cache.getKey(ResourceFactory.resolve(file2.toUri()), false, options));
+        Files.writeString(file1, "Hello world!");
+        assertNotEquals(key, cache.getKey(ResourceFactory.resolve(file1.toUri()), false, options));
+    }
+
+    @Test
+    void hitAndMiss() {
+        ExtractionCache cache = createCache(1024 * 1024);
+        assertNull(cache.get("k1"));
+        cache.put(createExtraction("k1", 100));
+        assertNotNull(cache.get("k1"));
+        assertEquals(200, cache.getSize());
+        assertTrue(infos.containsKey("k1"));
+    }
+
+    @Test
+    void evictLeastRecentlyUsed() {
+        ExtractionCache cache = createCache(1000);
+        for (int i = 0; i < 10; i++) {
+            cache.put(createExtraction("k" + i, 100));
+            // keep the first entry recently used
+            cache.get("k0");
+        }
+        assertTrue(cache.getSize() <= 1000);
+        assertEquals(5, extractions.size());
+        assertEquals(extractions.keySet(), infos.keySet());
+        assertTrue(extractions.containsKey("k0"));
+        assertTrue(extractions.containsKey("k9"));
+        assertFalse(extractions.containsKey("k1"));
+    }
+
+    @Test
+    void reload() {
+        ExtractionCache cache = createCache(1024 * 1024);
+        for (int i = 0; i < 5; i++) {
+            cache.put(createExtraction("k" + i, 100));
+        }
+        clearInvocations(store);
+        ExtractionCache reloadedCache = createCache(1024 * 1024);
+        reloadedCache.doLoad();
+        assertEquals(cache.getSize(), reloadedCache.getSize());
+        verify(store, never()).iterator();
+        verify(store, never()).find(anyString());
+    }
+
+    @Test
+    void reloadWithoutIndex() {
+        ExtractionCache cache = createCache(1024 * 1024);
+        for (int i = 0; i < 5; i++) {
+            cache.put(createExtraction("k" + i, 100));
+        }
+        infos.clear();
+        ExtractionCache reloadedCache = createCache(1024 * 1024);
+        reloadedCache.doLoad();
+        assertEquals(cache.getSize(), reloadedCache.getSize());
+        assertEquals(5, infos.size());
+    }
+
+    @Test
+    void reloadEvictsOverSize() {
+        ExtractionCache cache = createCache(1024 * 1024);
+        for (int i = 0; i < 10; i++) {
+            cache.put(createExtraction("k" + i, 100));
+        }
+        ExtractionCache reloadedCache = createCache(1000);
+        reloadedCache.doLoad();
+        assertTrue(reloadedCache.getSize() <= 1000);
+        assertEquals(5, extractions.size());
+    }
+
+    private ExtractionCache createCache(long maximumSize) {
+        return new ExtractionCache(store, infoStore, maximumSize);
+    }
+
+    private static CachedExtraction createExtraction(String id, int length) {
+        return new CachedExtraction(id, "a".repeat(length), Attributes.create(), new Metadata());
+    }
+}
@@ -9,6 +9,7 @@ import net.microfalx.bootstrap.dataset.formatter.EnumFormatter;
 import net.microfalx.bootstrap.dataset.formatter.Formatter;
 import net.microfalx.bootstrap.dataset.formatter.FormatterUtils;
 import net.microfalx.bootstrap.dataset.formatter.NumberFormatter;
+import net.microfalx.bootstrap.metrics.LatencyTimer;
 import net.microfalx.bootstrap.model.*;
 import net.microfalx.lang.AnnotationUtils;
 import net.microfalx.lang.ClassUtils;
@@ -391,23 +392,23 @@ public abstract class AbstractDataSet<M, F extends Field<M>, ID> implements Data
 
     @Override
     public final List<M> findAll() {
-        return METRICS.time("Find All", () -> doFindAll());
+        return LatencyTimer.time(METRICS, "Find All", () -> doFindAll());
     }
 
     @Override
     public final List<M> findAllById(Iterable<ID> ids) {
-        return METRICS.time("Find All By Id", () -> doFindAllById(ids));
+        return LatencyTimer.time(METRICS, "Find All By Id", () -> doFindAllById(ids));
     }
 
     @Override
     public final Optional<M> findById(ID id) {
         requireNonNull(id);
-        return METRICS.time("Find By Id", () -> doFindById(id));
+        return LatencyTimer.time(METRICS, "Find By Id", () -> doFindById(id));
     }
 
     @Override
     public final boolean existsById(ID id) {
-        return METRICS.time("Exists By Id", () -> doExistsById(id));
+        return LatencyTimer.time(METRICS, "Exists By Id", () -> doExistsById(id));
     }
 
     @Override
@@ -438,7 +439,7 @@ public abstract class AbstractDataSet<M, F extends Field<M>, ID> implements Data
     @Override
     public final <S extends M> S save(S model) {
         checkReadOnly();
-        return METRICS.time("Save", () -> doSave(model));
+        return LatencyTimer.time(METRICS, "Save", () -> doSave(model));
     }
 
     @Override
@@ -2,6 +2,8 @@ package net.microfalx.bootstrap.jdbc.migration;
 
 import net.microfalx.bootstrap.jdbc.support.Query;
 
+import java.util.Collection;
+
 /**
  * An executor for the database migration
  */
@@ -13,4 +15,17 @@ public interface Executor {
      * @param query the query
      */
     void execute(Query query);
+
+    /**
+     * Executes a batch of (DML) statements.
+     * <p>
+     * The default implementation executes the statements one by one.
+     *
+     * @param queries the queries
+     */
+    default void executeBatch(Collection<Query> queries) {
+        for (Query query : queries) {
+            execute(query);
+        }
+    }
 }
@@ -20,6 +20,9 @@ public class MigrationInitializer implements InitializingBean {
     @Override
     public void afterPropertiesSet() throws Exception {
         Session session = new Session(net.microfalx.bootstrap.jdbc.support.DataSource.create("main", "Main", dataSource));
+        session.setDryRun(properties.isDryRun()).setParallelism(properties.getParallelism())
+                .setBatchSize(properties.getBatchSize())
+                .setStatementCost(properties.getDdlCost(), properties.getDmlCost());
         session.execute();
     }
 }
@@ -6,6 +6,8 @@ import lombok.ToString;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @ConfigurationProperties("bootstrap.jdbc.migration")
 @Configuration
 @Getter
@@ -23,4 +25,29 @@ public class MigrationProperties {
      * Name of the schema history table that will be used by Flyway.
      */
     private String table = "database_migration";
+
+    /**
+     * Returns whether the migration is only estimated (no changes are applied to the database).
+     */
+    private boolean dryRun;
+
+    /**
+     * Maximum number of independent modules migrated concurrently.
+     */
+    private int parallelism = 4;
+
+    /**
+     * Maximum number of consecutive DML statements executed as a JDBC batch.
+     */
+    private int batchSize = 100;
+
+    /**
+     * Estimated duration of a DDL statement, used to estimate the migration in dry-run mode.
+     */
+    private Duration ddlCost = Duration.ofMillis(50);
+
+    /**
+     * Estimated duration of a DML statement, used to estimate the migration in dry-run mode.
+     */
+    private Duration dmlCost = Duration.ofMillis(2);
 }
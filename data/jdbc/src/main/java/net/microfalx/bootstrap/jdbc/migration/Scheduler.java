@@ -0,0 +1,156 @@
+package net.microfalx.bootstrap.jdbc.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import net.microfalx.threadpool.ThreadPool;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableSet;
+import static net.microfalx.lang.ArgumentUtils.requireBounded;
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.StringUtils.toIdentifier;
+
+/**
+ * Schedules the migration of modules based on the dependencies between modules.
+ * <p>
+ * Modules and their dependencies (<code>depends-on</code>) form a DAG. Definitions of a module are always applied
+ * in order, while modules which do not depend on each other can be migrated concurrently.
+ */
+@Slf4j
+final class Scheduler {
+
+    private final List<Module> modules = new ArrayList<>();
+    private final Map<Module, List<Definition>> definitions = new HashMap<>();
+    private final Map<Module, Set<Module>> dependencies = new HashMap<>();
+
+    Scheduler(Collection<Module> modules, Collection<Definition> definitions) {
+        requireNonNull(modules);
+        requireNonNull(definitions);
+        this.modules.addAll(modules);
+        this.modules.sort(Comparator.comparingInt(Module::getOrder).thenComparing(Module::getId));
+        for (Definition definition : definitions) {
+            this.definitions.computeIfAbsent(definition.getModule(), m -> new ArrayList<>()).add(definition);
+        }
+        this.definitions.values().forEach(moduleDefinitions -> moduleDefinitions.sort(Comparator.comparingInt(Definition::getOrder)));
+        resolveDependencies();
+    }
+
+    /**
+     * Returns the modules, in the order of their dependencies (a module is always after its dependencies).
+     *
+     * @return a non-null instance
+     */
+    List<Module> getModules() {
+        return unmodifiableList(modules);
+    }
+
+    /**
+     * Returns the definitions of a module, in the order in which they need to be applied.
+     *
+     * @param module the module
+     * @return a non-null instance
+     */
+    List<Definition> getDefinitions(Module module) {
+        requireNonNull(module);
+        return unmodifiableList(definitions.getOrDefault(module, Collections.emptyList()));
+    }
+
+    /**
+     * Returns the modules which need to be migrated before the given module.
+     *
+     * @param module the module
+     * @return a non-null instance
+     */
+    Set<Module> getDependencies(Module module) {
+        requireNonNull(module);
+        return unmodifiableSet(dependencies.getOrDefault(module, Collections.emptySet()));
+    }
+
+    /**
+     * Returns the duration of the longest chain of dependent modules (the critical path).
+     * <p>
+     * With unlimited concurrency, this is the minimum time required to migrate all modules.
+     *
+     * @param cost a function which returns the (estimated) duration to migrate a module
+     * @return a non-null instance
+     */
+    Duration getCriticalPath(Function<Module, Duration> cost) {
+        requireNonNull(cost);
+        Map<Module, Duration> finishTimes = new HashMap<>();
+        Duration criticalPath = Duration.ZERO;
+        for (Module module : modules) {
+            Duration startTime = Duration.ZERO;
+            for (Module dependency : getDependencies(module)) {
+                Duration finishTime = finishTimes.getOrDefault(dependency, Duration.ZERO);
+                if (finishTime.compareTo(startTime) > 0) startTime = finishTime;
+            }
+            Duration finishTime = startTime.plus(cost.apply(module));
+            finishTimes.put(module, finishTime);
+            if (finishTime.compareTo(criticalPath) > 0) criticalPath = finishTime;
+        }
+        return criticalPath;
+    }
+
+    /**
+     * Executes an action for every module.
+     * <p>
+     * An action for a module is executed only after the actions of all its dependencies completed successfully. If
+     * an action fails, the modules depending on it are not executed.
+     *
+     * @param parallelism the maximum number of modules migrated concurrently
+     * @param action      the action
+     */
+    void execute(int parallelism, Consumer<Module> action) {
+        requireBounded(parallelism, 1, 64);
+        requireNonNull(action);
+        if (parallelism == 1 || modules.size() < 2) {
+            modules.forEach(action);
+        } else {
+            executeParallel(parallelism, action);
+        }
+    }
+
+    private void executeParallel(int parallelism, Consumer<Module> action) {
+        ThreadPool threadPool = ThreadPool.builder("Migration").maximumSize(parallelism).getOrBuild();
+        Map<Module, CompletableFuture<Void>> futures = new HashMap<>();
+        for (Module module : modules) {
+            CompletableFuture<?>[] parentFutures = getDependencies(module).stream().map(futures::get)
+                    .filter(Objects::nonNull).toArray(CompletableFuture[]::new);
+            CompletableFuture<Void> future = CompletableFuture.allOf(parentFutures)
+                    .thenRunAsync(() -> action.accept(module), threadPool::execute);
+            futures.put(module, future);
+        }
+        try {
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            } else {
+                throw new MigrationException("Migration failed", e.getCause());
+            }
+        }
+    }
+
+    private void resolveDependencies() {
+        Map<String, Module> modulesById = new HashMap<>();
+        modules.forEach(module -> modulesById.put(toIdentifier(module.getId()), module));
+        for (Module module : modules) {
+            Set<Module> moduleDependencies = new HashSet<>();
+            for (String dependsOn : module.getDependsOn()) {
+                Module dependency = modulesById.get(toIdentifier(dependsOn));
+                if (dependency == null) {
+                    LOGGER.warn("Module '{}' depends on '{}', which is not registered", module.getName(), dependsOn);
+                } else {
+                    moduleDependencies.add(dependency);
+                }
+            }
+            dependencies.put(module, moduleDependencies);
+        }
+    }
+}
@@ -7,15 +7,18 @@ import net.microfalx.bootstrap.jdbc.support.*;
 import net.microfalx.lang.Hashing;
 import net.microfalx.lang.Identifiable;
 import net.microfalx.resource.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Collection;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.lang.System.currentTimeMillis;
 import static java.time.Duration.ofMillis;
-import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.ArgumentUtils.*;
 import static net.microfalx.lang.ExceptionUtils.getRootCauseDescription;
 import static net.microfalx.lang.FormatterUtils.formatDuration;
 import static net.microfalx.lang.StringUtils.addStartSlash;
@@ -23,31 +26,42 @@ import static net.microfalx.lang.TextUtils.insertSpacesWithBlock;
 
 /**
  * Represents a database migration session.
+ * <p>
+ * Modules which do not depend on each other are migrated concurrently (see {@link #setParallelism(int)}), each
+ * statement being executed on a connection borrowed from the data source. Consecutive DML statements (seed data)
+ * are executed in JDBC batches.
+ * <p>
+ * In dry-run mode, the session only inspects the database and estimates the cost of the migration.
  */
 @Slf4j
 public final class Session implements Identifiable<String> {
 
+    private static final int MAX_REPORTED_STEPS = 10;
+    private static final Set<String> DML_KEYWORDS = Set.of("insert", "update", "delete", "replace", "merge");
+
     private final String id = java.util.UUID.randomUUID().toString();
     private final DataSource dataSource;
     private final Resource resource;
-    private final StringBuilder logger = new StringBuilder();
-    private final StringBuilder scriptLogger = new StringBuilder();
     private long startTime;
     private boolean failOnError = true;
-    private int scriptCount;
-    private int statementCount;
-    private int failedStatementCount;
+    private boolean dryRun;
+    private int parallelism = 1;
+    private int batchSize = 100;
+    private Duration ddlCost = ofMillis(50);
+    private Duration dmlCost = ofMillis(2);
+    private final AtomicInteger scriptCount = new AtomicInteger();
+    private final AtomicInteger statementCount = new AtomicInteger();
+    private final AtomicInteger failedStatementCount = new AtomicInteger();
     private Database database;
     private Schema schema;
     private Collection<Module> modules;
     private Collection<Definition> definitions;
-    private Definition currentDefinition;
-    private Migration currentMigration;
-    private Status status = Status.NA;
+    private Scheduler scheduler;
+    private final Queue<Step> steps = new ConcurrentLinkedQueue<>();
+    private volatile boolean migrationTableExists = true;
     @Setter
     @Getter
     private Executor executor = new ExecutorImpl();
-    private Throwable throwable;
 
     public Session(DataSource dataSource) {
         requireNonNull(dataSource);
@@ -82,13 +96,75 @@ public final class Session implements Identifiable<String> {
         return this;
     }
 
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    /**
+     * Changes whether the session only estimates the cost of the migration, without changing the database.
+     *
+     * @param dryRun {@code true} to estimate the migration, {@code false} to execute it
+     * @return self
+     */
+    public Session setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+        return this;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Changes the maximum number of modules migrated concurrently.
+     *
+     * @param parallelism a value between 1 and 64, 1 to migrate modules sequentially
+     * @return self
+     */
+    public Session setParallelism(int parallelism) {
+        requireBounded(parallelism, 1, 64);
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Changes the maximum number of consecutive DML statements executed as a JDBC batch.
+     *
+     * @param batchSize a value between 1 and 10000, 1 to disable batching
+     * @return self
+     */
+    public Session setBatchSize(int batchSize) {
+        requireBounded(batchSize, 1, 10_000);
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Changes the estimated cost of a statement, used in dry-run mode.
+     *
+     * @param ddlCost the estimated duration of a DDL statement
+     * @param dmlCost the estimated duration of a DML statement
+     * @return self
+     */
+    public Session setStatementCost(Duration ddlCost, Duration dmlCost) {
+        requireNonNull(ddlCost);
+        requireNonNull(dmlCost);
+        this.ddlCost = ddlCost;
+        this.dmlCost = dmlCost;
+        return this;
+    }
+
     /**
      * Returns the number of executed scripts.
      *
      * @return a positive number
      */
     public int getScriptCount() {
-        return scriptCount;
+        return scriptCount.get();
     }
 
     /**
@@ -97,7 +173,7 @@ public final class Session implements Identifiable<String> {
      * @return a positive number
      */
     public int getStatementCount() {
-        return statementCount;
+        return statementCount.get();
     }
 
     /**
@@ -106,11 +182,40 @@ public final class Session implements Identifiable<String> {
      * @return a positive number
      */
     public int getFailedStatementCount() {
-        return failedStatementCount;
+        return failedStatementCount.get();
     }
 
     public Status getStatus() {
-        return failedStatementCount > 0 ? Status.FAILED : Status.SUCCESSFUL;
+        return failedStatementCount.get() > 0 ? Status.FAILED : Status.SUCCESSFUL;
+    }
+
+    /**
+     * Returns the scripts executed (or estimated, in dry-run mode) by this session.
+     *
+     * @return a non-null instance
+     */
+    public Collection<Step> getSteps() {
+        return Collections.unmodifiableCollection(steps);
+    }
+
+    /**
+     * Returns the estimated duration of the migration, if modules are migrated sequentially.
+     *
+     * @return a non-null instance
+     */
+    public Duration getEstimatedDuration() {
+        return steps.stream().map(Step::getEstimatedDuration).reduce(Duration.ZERO, Duration::plus);
+    }
+
+    /**
+     * Returns the estimated duration of the migration, if all independent modules are migrated concurrently.
+     *
+     * @return a non-null instance
+     */
+    public Duration getEstimatedCriticalPath() {
+        if (scheduler == null) return Duration.ZERO;
+        return scheduler.getCriticalPath(module -> steps.stream().filter(step -> step.getModule() == module)
+                .map(Step::getEstimatedDuration).reduce(Duration.ZERO, Duration::plus));
     }
 
     /**
@@ -134,8 +239,12 @@ public final class Session implements Identifiable<String> {
     }
 
     private void initMigrationTables() {
-        Query query = database.getSchema().getQuery("migration.schema.sql");
-        query.update();
+        if (dryRun) {
+            migrationTableExists = schema.getTable("database_migrations").exists();
+        } else {
+            Query query = database.getSchema().getQuery("migration.schema.sql");
+            query.update();
+        }
     }
 
     private void loadDefinitions() {
@@ -147,166 +256,267 @@ public final class Session implements Identifiable<String> {
         }
         modules = loader.getModules();
         definitions = loader.getDefinitions();
+        scheduler = new Scheduler(modules, definitions);
     }
 
     private void doExecute() {
         long migrations = definitions.stream().mapToLong(definition -> definition.getMigrations().size()).sum();
         LOGGER.info("Discovered {} schema descriptors (with {} migrations), in {} modules", definitions.size(), migrations, modules.size());
-        for (Definition definition : definitions) {
-            executeDefinition(definition);
-        }
-        if (statementCount > 0) {
-            LOGGER.info("Database migration completed in {}, {} scripts executed ({} statements executed)",
-                    formatDuration(getDuration()), scriptCount, statementCount);
+        scheduler.execute(dryRun ? 1 : parallelism, module -> new Worker(module).execute());
+        if (dryRun) {
+            LOGGER.info("Database migration estimated to {} ({} with concurrent modules), {} scripts ({} statements) would be executed\n{}",
+                    formatDuration(getEstimatedDuration()), formatDuration(getEstimatedCriticalPath()),
+                    scriptCount, statementCount, getReport());
+        } else if (statementCount.get() > 0) {
+            LOGGER.info("Database migration completed in {}, {} scripts executed ({} statements executed)\n{}",
+                    formatDuration(getDuration()), scriptCount, statementCount, getReport());
         } else {
             LOGGER.info("No migration required, database is up-to-date");
         }
     }
 
-    private Status execute(Query query) {
-        statementCount++;
-        try {
-            executor.execute(query);
-            return Status.SUCCESSFUL;
-        } catch (Exception e) {
-            throwable = e;
-            failedStatementCount++;
-            status = Status.FAILED;
-            logWarn("Migration failed while executing:\nStatement:\n" + insertSpacesWithBlock(query.getSql(), 5)
-                    + "\nRoot Cause:\n" + insertSpacesWithBlock(getRootCauseDescription(e), 5));
-            return Status.FAILED;
+    /**
+     * Returns a report with the slowest scripts executed (or estimated, in dry-run mode) by this session.
+     *
+     * @return a non-null instance
+     */
+    String getReport() {
+        List<Step> sortedSteps = new ArrayList<>(steps);
+        sortedSteps.sort(Comparator.comparing((Step step) -> dryRun ? step.getEstimatedDuration() : step.getDuration()).reversed());
+        StringBuilder builder = new StringBuilder();
+        for (Step step : sortedSteps.subList(0, Math.min(MAX_REPORTED_STEPS, sortedSteps.size()))) {
+            builder.append(" - ").append(step.getModule().getName()).append(" / ").append(step.getScript())
+                    .append(": ").append(formatDuration(dryRun ? step.getEstimatedDuration() : step.getDuration()))
+                    .append(", ").append(step.getStatementCount()).append(" statements");
+            if (step.getBatchCount() > 0) builder.append(" (").append(step.getBatchCount()).append(" batches)");
+            builder.append(", ").append(step.getStatus()).append('\n');
         }
+        return builder.toString();
     }
 
-    private void logInfo(String message) {
-        LOGGER.debug(message);
-        scriptLogger.append(message).append("\n");
+    private static boolean isDml(Query query) {
+        String sql = query.getSql().stripLeading();
+        int index = 0;
+        while (index < sql.length() && Character.isLetter(sql.charAt(index))) index++;
+        return DML_KEYWORDS.contains(sql.substring(0, index).toLowerCase());
     }
 
-    private void logWarn(String message) {
-        if (failOnError) {
-            LOGGER.debug(message);
-        } else {
-            LOGGER.warn(message);
+    private boolean wasApplied(Definition definition) {
+        int countExists = 0;
+        for (String tableName : definition.getTables()) {
+            Table<?> table = schema.getTable(tableName);
+            if (table.exists()) countExists++;
         }
-        scriptLogger.append(message).append("\n");
+        return countExists > 0;
     }
 
-    private void executeDefinition(Definition definition) {
-        currentDefinition = definition;
-        if (!wasApplied(definition)) {
-            executeDefinitionScript(definition);
-        } else {
-            executeMigrations(definition);
+    private Status getStatus(String id) {
+        if (!migrationTableExists) return Status.NA;
+        Query query = schema.getQuery("migration.get_status.sql").parameter(1, id);
+        return query.selectOne(Status.class, Status.NA);
+    }
+
+    /**
+     * Applies the definitions of a single module.
+     * <p>
+     * Each module is migrated by its own worker, which allows independent modules to be migrated concurrently.
+     */
+    private class Worker {
+
+        private final Module module;
+        private final StringBuilder logger = new StringBuilder();
+        private final StringBuilder scriptLogger = new StringBuilder();
+        private Definition currentDefinition;
+        private Migration currentMigration;
+        private Status status = Status.NA;
+
+        private Worker(Module module) {
+            this.module = module;
         }
-        if (!scriptLogger.isEmpty()) {
-            logger.append(scriptLogger);
-            scriptLogger.setLength(0);
+
+        private void execute() {
+            for (Definition definition : scheduler.getDefinitions(module)) {
+                executeDefinition(definition);
+            }
         }
-        if (status == Status.FAILED && failOnError) {
-            throw new MigrationException("Migration failed during definition '" + currentDefinition.getName()
-                    + "' from module '" + currentDefinition.getModule().getName() + "', log:\n" + insertSpacesWithBlock(logger.toString(), 5));
+
+        private Status execute(Query query) {
+            statementCount.incrementAndGet();
+            if (dryRun) return Status.SUCCESSFUL;
+            try {
+                executor.execute(query);
+                return Status.SUCCESSFUL;
+            } catch (Exception e) {
+                return fail(query.getSql(), e);
+            }
         }
-        currentDefinition = null;
-    }
 
-    private void executeDefinitionScript(Definition definition) {
-        logInfo("Executing definition '" + definition.getName() + "' from module '" + definition.getModule() + "'");
-        Script script = getScript();
-        executeScript(script);
-        applyMigrations(definition);
-    }
+        private Status executeBatch(List<Query> queries) {
+            statementCount.addAndGet(queries.size());
+            if (dryRun) return Status.SUCCESSFUL;
+            try {
+                executor.executeBatch(queries);
+                return Status.SUCCESSFUL;
+            } catch (Exception e) {
+                StringJoiner joiner = new StringJoiner("\n");
+                queries.forEach(query -> joiner.add(query.getSql()));
+                return fail(joiner.toString(), e);
+            }
+        }
 
-    private void executeMigrations(Definition definition) {
-        logInfo("Apply migrations for '" + definition.getName() + "' from module '" + definition.getModule().getName() + "'");
-        for (Migration migration : definition.getMigrations()) {
-            Status status = getStatus(migration.getId());
-            if (status.shouldSkip()) continue;
-            executeMigration(migration);
+        private Status fail(String sql, Exception e) {
+            failedStatementCount.incrementAndGet();
+            status = Status.FAILED;
+            logWarn("Migration failed while executing:\nStatement:\n" + insertSpacesWithBlock(sql, 5)
+                    + "\nRoot Cause:\n" + insertSpacesWithBlock(getRootCauseDescription(e), 5));
+            return Status.FAILED;
         }
-        currentMigration = null;
-    }
 
-    private void applyMigrations(Definition definition) {
-        for (Migration migration : definition.getMigrations()) {
-            currentMigration = migration;
-            updateRegistry(Status.APPLIED, Duration.ZERO);
+        private void logInfo(String message) {
+            LOGGER.debug(message);
+            scriptLogger.append(message).append("\n");
         }
-        currentMigration = null;
-    }
 
-    private void executeMigration(Migration migration) {
-        currentMigration = migration;
-        Script script = getScript();
-        boolean valid = migration.getCondition().evaluate(schema);
-        if (!valid) executeScript(script);
-    }
+        private void logWarn(String message) {
+            if (failOnError) {
+                LOGGER.debug(message);
+            } else {
+                LOGGER.warn(message);
+            }
+            scriptLogger.append(message).append("\n");
+        }
 
-    private void updateRegistry(Status status, Duration duration) {
-        String id;
-        String name = currentDefinition.getName();
-        Module module = currentDefinition.getModule();
-        String path;
-        String checksum = getChecksum();
-        if (currentMigration != null) {
-            id = currentMigration.getId();
-            path = currentMigration.getPath();
-        } else {
-            id = currentDefinition.getId();
-            path = currentDefinition.getPath();
+        private void executeDefinition(Definition definition) {
+            currentDefinition = definition;
+            if (!wasApplied(definition)) {
+                executeDefinitionScript(definition);
+            } else {
+                executeMigrations(definition);
+            }
+            if (!scriptLogger.isEmpty()) {
+                logger.append(scriptLogger);
+                scriptLogger.setLength(0);
+            }
+            if (status == Status.FAILED && failOnError) {
+                throw new MigrationException("Migration failed during definition '" + currentDefinition.getName()
+                        + "' from module '" + currentDefinition.getModule().getName() + "', log:\n" + insertSpacesWithBlock(logger.toString(), 5));
+            }
+            currentDefinition = null;
         }
-        Query query = schema.getQuery("migration.update.sql").parameters(id, name, module.getName(), path,
-                LocalDateTime.now(), duration.toMillis(), status.name(), checksum, scriptLogger.toString());
-        query.update();
-    }
 
-    private Script getScript() {
-        if (currentMigration != null) {
-            return schema.getScript("migration" + addStartSlash(currentMigration.getPath()));
-        } else {
-            return schema.getScript("schema" + addStartSlash(currentDefinition.getPath()));
+        private void executeDefinitionScript(Definition definition) {
+            logInfo("Executing definition '" + definition.getName() + "' from module '" + definition.getModule() + "'");
+            Script script = getScript();
+            executeScript(script);
+            applyMigrations(definition);
         }
-    }
 
-    private String getChecksum() {
-        Script script = getScript();
-        try {
-            return Hashing.create().update(script.getResource().loadAsString()).asString();
-        } catch (IOException e) {
-            throw new MigrationException("Failed to load checksum for script " + script.getResource().getPath(), e);
+        private void executeMigrations(Definition definition) {
+            logInfo("Apply migrations for '" + definition.getName() + "' from module '" + definition.getModule().getName() + "'");
+            for (Migration migration : definition.getMigrations()) {
+                Status status = getStatus(migration.getId());
+                if (status.shouldSkip()) continue;
+                executeMigration(migration);
+            }
+            currentMigration = null;
         }
-    }
 
-    private boolean wasApplied(Definition definition) {
-        int countExists = 0;
-        for (String tableName : definition.getTables()) {
-            Table<?> table = schema.getTable(tableName);
-            if (table.exists()) countExists++;
+        private void applyMigrations(Definition definition) {
+            for (Migration migration : definition.getMigrations()) {
+                currentMigration = migration;
+                updateRegistry(Status.APPLIED, Duration.ZERO);
+            }
+            currentMigration = null;
         }
-        return countExists > 0;
-    }
 
-    private Status getStatus(String id) {
-        Query query = schema.getQuery("migration.get_status.sql").parameter(1, id);
-        return query.selectOne(Status.class, Status.NA);
-    }
+        private void executeMigration(Migration migration) {
+            currentMigration = migration;
+            Script script = getScript();
+            boolean valid = migration.getCondition().evaluate(schema);
+            if (!valid) executeScript(script);
+        }
+
+        private void updateRegistry(Status status, Duration duration) {
+            if (dryRun) return;
+            String id;
+            String name = currentDefinition.getName();
+            Module module = currentDefinition.getModule();
+            String path;
+            String checksum = getChecksum();
+            if (currentMigration != null) {
+                id = currentMigration.getId();
+                path = currentMigration.getPath();
+            } else {
+                id = currentDefinition.getId();
+                path = currentDefinition.getPath();
+            }
+            Query query = schema.getQuery("migration.update.sql").parameters(id, name, module.getName(), path,
+                    LocalDateTime.now(), duration.toMillis(), status.name(), checksum, scriptLogger.toString());
+            query.update();
+        }
 
-    private void executeScript(Script script) {
-        logInfo("Executing script '" + script.getResource().getFileName() + "'");
-        Status status = Status.SUCCESSFUL;
-        long startTime = currentTimeMillis();
-        for (Query query : script.getQueries()) {
-            status = execute(query);
-            if (status == Status.FAILED) break;
+        private Script getScript() {
+            if (currentMigration != null) {
+                return schema.getScript("migration" + addStartSlash(currentMigration.getPath()));
+            } else {
+                return schema.getScript("schema" + addStartSlash(currentDefinition.getPath()));
+            }
         }
-        scriptCount++;
-        if (!scriptLogger.isEmpty()) logger.append(scriptLogger);
-        updateRegistry(status, ofMillis(currentTimeMillis() - startTime));
-        scriptLogger.setLength(0);
-        if (this.status == Status.NA) {
-            this.status = status;
-        } else if (status.ordinal() >= this.status.ordinal()) {
-            this.status = status;
+
+        private String getChecksum() {
+            Script script = getScript();
+            try {
+                return Hashing.create().update(script.getResource().loadAsString()).asString();
+            } catch (IOException e) {
+                throw new MigrationException("Failed to load checksum for script " + script.getResource().getPath(), e);
+            }
+        }
+
+        private void executeScript(Script script) {
+            logInfo("Executing script '" + script.getResource().getFileName() + "'");
+            Status status = Status.SUCCESSFUL;
+            long startTime = currentTimeMillis();
+            int statements = 0;
+            int batches = 0;
+            Duration estimatedDuration = Duration.ZERO;
+            List<Query> batch = new ArrayList<>();
+            for (Query query : script.getQueries()) {
+                statements++;
+                boolean dml = isDml(query);
+                if (dml) {
+                    estimatedDuration = estimatedDuration.plus(dmlCost);
+                    batch.add(query);
+                    if (batch.size() < batchSize) continue;
+                } else {
+                    estimatedDuration = estimatedDuration.plus(ddlCost);
+                }
+                if (!batch.isEmpty()) {
+                    batches++;
+                    status = executeBatch(batch);
+                    batch = new ArrayList<>();
+                    if (status == Status.FAILED) break;
+                }
+                if (!dml) {
+                    status = execute(query);
+                    if (status == Status.FAILED) break;
+                }
+            }
+            if (status != Status.FAILED && !batch.isEmpty()) {
+                batches++;
+                status = executeBatch(batch);
+            }
+            scriptCount.incrementAndGet();
+            Duration duration = ofMillis(currentTimeMillis() - startTime);
+            steps.add(new Step(currentDefinition, currentMigration, script.getResource().getFileName(), statements,
+                    batches, duration, estimatedDuration, status));
+            if (!scriptLogger.isEmpty()) logger.append(scriptLogger);
+            updateRegistry(status, duration);
+            scriptLogger.setLength(0);
+            if (this.status == Status.NA) {
+                this.status = status;
+            } else if (status.ordinal() >= this.status.ordinal()) {
+                this.status = status;
+            }
         }
     }
 
@@ -325,6 +535,23 @@ public final class Session implements Identifiable<String> {
             query.update();
         }
 
+        @Override
+        public void executeBatch(Collection<Query> queries) {
+            if (queries.isEmpty()) return;
+            if (queries.size() == 1) {
+                execute(queries.iterator().next());
+                return;
+            }
+            Query firstQuery = queries.iterator().next();
+            JdbcTemplate template = new JdbcTemplate(firstQuery.getSchema().getDatabase().getDataSource().unwrap());
+            template.batchUpdate(queries.stream().map(query -> removeTerminator(query.getSql())).toArray(String[]::new));
+        }
+
+        private static String removeTerminator(String sql) {
+            sql = sql.strip();
+            return sql.endsWith(";") ? sql.substring(0, sql.length() - 1) : sql;
+        }
+
     }
 
 
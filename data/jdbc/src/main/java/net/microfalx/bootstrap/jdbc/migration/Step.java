@@ -0,0 +1,53 @@
+package net.microfalx.bootstrap.jdbc.migration;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Holds the outcome of a script executed during a migration session (a definition script or a migration script).
+ */
+@Getter
+@ToString
+public final class Step {
+
+    private final Module module;
+    private final Definition definition;
+    private final Migration migration;
+    private final String script;
+    private final int statementCount;
+    private final int batchCount;
+    private final Duration duration;
+    private final Duration estimatedDuration;
+    private final Session.Status status;
+
+    Step(Definition definition, Migration migration, String script, int statementCount, int batchCount,
+         Duration duration, Duration estimatedDuration, Session.Status status) {
+        requireNonNull(definition);
+        requireNonNull(script);
+        requireNonNull(duration);
+        requireNonNull(estimatedDuration);
+        requireNonNull(status);
+        this.module = definition.getModule();
+        this.definition = definition;
+        this.migration = migration;
+        this.script = script;
+        this.statementCount = statementCount;
+        this.batchCount = batchCount;
+        this.duration = duration;
+        this.estimatedDuration = estimatedDuration;
+        this.status = status;
+    }
+
+    /**
+     * Returns the migration which triggered this step.
+     *
+     * @return the migration, null if the definition script was executed
+     */
+    public Migration getMigration() {
+        return migration;
+    }
+}
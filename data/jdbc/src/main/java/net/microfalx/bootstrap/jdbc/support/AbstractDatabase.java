@@ -1,5 +1,6 @@
 package net.microfalx.bootstrap.jdbc.support;
 
+import net.microfalx.bootstrap.metrics.LatencyTimer;
 import net.microfalx.jdbcpool.ConnectionPool;
 import net.microfalx.lang.TimeUtils;
 import net.microfalx.metrics.Metrics;
@@ -226,7 +227,7 @@ public abstract class AbstractDatabase extends AbstractNode implements Database
      * @param supplier the supplier
      */
     protected final <T> T time(String name, Supplier<T> supplier) {
-        return getMetrics().time(name, supplier);
+        return LatencyTimer.time(getMetrics(), name, supplier);
     }
 
     /**
@@ -236,7 +237,7 @@ public abstract class AbstractDatabase extends AbstractNode implements Database
      * @param callable the callable
      */
     protected final <T> T timeCallable(String name, Callable<T> callable) {
-        return getMetrics().timeCallable(name, callable);
+        return LatencyTimer.timeCallable(getMetrics(), name, callable);
     }
 
     /**
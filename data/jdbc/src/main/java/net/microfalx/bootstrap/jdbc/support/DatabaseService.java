@@ -8,6 +8,7 @@ import net.microfalx.bootstrap.jdbc.support.mysql.MySqlDatabase;
 import net.microfalx.bootstrap.jdbc.support.vertica.VerticaDatabase;
 import net.microfalx.bootstrap.store.Store;
 import net.microfalx.bootstrap.store.StoreService;
+import net.microfalx.bootstrap.trace.Span;
 import net.microfalx.lang.ClassUtils;
 import net.microfalx.lang.ConcurrencyUtils;
 import net.microfalx.lang.TextUtils;
@@ -189,7 +190,7 @@ public class DatabaseService implements InitializingBean {
         for (Database database : databases) {
             Snapshot snapshot = new Snapshot(database);
             snapshots.add(snapshot);
-            futures.add(coordinatorTaskExecutor.submit(new ExtractSnapshot(snapshot)));
+            futures.add(coordinatorTaskExecutor.submit(Span.wrap(new ExtractSnapshot(snapshot))));
         }
         int pendingTasks = METRICS.getTimer("Get Snapshots").record(() -> waitForFutures(futures, timeout));
         if (pendingTasks > 0) LOGGER.debug("Incomplete list of snapshots, pending tasks: {}", pendingTasks);
@@ -217,7 +218,7 @@ public class DatabaseService implements InitializingBean {
      * @return a non-null instance
      */
     public Future<Map<String, Session>> getSessions() {
-        return coordinatorTaskExecutor.submit(METRICS.getTimer("Get Sessions").wrap(new ExtractSessions()));
+        return coordinatorTaskExecutor.submit(Span.wrap(METRICS.getTimer("Get Sessions").wrap(new ExtractSessions())));
     }
 
     /**
@@ -240,7 +241,7 @@ public class DatabaseService implements InitializingBean {
      * @return a non-null instance
      */
     public Future<Map<String, Transaction>> getTransactions() {
-        return coordinatorTaskExecutor.submit(METRICS.getTimer("Get Transactions").wrap(new ExtractTransactions()));
+        return coordinatorTaskExecutor.submit(Span.wrap(METRICS.getTimer("Get Transactions").wrap(new ExtractTransactions())));
     }
 
     /**
@@ -479,8 +480,8 @@ public class DatabaseService implements InitializingBean {
         @Override
         public Snapshot call() throws Exception {
             snapshot.setNodes(snapshot.getDatabase().getNodes());
-            Future<Collection<Session>> sessions = workerTaskExecutor.submit(new ExtractSessionsForDatabase(snapshot.getDatabase()));
-            Future<Collection<Transaction>> transactions = workerTaskExecutor.submit(new ExtractTransactionsForDatabase(snapshot.getDatabase()));
+            Future<Collection<Session>> sessions = workerTaskExecutor.submit(Span.wrap(new ExtractSessionsForDatabase(snapshot.getDatabase())));
+            Future<Collection<Transaction>> transactions = workerTaskExecutor.submit(Span.wrap(new ExtractTransactionsForDatabase(snapshot.getDatabase())));
             Collection<Future<?>> futures = Arrays.asList(sessions, transactions);
             snapshot.setIncomplete(waitForFutures(futures, timeout) > 0);
             snapshot.setSessions(ConcurrencyUtils.getResult(sessions));
@@ -571,7 +572,7 @@ public class DatabaseService implements InitializingBean {
                 Map<String, Session> sessions = new HashMap<>();
                 Collection<Future<Collection<Session>>> futures = new ArrayList<>();
                 for (Database database : databases.values()) {
-                    futures.add(workerTaskExecutor.submit(new ExtractSessionsForDatabase(database)));
+                    futures.add(workerTaskExecutor.submit(Span.wrap(new ExtractSessionsForDatabase(database))));
                 }
                 int pendingTasks = waitForFutures(futures, timeout);
                 if (pendingTasks > 0) LOGGER.debug("Incomplete list of sessions, pending tasks: {}", pendingTasks);
@@ -598,7 +599,7 @@ public class DatabaseService implements InitializingBean {
                 Map<String, Transaction> transactions = new HashMap<>();
                 Collection<Future<Collection<Transaction>>> futures = new ArrayList<>();
                 for (Database database : databases.values()) {
-                    futures.add(workerTaskExecutor.submit(new ExtractTransactionsForDatabase(database)));
+                    futures.add(workerTaskExecutor.submit(Span.wrap(new ExtractTransactionsForDatabase(database))));
                 }
                 int pendingTasks = waitForFutures(futures, timeout);
                 if (pendingTasks > 0) LOGGER.debug("Incomplete list of transactions, pending tasks: {}", pendingTasks);
@@ -627,7 +628,7 @@ public class DatabaseService implements InitializingBean {
         public Collection<Statement> call() throws Exception {
             Collection<Future<Collection<Statement>>> futures = new ArrayList<>();
             for (Database database : databases.values()) {
-                futures.add(workerTaskExecutor.submit(new ExtractStatementsForDatabase(database, start, end)));
+                futures.add(workerTaskExecutor.submit(Span.wrap(new ExtractStatementsForDatabase(database, start, end))));
             }
             int pendingTasks = waitForFutures(futures, timeout.multipliedBy(5));
             if (pendingTasks > 0) LOGGER.debug("Incomplete list of statements, pending tasks: {}", pendingTasks);
@@ -4,6 +4,7 @@ import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.simple.JdbcClient;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -54,6 +55,16 @@ public interface Query {
      */
     int update();
 
+    /**
+     * Executes the query once for each set of parameters, using JDBC batching.
+     * <p>
+     * The parameters registered with {@link #parameters(Object...)} or {@link #parameter(int, Object)} are ignored.
+     *
+     * @param parameters the parameters, one array per execution
+     * @return the number of affected rows, for each execution
+     */
+    int[] batchUpdate(Collection<Object[]> parameters);
+
     /**
      * Sets the parameters for the query.
      *
@@ -1,15 +1,20 @@
 package net.microfalx.bootstrap.jdbc.support;
 
+import net.microfalx.bootstrap.trace.Span;
 import net.microfalx.lang.EnumUtils;
 import net.microfalx.lang.NumberUtils;
 import net.microfalx.lang.ObjectUtils;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.simple.JdbcClient;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.StringJoiner;
+import java.util.function.Supplier;
 
 import static net.microfalx.lang.ArgumentUtils.requireNonNull;
 import static net.microfalx.lang.ArgumentUtils.requireNotEmpty;
@@ -19,6 +24,7 @@ final class QueryImpl implements Query {
 
     private final Schema schema;
     private final String sql;
+    private final javax.sql.DataSource dataSource;
     private final JdbcClient client;
     private final JdbcClient.StatementSpec statementSpec;
 
@@ -27,7 +33,8 @@ final class QueryImpl implements Query {
         requireNotEmpty(sql);
         this.schema = schema;
         this.sql = sql;
-        this.client = JdbcClient.create(schema.getDatabase().getDataSource().unwrap());
+        this.dataSource = schema.getDatabase().getDataSource().unwrap();
+        this.client = JdbcClient.create(dataSource);
         this.statementSpec = client.sql(sql);
     }
 
@@ -48,7 +55,14 @@ final class QueryImpl implements Query {
 
     @Override
     public int update() {
-        return statementSpec.update();
+        return execute("Update", statementSpec::update);
+    }
+
+    @Override
+    public int[] batchUpdate(Collection<Object[]> parameters) {
+        requireNonNull(parameters);
+        if (parameters.isEmpty()) return new int[0];
+        return execute("Batch Update", () -> new JdbcTemplate(dataSource).batchUpdate(sql, new ArrayList<>(parameters)));
     }
 
     @Override
@@ -73,12 +87,12 @@ final class QueryImpl implements Query {
 
     @Override
     public <T> T selectOne(ResultSetExtractor<T> extractor) {
-        return statementSpec.query(extractor);
+        return execute("Select", () -> statementSpec.query(extractor));
     }
 
     @Override
     public <T> T selectOne(RowMapper<T> mapper) {
-        return statementSpec.query(mapper).single();
+        return execute("Select", () -> statementSpec.query(mapper).single());
     }
 
     @SuppressWarnings({"unchecked", "rawtypes"})
@@ -86,7 +100,7 @@ final class QueryImpl implements Query {
     public <T> T selectOne(Class<T> type) {
         requireNonNull(type);
         Class<?> finalType = isSubClassOf(type, Enum.class) ? String.class : type;
-        Object value = statementSpec.query(finalType).single();
+        Object value = execute("Select", () -> statementSpec.query(finalType).single());
         if (isSubClassOf(type, Enum.class)) {
             return (T) EnumUtils.fromName((Class<Enum>) type, ObjectUtils.toString(value));
         } else {
@@ -97,14 +111,14 @@ final class QueryImpl implements Query {
     @Override
     public <T> T selectOne(Class<T> type, T defaultValue) {
         try {
-            return (T) statementSpec.query(type).single();
+            return (T) execute("Select", () -> statementSpec.query(type).single());
         } catch (IncorrectResultSizeDataAccessException | IllegalArgumentException e) {
             return defaultValue;
         }
     }
 
     public <T> List<T> selectMany(RowMapper<T> rowMapper) {
-        return statementSpec.query(rowMapper).list();
+        return execute("Select", () -> statementSpec.query(rowMapper).list());
     }
 
     @Override
@@ -117,6 +131,17 @@ final class QueryImpl implements Query {
         return NumberUtils.toNumber(selectOne(Integer.class), 0).longValue();
     }
 
+    private <T> T execute(String operation, Supplier<T> action) {
+        Span span = Span.start("JDBC " + operation).setAttribute("schema", schema.getName()).setAttribute("sql", sql);
+        try {
+            return action.get();
+        } catch (RuntimeException e) {
+            throw span.fail(e);
+        } finally {
+            span.end();
+        }
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", Query.class.getSimpleName() + "[", "]")
@@ -26,6 +26,7 @@ public class JdbcStorage extends AbstractStorage {
     private final QueryProvider queryProvider;
 
     private static final byte[] EMPTY_BYTE_ARRAY = new byte[0];
+    private static final int ID_BATCH_SIZE = 500;
 
     public JdbcStorage(QueryProvider queryProvider) {
         this.queryProvider = queryProvider;
@@ -36,17 +37,36 @@ public class JdbcStorage extends AbstractStorage {
         String normalizedPath = normalizePath(path);
         Query query;
         if (recursive) {
-            query = queryProvider.withResource("registry.get_children.sql").parameter(1, normalizedPath + "/%");
+            query = queryProvider.withResource("registry.get_children.sql").parameter(1, getDescendantsPattern(normalizedPath));
         } else {
-            query = queryProvider.withResource("registry.get_direct_children.sql").parameter(1, getParentId(normalizedPath));
+            Long id = getId(normalizedPath);
+            if (id == null) return List.of();
+            query = queryProvider.withResource("registry.get_direct_children.sql").parameter(1, id);
         }
         try {
-            return query.selectMany((rs, rowNum) -> {
-                AbstractStorage.StorageNode node = mapToStorageNode(rs);
-                node.setExists(true);
-                node.setLeaf(!hasChildren(node.getPath()));
-                return node;
-            });
+            return query.selectMany((rs, rowNum) -> mapToStorageNode(rs));
+        } catch (Exception e) {
+            return List.of();
+        }
+    }
+
+    @Override
+    public Collection<Node> getSubtree(String path, int depth) {
+        String normalizedPath = normalizePath(path);
+        // the depth of a node is the number of separators in its path, relative to the path of the subtree
+        long maximumSeparators = getSeparatorCount(normalizedPath) + (long) depth;
+        Query query = queryProvider.withResource("registry.get_subtree.sql")
+                .parameters(getNaturalId(normalizedPath), getDescendantsPattern(normalizedPath), maximumSeparators);
+        try {
+            Collection<Node> nodes = new ArrayList<>();
+            for (AbstractStorage.StorageNode node : query.selectMany((rs, rowNum) -> mapToStorageNode(rs))) {
+                // LIKE treats "_" as a wildcard, so the depth also filters out nodes outside the subtree
+                int nodeDepth = getDepth(normalizedPath, node.getPath());
+                if (nodeDepth < 0 || nodeDepth > depth) continue;
+                nodeIds.put(node.getNaturalId(), node.getId());
+                nodes.add(node);
+            }
+            return nodes;
         } catch (Exception e) {
             return List.of();
         }
@@ -58,12 +78,7 @@ public class JdbcStorage extends AbstractStorage {
         Query query = queryProvider.withResource("registry.get_node.sql")
                 .parameter(1, getNaturalId(normalizedPath));
         try {
-            AbstractStorage.StorageNode node = query.selectOne((rs, rowNum) -> mapToStorageNode(rs));
-            if (node != null) {
-                node.setExists(true);
-                node.setLeaf(!hasChildren(path));
-            }
-            return Optional.ofNullable(node);
+            return Optional.ofNullable(query.selectOne((rs, rowNum) -> mapToStorageNode(rs)));
         } catch (IncorrectResultSizeDataAccessException e) {
             return Optional.empty();
         }
@@ -98,8 +113,53 @@ public class JdbcStorage extends AbstractStorage {
     public void put(String path, byte[] data, int version) {
         String normalizedPath = normalizePath(path);
         Long parentId = createParentId(normalizedPath);
-        createOrUpdateNode(parentId, normalizedPath, version);
-        createOrUpdateData(getId(normalizedPath), data);
+        Long id = getId(normalizedPath);
+        if (id == null) {
+            createOrUpdateNode(parentId, normalizedPath, version);
+            createOrUpdateData(getId(normalizedPath), data);
+        } else {
+            // the data changes before the version, a node with a new version never holds old data
+            createOrUpdateData(id, data);
+            createOrUpdateNode(parentId, normalizedPath, version);
+        }
+    }
+
+    @Override
+    public void putAll(Map<String, byte[]> data) {
+        if (data.isEmpty()) return;
+        Map<String, byte[]> normalizedData = new LinkedHashMap<>();
+        for (Map.Entry<String, byte[]> entry : data.entrySet()) {
+            normalizedData.put(normalizePath(entry.getKey()), entry.getValue());
+        }
+        loadIds(normalizedData.keySet());
+        LocalDateTime now = LocalDateTime.now();
+        List<String> newPaths = new ArrayList<>();
+        List<Object[]> newNodeParameters = new ArrayList<>();
+        List<Object[]> existingNodeParameters = new ArrayList<>();
+        for (String path : normalizedData.keySet()) {
+            Object[] parameters = {createParentId(path), getNaturalId(path), path, now, now};
+            if (nodeIds.containsKey(getNaturalId(path))) {
+                existingNodeParameters.add(parameters);
+            } else {
+                newPaths.add(path);
+                newNodeParameters.add(parameters);
+            }
+        }
+        if (!newNodeParameters.isEmpty()) {
+            queryProvider.withResource("registry.put_node.sql").batchUpdate(newNodeParameters);
+            loadIds(newPaths);
+        }
+        List<Object[]> dataParameters = new ArrayList<>();
+        for (Map.Entry<String, byte[]> entry : normalizedData.entrySet()) {
+            Long id = nodeIds.get(getNaturalId(entry.getKey()));
+            if (id == null) throw new IllegalStateException("Cannot find node id after creating node, path: " + entry.getKey());
+            dataParameters.add(new Object[]{id, entry.getValue()});
+        }
+        queryProvider.withResource("registry.put_data.sql").batchUpdate(dataParameters);
+        // existing nodes change their version after the data, same as single updates
+        if (!existingNodeParameters.isEmpty()) {
+            queryProvider.withResource("registry.put_node.sql").batchUpdate(existingNodeParameters);
+        }
     }
 
     @Override
@@ -120,17 +180,39 @@ public class JdbcStorage extends AbstractStorage {
                 .setVersion(rs.getInt("version"));
         node.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime())
                 .setUpdatedAt(rs.getTimestamp("modified_at").toLocalDateTime());
+        node.setExists(true);
+        node.setLeaf(rs.getInt("child_count") == 0);
         return node;
     }
 
-    private boolean hasChildren(String path) {
-        Long parentId = getParentId(path);
-        if (parentId != null) {
-            return queryProvider.withResource("registry.count_children.sql")
-                    .parameter(1, parentId)
-                    .selectInt() > 0;
-        } else {
-            return false;
+    private static String getDescendantsPattern(String path) {
+        return UriUtils.isRoot(path) ? "/%" : path + "/%";
+    }
+
+    private static int getSeparatorCount(String path) {
+        if (UriUtils.isRoot(path)) return 0;
+        int count = 0;
+        for (int index = 0; index < path.length(); index++) {
+            if (path.charAt(index) == '/') count++;
+        }
+        return count;
+    }
+
+    private void loadIds(Collection<String> paths) {
+        List<String> naturalIds = new ArrayList<>();
+        for (String path : paths) {
+            String naturalId = getNaturalId(path);
+            if (!nodeIds.containsKey(naturalId)) naturalIds.add(naturalId);
+        }
+        for (int index = 0; index < naturalIds.size(); index += ID_BATCH_SIZE) {
+            List<String> batch = naturalIds.subList(index, Math.min(naturalIds.size(), index + ID_BATCH_SIZE));
+            String placeholders = String.join(", ", Collections.nCopies(batch.size(), "?"));
+            List<Map.Entry<String, Long>> ids = queryProvider.withSql("select id, natural_id from registry_nodes where natural_id in (" + placeholders + ")")
+                    .parameters(batch.toArray())
+                    .selectMany((rs, rowNum) -> Map.entry(rs.getString("natural_id"), rs.getLong("id")));
+            for (Map.Entry<String, Long> id : ids) {
+                nodeIds.put(id.getKey(), id.getValue());
+            }
         }
     }
 
@@ -0,0 +1 @@
+create index ix$registry_nodes$path on registry_nodes (path(255));
\ No newline at end of file
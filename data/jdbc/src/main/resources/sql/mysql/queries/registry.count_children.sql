@@ -1 +0,0 @@
-select count(*) from registry_nodes where parent_id = ?
\ No newline at end of file
@@ -1 +1,4 @@
-select id, natural_id, path, update_count, version, created_at, modified_at from registry_nodes where natural_id = ?
\ No newline at end of file
+select n.id, n.natural_id, n.path, n.update_count, n.version, n.created_at, n.modified_at,
+       (select count(*) from registry_nodes c where c.parent_id = n.id) as child_count
+from registry_nodes n
+where n.natural_id = ?
\ No newline at end of file
@@ -0,0 +1,6 @@
+select n.id, n.natural_id, n.path, n.update_count, n.version, n.created_at, n.modified_at,
+       (select count(*) from registry_nodes c where c.parent_id = n.id) as child_count
+from registry_nodes n
+where n.natural_id = ?
+   or (n.path like ? and length(n.path) - length(replace(n.path, '/', '')) <= ?)
+order by n.path
\ No newline at end of file
@@ -1,5 +1,5 @@
 INSERT INTO registry_nodes (parent_id, natural_id, path, update_count, version, created_at, modified_at)
     VALUES (?, ?, ?, 1, 1, ?, ?)
-on duplicate key update update_count = values(update_count) + 1,
-    version = values(version) + 1,
+on duplicate key update update_count = update_count + 1,
+    version = version + 1,
     modified_at = values(modified_at)
\ No newline at end of file
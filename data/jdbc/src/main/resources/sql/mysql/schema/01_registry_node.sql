@@ -10,4 +10,6 @@ create table registry_nodes
     modified_at  datetime          not null,
     constraint nk$registry_nodes$natural unique key (natural_id),
     constraint fk$registry_nodes$parent foreign key (parent_id) references registry_nodes (id)
-) ENGINE = InnoDB;
\ No newline at end of file
+) ENGINE = InnoDB;
+
+create index ix$registry_nodes$path on registry_nodes (path(255));
\ No newline at end of file
@@ -0,0 +1,66 @@
+package net.microfalx.bootstrap.jdbc.migration;
+
+import net.microfalx.resource.ClassPathResource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchedulerTest {
+
+    private DefinitionLoader loader;
+
+    @BeforeEach
+    void setup() {
+        loader = new DefinitionLoader();
+        loader.load(ClassPathResource.file("schema1.xml"));
+        loader.load(ClassPathResource.file("schema2.xml"));
+    }
+
+    @Test
+    void dependencies() {
+        Scheduler scheduler = new Scheduler(loader.getModules(), loader.getDefinitions());
+        assertEquals(2, scheduler.getModules().size());
+        assertEquals("demo1", scheduler.getModules().get(0).getId());
+        assertEquals("demo2", scheduler.getModules().get(1).getId());
+        assertEquals(0, scheduler.getDependencies(loader.getModule("demo1")).size());
+        assertEquals(1, scheduler.getDependencies(loader.getModule("demo2")).size());
+        assertEquals(2, scheduler.getDefinitions(loader.getModule("demo2")).size());
+    }
+
+    @Test
+    void criticalPath() {
+        Module independent = new Module("demo3", "Demo 3");
+        List<Module> modules = new ArrayList<>(loader.getModules());
+        modules.add(independent);
+        Scheduler scheduler = new Scheduler(modules, loader.getDefinitions());
+        assertEquals(Duration.ofSeconds(2), scheduler.getCriticalPath(module -> Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void executeInDependencyOrder() {
+        Scheduler scheduler = new Scheduler(loader.getModules(), loader.getDefinitions());
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        scheduler.execute(4, module -> executed.add(module.getId()));
+        assertEquals(List.of("demo1", "demo2"), executed);
+    }
+
+    @Test
+    void skipDependentsOnFailure() {
+        Scheduler scheduler = new Scheduler(loader.getModules(), loader.getDefinitions());
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        assertThrows(MigrationException.class, () -> scheduler.execute(4, module -> {
+            executed.add(module.getId());
+            throw new MigrationException("Failed " + module.getId());
+        }));
+        assertTrue(executed.contains("demo1"));
+        assertEquals(1, executed.size());
+    }
+}
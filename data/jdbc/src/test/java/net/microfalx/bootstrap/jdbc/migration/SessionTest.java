@@ -1,25 +1,28 @@
 package net.microfalx.bootstrap.jdbc.migration;
 
-import net.microfalx.bootstrap.jdbc.support.DataSource;
-import net.microfalx.bootstrap.jdbc.support.Query;
+import net.microfalx.bootstrap.jdbc.support.*;
 import net.microfalx.bootstrap.test.ServiceUnitTestCase;
 import net.microfalx.resource.ClassPathResource;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
+import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import java.net.URI;
 import java.sql.*;
+import java.sql.Statement;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 class SessionTest extends ServiceUnitTestCase {
 
@@ -29,7 +32,13 @@ class SessionTest extends ServiceUnitTestCase {
     @Mock private Statement statement;
     @Mock private DatabaseMetaData metaData;
 
+    @Mock private Database database;
+    @Mock private Schema schema;
+    @Mock private Table<?> table;
+
     private final Collection<String> sqls = new ArrayList<>();
+    private final List<Integer> batches = new ArrayList<>();
+    private final Query registryQuery = mock(Query.class, RETURNS_SELF);
 
     @BeforeEach
     void setup() throws SQLException {
@@ -45,6 +54,19 @@ class SessionTest extends ServiceUnitTestCase {
             return Mockito.mock(PreparedStatement.class, new PreparedStatementAnswer(invocation.getArgument(0)));
         });
         when(metaData.getDatabaseProductName()).thenReturn("mysql");
+        when(database.getSchema()).thenReturn(schema);
+        doReturn(table).when(schema).getTable(anyString());
+        when(schema.getQuery(anyString())).thenReturn(registryQuery);
+        Script emptyScript = createScript("sql/mysql/migration/01_add_column.sql");
+        when(schema.getScript(anyString())).thenReturn(emptyScript);
+        Script script1 = createScript("sql/mysql/schema/01_demo1.sql", "create table demo1 (id int);",
+                "insert into demo1 values (1);", "insert into demo1 values (2);", "insert into demo1 values (3);",
+                "insert into demo1 values (4);", "insert into demo1 values (5);", "create table demo1_custom (id int);",
+                "update demo1 set id = 6 where id = 5;", "delete from demo1 where id = 4;");
+        when(schema.getScript("schema/01_demo1.sql")).thenReturn(script1);
+        Script script2 = createScript("sql/mysql/schema/02_demo2.sql", "insert into demo2 values (1);",
+                "insert into demo2 values (2);", "insert into demo2 values (3);");
+        when(schema.getScript("schema/02_demo2.sql")).thenReturn(script2);
     }
 
     @Test
@@ -59,12 +81,99 @@ class SessionTest extends ServiceUnitTestCase {
         assertEquals(0, sqls.size());
     }
 
+    @Test
+    void batchStatements() {
+        try (MockedStatic<DatabaseUtils> ignored = mockDatabase()) {
+            Session session = new Session(dataSource, ClassPathResource.file("schema1.xml")).setBatchSize(2);
+            session.setExecutor(new ExecutorImpl());
+            session.execute();
+            assertEquals(Session.Status.SUCCESSFUL, session.getStatus());
+            assertEquals(2, session.getScriptCount());
+            assertEquals(12, session.getStatementCount());
+            assertEquals(0, session.getFailedStatementCount());
+            assertIterableEquals(List.of("create table demo1 (id int);", "create table demo1_custom (id int);"), sqls);
+            assertIterableEquals(List.of(2, 2, 1, 2, 2, 1), batches);
+        }
+    }
+
+    @Test
+    void dryRun() {
+        try (MockedStatic<DatabaseUtils> ignored = mockDatabase()) {
+            Session session = new Session(dataSource, ClassPathResource.file("schema1.xml")).setBatchSize(2)
+                    .setStatementCost(Duration.ofMillis(50), Duration.ofMillis(2)).setDryRun(true);
+            session.setExecutor(new ExecutorImpl());
+            session.execute();
+            assertEquals(Session.Status.SUCCESSFUL, session.getStatus());
+            assertEquals(2, session.getScriptCount());
+            assertEquals(12, session.getStatementCount());
+            assertEquals(0, sqls.size());
+            assertEquals(0, batches.size());
+            verify(registryQuery, never()).update();
+            assertEquals(Duration.ofMillis(2 * 50 + 10 * 2), session.getEstimatedDuration());
+        }
+    }
+
+    @Test
+    void steps() {
+        try (MockedStatic<DatabaseUtils> ignored = mockDatabase()) {
+            Session session = new Session(dataSource, ClassPathResource.file("schema1.xml")).setBatchSize(2)
+                    .setStatementCost(Duration.ofMillis(50), Duration.ofMillis(2));
+            session.setExecutor(new ExecutorImpl());
+            session.execute();
+            List<Step> steps = new ArrayList<>(session.getSteps());
+            assertEquals(2, steps.size());
+            Step step = steps.get(0);
+            assertEquals("Demo 1", step.getDefinition().getName());
+            assertEquals("demo1", step.getModule().getId());
+            assertNull(step.getMigration());
+            assertEquals("01_demo1.sql", step.getScript());
+            assertEquals(9, step.getStatementCount());
+            assertEquals(4, step.getBatchCount());
+            assertEquals(Duration.ofMillis(2 * 50 + 7 * 2), step.getEstimatedDuration());
+            assertEquals(Session.Status.SUCCESSFUL, step.getStatus());
+            step = steps.get(1);
+            assertEquals("Demo 2", step.getDefinition().getName());
+            assertEquals("02_demo2.sql", step.getScript());
+            assertEquals(3, step.getStatementCount());
+            assertEquals(2, step.getBatchCount());
+            assertEquals(Duration.ofMillis(3 * 2), step.getEstimatedDuration());
+            String report = session.getReport();
+            assertTrue(report.contains(" - Demo 1 / 01_demo1.sql: "));
+            assertTrue(report.contains(", 9 statements (4 batches), SUCCESSFUL"));
+            assertTrue(report.contains(" - Demo 1 / 02_demo2.sql: "));
+            assertTrue(report.contains(", 3 statements (2 batches), SUCCESSFUL"));
+        }
+    }
+
+    private MockedStatic<DatabaseUtils> mockDatabase() {
+        MockedStatic<DatabaseUtils> utils = mockStatic(DatabaseUtils.class, CALLS_REAL_METHODS);
+        utils.when(() -> DatabaseUtils.create(dataSource)).thenReturn(database);
+        return utils;
+    }
+
+    private static Script createScript(String path, String... sqls) {
+        Script script = mock(Script.class);
+        when(script.getResource()).thenReturn(ClassPathResource.file(path));
+        List<Query> queries = Arrays.stream(sqls).map(sql -> {
+            Query query = mock(Query.class);
+            when(query.getSql()).thenReturn(sql);
+            return query;
+        }).toList();
+        when(script.getQueries()).thenReturn(queries);
+        return script;
+    }
+
     private class ExecutorImpl implements Executor {
 
         @Override
         public void execute(Query query) {
             sqls.add(query.getSql());
         }
+
+        @Override
+        public void executeBatch(Collection<Query> queries) {
+            batches.add(queries.size());
+        }
     }
 
     private static class ResultSetAnswer implements Answer<Object> {
@@ -1,5 +1,108 @@
 package net.microfalx.bootstrap.jdbc.util;
 
+import net.microfalx.bootstrap.jdbc.support.Query;
+import net.microfalx.bootstrap.jdbc.support.QueryProvider;
+import net.microfalx.bootstrap.registry.Node;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.*;
+
+import static net.microfalx.bootstrap.registry.RegistryUtils.getNaturalId;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
 class JdbcStorageTest {
 
-}
\ No newline at end of file
+    @Mock private QueryProvider queryProvider;
+    @Captor private ArgumentCaptor<Collection<Object[]>> parametersCaptor;
+
+    private final Map<String, Query> queries = new HashMap<>();
+    private JdbcStorage storage;
+
+    @BeforeEach
+    void setup() {
+        storage = new JdbcStorage(queryProvider);
+        lenient().when(queryProvider.withResource(anyString())).thenAnswer(invocation -> getQuery(invocation.getArgument(0)));
+        lenient().when(queryProvider.withSql(anyString())).thenAnswer(invocation -> getQuery("sql"));
+    }
+
+    @Test
+    void getSubtree() throws SQLException {
+        List<ResultSet> rows = List.of(createRow(1, "/a", 1), createRow(2, "/a/b", 1),
+                createRow(3, "/a/b/c", 1), createRow(4, "/a/b/c/d", 0));
+        when(getQuery("registry.get_subtree.sql").selectMany(any())).thenAnswer(invocation -> map(invocation.getArgument(0), rows));
+        List<Node> nodes = new ArrayList<>(storage.getSubtree("/a", 2));
+        // the depth is applied by the query, as the maximum number of separators in the path
+        verify(getQuery("registry.get_subtree.sql")).parameters(getNaturalId("/a"), "/a/%", 3L);
+        assertEquals(3, nodes.size());
+        assertEquals("/a", nodes.get(0).getPath());
+        assertFalse(nodes.get(0).isLeaf());
+        assertEquals("/a/b/c", nodes.get(2).getPath());
+        verify(queryProvider, times(1)).withResource(anyString());
+    }
+
+    @Test
+    void putAll() throws SQLException {
+        doReturn(1L).when(getQuery("registry.get_id.sql")).selectOne(Long.class);
+        // only "/a/x" exists, "/a/y" is found after it is inserted
+        List<ResultSet> existingRows = List.of(createRow(2, "/a/x", 0));
+        List<ResultSet> newRows = List.of(createRow(3, "/a/y", 0));
+        when(getQuery("sql").selectMany(any()))
+                .thenAnswer(invocation -> map(invocation.getArgument(0), existingRows))
+                .thenAnswer(invocation -> map(invocation.getArgument(0), newRows));
+        Map<String, byte[]> data = new LinkedHashMap<>();
+        data.put("/a/x", "1".getBytes());
+        data.put("/a/y", "2".getBytes());
+        storage.putAll(data);
+
+        verify(getQuery("sql"), times(2)).selectMany(any());
+        verify(getQuery("registry.put_node.sql"), times(2)).batchUpdate(parametersCaptor.capture());
+        List<Collection<Object[]>> nodeBatches = new ArrayList<>(parametersCaptor.getAllValues());
+        // new nodes are inserted first, existing nodes are updated after their data
+        assertEquals(1, nodeBatches.get(0).size());
+        assertEquals("/a/y", nodeBatches.get(0).iterator().next()[2]);
+        assertEquals(1, nodeBatches.get(1).size());
+        assertEquals("/a/x", nodeBatches.get(1).iterator().next()[2]);
+        verify(getQuery("registry.put_data.sql")).batchUpdate(parametersCaptor.capture());
+        List<Object[]> values = new ArrayList<>(parametersCaptor.getValue());
+        assertEquals(2L, values.get(0)[0]);
+        assertEquals(3L, values.get(1)[0]);
+        verify(getQuery("registry.put_node.sql"), never()).update();
+    }
+
+    private Query getQuery(String name) {
+        return queries.computeIfAbsent(name, key -> mock(Query.class, RETURNS_SELF));
+    }
+
+    private <T> List<T> map(RowMapper<T> mapper, List<ResultSet> rows) throws SQLException {
+        List<T> values = new ArrayList<>();
+        for (int index = 0; index < rows.size(); index++) {
+            values.add(mapper.mapRow(rows.get(index), index));
+        }
+        return values;
+    }
+
+    private ResultSet createRow(long id, String path, int childCount) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        lenient().when(resultSet.getLong("id")).thenReturn(id);
+        lenient().when(resultSet.getString("natural_id")).thenReturn(getNaturalId(path));
+        lenient().when(resultSet.getString("path")).thenReturn(path);
+        lenient().when(resultSet.getInt("child_count")).thenReturn(childCount);
+        lenient().when(resultSet.getTimestamp(anyString())).thenReturn(now);
+        return resultSet;
+    }
+}
@@ -1,5 +1,6 @@
 package net.microfalx.bootstrap.restapi.client;
 
+import net.microfalx.bootstrap.trace.Span;
 import net.microfalx.lang.ExceptionUtils;
 import okhttp3.*;
 
@@ -23,16 +24,20 @@ public class RestApiAuditInterceptor implements Interceptor {
         LocalDateTime start = LocalDateTime.now();
         RestApiAudit audit = createAudit(request, start);
         long startNs = System.nanoTime();
+        Span span = Span.start("REST " + request.method() + " " + request.url().encodedPath())
+                .setAttribute("host", request.url().host());
         try {
             restClientService.auditStart(audit);
             Response response = chain.proceed(request);
             updateAudit(audit, response);
+            span.setAttribute("status", response.code());
             return response;
         } catch (Exception e) {
             updateAudit(audit, e);
-            return ExceptionUtils.rethrowExceptionAndReturn(e);
+            return ExceptionUtils.rethrowExceptionAndReturn(span.fail(e));
         } finally {
             completeAudit(audit, startNs);
+            span.end();
         }
     }
 
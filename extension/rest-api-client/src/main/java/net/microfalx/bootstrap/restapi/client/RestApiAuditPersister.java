@@ -3,32 +3,71 @@ package net.microfalx.bootstrap.restapi.client;
 import lombok.extern.slf4j.Slf4j;
 import net.microfalx.bootstrap.jdbc.jpa.NaturalIdEntityUpdater;
 import net.microfalx.bootstrap.model.MetadataService;
-import net.microfalx.bootstrap.restapi.client.jpa.Audit;
-import net.microfalx.bootstrap.restapi.client.jpa.AuditRepository;
 import net.microfalx.bootstrap.restapi.client.jpa.Client;
 import net.microfalx.bootstrap.restapi.client.jpa.ClientRepository;
+import net.microfalx.metrics.Metrics;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.encrypt.TextEncryptor;
 import org.springframework.stereotype.Component;
 
-import java.util.Optional;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import static java.lang.System.currentTimeMillis;
 import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.TimeUtils.millisSince;
 
+/**
+ * Persists the audit entries in the background.
+ * <p>
+ * Audit entries are accumulated in a bounded buffer and written with JDBC batch inserts, either on a schedule
+ * or once enough entries are waiting. When the buffer is full, new entries are dropped (and counted). If a batch
+ * fails, its entries are inserted one by one and only the entries which cannot be inserted are dropped. Entries
+ * still waiting when the application stops are persisted before the persister is destroyed.
+ * <p>
+ * The client entities are resolved once and cached, they are refreshed only after the reload interval.
+ */
 @Component
 @Slf4j
-public class RestApiAuditPersister {
+public class RestApiAuditPersister implements DisposableBean {
 
-    @Autowired private AuditRepository auditRepository;
+    private static final Metrics METRICS = Metrics.of("REST Client").withGroup("Audit");
+
+    private static final String INSERT_SQL = "insert into rest_api_client_audits (client_id, name, request_method, "
+            + "response_status, response_length, success, started_at, ended_at, duration, request_path, request_query, "
+            + "error_message) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired(required = false) private RestClientProperties properties = new RestClientProperties();
     @Autowired private ClientRepository clientRepository;
     @Autowired private MetadataService metadataService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
     private NaturalIdEntityUpdater<Client, Integer> clientUpdater;
     private TextEncryptor textEncryptor;
+    private BlockingQueue<RestApiAudit> buffer;
+    private final Map<String, CachedClient> clients = new ConcurrentHashMap<>();
+    private final AtomicLong overflowCount = new AtomicLong();
+    private final AtomicLong persistedCount = new AtomicLong();
+    private final Object flushLock = new Object();
 
     void init(TextEncryptor textEncryptor) {
-        clientUpdater = new NaturalIdEntityUpdater<>(metadataService, clientRepository);
-        clientUpdater.setUpdatable("apiKey", false);
+        clientUpdater = createClientUpdater();
         this.textEncryptor = textEncryptor;
+        this.buffer = new ArrayBlockingQueue<>(properties.getAuditBufferSize());
+    }
+
+    NaturalIdEntityUpdater<Client, Integer> createClientUpdater() {
+        NaturalIdEntityUpdater<Client, Integer> clientUpdater = new NaturalIdEntityUpdater<>(metadataService, clientRepository);
+        clientUpdater.setUpdatable("apiKey", false);
+        return clientUpdater;
     }
 
     String getApiKey(RestClient restClient) {
@@ -39,31 +78,125 @@ public class RestApiAuditPersister {
         return apiKey;
     }
 
-    void persistAudit(RestApiAudit apiAudit) {
+    /**
+     * Returns the number of audit entries dropped because the buffer was full.
+     *
+     * @return a positive integer
+     */
+    long getOverflowCount() {
+        return overflowCount.get();
+    }
+
+    /**
+     * Returns the number of audit entries persisted since the application was started.
+     *
+     * @return a positive integer
+     */
+    long getPersistedCount() {
+        return persistedCount.get();
+    }
+
+    /**
+     * Returns the number of audit entries waiting to be persisted.
+     *
+     * @return a positive integer
+     */
+    int getPendingCount() {
+        return buffer.size();
+    }
+
+    /**
+     * Queues an audit entry for persistence.
+     *
+     * @param apiAudit the audit entry
+     * @return {@code true} if a full batch is waiting and a flush should be triggered, {@code false} otherwise
+     */
+    boolean submit(RestApiAudit apiAudit) {
+        requireNonNull(apiAudit);
+        if (!buffer.offer(apiAudit)) {
+            overflowCount.incrementAndGet();
+            METRICS.count("Overflow");
+            return true;
+        }
+        return buffer.size() >= properties.getAuditBatchSize();
+    }
+
+    /**
+     * Persists all audit entries waiting in the buffer, in batches.
+     */
+    void flush() {
+        synchronized (flushLock) {
+            List<RestApiAudit> batch = new ArrayList<>(properties.getAuditBatchSize());
+            while (buffer.drainTo(batch, properties.getAuditBatchSize()) > 0) {
+                persistAudits(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (buffer == null) return;
+        int pendingCount = buffer.size();
+        if (pendingCount > 0) LOGGER.info("Persist {} pending audits", pendingCount);
+        flush();
+    }
+
+    private void persistAudits(List<RestApiAudit> apiAudits) {
+        List<Object[]> arguments = new ArrayList<>(apiAudits.size());
+        for (RestApiAudit apiAudit : apiAudits) {
+            try {
+                arguments.add(createArguments(apiAudit));
+            } catch (Exception e) {
+                LOGGER.atWarn().setCause(e).log("Failed to prepare audit for {}, request path {}",
+                        apiAudit.getClient().getName(), apiAudit.getRequestPath());
+            }
+        }
+        if (arguments.isEmpty()) return;
         try {
-            Audit audit = createAudit(apiAudit);
-            auditRepository.save(audit);
+            METRICS.time("Persist", (t) -> jdbcTemplate.batchUpdate(INSERT_SQL, arguments));
+            METRICS.count("Persisted", arguments.size());
+            persistedCount.addAndGet(arguments.size());
         } catch (Exception e) {
-            LOGGER.atWarn().setCause(e).log("Failed to persist audit for {}. request path {}",
-                    apiAudit.getClient().getName(), apiAudit.getRequestPath());
+            LOGGER.atWarn().setCause(e).log("Failed to persist {} audits, persist one by one", arguments.size());
+            persistAuditsOneByOne(arguments);
         }
     }
 
-    private Audit createAudit(RestApiAudit apiAudit) {
-        Audit audit = new Audit();
-        audit.setClient(persistClient(apiAudit.getClient()));
-        audit.setName(apiAudit.getName());
-        audit.setRequestMethod(apiAudit.getRequestMethod());
-        audit.setRequestPath(apiAudit.getRequestPath());
-        audit.setRequestQuery(apiAudit.getRequestQuery());
-        audit.setResponseStatus(apiAudit.getResponseStatus());
-        audit.setResponseLength(apiAudit.getResponseLength());
-        audit.setErrorMessage(apiAudit.getErrorMessage());
-        audit.setSuccess(apiAudit.isSuccess());
-        audit.setStartedAt(apiAudit.getStartedAt());
-        audit.setEndedAt(apiAudit.getEndedAt());
-        audit.setDuration((int) (apiAudit.getDuration().toNanos() / 1_000L));
-        return audit;
+    private void persistAuditsOneByOne(List<Object[]> arguments) {
+        int persisted = 0;
+        for (Object[] argument : arguments) {
+            try {
+                jdbcTemplate.update(INSERT_SQL, argument);
+                persisted++;
+            } catch (Exception e) {
+                METRICS.count("Failed");
+                LOGGER.atWarn().setCause(e).log("Failed to persist audit for client {}, request path {}",
+                        argument[0], argument[9]);
+            }
+        }
+        METRICS.count("Persisted", persisted);
+        persistedCount.addAndGet(persisted);
+    }
+
+    private Object[] createArguments(RestApiAudit apiAudit) {
+        Duration duration = apiAudit.getDuration();
+        return new Object[]{
+                getClient(apiAudit.getClient()).getId(), apiAudit.getName(), apiAudit.getRequestMethod(),
+                apiAudit.getResponseStatus(), apiAudit.getResponseLength(), apiAudit.isSuccess(),
+                toTimestamp(apiAudit.getStartedAt()), toTimestamp(apiAudit.getEndedAt()),
+                duration != null ? (int) (duration.toNanos() / 1_000L) : 0, apiAudit.getRequestPath(),
+                apiAudit.getRequestQuery(), apiAudit.getErrorMessage()
+        };
+    }
+
+    private Client getClient(RestClient restClient) {
+        CachedClient cachedClient = clients.get(restClient.getId());
+        if (cachedClient == null || cachedClient.isExpired()) {
+            cachedClient = new CachedClient(persistClient(restClient));
+            clients.put(restClient.getId(), cachedClient);
+        }
+        return cachedClient.client;
     }
 
     private Client persistClient(RestClient restClient) {
@@ -76,4 +209,21 @@ public class RestApiAuditPersister {
         return clientUpdater.findByNaturalIdOrCreate(client);
     }
 
+    private static Timestamp toTimestamp(LocalDateTime dateTime) {
+        return dateTime != null ? Timestamp.valueOf(dateTime) : null;
+    }
+
+    private class CachedClient {
+
+        private final Client client;
+        private final long createdAt = currentTimeMillis();
+
+        private CachedClient(Client client) {
+            this.client = client;
+        }
+
+        private boolean isExpired() {
+            return millisSince(createdAt) > properties.getReloadInterval().toMillis();
+        }
+    }
 }
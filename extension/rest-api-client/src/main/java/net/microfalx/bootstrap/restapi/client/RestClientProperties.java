@@ -25,4 +25,7 @@ public class RestClientProperties {
     private int threadCount = 10;
     private int maximumRetries = 3;
     private HttpLoggingInterceptor.Level loggingLevel = HttpLoggingInterceptor.Level.BASIC;
+    private Duration auditFlushInterval = ofSeconds(5);
+    private int auditBatchSize = 100;
+    private int auditBufferSize = 10_000;
 }
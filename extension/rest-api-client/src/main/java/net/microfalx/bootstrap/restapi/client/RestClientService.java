@@ -14,13 +14,12 @@ import org.springframework.security.crypto.encrypt.TextEncryptor;
 import org.springframework.stereotype.Service;
 
 import java.net.URI;
-import java.time.Duration;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static java.lang.System.currentTimeMillis;
 import static java.util.Collections.unmodifiableCollection;
@@ -43,7 +42,7 @@ public class RestClientService implements InitializingBean, TextEncryptor {
     private final Map<String, Long> clientLastReload = new ConcurrentHashMap<>();
     private final Map<String, RestApiAudit> auditsPending = new ConcurrentHashMap<>();
     private final Queue<RestApiAudit> audits = new ArrayBlockingQueue<>(100);
-    private final Queue<RestApiAudit> auditsForPersistence = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
 
     private TextEncryptor textEncryptor;
 
@@ -134,7 +133,9 @@ public class RestClientService implements InitializingBean, TextEncryptor {
         RestClient client = audit.getClient();
         if (client != null) {
             client.auditEnd(audit);
-            auditsForPersistence.offer(audit);
+            if (persister.submit(audit) && flushScheduled.compareAndSet(false, true)) {
+                threadPool.execute(new PersistAuditsTask(true));
+            }
             Summary summary = METRICS.withGroup(client.getName()).getSummary(audit.getRequestPattern());
             summary.record(audit.getDuration());
         }
@@ -156,7 +157,7 @@ public class RestClientService implements InitializingBean, TextEncryptor {
         if (threadPool == null) {
             threadPool = ThreadPoolFactory.create("RestClient").setRatio(2).create();
         }
-        threadPool.scheduleAtFixedRate(new PersistAuditsTask(), Duration.ofSeconds(5));
+        threadPool.scheduleAtFixedRate(new PersistAuditsTask(false), properties.getAuditFlushInterval());
     }
 
     private void initHttpClient() {
@@ -214,12 +215,20 @@ public class RestClientService implements InitializingBean, TextEncryptor {
 
     private class PersistAuditsTask implements Runnable {
 
+        private final boolean triggered;
+
+        /**
+         * @param triggered {@code true} if the task was scheduled because a full batch is waiting (and it owns the
+         *                  {@code flushScheduled} flag), {@code false} for the periodic flush
+         */
+        private PersistAuditsTask(boolean triggered) {
+            this.triggered = triggered;
+        }
+
         @Override
         public void run() {
-            while (!auditsForPersistence.isEmpty()) {
-                RestApiAudit audit = auditsForPersistence.poll();
-                if (audit != null) persister.persistAudit(audit);
-            }
+            if (triggered) flushScheduled.set(false);
+            persister.flush();
         }
     }
 }
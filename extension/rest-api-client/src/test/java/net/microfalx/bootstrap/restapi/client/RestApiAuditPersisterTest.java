@@ -0,0 +1,119 @@
+package net.microfalx.bootstrap.restapi.client;
+
+import net.microfalx.bootstrap.jdbc.jpa.NaturalIdEntityUpdater;
+import net.microfalx.bootstrap.restapi.client.jpa.Client;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.encrypt.TextEncryptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RestApiAuditPersisterTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final List<Integer> batchSizes = new ArrayList<>();
+    private RestApiAuditPersister persister;
+    private RestClient restClient;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        Client client = mock(Client.class);
+        when(client.getId()).thenReturn(1);
+        NaturalIdEntityUpdater<Client, Integer> clientUpdater = mock(NaturalIdEntityUpdater.class);
+        when(clientUpdater.findByNaturalIdOrCreate(any(Client.class))).thenReturn(client);
+        restClient = mock(RestClient.class);
+        when(restClient.getId()).thenReturn("test");
+        when(restClient.getName()).thenReturn("Test");
+        when(restClient.getUri()).thenReturn(URI.create("http://localhost"));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> arguments = invocation.getArgument(1);
+            batchSizes.add(arguments.size());
+            return new int[arguments.size()];
+        });
+
+        persister = new RestApiAuditPersister() {
+
+            @Override
+            NaturalIdEntityUpdater<Client, Integer> createClientUpdater() {
+                return clientUpdater;
+            }
+        };
+        ReflectionTestUtils.setField(persister, "properties", new RestClientProperties().setAuditBatchSize(10)
+                .setAuditBufferSize(50));
+        ReflectionTestUtils.setField(persister, "jdbcTemplate", jdbcTemplate);
+        persister.init(mock(TextEncryptor.class));
+    }
+
+    @Test
+    void flushInBatches() {
+        for (int i = 0; i < 9; i++) {
+            assertFalse(persister.submit(createAudit(i)));
+        }
+        assertTrue(persister.submit(createAudit(9)));
+        for (int i = 10; i < 25; i++) {
+            persister.submit(createAudit(i));
+        }
+        assertEquals(25, persister.getPendingCount());
+        persister.flush();
+        assertEquals(0, persister.getPendingCount());
+        assertEquals(List.of(10, 10, 5), batchSizes);
+        assertEquals(25, persister.getPersistedCount());
+    }
+
+    @Test
+    void overflow() {
+        for (int i = 0; i < 55; i++) {
+            persister.submit(createAudit(i));
+        }
+        assertEquals(50, persister.getPendingCount());
+        assertEquals(5, persister.getOverflowCount());
+    }
+
+    @Test
+    void flushOnDestroy() {
+        for (int i = 0; i < 5; i++) {
+            persister.submit(createAudit(i));
+        }
+        persister.destroy();
+        assertEquals(0, persister.getPendingCount());
+        assertEquals(List.of(5), batchSizes);
+    }
+
+    @Test
+    void skipFailedAudits() {
+        doThrow(new DataIntegrityViolationException("Batch")).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            if ("/path/1".equals(invocation.getArgument(10))) throw new DataIntegrityViolationException("Row");
+            return 1;
+        });
+        for (int i = 0; i < 3; i++) {
+            persister.submit(createAudit(i));
+        }
+        persister.flush();
+        assertEquals(0, persister.getPendingCount());
+        verify(jdbcTemplate, times(3)).update(anyString(), any(Object[].class));
+        assertEquals(2, persister.getPersistedCount());
+    }
+
+    private RestApiAudit createAudit(int index) {
+        RestApiAudit audit = new RestApiAudit();
+        audit.setClient(restClient);
+        audit.setRequestMethod("GET");
+        audit.setRequestPath("/path/" + index);
+        audit.setResponseStatus(200);
+        audit.setStartedAt(LocalDateTime.now());
+        audit.setEndedAt(LocalDateTime.now());
+        return audit;
+    }
+}
@@ -8,6 +8,10 @@ import net.microfalx.lang.FormatterUtils;
 import net.microfalx.lang.ObjectUtils;
 import net.microfalx.threadpool.ThreadPool;
 import org.apache.commons.io.FileUtils;
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.FilterCodec;
+import org.apache.lucene.codecs.KnnVectorsFormat;
+import org.apache.lucene.codecs.perfield.PerFieldKnnVectorsFormat;
 import org.apache.lucene.index.*;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.Directory;
@@ -269,6 +273,7 @@ public class IndexService implements InitializingBean, DisposableBean {
         writerConfig.setUseCompoundFile(true);
         writerConfig.setRAMBufferSizeMB(getRAMBufferSizeMB());
         writerConfig.setRAMPerThreadHardLimitMB(getRAMBPerThreadBufferSizeMB());
+        if (!options.getVectorsFormats().isEmpty()) writerConfig.setCodec(createCodec(options.getVectorsFormats()));
         Lock indexLock = getIndexLock(options.getId());
         indexLock.lock();
         try {
@@ -311,6 +316,40 @@ public class IndexService implements InitializingBean, DisposableBean {
         releaseIndex();
     }
 
+    /**
+     * Creates a codec which stores the vectors of some fields with a different format.
+     * <p>
+     * The codec keeps the name of the default codec: the format of each vector field is recorded in the segment, so
+     * the index can be opened later with the default codec.
+     *
+     * @param vectorsFormats the formats, by field
+     * @return a non-null instance
+     */
+    private Codec createCodec(Map<String, KnnVectorsFormat> vectorsFormats) {
+        Codec codec = Codec.getDefault();
+        KnnVectorsFormat defaultFormat = codec.knnVectorsFormat();
+        KnnVectorsFormat format = new PerFieldKnnVectorsFormat() {
+
+            @Override
+            public KnnVectorsFormat getKnnVectorsFormatForField(String field) {
+                KnnVectorsFormat fieldFormat = vectorsFormats.get(field);
+                if (fieldFormat != null) return fieldFormat;
+                if (defaultFormat instanceof PerFieldKnnVectorsFormat perFieldFormat) {
+                    return perFieldFormat.getKnnVectorsFormatForField(field);
+                } else {
+                    return defaultFormat;
+                }
+            }
+        };
+        return new FilterCodec(codec.getName(), codec) {
+
+            @Override
+            public KnnVectorsFormat knnVectorsFormat() {
+                return format;
+            }
+        };
+    }
+
     /**
      * Returns the maximum memory used by RAM Directories.
      *
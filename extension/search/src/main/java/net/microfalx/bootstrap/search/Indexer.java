@@ -199,7 +199,7 @@ public class Indexer implements Identifiable<String>, Nameable {
         wlock.lock();
         try {
             try {
-                if (isOpen()) indexWriter.close();
+                if (indexWriter.isOpen()) indexWriter.close();
             } catch (IOException e) {
                 LOGGER.error("Failed to close index", e);
             }
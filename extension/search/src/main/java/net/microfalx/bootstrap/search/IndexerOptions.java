@@ -3,6 +3,14 @@ package net.microfalx.bootstrap.search;
 import lombok.Getter;
 import lombok.ToString;
 import net.microfalx.lang.IdentityAware;
+import org.apache.lucene.codecs.KnnVectorsFormat;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableMap;
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
 
 /**
  * Represents options for configuring the indexer.
@@ -21,6 +29,12 @@ public class IndexerOptions extends BaseOptions {
      */
     private boolean primary;
 
+    /**
+     * The formats used to store the vectors of specific fields, fields not registered here use the default format
+     * (full precision HNSW).
+     */
+    private Map<String, KnnVectorsFormat> vectorsFormats = emptyMap();
+
     /**
      * Creates a new builder for IndexerOptions.
      *
@@ -35,6 +49,7 @@ public class IndexerOptions extends BaseOptions {
 
         private boolean recreate;
         private boolean primary;
+        private final Map<String, KnnVectorsFormat> vectorsFormats = new HashMap<>();
 
         public Builder(String id) {
             super(id);
@@ -50,6 +65,13 @@ public class IndexerOptions extends BaseOptions {
             return this;
         }
 
+        public Builder vectorsFormat(String field, KnnVectorsFormat format) {
+            requireNonNull(field);
+            requireNonNull(format);
+            this.vectorsFormats.put(field, format);
+            return this;
+        }
+
         @Override
         protected IdentityAware<String> create() {
             return new IndexerOptions();
@@ -59,6 +81,7 @@ public class IndexerOptions extends BaseOptions {
             IndexerOptions options = (IndexerOptions) super.build();
             options.recreate = recreate;
             options.primary = primary;
+            options.vectorsFormats = unmodifiableMap(new HashMap<>(vectorsFormats));
             return options;
         }
     }
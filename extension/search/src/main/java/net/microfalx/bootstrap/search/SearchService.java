@@ -4,6 +4,7 @@ import net.microfalx.bootstrap.content.ContentService;
 import net.microfalx.bootstrap.core.async.ThreadPoolFactory;
 import net.microfalx.bootstrap.core.i18n.I18nService;
 import net.microfalx.bootstrap.resource.ResourceService;
+import net.microfalx.bootstrap.trace.Span;
 import net.microfalx.lang.ClassUtils;
 import net.microfalx.lang.ConcurrencyUtils;
 import net.microfalx.lang.StringUtils;
@@ -168,6 +169,7 @@ public class SearchService implements InitializingBean {
     public Document find(String id) {
         requireNonNull(id);
         LOGGER.info("Searching for document with identifier '{}'", id);
+        Span span = Span.start("Search Find").setAttribute("id", id);
         try {
             RetryTemplate retryTemplate = new RetryTemplate();
             retryTemplate.registerListener(new RetryListener() {
@@ -179,7 +181,9 @@ public class SearchService implements InitializingBean {
             });
             return retryTemplate.execute((RetryCallback<Document, Exception>) context -> doFind(id));
         } catch (Exception e) {
-            throw new SearchException("Exception during find for '" + id + "'", e);
+            throw span.fail(new SearchException("Exception during find for '" + id + "'", e));
+        } finally {
+            span.end();
         }
     }
 
@@ -192,16 +196,21 @@ public class SearchService implements InitializingBean {
      */
     public SearchResult search(SearchQuery query) {
         requireNonNull(query);
+        Span span = Span.start("Search").setAttribute("query", query.getQuery());
         try {
             Query parsedQuery = createQuery(query, "Searching");
             RetryTemplate retryTemplate = createTemplate(query);
-            return retryTemplate.execute((RetryCallback<SearchResult, Exception>) context -> doSearch(parsedQuery, query));
+            SearchResult result = retryTemplate.execute((RetryCallback<SearchResult, Exception>) context -> doSearch(parsedQuery, query));
+            span.setAttribute("hits", result.getTotalHits());
+            return result;
         } catch (IndexNotFoundException e) {
             return new SearchResult(query);
         } catch (SearchException e) {
-            throw e;
+            throw span.fail(e);
         } catch (Exception e) {
-            throw new SearchException("Exception during search for : " + query, e);
+            throw span.fail(new SearchException("Exception during search for : " + query, e));
+        } finally {
+            span.end();
         }
     }
 
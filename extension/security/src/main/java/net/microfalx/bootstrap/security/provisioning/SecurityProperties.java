@@ -6,6 +6,7 @@ import lombok.ToString;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
 import java.util.Set;
 
 import static java.util.Collections.emptySet;
@@ -32,6 +33,13 @@ public class SecurityProperties {
     private String guestUserName = "guest";
     private boolean resetAdmin;
 
+    private int settingsCacheSize = 1000;
+    private Duration settingsCacheExpiration = Duration.ofMinutes(15);
+
+    private int auditQueueSize = 5000;
+    private int auditBatchSize = 100;
+    private Duration auditFlushInterval = Duration.ofSeconds(2);
+
     private OAuth2Properties oauth2 = new OAuth2Properties();
 
 }
@@ -0,0 +1,122 @@
+package net.microfalx.bootstrap.security.user;
+
+import net.microfalx.bootstrap.security.audit.jpa.Audit;
+import net.microfalx.bootstrap.security.audit.jpa.AuditRepository;
+import net.microfalx.bootstrap.security.user.jpa.User;
+import net.microfalx.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * Writes audit records in the background, in batches.
+ * <p>
+ * Records are accumulated in a bounded queue; the user associated with each record is resolved when the batch
+ * is written, once per user and batch. When the queue is full, records are written on the caller thread so no
+ * audit is lost.
+ */
+final class AuditWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuditWriter.class);
+
+    private static final Metrics METRICS = Metrics.of("Security").withGroup("Audit");
+
+    private final AuditRepository repository;
+    private final Function<String, User> userResolver;
+    private final int batchSize;
+    private final BlockingQueue<PendingAudit> queue;
+    private final AtomicLong overflowCount = new AtomicLong();
+    private final Object flushLock = new Object();
+
+    AuditWriter(AuditRepository repository, Function<String, User> userResolver, int queueSize, int batchSize) {
+        requireNonNull(repository);
+        requireNonNull(userResolver);
+        this.repository = repository;
+        this.userResolver = userResolver;
+        this.batchSize = Math.max(1, batchSize);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+    }
+
+    /**
+     * Queues an audit record.
+     *
+     * @param userName the user which performed the action
+     * @param audit    the audit record, without a user
+     */
+    void write(String userName, Audit audit) {
+        requireNonNull(audit);
+        PendingAudit pendingAudit = new PendingAudit(userName, audit);
+        if (!queue.offer(pendingAudit)) {
+            overflowCount.incrementAndGet();
+            METRICS.count("Overflow");
+            flush();
+            if (!queue.offer(pendingAudit)) persist(List.of(pendingAudit));
+        }
+    }
+
+    /**
+     * Returns the number of times the queue was full.
+     *
+     * @return a positive integer
+     */
+    long getOverflowCount() {
+        return overflowCount.get();
+    }
+
+    /**
+     * Writes all queued audit records.
+     */
+    void flush() {
+        synchronized (flushLock) {
+            List<PendingAudit> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                persist(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void persist(List<PendingAudit> pendingAudits) {
+        Map<String, User> users = new HashMap<>();
+        List<Audit> audits = new ArrayList<>(pendingAudits.size());
+        for (PendingAudit pendingAudit : pendingAudits) {
+            try {
+                User user = users.computeIfAbsent(pendingAudit.userName, userResolver);
+                pendingAudit.audit.setUser(user);
+                audits.add(pendingAudit.audit);
+            } catch (Exception e) {
+                LOGGER.atError().setCause(e).log("Failed to resolve user '{}' for audit action '{}'",
+                        pendingAudit.userName, pendingAudit.audit.getAction());
+            }
+        }
+        if (audits.isEmpty()) return;
+        try {
+            METRICS.time("Persist", (t) -> repository.saveAllAndFlush(audits));
+            METRICS.count("Persisted", audits.size());
+        } catch (Exception e) {
+            METRICS.count("Failed", audits.size());
+            LOGGER.atError().setCause(e).log("Failed to persist {} audit records", audits.size());
+        }
+    }
+
+    private static class PendingAudit {
+
+        private final String userName;
+        private final Audit audit;
+
+        private PendingAudit(String userName, Audit audit) {
+            this.userName = userName;
+            this.audit = audit;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import net.microfalx.bootstrap.core.utils.ApplicationContextSupport;
 import net.microfalx.bootstrap.core.utils.Json;
 import net.microfalx.bootstrap.restapi.ApiCredentialService;
@@ -26,6 +27,7 @@ import net.microfalx.bootstrap.web.preference.PreferenceService;
 import net.microfalx.bootstrap.web.preference.PreferenceStorage;
 import net.microfalx.lang.ExceptionUtils;
 import net.microfalx.lang.StringUtils;
+import net.microfalx.threadpool.ThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
@@ -48,15 +50,17 @@ import org.springframework.security.oauth2.client.authentication.OAuth2LoginAuth
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.security.provisioning.UserDetailsManager;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
 
 import static net.microfalx.bootstrap.security.SecurityConstants.ADMINISTRATORS_GROUP;
 import static net.microfalx.bootstrap.security.SecurityConstants.USERS_GROUP;
@@ -78,6 +82,7 @@ public class UserService extends ApplicationContextSupport implements ApiCredent
     private static final String LOGIN_ACTION = "Login";
     private static final String LOGOUT_ACTION = "Logout";
     private static final String SECURITY_MODULE = "Security";
+    private static final String CURRENT_USER_ATTRIBUTE = UserService.class.getName() + ".user";
 
     @Autowired private UserRepository userRepository;
     @Autowired private UserSettingRepository userSettingRepository;
@@ -96,6 +101,9 @@ public class UserService extends ApplicationContextSupport implements ApiCredent
     private final LoadingCache<String, UserDetails> tokenCache = CacheBuilder.newBuilder()
             .maximumSize(100).expireAfterWrite(Duration.ofSeconds(30))
             .build(new TokenCacheLoader());
+    private UserSettingsCache settingsCache;
+    private AuditWriter auditWriter;
+    private volatile ScheduledFuture<?> auditFlushTask;
 
     public UserRepository getUserRepository() {
         return userRepository;
@@ -245,7 +253,7 @@ public class UserService extends ApplicationContextSupport implements ApiCredent
      * @return the setting, null if it does not exist
      */
     public <T> T getSetting(String name, Class<T> type) {
-        byte[] data = getSetting(getCurrentUser(), name);
+        byte[] data = getSetting(getRequestUser(), name);
         try {
             return Json.asObject(data, type);
         } catch (IOException e) {
@@ -260,7 +268,7 @@ public class UserService extends ApplicationContextSupport implements ApiCredent
      * @return the setting, null if it does not exist
      */
     public byte[] getSetting(String name) {
-        return getSetting(getCurrentUser(), name);
+        return getSetting(getRequestUser(), name);
     }
 
     /**
@@ -273,8 +281,7 @@ public class UserService extends ApplicationContextSupport implements ApiCredent
     public byte[] getSetting(User user, String name) {
         requireNonNull(user);
         requireNotEmpty(name);
-        Optional<UserSetting> setting = userSettingRepository.findById(new UserSetting.Id(normalizeUserName(user.getUserName()), name.toLowerCase()));
-        return setting.map(UserSetting::getValue).orElseGet(() -> null);
+        return getSettingsCache().get(normalizeUserName(user.getUserName()), name.toLowerCase());
     }
 
     /**
@@ -284,7 +291,7 @@ public class UserService extends ApplicationContextSupport implements ApiCredent
      * @param value the setting value
      */
     public void setSetting(String name, byte[] value) {
-        setSetting(getCurrentUser(), name, value);
+        setSetting(getRequestUser(), name, value);
     }
 
     /**
@@ -295,7 +302,7 @@ public class UserService extends ApplicationContextSupport implements ApiCredent
      */
     public void setSetting(String name, Object value) {
         byte[] data = Json.asBytes(value);
-        setSetting(getCurrentUser(), name, data);
+        setSetting(getRequestUser(), name, data);
     }
 
     /**
@@ -314,14 +321,19 @@ public class UserService extends ApplicationContextSupport implements ApiCredent
         setting.setValue(value);
         setting.setCreatedAt(LocalDateTime.now());
         setting.setModifiedAt(LocalDateTime.now());
-        userSettingRepository.saveAndFlush(setting);
-
+        try {
+            userSettingRepository.saveAndFlush(setting);
+        } catch (RuntimeException e) {
+            getSettingsCache().invalidate(setting.getUserName());
+            throw e;
+        }
+        getSettingsCache().put(setting);
     }
 
     /**
      * Registers an audit action.
      * <p>
-     * Information about user is provided by the service.
+     * Information about user is provided by the service. The audit record is persisted in the background.
      *
      * @param context the audit context information
      */
@@ -329,7 +341,7 @@ public class UserService extends ApplicationContextSupport implements ApiCredent
         requireNonNull(context);
         try {
             Audit audit = createAudit(context);
-            auditRepository.saveAndFlush(audit);
+            getAuditWriter().write(getCurrentUserName(), audit);
         } catch (Exception e) {
             LOGGER.atError().setCause(e).log("Failed to audit action '{}' for user '{}', details: {}",
                     context.getAction(), getCurrentUserName(), context.getDescription());
@@ -373,10 +385,20 @@ public class UserService extends ApplicationContextSupport implements ApiCredent
 
     @Override
     public void afterPropertiesSet() throws Exception {
+        initSettingsCache();
+        initAuditWriter();
         createDefaultUsers();
         createDefaultRoles();
     }
 
+    @PreDestroy
+    protected void beforeShutdown() {
+        // stop the periodic flush first, so it does not run concurrently with (or after) the final flush
+        ScheduledFuture<?> currentAuditFlushTask = auditFlushTask;
+        if (currentAuditFlushTask != null) currentAuditFlushTask.cancel(false);
+        if (auditWriter != null) auditWriter.flush();
+    }
+
     @PostConstruct
     protected void afterStartup() {
         PreferenceService preferenceService = getBean(PreferenceService.class);
@@ -443,9 +465,7 @@ public class UserService extends ApplicationContextSupport implements ApiCredent
     }
 
     private Audit createAudit(AuditContext context) {
-        User user = findUser(true);
         Audit audit = new Audit();
-        audit.setUser(user);
         audit.setAction(context.getAction());
         audit.setModule(context.getModule());
         audit.setCategory(context.getCategory());
@@ -468,6 +488,37 @@ public class UserService extends ApplicationContextSupport implements ApiCredent
         return findUser(create, getCurrentUserName());
     }
 
+    private User getRequestUser() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) return getCurrentUser();
+        String attributeName = CURRENT_USER_ATTRIBUTE + "." + normalizeUserName(getCurrentUserName());
+        User user = (User) attributes.getAttribute(attributeName, RequestAttributes.SCOPE_REQUEST);
+        if (user == null) {
+            user = getCurrentUser();
+            attributes.setAttribute(attributeName, user, RequestAttributes.SCOPE_REQUEST);
+        }
+        return user;
+    }
+
+    private UserSettingsCache getSettingsCache() {
+        return settingsCache;
+    }
+
+    private AuditWriter getAuditWriter() {
+        return auditWriter;
+    }
+
+    private void initSettingsCache() {
+        settingsCache = new UserSettingsCache(userSettingRepository, settings.getSettingsCacheSize(),
+                settings.getSettingsCacheExpiration());
+    }
+
+    private void initAuditWriter() {
+        auditWriter = new AuditWriter(auditRepository, userName -> findUser(true, userName),
+                settings.getAuditQueueSize(), settings.getAuditBatchSize());
+        auditFlushTask = ThreadPool.get().scheduleAtFixedRate(auditWriter::flush, settings.getAuditFlushInterval());
+    }
+
     private User findUser(boolean create, String userName) {
         User user = userRepository.findByUserName(normalizeUserName(userName));
         if (user == null && create) {
@@ -0,0 +1,126 @@
+package net.microfalx.bootstrap.security.user;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import net.microfalx.bootstrap.security.user.jpa.UserSetting;
+import net.microfalx.bootstrap.security.user.jpa.UserSettingRepository;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.ArgumentUtils.requireNotEmpty;
+
+/**
+ * A two level cache for user settings.
+ * <p>
+ * The first level memoizes the settings of a user for the duration of a (web) request, the second level is a
+ * bounded cache which holds all the settings of the most recently active users. All settings of a user are loaded
+ * with one query, so settings which do not exist are also cached.
+ * <p>
+ * Changes are written through: the cache is updated only after the setting was persisted.
+ */
+final class UserSettingsCache {
+
+    private static final String REQUEST_ATTRIBUTE = UserSettingsCache.class.getName();
+
+    private final UserSettingRepository repository;
+    private final LoadingCache<String, Settings> cache;
+
+    UserSettingsCache(UserSettingRepository repository, int maximumSize, Duration expiration) {
+        requireNonNull(repository);
+        requireNonNull(expiration);
+        this.repository = repository;
+        this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).expireAfterAccess(expiration)
+                .build(new SettingsLoader());
+    }
+
+    /**
+     * Returns a setting.
+     *
+     * @param userName the (normalized) user name
+     * @param name     the (normalized) setting name
+     * @return the setting value, null if the setting does not exist
+     */
+    byte[] get(String userName, String name) {
+        requireNotEmpty(userName);
+        requireNotEmpty(name);
+        return getSettings(userName).values.get(name);
+    }
+
+    /**
+     * Updates the cache after a setting was persisted.
+     *
+     * @param setting the setting
+     */
+    void put(UserSetting setting) {
+        requireNonNull(setting);
+        Settings settings = cache.getIfPresent(setting.getUserName());
+        if (settings != null) settings.update(setting.getName(), setting.getValue());
+        Map<String, Settings> requestSettings = getRequestSettings(false);
+        if (requestSettings != null) {
+            settings = requestSettings.get(setting.getUserName());
+            if (settings != null) settings.update(setting.getName(), setting.getValue());
+        }
+    }
+
+    /**
+     * Removes all settings of a user from the cache.
+     *
+     * @param userName the (normalized) user name
+     */
+    void invalidate(String userName) {
+        requireNotEmpty(userName);
+        cache.invalidate(userName);
+        Map<String, Settings> requestSettings = getRequestSettings(false);
+        if (requestSettings != null) requestSettings.remove(userName);
+    }
+
+    private Settings getSettings(String userName) {
+        Map<String, Settings> requestSettings = getRequestSettings(true);
+        if (requestSettings == null) return cache.getUnchecked(userName);
+        return requestSettings.computeIfAbsent(userName, cache::getUnchecked);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Settings> getRequestSettings(boolean create) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) return null;
+        Map<String, Settings> settings = (Map<String, Settings>) attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (settings == null && create) {
+            settings = new HashMap<>();
+            attributes.setAttribute(REQUEST_ATTRIBUTE, settings, RequestAttributes.SCOPE_REQUEST);
+        }
+        return settings;
+    }
+
+    private static class Settings {
+
+        private final Map<String, byte[]> values = new ConcurrentHashMap<>();
+
+        private void update(String name, byte[] value) {
+            if (value == null) {
+                values.remove(name);
+            } else {
+                values.put(name, value);
+            }
+        }
+    }
+
+    private class SettingsLoader extends CacheLoader<String, Settings> {
+
+        @Override
+        public Settings load(String userName) throws Exception {
+            Settings settings = new Settings();
+            for (UserSetting setting : repository.findByUserName(userName)) {
+                settings.update(setting.getName(), setting.getValue());
+            }
+            return settings;
+        }
+    }
+}
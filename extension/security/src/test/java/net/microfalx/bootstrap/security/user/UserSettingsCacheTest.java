@@ -0,0 +1,121 @@
+package net.microfalx.bootstrap.security.user;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import net.microfalx.bootstrap.security.group.jpa.Group;
+import net.microfalx.bootstrap.security.user.jpa.UserSetting;
+import net.microfalx.bootstrap.security.user.jpa.UserSettingRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest
+@EnableJpaRepositories(basePackageClasses = UserSettingRepository.class)
+@EntityScan(basePackageClasses = {UserSetting.class, Group.class})
+@ContextConfiguration(classes = {UserSettingRepository.class})
+@TestPropertySource(properties = {"spring.flyway.enabled=false", "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.globally_quoted_identifiers=true"})
+@AutoConfigureTestDatabase
+class UserSettingsCacheTest {
+
+    private static final String USER_NAME = "john";
+    private static final int SETTING_COUNT = 5;
+    private static final int READ_COUNT = 20;
+
+    @Autowired private UserSettingRepository repository;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private UserSettingsCache cache;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        for (int i = 0; i < SETTING_COUNT; i++) {
+            repository.save(createSetting("setting" + i, "value" + i));
+        }
+        repository.flush();
+        entityManager.clear();
+        cache = new UserSettingsCache(repository, 10, Duration.ofMinutes(1));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void cleanup() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void get() {
+        assertArrayEquals(bytes("value1"), cache.get(USER_NAME, "setting1"));
+        assertNull(cache.get(USER_NAME, "missing"));
+    }
+
+    @Test
+    void queryCount() {
+        for (int i = 0; i < READ_COUNT; i++) {
+            repository.findById(new UserSetting.Id(USER_NAME, "setting" + i));
+        }
+        long uncachedCount = statistics.getPrepareStatementCount();
+        entityManager.clear();
+        statistics.clear();
+        for (int i = 0; i < READ_COUNT; i++) {
+            cache.get(USER_NAME, "setting" + i);
+        }
+        long cachedCount = statistics.getPrepareStatementCount();
+        assertThat(uncachedCount).isEqualTo(READ_COUNT);
+        assertThat(cachedCount).isEqualTo(1);
+
+        // a new request still uses the near cache
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        statistics.clear();
+        cache.get(USER_NAME, "setting1");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void writeThrough() {
+        assertNull(cache.get(USER_NAME, "new"));
+        UserSetting setting = repository.saveAndFlush(createSetting("new", "value"));
+        cache.put(setting);
+        assertArrayEquals(bytes("value"), cache.get(USER_NAME, "new"));
+        cache.invalidate(USER_NAME);
+        assertArrayEquals(bytes("value"), cache.get(USER_NAME, "new"));
+    }
+
+    private UserSetting createSetting(String name, String value) {
+        UserSetting setting = new UserSetting();
+        setting.setUserName(USER_NAME);
+        setting.setName(name);
+        setting.setValue(bytes(value));
+        setting.setCreatedAt(LocalDateTime.now());
+        setting.setModifiedAt(LocalDateTime.now());
+        return setting;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
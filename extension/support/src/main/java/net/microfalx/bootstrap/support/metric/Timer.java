@@ -3,7 +3,9 @@ package net.microfalx.bootstrap.support.metric;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import net.microfalx.bootstrap.metrics.LatencyTimer;
 import net.microfalx.bootstrap.dataset.annotation.Filterable;
+import net.microfalx.bootstrap.dataset.annotation.Formattable;
 import net.microfalx.bootstrap.dataset.annotation.OrderBy;
 import net.microfalx.lang.annotation.*;
 
@@ -52,6 +54,38 @@ public class Timer extends Metric {
     private Duration maximumDuration;
 
     @Position(30)
+    @Label(value = "P50", group = "Percentiles")
+    @Description("The P50 percentile time of recorded events")
+    @Filterable
+    @Width("70px")
+    @Formattable(zeroValue = Formattable.NA)
+    private Duration p50;
+
+    @Position(31)
+    @Label(value = "P90", group = "Percentiles")
+    @Description("The P90 percentile time of recorded events")
+    @Filterable
+    @Width("70px")
+    @Formattable(zeroValue = Formattable.NA)
+    private Duration p90;
+
+    @Position(32)
+    @Label(value = "P99", group = "Percentiles")
+    @Description("The P99 percentile time of recorded events")
+    @Filterable
+    @Width("70px")
+    @Formattable(zeroValue = Formattable.NA)
+    private Duration p99;
+
+    @Position(33)
+    @Label(value = "P999", group = "Percentiles")
+    @Description("The P999 percentile time of recorded events")
+    @Filterable
+    @Width("70px")
+    @Formattable(zeroValue = Formattable.NA)
+    private Duration p999;
+
+    @Position(40)
     @Description("The number of times that stop has been called on this timer")
     @Width(value = "70px", max = "90px")
     private long count;
@@ -65,6 +99,13 @@ public class Timer extends Metric {
         timer.setAverageDuration(value.getAverageDuration());
         timer.setMinimumDuration(value.getMinimumDuration());
         timer.setMaximumDuration(value.getMaximumDuration());
+        LatencyTimer.find(value.getGroup(), value.getName()).ifPresent(latencyTimer -> {
+            Duration[] percentiles = latencyTimer.getPercentiles();
+            timer.setP50(percentiles[0]);
+            timer.setP90(percentiles[1]);
+            timer.setP99(percentiles[2]);
+            timer.setP999(percentiles[3]);
+        });
         return timer;
     }
 }
@@ -0,0 +1,64 @@
+package net.microfalx.bootstrap.support.profiler;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import net.microfalx.bootstrap.dataset.annotation.Filterable;
+import net.microfalx.bootstrap.dataset.annotation.OrderBy;
+import net.microfalx.bootstrap.dataset.model.NamedIdentityAware;
+import net.microfalx.lang.annotation.*;
+
+@Getter
+@Setter
+@ToString(callSuper = true)
+@Name("Hot Methods")
+@ReadOnly
+@Visible(value = false, fieldNames = "description")
+public class HotMethod extends NamedIdentityAware<String> {
+
+    @Position(20)
+    @Label(value = "Type")
+    @Description("The type of samples, execution (CPU) or allocation (memory)")
+    @Filterable
+    @Width("100px")
+    private Profile.Type type;
+
+    @Position(21)
+    @Label(value = "Self", group = "Percent")
+    @Description("The percentage of samples (or allocated bytes) where the method was executing (or allocating)")
+    @OrderBy(OrderBy.Direction.DESC)
+    @Width("80px")
+    private float selfPercent;
+
+    @Position(22)
+    @Label(value = "Total", group = "Percent")
+    @Description("The percentage of samples (or allocated bytes) where the method was on the stack")
+    @Width("80px")
+    private float totalPercent;
+
+    @Position(30)
+    @Label(value = "Self", group = "Samples")
+    @Description("The number of samples (or allocated bytes) where the method was executing (or allocating)")
+    @Width("100px")
+    private long selfValue;
+
+    @Position(31)
+    @Label(value = "Total", group = "Samples")
+    @Description("The number of samples (or allocated bytes) where the method was on the stack")
+    @Width("100px")
+    private long value;
+
+    public static HotMethod from(Profile.Type type, FlameGraph.Frame frame, long total) {
+        HotMethod model = new HotMethod();
+        model.setId(type.name().toLowerCase() + ":" + frame.getName());
+        model.setName(frame.getName());
+        model.setType(type);
+        model.setSelfValue(frame.getSelfValue());
+        model.setValue(frame.getValue());
+        if (total > 0) {
+            model.setSelfPercent((100f * frame.getSelfValue()) / total);
+            model.setTotalPercent((100f * frame.getValue()) / total);
+        }
+        return model;
+    }
+}
@@ -0,0 +1,36 @@
+package net.microfalx.bootstrap.support.profiler;
+
+import net.microfalx.bootstrap.dataset.DataSetFactory;
+import net.microfalx.bootstrap.dataset.PojoDataSet;
+import net.microfalx.bootstrap.model.Filter;
+import net.microfalx.bootstrap.model.Metadata;
+import net.microfalx.bootstrap.model.PojoField;
+import net.microfalx.lang.annotation.Provider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Provider
+public class HotMethodDataSet extends PojoDataSet<HotMethod, PojoField<HotMethod>, String> {
+
+    private static final int TOP_FRAMES = 200;
+
+    public HotMethodDataSet(DataSetFactory<HotMethod, PojoField<HotMethod>, String> factory, Metadata<HotMethod, PojoField<HotMethod>, String> metadata) {
+        super(factory, metadata);
+    }
+
+    @Override
+    protected Page<HotMethod> doFindAll(Pageable pageable, Filter filterable) {
+        ProfilerService profilerService = getService(ProfilerService.class);
+        List<HotMethod> hotMethods = new ArrayList<>();
+        for (Profile.Type type : Profile.Type.values()) {
+            FlameGraph flameGraph = profilerService.getFlameGraph(type);
+            for (FlameGraph.Frame frame : flameGraph.getTopFrames(TOP_FRAMES)) {
+                hotMethods.add(HotMethod.from(type, frame, flameGraph.getValue()));
+            }
+        }
+        return getPage(hotMethods, pageable, filterable);
+    }
+}
@@ -0,0 +1,40 @@
+package net.microfalx.bootstrap.support.profiler;
+
+import net.microfalx.bootstrap.dataset.DataSetService;
+import net.microfalx.bootstrap.dataset.annotation.DataSet;
+import net.microfalx.bootstrap.help.annotation.Help;
+import net.microfalx.bootstrap.web.dataset.SystemDataSetController;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import static net.microfalx.lang.EnumUtils.fromName;
+
+@Controller
+@RequestMapping(value = "/support/profiler")
+@DataSet(model = HotMethod.class)
+@Help("support/profiler")
+public class ProfilerController extends SystemDataSetController<HotMethod, String> {
+
+    @Autowired private ProfilerService profilerService;
+
+    public ProfilerController(DataSetService dataSetService) {
+        super(dataSetService);
+    }
+
+    /**
+     * Returns the stack traces of all profiles in the "collapsed" format, to be loaded in a flame graph viewer.
+     *
+     * @param type the type of samples ({@code execution} or {@code allocation})
+     * @return the stack traces
+     */
+    @GetMapping(value = "folded/{type}", produces = MediaType.TEXT_PLAIN_VALUE)
+    @ResponseBody
+    public String folded(@PathVariable("type") String type) {
+        return profilerService.getFlameGraph(fromName(Profile.Type.class, type)).toFolded();
+    }
+}
@@ -0,0 +1,66 @@
+package net.microfalx.bootstrap.support.trace;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import net.microfalx.bootstrap.dataset.annotation.Filterable;
+import net.microfalx.bootstrap.dataset.annotation.Formattable;
+import net.microfalx.bootstrap.dataset.annotation.OrderBy;
+import net.microfalx.bootstrap.dataset.model.Formatters;
+import net.microfalx.bootstrap.dataset.model.NamedIdentityAware;
+import net.microfalx.lang.ClassUtils;
+import net.microfalx.lang.annotation.*;
+import org.springframework.data.annotation.CreatedDate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@ToString(callSuper = true)
+@Name("Traces")
+@ReadOnly
+@Visible(value = false, fieldNames = "description")
+public class Trace extends NamedIdentityAware<String> {
+
+    @Position(20)
+    @Label(value = "Started At")
+    @Description("The timestamp when the trace was started")
+    @Formattable(tooltip = Formatters.StartedAtTooltip.class, elapsed = true)
+    @CreatedDate
+    @CreatedAt
+    @Width("110px")
+    private LocalDateTime startedAt;
+
+    @Position(21)
+    @Label(value = "Duration")
+    @Description("The duration of the trace (the duration of the root span)")
+    @OrderBy(OrderBy.Direction.DESC)
+    @Filterable
+    @Width("80px")
+    private Duration duration;
+
+    @Position(22)
+    @Label(value = "Spans")
+    @Description("The number of spans (queries, templates, calls, etc) started in the trace")
+    @Width("70px")
+    private int spanCount;
+
+    @Position(30)
+    @Label(value = "Failure (Class)")
+    @Description("The exception class name if a span of the trace has failed")
+    @Filterable
+    private String throwableClassName;
+
+    public static Trace from(net.microfalx.bootstrap.trace.Trace trace) {
+        Trace model = new Trace();
+        model.setId(trace.getId());
+        model.setName(trace.getName());
+        model.setDescription(trace.getDescription());
+        model.setStartedAt(trace.getStartedAt());
+        model.setDuration(trace.getDuration());
+        model.setSpanCount(trace.getSpanCount());
+        if (trace.getThrowable() != null) model.setThrowableClassName(ClassUtils.getCompactName(trace.getThrowable()));
+        return model;
+    }
+}
@@ -0,0 +1,19 @@
+package net.microfalx.bootstrap.support.trace;
+
+import net.microfalx.bootstrap.dataset.DataSetService;
+import net.microfalx.bootstrap.dataset.annotation.DataSet;
+import net.microfalx.bootstrap.help.annotation.Help;
+import net.microfalx.bootstrap.web.dataset.SystemDataSetController;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+@Controller
+@RequestMapping(value = "/support/trace")
+@DataSet(model = Trace.class)
+@Help("support/trace")
+public class TraceController extends SystemDataSetController<Trace, String> {
+
+    public TraceController(DataSetService dataSetService) {
+        super(dataSetService);
+    }
+}
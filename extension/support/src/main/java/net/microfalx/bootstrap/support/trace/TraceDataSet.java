@@ -0,0 +1,28 @@
+package net.microfalx.bootstrap.support.trace;
+
+import net.microfalx.bootstrap.dataset.DataSetFactory;
+import net.microfalx.bootstrap.dataset.PojoDataSet;
+import net.microfalx.bootstrap.model.Filter;
+import net.microfalx.bootstrap.model.Metadata;
+import net.microfalx.bootstrap.model.PojoField;
+import net.microfalx.bootstrap.trace.SpanStore;
+import net.microfalx.lang.annotation.Provider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Provider
+public class TraceDataSet extends PojoDataSet<Trace, PojoField<Trace>, String> {
+
+    public TraceDataSet(DataSetFactory<Trace, PojoField<Trace>, String> factory, Metadata<Trace, PojoField<Trace>, String> metadata) {
+        super(factory, metadata);
+    }
+
+    @Override
+    protected Page<Trace> doFindAll(Pageable pageable, Filter filterable) {
+        List<Trace> traces = SpanStore.get().getTraces().stream().map(Trace::from).collect(Collectors.toList());
+        return getPage(traces, pageable, filterable);
+    }
+}
@@ -1,5 +1,6 @@
 package net.microfalx.bootstrap.template;
 
+import net.microfalx.bootstrap.trace.Span;
 import net.microfalx.metrics.Metrics;
 import net.microfalx.resource.Resource;
 
@@ -37,22 +38,28 @@ public abstract class AbstractTemplate implements Template {
 
     @Override
     public final <T> T evaluate(TemplateContext context) {
+        Span span = Span.start("Template Expression").setAttribute("name", resource.getName());
         try {
             return EXPRESSION.timeCallable(resource.getName(), () -> doEvaluate(context));
         } catch (Exception e) {
-            throw new TemplateException("Failed to evaluate expression '" + getResource() + "'", e);
+            throw span.fail(new TemplateException("Failed to evaluate expression '" + getResource() + "'", e));
+        } finally {
+            span.end();
         }
     }
 
     @Override
     public final void evaluate(TemplateContext context, OutputStream outputStream) throws IOException {
+        Span span = Span.start("Template Render").setAttribute("path", resource.getPath());
         try {
             RESOURCE.timeCallable(resource.getPath(), () -> {
                 doEvaluate(context, outputStream);
                 return null;
             });
         } catch (Exception e) {
-            throw new TemplateException("Failed to evaluate expression '" + getResource() + "'", e);
+            throw span.fail(new TemplateException("Failed to evaluate expression '" + getResource() + "'", e));
+        } finally {
+            span.end();
         }
     }
 
@@ -242,6 +242,19 @@ public final class ApplicationService implements InitializingBean {
         return assetBundleManager.getAssetBundlesContent(type, header, ids);
     }
 
+    /**
+     * Returns the compiled (concatenated, fingerprinted and compressed) content of an asset bundle.
+     * <p>
+     * The bundle is compiled once (at startup for all bundles), unless the assets are in debug mode.
+     *
+     * @param type the type of the asset
+     * @param id   the asset bundle identifier
+     * @return a non-null instance
+     */
+    public CompiledAssetBundle compileAssetBundle(Asset.Type type, String id) throws IOException {
+        return assetBundleManager.compileAssetBundles(type, true, id);
+    }
+
     /**
      * Returns the HTML tag to include this external asset in a web page.
      *
@@ -282,6 +295,16 @@ public final class ApplicationService implements InitializingBean {
         return builder.toString();
     }
 
+    private String getFingerprint(AssetBundle assetBundle, Asset.Type type) {
+        if (assetProperties.isDebug()) return null;
+        try {
+            return compileAssetBundle(type, assetBundle.getId()).getFingerprint();
+        } catch (Exception e) {
+            LOGGER.atWarn().setCause(e).log("Failed to compile asset bundle " + assetBundle.getName());
+            return null;
+        }
+    }
+
     ResourceService getResourceService() {
         return resourceService;
     }
@@ -341,12 +364,16 @@ public final class ApplicationService implements InitializingBean {
             default -> throw new IllegalStateException("Unhandled asset type: " + type);
         }
         path += "/" + assetBundle.getId();
-        path = webContainerService.getPath(path);
-        builder.append(path).append("?version=");
-        if (isNotEmpty(assetBundle.getVersion())) {
-            builder.append(assetBundle.getVersion());
+        String fingerprint = getFingerprint(assetBundle, type);
+        if (fingerprint != null) {
+            builder.append(webContainerService.getPath(path + "/" + fingerprint));
         } else {
-            builder.append(Long.toString(timestamp, Character.MAX_RADIX));
+            builder.append(webContainerService.getPath(path)).append("?version=");
+            if (isNotEmpty(assetBundle.getVersion())) {
+                builder.append(assetBundle.getVersion());
+            } else {
+                builder.append(Long.toString(timestamp, Character.MAX_RADIX));
+            }
         }
         builder.append('"');
         appendEndOfTag(builder, type, null);
@@ -426,6 +453,7 @@ public final class ApplicationService implements InitializingBean {
         LOGGER.info("Started application, version: {}, build number: {}, build time: {}",
                 application.getVersion(), application.getBuildNumber(), application.getBuildTime());
         assetBundleManager.loadDynamic();
+        assetBundleManager.compile();
     }
 
     private void initTheme() {
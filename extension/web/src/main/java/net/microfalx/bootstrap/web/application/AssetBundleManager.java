@@ -7,7 +7,6 @@ import net.microfalx.lang.ClassUtils;
 import net.microfalx.lang.ConcurrencyUtils;
 import net.microfalx.lang.StringUtils;
 import net.microfalx.resource.ClassPathResource;
-import net.microfalx.resource.MemoryResource;
 import net.microfalx.resource.Resource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,7 +15,6 @@ import org.springframework.context.ApplicationContextAware;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
@@ -25,7 +23,6 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.CountDownLatch;
-import java.util.zip.GZIPOutputStream;
 
 import static net.microfalx.lang.ArgumentUtils.requireNonNull;
 import static net.microfalx.lang.ArgumentUtils.requireNotEmpty;
@@ -38,10 +35,12 @@ final class AssetBundleManager {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AssetBundleManager.class);
 
+    private static final Asset.Type[] COMPILED_TYPES = {Asset.Type.JAVA_SCRIPT, Asset.Type.STYLE_SHEET};
+
     private final ApplicationService applicationService;
     private final Map<String, AssetBundle> bundles = new ConcurrentHashMap<>();
     private final Map<String, Theme> themes = new ConcurrentHashMap<>();
-    private final Map<String, Resource> bundlesContent = new ConcurrentHashMap<>();
+    private final Map<String, CompiledAssetBundle> bundlesContent = new ConcurrentHashMap<>();
     private final Map<String, Collection<String>> assetBundleDependencies = new ConcurrentHashMap<>();
     private final Set<String> missingAssets = new CopyOnWriteArraySet<>();
     private final Collection<AssetBundleListener> listeners = new CopyOnWriteArrayList<>();
@@ -120,15 +119,19 @@ final class AssetBundleManager {
     }
 
     Resource getAssetBundlesContent(Asset.Type type, boolean header, String... ids) throws IOException {
+        return compileAssetBundles(type, header, ids).getResource();
+    }
+
+    CompiledAssetBundle compileAssetBundles(Asset.Type type, boolean header, String... ids) throws IOException {
         requireNonNull(type);
         requireNotEmpty(ids);
-        String contentId = type.name().toLowerCase() + "/" + StringUtils.join("_", ids);
-        Resource resource = bundlesContent.get(contentId);
-        if (resource != null && !assetProperties.isDebug()) return resource;
+        String contentId = type.name().toLowerCase() + "/" + StringUtils.join("_", ids) + (header ? "" : "/nh");
+        CompiledAssetBundle compiledAssetBundle = bundlesContent.get(contentId);
+        if (compiledAssetBundle != null && !assetProperties.isDebug()) return compiledAssetBundle;
         ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        OutputStream stream = new GZIPOutputStream(buffer);
         FeatureContext featureContext = FeatureContext.get();
-        try (OutputStreamWriter writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8)) {
+        Resource resource;
+        try (OutputStreamWriter writer = new OutputStreamWriter(buffer, StandardCharsets.UTF_8)) {
             int counter = 0;
             for (String id : ids) {
                 AssetBundle assetBundle = getAssetBundle(id);
@@ -154,9 +157,9 @@ final class AssetBundleManager {
                 counter++;
             }
         }
-        resource = MemoryResource.create(buffer.toByteArray(), contentId);
-        bundlesContent.put(contentId, resource);
-        return resource;
+        compiledAssetBundle = new CompiledAssetBundle(contentId, type, buffer.toByteArray());
+        bundlesContent.put(contentId, compiledAssetBundle);
+        return compiledAssetBundle;
     }
 
     Collection<AssetBundle> getAssetBundles() {
@@ -206,6 +209,25 @@ final class AssetBundleManager {
         latch.countDown();
     }
 
+    void compile() {
+        if (assetProperties.isDebug()) return;
+        long startTime = System.currentTimeMillis();
+        int count = 0;
+        for (AssetBundle bundle : bundles.values()) {
+            if (bundle.isExternal()) continue;
+            for (Asset.Type type : COMPILED_TYPES) {
+                if (!bundle.has(type)) continue;
+                try {
+                    compileAssetBundles(type, true, bundle.getId());
+                    count++;
+                } catch (Exception e) {
+                    LOGGER.atError().setCause(e).log("Failed to compile asset bundle " + bundle.getName());
+                }
+            }
+        }
+        LOGGER.info("Compiled {} asset bundles in {}ms", count, System.currentTimeMillis() - startTime);
+    }
+
     void loadDynamic(AssetBundle bundle) {
         for (AssetBundleListener listener : listeners) {
             try {
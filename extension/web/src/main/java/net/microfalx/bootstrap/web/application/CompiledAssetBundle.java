@@ -0,0 +1,202 @@
+package net.microfalx.bootstrap.web.application;
+
+import net.microfalx.lang.Identifiable;
+import net.microfalx.lang.StringUtils;
+import net.microfalx.resource.MemoryResource;
+import net.microfalx.resource.Resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.StringJoiner;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+import static net.microfalx.lang.ArgumentUtils.requireNotEmpty;
+
+/**
+ * Holds the content of one or more asset bundles, concatenated and compressed once.
+ * <p>
+ * Each compiled bundle has a fingerprint (derived from the content), which is part of the URL used to reference
+ * the bundle in web pages. Since the URL changes every time the content changes, browsers can cache the content
+ * forever.
+ */
+public final class CompiledAssetBundle implements Identifiable<String> {
+
+    private static final int FINGERPRINT_LENGTH = 16;
+
+    private final String id;
+    private final Asset.Type type;
+    private final byte[] content;
+    private final byte[] gzipContent;
+    private final String fingerprint;
+    private final Resource resource;
+    private final long createdAt = System.currentTimeMillis();
+
+    CompiledAssetBundle(String id, Asset.Type type, byte[] content) throws IOException {
+        requireNotEmpty(id);
+        requireNonNull(type);
+        requireNonNull(content);
+        this.id = id;
+        this.type = type;
+        this.content = content;
+        this.gzipContent = compress(content);
+        this.fingerprint = calculateFingerprint(content);
+        this.resource = MemoryResource.create(content, id);
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the type of the assets.
+     *
+     * @return a non-null instance
+     */
+    public Asset.Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the fingerprint of the content.
+     *
+     * @return a non-null instance
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns the entity tag (a quoted fingerprint) used to validate cached content.
+     *
+     * @return a non-null instance
+     */
+    public String getETag() {
+        return "\"" + fingerprint + "\"";
+    }
+
+    /**
+     * Returns the (uncompressed) content as a resource.
+     *
+     * @return a non-null instance
+     */
+    public Resource getResource() {
+        return resource;
+    }
+
+    /**
+     * Returns the content for a given encoding.
+     *
+     * @param encoding the encoding
+     * @return a non-null instance
+     */
+    public byte[] getContent(Encoding encoding) {
+        requireNonNull(encoding);
+        return switch (encoding) {
+            case GZIP -> gzipContent;
+            default -> content;
+        };
+    }
+
+    /**
+     * Returns the time when the bundle was compiled.
+     *
+     * @return millis since epoch
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Selects the best encoding accepted by the client.
+     *
+     * @param acceptEncoding the value of the <code>Accept-Encoding</code> header, can be null
+     * @return a non-null instance
+     */
+    public Encoding selectEncoding(String acceptEncoding) {
+        if (StringUtils.isEmpty(acceptEncoding)) return Encoding.IDENTITY;
+        for (String value : StringUtils.split(acceptEncoding, ",")) {
+            String[] parts = StringUtils.split(value, ";");
+            if (parts.length == 0 || !isAccepted(parts)) continue;
+            String coding = parts[0].trim().toLowerCase();
+            if ("gzip".equals(coding) || "*".equals(coding)) return Encoding.GZIP;
+        }
+        return Encoding.IDENTITY;
+    }
+
+    private static boolean isAccepted(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) > 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static byte[] compress(byte[] content) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream stream = new GZIPOutputStream(buffer) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            stream.write(content);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static String calculateFingerprint(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(digest).substring(0, FINGERPRINT_LENGTH);
+        } catch (NoSuchAlgorithmException e) {
+            throw new ApplicationException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", CompiledAssetBundle.class.getSimpleName() + "[", "]")
+                .add("id='" + id + "'")
+                .add("type=" + type)
+                .add("fingerprint='" + fingerprint + "'")
+                .add("size=" + content.length)
+                .add("gzipSize=" + gzipContent.length)
+                .toString();
+    }
+
+    /**
+     * An enum for the encodings available for a compiled bundle.
+     */
+    public enum Encoding {
+
+        /**
+         * The content is not compressed.
+         */
+        IDENTITY,
+
+        /**
+         * The content is compressed with GZIP.
+         */
+        GZIP;
+
+        /**
+         * Returns the value of the <code>Content-Encoding</code> header.
+         *
+         * @return the value, null for {@link #IDENTITY}
+         */
+        public String getValue() {
+            return this == GZIP ? "gzip" : null;
+        }
+    }
+}
@@ -3,25 +3,26 @@ package net.microfalx.bootstrap.web.controller;
 import net.microfalx.bootstrap.web.application.ApplicationException;
 import net.microfalx.bootstrap.web.application.ApplicationService;
 import net.microfalx.bootstrap.web.application.Asset;
-import net.microfalx.resource.Resource;
+import net.microfalx.bootstrap.web.application.CompiledAssetBundle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 
 import java.io.IOException;
 import java.time.Duration;
 
 import static net.microfalx.bootstrap.web.controller.AssetUtils.getContentType;
-import static net.microfalx.lang.StringUtils.removeStartSlash;
+import static net.microfalx.lang.StringUtils.*;
 
 @Controller
 @RequestMapping(value = "/asset")
@@ -29,16 +30,37 @@ public class AssetBundleController implements AnonymousController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AssetBundleController.class);
 
+    private static final Duration DEFAULT_MAX_AGE = Duration.ofMinutes(15);
+    private static final Duration IMMUTABLE_MAX_AGE = Duration.ofDays(365);
+
     @Autowired private ApplicationService applicationService;
 
     @GetMapping(value = "/css/{id}", consumes = MediaType.ALL_VALUE)
-    public ResponseEntity<Object> stylesheet(@PathVariable("id") String id) {
-        return getBundle(id, Asset.Type.STYLE_SHEET);
+    public ResponseEntity<Object> stylesheet(@PathVariable("id") String id,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return getBundle(id, null, Asset.Type.STYLE_SHEET, acceptEncoding, ifNoneMatch);
+    }
+
+    @GetMapping(value = "/css/{id}/{fingerprint}", consumes = MediaType.ALL_VALUE)
+    public ResponseEntity<Object> stylesheet(@PathVariable("id") String id, @PathVariable("fingerprint") String fingerprint,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return getBundle(id, fingerprint, Asset.Type.STYLE_SHEET, acceptEncoding, ifNoneMatch);
     }
 
     @GetMapping(value = "/js/{id}", consumes = MediaType.ALL_VALUE)
-    public ResponseEntity<Object> javaScript(@PathVariable("id") String id) {
-        return getBundle(id, Asset.Type.JAVA_SCRIPT);
+    public ResponseEntity<Object> javaScript(@PathVariable("id") String id,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return getBundle(id, null, Asset.Type.JAVA_SCRIPT, acceptEncoding, ifNoneMatch);
+    }
+
+    @GetMapping(value = "/js/{id}/{fingerprint}", consumes = MediaType.ALL_VALUE)
+    public ResponseEntity<Object> javaScript(@PathVariable("id") String id, @PathVariable("fingerprint") String fingerprint,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return getBundle(id, fingerprint, Asset.Type.JAVA_SCRIPT, acceptEncoding, ifNoneMatch);
     }
 
     @GetMapping(value = "/font/{*path}", consumes = MediaType.ALL_VALUE)
@@ -51,12 +73,24 @@ public class AssetBundleController implements AnonymousController {
         return AssetUtils.getResource(removeStartSlash(path), Asset.Type.IMAGE);
     }
 
-    private ResponseEntity<Object> getBundle(String id, Asset.Type type) {
+    private ResponseEntity<Object> getBundle(String id, String fingerprint, Asset.Type type, String acceptEncoding, String ifNoneMatch) {
         try {
-            Resource content = applicationService.getAssetBundleContent(type, id);
-            return ResponseEntity.ok().contentType(MediaType.parseMediaType(getContentType(type)))
-                    .eTag(content.toHash()).cacheControl(CacheControl.maxAge(Duration.ofMinutes(15)))
-                    .body(new InputStreamResource(content.getInputStream()));
+            CompiledAssetBundle bundle = applicationService.compileAssetBundle(type, id);
+            // a fingerprint which does not match (a page rendered before the bundle changed) gets the current content, but it is not cached for long
+            CacheControl cacheControl = bundle.getFingerprint().equals(fingerprint)
+                    ? CacheControl.maxAge(IMMUTABLE_MAX_AGE).cachePublic().immutable()
+                    : CacheControl.maxAge(DEFAULT_MAX_AGE);
+            if (isNotModified(bundle, ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(bundle.getETag()).cacheControl(cacheControl)
+                        .varyBy(HttpHeaders.ACCEPT_ENCODING).build();
+            }
+            CompiledAssetBundle.Encoding encoding = bundle.selectEncoding(acceptEncoding);
+            byte[] content = bundle.getContent(encoding);
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(MediaType.parseMediaType(getContentType(type)))
+                    .eTag(bundle.getETag()).cacheControl(cacheControl).varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .contentLength(content.length);
+            if (encoding.getValue() != null) builder.header(HttpHeaders.CONTENT_ENCODING, encoding.getValue());
+            return builder.body(content);
         } catch (ApplicationException e) {
             return ResponseEntity.notFound().build();
         } catch (IOException e) {
@@ -65,4 +99,14 @@ public class AssetBundleController implements AnonymousController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(message);
         }
     }
+
+    private boolean isNotModified(CompiledAssetBundle bundle, String ifNoneMatch) {
+        if (isEmpty(ifNoneMatch)) return false;
+        for (String etag : split(ifNoneMatch, ",")) {
+            etag = etag.trim();
+            if (etag.startsWith("W/")) etag = etag.substring(2);
+            if ("*".equals(etag) || bundle.getETag().equals(etag)) return true;
+        }
+        return false;
+    }
 }
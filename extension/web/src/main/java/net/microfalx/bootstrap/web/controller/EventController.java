@@ -1,5 +1,6 @@
 package net.microfalx.bootstrap.web.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
@@ -79,6 +80,20 @@ public class EventController implements AnonymousController {
         }
 
         private void sendEvent(Event event) {
+            String data;
+            try {
+                data = objectMapper.writeValueAsString(event);
+            } catch (JsonProcessingException e) {
+                throw new EventException("Failed to serialize event '" + event.getName() + "'", e);
+            }
+            sendEvent(event, data);
+        }
+
+        private void sendEvent(EventMessage message) {
+            sendEvent(message.getEvent(), message.getData());
+        }
+
+        private void sendEvent(Event event, String data) {
             SseEmitter.SseEventBuilder builder = SseEmitter.event().id(event.getId());
             if (event instanceof PingEvent) {
                 builder.comment("ping");
@@ -86,7 +101,6 @@ public class EventController implements AnonymousController {
                 builder.name(event.getName());
             }
             try {
-                String data = objectMapper.writeValueAsString(event);
                 builder.data(data);
                 emitter.send(builder);
             } catch (IllegalStateException e) {
@@ -120,9 +134,9 @@ public class EventController implements AnonymousController {
             try {
                 long lastEvent = currentTimeMillis();
                 while (!completed.get() && millisSince(lastEvent) < SSE_TIMEOUT) {
-                    Event event = eventService.poll(application);
-                    if (event != null) {
-                        sendEvent(event);
+                    EventMessage message = eventService.next(application);
+                    if (message != null) {
+                        sendEvent(message);
                         lastEvent = currentTimeMillis();
                     } else {
                         sleepMillis(20);
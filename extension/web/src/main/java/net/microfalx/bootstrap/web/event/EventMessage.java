@@ -0,0 +1,106 @@
+package net.microfalx.bootstrap.web.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.StringJoiner;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * An event ready to be sent to the client side.
+ * <p>
+ * The event is serialized once, the first time its data is requested, and the same data is sent to all applications
+ * receiving the event.
+ */
+public final class EventMessage {
+
+    private final long sequence;
+    private final long order;
+    private final Event event;
+    private final String target;
+    private final ObjectMapper objectMapper;
+    private volatile String data;
+
+    EventMessage(long sequence, long order, Event event, String target, ObjectMapper objectMapper) {
+        requireNonNull(event);
+        requireNonNull(objectMapper);
+        this.sequence = sequence;
+        this.order = order;
+        this.event = event;
+        this.target = target;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Returns the position of the event in the event buffer.
+     *
+     * @return a positive integer, -1 if the message is not part of the buffer
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the position of the event among all events published, regardless of the buffer storing the event.
+     *
+     * @return a positive integer
+     */
+    long getOrder() {
+        return order;
+    }
+
+    /**
+     * Returns the event.
+     *
+     * @return a non-null instance
+     */
+    public Event getEvent() {
+        return event;
+    }
+
+    /**
+     * Returns the application which receives the event.
+     *
+     * @return the application identifier, null if the event is broadcast to all applications
+     */
+    public String getTarget() {
+        return target;
+    }
+
+    /**
+     * Returns whether the event is sent to all applications.
+     *
+     * @return {@code true} if broadcast, {@code false} otherwise
+     */
+    public boolean isBroadcast() {
+        return target == null;
+    }
+
+    /**
+     * Returns the event serialized as JSON.
+     *
+     * @return a non-null instance
+     */
+    public String getData() {
+        String data = this.data;
+        if (data == null) {
+            try {
+                data = objectMapper.writeValueAsString(event);
+            } catch (JsonProcessingException e) {
+                throw new EventException("Failed to serialize event '" + event.getName() + "'", e);
+            }
+            this.data = data;
+        }
+        return data;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", EventMessage.class.getSimpleName() + "[", "]")
+                .add("sequence=" + sequence)
+                .add("event=" + event.getName())
+                .add("target='" + target + "'")
+                .toString();
+    }
+}
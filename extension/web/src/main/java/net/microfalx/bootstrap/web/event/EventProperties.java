@@ -0,0 +1,28 @@
+package net.microfalx.bootstrap.web.event;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties("bootstrap.event")
+@Getter
+@Setter
+@ToString
+public class EventProperties {
+
+    /**
+     * The number of events broadcast to all applications retained until all applications read them.
+     */
+    private int bufferSize = EventService.EVENT_BUFFER_SIZE;
+
+    /**
+     * The number of events sent to an application retained until the application reads them.
+     * <p>
+     * Each application has its own buffer, an application which does not keep up with its events
+     * does not cause other applications to lose events.
+     */
+    private int applicationBufferSize = 1024;
+}
@@ -0,0 +1,85 @@
+package net.microfalx.bootstrap.web.event;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongFunction;
+
+import static net.microfalx.lang.ArgumentUtils.requireNonNull;
+
+/**
+ * A bounded ring buffer of events.
+ * <p>
+ * Each event is stored once, regardless of the number of applications reading it, and applications keep only
+ * a read position. Readers never block the writers: once a reader falls behind by more than the capacity of the
+ * buffer, the events it did not read yet are overwritten and {@link #get(long)} no longer returns them.
+ */
+final class EventRing {
+
+    private final int capacity;
+    private final AtomicReferenceArray<EventMessage> messages;
+    private volatile long sequence;
+
+    EventRing(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive, received " + capacity);
+        this.capacity = capacity;
+        this.messages = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Returns the maximum number of events retained by the buffer.
+     *
+     * @return a positive integer
+     */
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the sequence of the next event to be written, which is also the number of events written so far.
+     *
+     * @return a positive integer
+     */
+    long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the sequence of the oldest event still available in the buffer.
+     *
+     * @return a positive integer
+     */
+    long getOldestSequence() {
+        return Math.max(0, sequence - capacity);
+    }
+
+    /**
+     * Appends a message to the buffer, overwriting the oldest message if the buffer is full.
+     *
+     * @param factory creates the message for a given sequence
+     * @return the message
+     */
+    synchronized EventMessage append(LongFunction<EventMessage> factory) {
+        requireNonNull(factory);
+        long next = sequence;
+        EventMessage message = factory.apply(next);
+        messages.set(index(next), message);
+        // the message is visible to readers only after the sequence is updated
+        sequence = next + 1;
+        return message;
+    }
+
+    /**
+     * Returns the message at a given sequence.
+     *
+     * @param sequence the sequence
+     * @return the message, null if the message was not written yet or it was overwritten
+     */
+    EventMessage get(long sequence) {
+        if (sequence < 0 || sequence >= this.sequence) return null;
+        EventMessage message = messages.get(index(sequence));
+        return message != null && message.getSequence() == sequence ? message : null;
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % capacity);
+    }
+}
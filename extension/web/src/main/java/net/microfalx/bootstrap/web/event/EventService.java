@@ -1,6 +1,7 @@
 package net.microfalx.bootstrap.web.event;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import net.microfalx.lang.ClassUtils;
 import net.microfalx.lang.Identifiable;
@@ -13,22 +14,25 @@ import org.springframework.stereotype.Service;
 
 import java.util.Collection;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.lang.System.currentTimeMillis;
 import static java.time.Duration.ofSeconds;
 import static java.util.Collections.unmodifiableCollection;
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static net.microfalx.lang.ArgumentUtils.requireNonNull;
 import static net.microfalx.lang.ArgumentUtils.requireNotEmpty;
 import static net.microfalx.lang.ClassUtils.isSubClassOf;
-import static net.microfalx.lang.ExceptionUtils.rethrowExceptionAndReturn;
 import static net.microfalx.lang.TimeUtils.FIVE_MINUTE;
 
 /**
  * A service which manages events.
+ * <p>
+ * Events broadcast to the client side are stored once in a bounded ring buffer shared by all applications, and each
+ * application keeps only a read position in the buffer. Events sent to one application are stored in a (smaller)
+ * ring buffer owned by the application, so a busy application cannot evict the events of other applications.
+ * An application which does not keep up with the events (its position was overwritten) is marked as lagging and
+ * receives a {@link ResyncEvent} instead of the lost events.
  */
 @Service
 @Slf4j
@@ -36,13 +40,18 @@ public class EventService implements InitializingBean {
 
     public static final long SSE_TIMEOUT = FIVE_MINUTE;
     public static final long APPLICATION_TIMEOUT = FIVE_MINUTE;
+    public static final int EVENT_BUFFER_SIZE = 8192;
 
-    private final Map<String, ApplicationQueue> events = new ConcurrentHashMap<>();
+    private final Map<String, ApplicationCursor> cursors = new ConcurrentHashMap<>();
     private final Map<Class<? extends Event>, EventListener<?>> listeners = new ConcurrentHashMap<>();
     private final Map<String, Class<? extends Event>> eventTypes = new ConcurrentHashMap<>();
     private EventSerde eventSerde;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong order = new AtomicLong();
+    private volatile EventRing ring;
 
     @Autowired private ApplicationContext applicationContext;
+    @Autowired(required = false) private EventProperties properties = new EventProperties();
 
     private ThreadPool threadPool;
 
@@ -105,8 +114,32 @@ public class EventService implements InitializingBean {
      */
     @SuppressWarnings("unchecked")
     public <E> E poll(String application) {
-        ApplicationQueue queue = getQueue(application);
-        return (E) queue.poll();
+        EventMessage message = next(application);
+        return message != null ? (E) message.getEvent() : null;
+    }
+
+    /**
+     * Returns the next event to be sent to the client side, with its serialized form.
+     * <p>
+     * If the application fell behind and some events were lost, a {@link ResyncEvent} is returned and the
+     * application continues with the most recent events.
+     *
+     * @param application the application identifier
+     * @return the message or null if none is available
+     */
+    public EventMessage next(String application) {
+        return getCursor(application).next();
+    }
+
+    /**
+     * Returns whether the application lost events because it did not read them fast enough.
+     *
+     * @param application the application identifier
+     * @return {@code true} if lagging, {@code false} otherwise
+     */
+    public boolean isLagging(String application) {
+        ApplicationCursor cursor = cursors.get(application);
+        return cursor != null && cursor.isLagging();
     }
 
     /**
@@ -120,10 +153,24 @@ public class EventService implements InitializingBean {
         if (StringUtils.isEmpty(application)) {
             throw new EventException("Event application is not set for event " + event);
         } else {
-            getQueue(application).add(event);
+            ApplicationCursor cursor = getCursor(application);
+            if (!isSubClassOf(event, PingEvent.class)) cursor.touch();
+            cursor.append(event);
         }
     }
 
+    /**
+     * Publish an event from services to all applications.
+     * <p>
+     * The event is stored (and serialized) once, regardless of the number of applications.
+     *
+     * @param event the event
+     */
+    public void broadcast(Event event) {
+        requireNonNull(event);
+        getRing().append(sequence -> new EventMessage(sequence, order.getAndIncrement(), event, null, objectMapper));
+    }
+
     /**
      * Decodes an event payload received from the client side.
      * <p>
@@ -162,15 +209,14 @@ public class EventService implements InitializingBean {
      * Pings all applications to keep the connections alive.
      */
     public void ping() {
-        for (ApplicationQueue queue : events.values()) {
-            publish(new PingEvent().setApplication(queue.getId()));
-        }
+        broadcast(new PingEvent());
     }
 
     @Override
     public void afterPropertiesSet() throws Exception {
         loadListeners();
         initObjectMapper();
+        initBuffer();
         initThreadPool();
         initWorkers();
     }
@@ -194,9 +240,18 @@ public class EventService implements InitializingBean {
         LOGGER.info("Loaded {} event listeners", listeners.size());
     }
 
-    private ApplicationQueue getQueue(String application) {
+    private ApplicationCursor getCursor(String application) {
         requireNotEmpty(application);
-        return events.computeIfAbsent(application, ApplicationQueue::new);
+        return cursors.computeIfAbsent(application, ApplicationCursor::new);
+    }
+
+    private EventRing getRing() {
+        if (ring == null) {
+            synchronized (this) {
+                if (ring == null) ring = new EventRing(properties.getBufferSize());
+            }
+        }
+        return ring;
     }
 
     private void initThreadPool() {
@@ -209,6 +264,10 @@ public class EventService implements InitializingBean {
         threadPool.scheduleAtFixedRate(new MaintenanceTask(), ofSeconds(30));
     }
 
+    private void initBuffer() {
+        getRing();
+    }
+
     private void initObjectMapper() {
         if (eventSerde == null) {
             eventSerde = new EventSerde();
@@ -217,13 +276,13 @@ public class EventService implements InitializingBean {
 
 
     private void destroyApplication(String id) {
-        events.remove(id);
+        cursors.remove(id);
     }
 
     private void destroyIdle() {
-        for (ApplicationQueue queue : events.values()) {
-            if (queue.isStale()) {
-                destroyApplication(queue.getId());
+        for (ApplicationCursor cursor : cursors.values()) {
+            if (cursor.isStale()) {
+                destroyApplication(cursor.getId());
             }
         }
     }
@@ -237,15 +296,19 @@ public class EventService implements InitializingBean {
         }
     }
 
-    private static class ApplicationQueue implements Identifiable<String> {
+    private class ApplicationCursor implements Identifiable<String> {
 
         private final String id;
-        private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
         private final long created = currentTimeMillis();
+        private final EventRing targetedRing = new EventRing(properties.getApplicationBufferSize());
         private volatile long lastUsed = created;
+        private long position;
+        private long targetedPosition;
+        private volatile boolean lagging;
 
-        ApplicationQueue(String id) {
+        ApplicationCursor(String id) {
             this.id = id;
+            this.position = getRing().getSequence();
         }
 
         @Override
@@ -253,18 +316,31 @@ public class EventService implements InitializingBean {
             return id;
         }
 
-        void add(Event event) {
-            if (!isSubClassOf(event, PingEvent.class)) touch();
-            if (!events.offer(event)) {
-                LOGGER.warn("Event queue for application '{}' is full, dropping event: {}", id, event.getName());
-            }
+        void append(Event event) {
+            targetedRing.append(sequence -> new EventMessage(sequence, order.getAndIncrement(), event, id, objectMapper));
         }
 
-        Event poll() {
-            try {
-                return events.poll(500, MILLISECONDS);
-            } catch (InterruptedException e) {
-                return rethrowExceptionAndReturn(e);
+        synchronized EventMessage next() {
+            EventRing ring = getRing();
+            EventMessage message = null;
+            if (position < ring.getSequence()) {
+                message = ring.get(position);
+                if (message == null) return resync();
+            }
+            EventMessage targetedMessage = null;
+            if (targetedPosition < targetedRing.getSequence()) {
+                targetedMessage = targetedRing.get(targetedPosition);
+                if (targetedMessage == null) return resync();
+            }
+            // deliver the events in the order they were published
+            if (targetedMessage != null && (message == null || targetedMessage.getOrder() < message.getOrder())) {
+                targetedPosition++;
+                return targetedMessage;
+            } else if (message != null) {
+                position++;
+                return message;
+            } else {
+                return null;
             }
         }
 
@@ -272,8 +348,25 @@ public class EventService implements InitializingBean {
             lastUsed = currentTimeMillis();
         }
 
+        boolean isLagging() {
+            return lagging;
+        }
+
         boolean isStale() {
             return (currentTimeMillis() - lastUsed) > APPLICATION_TIMEOUT;
         }
+
+        private EventMessage resync() {
+            EventRing ring = getRing();
+            long missed = Math.max(0, ring.getOldestSequence() - position)
+                    + Math.max(0, targetedRing.getOldestSequence() - targetedPosition);
+            LOGGER.warn("Application '{}' is lagging, {} events were lost", id, missed);
+            lagging = true;
+            position = ring.getSequence();
+            targetedPosition = targetedRing.getSequence();
+            ResyncEvent event = new ResyncEvent().setMissed(missed);
+            event.setApplication(id);
+            return new EventMessage(-1, order.get(), event, id, objectMapper);
+        }
     }
 }
@@ -0,0 +1,21 @@
+package net.microfalx.bootstrap.web.event;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import net.microfalx.lang.annotation.Name;
+
+/**
+ * An event sent to an application which did not read its events fast enough and lost some of them.
+ * <p>
+ * The client side is expected to reload its state, since the following events are relative to the state
+ * at the time of the event.
+ */
+@Getter
+@Setter
+@ToString(callSuper = true)
+@Name("resync")
+public class ResyncEvent extends AbstractEvent {
+
+    private long missed;
+}
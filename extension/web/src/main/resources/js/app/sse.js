@@ -74,6 +74,19 @@ Application.Sse.isEnabled = function () {
     return Application.Sse.enabled !== false && Application.isAuthenticated();
 }
 
+/**
+ * Handles the loss of events: the server could not deliver some events (the page did not read them fast enough),
+ * so the state of the page is stale and the page is reloaded.
+ * <p>
+ * Pages which can refetch their state replace this function.
+ *
+ * @param {Object} event the resync event, with the number of missed events
+ */
+Application.Sse.resync = function (event) {
+    Logger.warn("Lost " + event.missed + " events from the server, reload the page");
+    Application.reload();
+}
+
 /**
  * Initialize the SSE channel.
  */
@@ -95,3 +108,6 @@ Application.Sse.initialize = function () {
 }
 
 Application.bind("start", Application.Sse.initialize);
+Application.bind("resync", function (event) {
+    Application.Sse.resync(event);
+});
@@ -2,25 +2,39 @@ package net.microfalx.bootstrap.web.controller;
 
 import net.microfalx.bootstrap.web.application.ApplicationProperties;
 import net.microfalx.bootstrap.web.application.ApplicationService;
+import net.microfalx.bootstrap.web.application.Asset;
+import net.microfalx.bootstrap.web.application.CompiledAssetBundle;
 import net.microfalx.bootstrap.web.container.WebContainerService;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ContextConfiguration(classes = {AssetBundleController.class, WebContainerService.class, ApplicationService.class, ApplicationProperties.class})
 @WebMvcTest(AssetBundleController.class)
 class AssetBundleControllerTest extends AbstractControllerTestCase {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(AssetBundleControllerTest.class);
+
     @Autowired
     private AssetBundleController controller;
 
@@ -52,4 +66,49 @@ class AssetBundleControllerTest extends AbstractControllerTestCase {
         assertThat(response).contains("Asset: bootstrap.css");
     }
 
+    @Test
+    void fingerprinted() throws Exception {
+        CompiledAssetBundle bundle = applicationService.compileAssetBundle(Asset.Type.JAVA_SCRIPT, "bootstrap");
+        mockMvc.perform(get("/asset/js/bootstrap/" + bundle.getFingerprint()).with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, bundle.getETag()))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"));
+        mockMvc.perform(get("/asset/js/bootstrap/" + bundle.getFingerprint()).header(HttpHeaders.IF_NONE_MATCH, bundle.getETag()).with(csrf()))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void compressed() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/asset/css/bootstrap").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br").with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn();
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(mvcResult.getResponse().getContentAsByteArray()))) {
+            assertThat(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8)).contains("Asset: bootstrap.css");
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "asset.benchmark", matches = "true")
+    void benchmark() throws Exception {
+        CompiledAssetBundle bundle = applicationService.compileAssetBundle(Asset.Type.JAVA_SCRIPT, "bootstrap");
+        String uri = "/asset/js/bootstrap/" + bundle.getFingerprint();
+        int iterations = 2000;
+        for (int i = 0; i < iterations / 10; i++) {
+            mockMvc.perform(get(uri).header(HttpHeaders.ACCEPT_ENCODING, "gzip"));
+        }
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            mockMvc.perform(get(uri).header(HttpHeaders.ACCEPT_ENCODING, "gzip")).andExpect(status().isOk());
+        }
+        long servedDuration = System.nanoTime() - startTime;
+        startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, bundle.getETag())).andExpect(status().isNotModified());
+        }
+        long notModifiedDuration = System.nanoTime() - startTime;
+        LOGGER.info("Bundle {}, served in {}us, not modified in {}us", bundle, servedDuration / iterations / 1000,
+                notModifiedDuration / iterations / 1000);
+    }
+
 }
\ No newline at end of file
@@ -12,6 +12,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationContext;
 
@@ -26,6 +27,9 @@ class EventServiceTest {
     @Mock
     private ThreadPool threadPool;
 
+    @Spy
+    private EventProperties properties = new EventProperties().setBufferSize(4).setApplicationBufferSize(4);
+
     @InjectMocks
     private EventService eventService;
 
@@ -46,6 +50,71 @@ class EventServiceTest {
         assertNotNull(eventService.poll(Application.current()));
     }
 
+    @Test
+    void broadcast() {
+        assertNull(eventService.poll("app1"));
+        assertNull(eventService.poll("app2"));
+        eventService.broadcast(new PingEvent());
+        EventMessage message1 = eventService.next("app1");
+        EventMessage message2 = eventService.next("app2");
+        assertSame(message1, message2);
+        assertNotNull(message1.getData());
+        assertNull(eventService.next("app1"));
+    }
+
+    @Test
+    void publishToApplication() {
+        assertNull(eventService.poll("app1"));
+        assertNull(eventService.poll("app2"));
+        eventService.publish(new PingEvent().setApplication("app1"));
+        assertNull(eventService.poll("app2"));
+        assertNotNull(eventService.poll("app1"));
+    }
+
+    @Test
+    void resyncLaggingApplication() {
+        assertNull(eventService.poll("app1"));
+        for (int i = 0; i < 10; i++) {
+            eventService.broadcast(new TestEvent().setIndex(i));
+        }
+        ResyncEvent resyncEvent = eventService.poll("app1");
+        assertEquals(6, resyncEvent.getMissed());
+        assertTrue(eventService.isLagging("app1"));
+        assertNull(eventService.poll("app1"));
+        eventService.broadcast(new TestEvent().setIndex(10));
+        TestEvent event = eventService.poll("app1");
+        assertEquals(10, event.getIndex());
+    }
+
+    @Test
+    void busyApplicationDoesNotEvictOtherApplications() {
+        assertNull(eventService.poll("app1"));
+        assertNull(eventService.poll("app2"));
+        eventService.publish(new TestEvent().setIndex(0).setApplication("app2"));
+        for (int i = 0; i < 10; i++) {
+            eventService.publish(new TestEvent().setIndex(i).setApplication("app1"));
+        }
+        TestEvent event = eventService.poll("app2");
+        assertEquals(0, event.getIndex());
+        assertFalse(eventService.isLagging("app2"));
+        ResyncEvent resyncEvent = eventService.poll("app1");
+        assertEquals(6, resyncEvent.getMissed());
+        assertTrue(eventService.isLagging("app1"));
+    }
+
+    @Test
+    void deliverInPublishOrder() {
+        assertNull(eventService.poll("app1"));
+        eventService.broadcast(new TestEvent().setIndex(0));
+        eventService.publish(new TestEvent().setIndex(1).setApplication("app1"));
+        eventService.broadcast(new TestEvent().setIndex(2));
+        for (int i = 0; i < 3; i++) {
+            TestEvent event = eventService.poll("app1");
+            assertEquals(i, event.getIndex());
+        }
+        assertNull(eventService.poll("app1"));
+    }
+
     @Test
     void decodeEvent() {
         TestEvent event = eventService.decodeEvent("""